@@ -9,9 +9,12 @@
  * </ul>
  */
 module net.dapete.exceptional {
+    requires static java.sql;
     requires static lombok;
     requires org.jspecify;
     exports net.dapete.exceptional;
+    exports net.dapete.exceptional.collection;
+    exports net.dapete.exceptional.concurrent;
     exports net.dapete.exceptional.function;
     exports net.dapete.exceptional.stream;
     exports net.dapete.exceptional.wrap;
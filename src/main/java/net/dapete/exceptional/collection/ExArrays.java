@@ -0,0 +1,305 @@
+package net.dapete.exceptional.collection;
+
+import net.dapete.exceptional.function.*;
+import net.dapete.exceptional.internal.ParallelLoop;
+
+import java.util.Arrays;
+import java.util.function.*;
+
+/**
+ * Utility class with eager bulk operations on arrays, using functional interfaces that throw exceptions.
+ * <p>
+ * Like {@link ExLists}, these operations process the whole array immediately and throw the checked exceptions of the functional interfaces directly. Arrays
+ * with at least 8192 elements are processed in parallel in the current {@link java.util.concurrent.ForkJoinPool}, or the common pool, so the functional
+ * interfaces must be thread-safe. Once a call has thrown an exception, no further elements are processed, and the first exception is thrown.
+ * <p>
+ * The in-place operations {@code parallelSetAll} and {@code parallelPrefix} are the equivalents of the methods of {@link Arrays} with the same names. Like
+ * the operations of {@link net.dapete.exceptional.stream.ExStream}, they wrap their functional interfaces, so an exception is thrown as an
+ * {@link net.dapete.exceptional.ExException}, or as the original exception within an {@link net.dapete.exceptional.wrap.ExUnwrapper}.
+ */
+public final class ExArrays {
+
+    // Utility class with private constructor
+    private ExArrays() {
+    }
+
+    /**
+     * Returns a new array of the results of applying {@code mapper} to the elements of {@code array}.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to map
+     * @param generator      a function creating the result array of the given length
+     * @param mapper         the function to apply to each element
+     * @param <T>            the type of the elements of {@code array}
+     * @param <R>            the type of the elements of the result
+     * @param <E>            the type of exception thrown by {@code mapper}
+     * @return the new array
+     * @throws E if {@code mapper} threw an exception
+     */
+    public static <T, R, E extends Exception> R[] map(Class<E> exceptionClass, T[] array, IntFunction<R[]> generator,
+                                                      ExFunction<? super T, ? extends R, ? extends E> mapper) throws E {
+        final R[] result = generator.apply(array.length);
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, array.length, i -> result[i] = mapper.apply(array[i]));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                result[i] = mapper.apply(array[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new array of the results of applying {@code mapper} to the elements of {@code array}.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to map
+     * @param mapper         the function to apply to each element
+     * @param <E>            the type of exception thrown by {@code mapper}
+     * @return the new array
+     * @throws E if {@code mapper} threw an exception
+     */
+    public static <E extends Exception> int[] map(Class<E> exceptionClass, int[] array, ExIntUnaryOperator<? extends E> mapper) throws E {
+        final int[] result = new int[array.length];
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, array.length, i -> result[i] = mapper.applyAsInt(array[i]));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                result[i] = mapper.applyAsInt(array[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new array of the results of applying {@code mapper} to the elements of {@code array}.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to map
+     * @param mapper         the function to apply to each element
+     * @param <E>            the type of exception thrown by {@code mapper}
+     * @return the new array
+     * @throws E if {@code mapper} threw an exception
+     */
+    public static <E extends Exception> long[] map(Class<E> exceptionClass, long[] array, ExLongUnaryOperator<? extends E> mapper) throws E {
+        final long[] result = new long[array.length];
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, array.length, i -> result[i] = mapper.applyAsLong(array[i]));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                result[i] = mapper.applyAsLong(array[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new array of the results of applying {@code mapper} to the elements of {@code array}.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to map
+     * @param mapper         the function to apply to each element
+     * @param <E>            the type of exception thrown by {@code mapper}
+     * @return the new array
+     * @throws E if {@code mapper} threw an exception
+     */
+    public static <E extends Exception> double[] map(Class<E> exceptionClass, double[] array, ExDoubleUnaryOperator<? extends E> mapper) throws E {
+        final double[] result = new double[array.length];
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, array.length, i -> result[i] = mapper.applyAsDouble(array[i]));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                result[i] = mapper.applyAsDouble(array[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new array of the elements of {@code array} that match {@code predicate}, in the same order.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to filter
+     * @param predicate      the predicate to apply to each element
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown by {@code predicate}
+     * @return the new array, of the same component type as {@code array}
+     * @throws E if {@code predicate} threw an exception
+     */
+    public static <T, E extends Exception> T[] filter(Class<E> exceptionClass, T[] array, ExPredicate<? super T, ? extends E> predicate) throws E {
+        final boolean[] matches = new boolean[array.length];
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, array.length, i -> matches[i] = predicate.test(array[i]));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                matches[i] = predicate.test(array[i]);
+            }
+        }
+        int count = 0;
+        for (final boolean match : matches) {
+            if (match) {
+                count++;
+            }
+        }
+        // copyOf creates an array of the same component type, all its elements are overwritten
+        final T[] result = Arrays.copyOf(array, count);
+        int j = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (matches[i]) {
+                result[j++] = array[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets all elements of {@code array} in parallel, using {@code generator} to compute each element from its index.
+     * <p>
+     * If {@code generator} throws an exception, no further elements are computed, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to initialize
+     * @param generator      the function computing an element from its index
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown by {@code generator}
+     */
+    public static <T, E extends Exception> void parallelSetAll(Class<E> exceptionClass, T[] array, ExIntFunction<? extends T, ? extends E> generator) {
+        final IntFunction<? extends T> wrappedGenerator = generator.wrap(exceptionClass);
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<RuntimeException>forEachIndex(0, array.length, i -> array[i] = wrappedGenerator.apply(i));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = wrappedGenerator.apply(i);
+            }
+        }
+    }
+
+    /**
+     * Sets all elements of {@code array} in parallel, using {@code generator} to compute each element from its index.
+     * <p>
+     * If {@code generator} throws an exception, no further elements are computed, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to initialize
+     * @param generator      the function computing an element from its index
+     * @param <E>            the type of exception thrown by {@code generator}
+     */
+    public static <E extends Exception> void parallelSetAll(Class<E> exceptionClass, int[] array, ExIntUnaryOperator<? extends E> generator) {
+        final IntUnaryOperator wrappedGenerator = generator.wrap(exceptionClass);
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<RuntimeException>forEachIndex(0, array.length, i -> array[i] = wrappedGenerator.applyAsInt(i));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = wrappedGenerator.applyAsInt(i);
+            }
+        }
+    }
+
+    /**
+     * Sets all elements of {@code array} in parallel, using {@code generator} to compute each element from its index.
+     * <p>
+     * If {@code generator} throws an exception, no further elements are computed, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to initialize
+     * @param generator      the function computing an element from its index
+     * @param <E>            the type of exception thrown by {@code generator}
+     */
+    public static <E extends Exception> void parallelSetAll(Class<E> exceptionClass, long[] array, ExIntToLongFunction<? extends E> generator) {
+        final IntToLongFunction wrappedGenerator = generator.wrap(exceptionClass);
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<RuntimeException>forEachIndex(0, array.length, i -> array[i] = wrappedGenerator.applyAsLong(i));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = wrappedGenerator.applyAsLong(i);
+            }
+        }
+    }
+
+    /**
+     * Sets all elements of {@code array} in parallel, using {@code generator} to compute each element from its index.
+     * <p>
+     * If {@code generator} throws an exception, no further elements are computed, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to initialize
+     * @param generator      the function computing an element from its index
+     * @param <E>            the type of exception thrown by {@code generator}
+     */
+    public static <E extends Exception> void parallelSetAll(Class<E> exceptionClass, double[] array, ExIntToDoubleFunction<? extends E> generator) {
+        final IntToDoubleFunction wrappedGenerator = generator.wrap(exceptionClass);
+        if (array.length >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<RuntimeException>forEachIndex(0, array.length, i -> array[i] = wrappedGenerator.applyAsDouble(i));
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = wrappedGenerator.applyAsDouble(i);
+            }
+        }
+    }
+
+    /**
+     * Cumulates the elements of {@code array} in place in parallel, using {@code op}, which must be associative. For example, if the array initially holds
+     * {@code [2, 1, 0, 3]} and {@code op} performs addition, the array holds {@code [2, 3, 3, 6]} afterward.
+     * <p>
+     * If {@code op} throws an exception, no further elements are combined, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to update
+     * @param op             the associative function combining two elements
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown by {@code op}
+     */
+    public static <T, E extends Exception> void parallelPrefix(Class<E> exceptionClass, T[] array, ExBinaryOperator<T, ? extends E> op) {
+        final BinaryOperator<T> wrappedOp = op.wrap(exceptionClass);
+        ParallelLoop.prefix(array.length, (target, source) -> array[target] = wrappedOp.apply(array[source], array[target]));
+    }
+
+    /**
+     * Cumulates the elements of {@code array} in place in parallel, using {@code op}, which must be associative. For example, if the array initially holds
+     * {@code [2, 1, 0, 3]} and {@code op} performs addition, the array holds {@code [2, 3, 3, 6]} afterward.
+     * <p>
+     * If {@code op} throws an exception, no further elements are combined, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to update
+     * @param op             the associative function combining two elements
+     * @param <E>            the type of exception thrown by {@code op}
+     */
+    public static <E extends Exception> void parallelPrefix(Class<E> exceptionClass, int[] array, ExIntBinaryOperator<? extends E> op) {
+        final IntBinaryOperator wrappedOp = op.wrap(exceptionClass);
+        ParallelLoop.prefix(array.length, (target, source) -> array[target] = wrappedOp.applyAsInt(array[source], array[target]));
+    }
+
+    /**
+     * Cumulates the elements of {@code array} in place in parallel, using {@code op}, which must be associative. For example, if the array initially holds
+     * {@code [2, 1, 0, 3]} and {@code op} performs addition, the array holds {@code [2, 3, 3, 6]} afterward.
+     * <p>
+     * If {@code op} throws an exception, no further elements are combined, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to update
+     * @param op             the associative function combining two elements
+     * @param <E>            the type of exception thrown by {@code op}
+     */
+    public static <E extends Exception> void parallelPrefix(Class<E> exceptionClass, long[] array, ExLongBinaryOperator<? extends E> op) {
+        final LongBinaryOperator wrappedOp = op.wrap(exceptionClass);
+        ParallelLoop.prefix(array.length, (target, source) -> array[target] = wrappedOp.applyAsLong(array[source], array[target]));
+    }
+
+    /**
+     * Cumulates the elements of {@code array} in place in parallel, using {@code op}, which must be associative. For example, if the array initially holds
+     * {@code [2, 1, 0, 3]} and {@code op} performs addition, the array holds {@code [2, 3, 3, 6]} afterward.
+     * <p>
+     * If {@code op} throws an exception, no further elements are combined, and the array is left partially updated.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param array          the array to update
+     * @param op             the associative function combining two elements
+     * @param <E>            the type of exception thrown by {@code op}
+     */
+    public static <E extends Exception> void parallelPrefix(Class<E> exceptionClass, double[] array, ExDoubleBinaryOperator<? extends E> op) {
+        final DoubleBinaryOperator wrappedOp = op.wrap(exceptionClass);
+        ParallelLoop.prefix(array.length, (target, source) -> array[target] = wrappedOp.applyAsDouble(array[source], array[target]));
+    }
+
+}
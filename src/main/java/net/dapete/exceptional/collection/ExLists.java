@@ -0,0 +1,117 @@
+package net.dapete.exceptional.collection;
+
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExPredicate;
+import net.dapete.exceptional.internal.ParallelLoop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Utility class with eager bulk operations on lists, using functional interfaces that throw exceptions.
+ * <p>
+ * Unlike the equivalent {@link net.dapete.exceptional.stream.ExStream} pipelines, these operations process the whole list immediately and throw the checked
+ * exceptions of the functional interfaces directly. The result is presized from the size of the list, and {@link RandomAccess} lists are processed with an
+ * indexed loop.
+ * <p>
+ * {@code RandomAccess} lists with at least 8192 elements are processed in parallel in the current {@link java.util.concurrent.ForkJoinPool}, or the common
+ * pool, so the functional interfaces must be thread-safe. Once a call has thrown an exception, no further elements are processed, and the first exception is
+ * thrown.
+ */
+public final class ExLists {
+
+    // Utility class with private constructor
+    private ExLists() {
+    }
+
+    /**
+     * Returns an unmodifiable list of the results of applying {@code mapper} to the elements of {@code list}, in the same order.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param list           the list to map
+     * @param mapper         the function to apply to each element
+     * @param <T>            the type of the elements of {@code list}
+     * @param <R>            the type of the elements of the result
+     * @param <E>            the type of exception thrown by {@code mapper}
+     * @return an unmodifiable list of the results
+     * @throws E if {@code mapper} threw an exception
+     */
+    public static <T, R, E extends Exception> List<R> map(Class<E> exceptionClass, List<? extends T> list,
+                                                          ExFunction<? super T, ? extends R, ? extends E> mapper) throws E {
+        final int size = list.size();
+        final Object[] result = new Object[size];
+        if (!(list instanceof RandomAccess)) {
+            int i = 0;
+            for (final T t : list) {
+                result[i++] = mapper.apply(t);
+            }
+        } else if (size >= ParallelLoop.PARALLEL_THRESHOLD) {
+            ParallelLoop.<E>forEachIndex(0, size, i -> result[i] = mapper.apply(list.get(i)));
+        } else {
+            for (int i = 0; i < size; i++) {
+                result[i] = mapper.apply(list.get(i));
+            }
+        }
+        return unmodifiableList(result);
+    }
+
+    /**
+     * Returns an unmodifiable list of the elements of {@code list} that match {@code predicate}, in the same order.
+     *
+     * @param exceptionClass the exception class for {@code E}
+     * @param list           the list to filter
+     * @param predicate      the predicate to apply to each element
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown by {@code predicate}
+     * @return an unmodifiable list of the matching elements
+     * @throws E if {@code predicate} threw an exception
+     */
+    public static <T, E extends Exception> List<T> filter(Class<E> exceptionClass, List<? extends T> list,
+                                                          ExPredicate<? super T, ? extends E> predicate) throws E {
+        final int size = list.size();
+        if (!(list instanceof RandomAccess)) {
+            final List<T> result = new ArrayList<>(size);
+            for (final T t : list) {
+                if (predicate.test(t)) {
+                    result.add(t);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        } else if (size >= ParallelLoop.PARALLEL_THRESHOLD) {
+            final boolean[] matches = new boolean[size];
+            ParallelLoop.<E>forEachIndex(0, size, i -> matches[i] = predicate.test(list.get(i)));
+            int count = 0;
+            for (final boolean match : matches) {
+                if (match) {
+                    count++;
+                }
+            }
+            final Object[] result = new Object[count];
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                if (matches[i]) {
+                    result[j++] = list.get(i);
+                }
+            }
+            return unmodifiableList(result);
+        } else {
+            final List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final T t = list.get(i);
+                if (predicate.test(t)) {
+                    result.add(t);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+
+    @SuppressWarnings("unchecked") // the array only contains elements of type T
+    private static <T> List<T> unmodifiableList(Object[] array) {
+        return Collections.unmodifiableList(Arrays.asList((T[]) array));
+    }
+
+}
@@ -0,0 +1,179 @@
+package net.dapete.exceptional.collection;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExBiFunction;
+import net.dapete.exceptional.function.ExFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Utility class with atomic operations on concurrent maps, using functional interfaces that throw exceptions.
+ * <p>
+ * Unlike {@link ConcurrentMap#computeIfAbsent(Object, java.util.function.Function)} and {@link ConcurrentMap#merge(Object, Object,
+ * java.util.function.BiFunction)} with wrapped functional interfaces, these operations never call the functional interfaces while the map holds a lock, so
+ * slow or failing computations don't block other writers. The checked exceptions of the functional interfaces are thrown directly, and the map is left
+ * unchanged.
+ */
+public final class ExMaps {
+
+    /* The computations of computeIfAbsent currently in progress, so concurrent callers for the same map and key wait instead of computing again. */
+    private static final ConcurrentMap<Loading, InProgress> LOADING = new ConcurrentHashMap<>();
+
+    // Utility class with private constructor
+    private ExMaps() {
+    }
+
+    /* Identifies a key of a specific map instance, independent of the contents of the map. */
+    private static final class Loading {
+
+        private final ConcurrentMap<?, ?> map;
+
+        private final Object key;
+
+        private Loading(ConcurrentMap<?, ?> map, Object key) {
+            this.map = map;
+            this.key = key;
+        }
+
+        @Override
+        @SuppressWarnings("ReferenceEquality") // maps are compared by identity
+        public boolean equals(@Nullable Object obj) {
+            return obj instanceof Loading other && map == other.map && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(map) + key.hashCode();
+        }
+
+    }
+
+    /* A computation in progress, and the thread computing it, to detect recursive computations of the same key. */
+    private record InProgress(Thread owner, CompletableFuture<?> future) {
+    }
+
+    /**
+     * Returns the value of {@code key} in {@code map}, computing it with {@code mappingFunction} and adding it to {@code map} if there is none.
+     * <p>
+     * {@code mappingFunction} is called outside any lock of {@code map}. Concurrent calls for the same map and key wait for the call in progress and return
+     * its value. If that call throws an exception, each waiting call computes the value itself, so every caller gets its own exception. If
+     * {@code mappingFunction} returns {@code null}, no value is added and {@code null} is returned. Like {@link ConcurrentHashMap#computeIfAbsent}, an
+     * {@link IllegalStateException} is thrown if {@code mappingFunction} calls this method for the same map and key.
+     * <p>
+     * Calls of other methods of {@code map} are not coordinated with {@code mappingFunction}, so if a value is added for {@code key} while it is computed,
+     * that value is kept and returned instead.
+     *
+     * @param exceptionClass  the exception class for {@code E}
+     * @param map             the map to look up and update
+     * @param key             the key to look up
+     * @param mappingFunction the function computing the value for {@code key}
+     * @param <K>             the type of keys
+     * @param <V>             the type of values
+     * @param <E>             the type of exception thrown by {@code mappingFunction}
+     * @return the current or computed value of {@code key}, or {@code null} if it was computed as {@code null}
+     * @throws E                     if {@code mappingFunction} threw an exception
+     * @throws IllegalStateException if {@code mappingFunction} calls this method recursively for the same map and key
+     * @throws ExException           with an {@link InterruptedException} as its cause if the current thread is interrupted while waiting for another call
+     */
+    public static <K, V, E extends Exception> @Nullable V computeIfAbsent(Class<E> exceptionClass, ConcurrentMap<K, V> map, K key,
+                                                                          ExFunction<? super K, ? extends @Nullable V, ? extends E> mappingFunction)
+            throws E {
+        final var loading = new Loading(map, key);
+        while (true) {
+            final V value = map.get(key);
+            if (value != null) {
+                return value;
+            }
+            final var future = new CompletableFuture<@Nullable V>();
+            final var computation = new InProgress(Thread.currentThread(), future);
+            final InProgress inProgress = LOADING.putIfAbsent(loading, computation);
+            if (inProgress == null) {
+                return load(map, key, mappingFunction, loading, computation, future);
+            }
+            if (inProgress.owner().equals(Thread.currentThread())) {
+                throw new IllegalStateException("Recursive update");
+            }
+            try {
+                @SuppressWarnings("unchecked") // the future of a computation for map has the value type of map
+                final V loaded = (V) inProgress.future().get();
+                return loaded;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExException(e);
+            } catch (ExecutionException e) {
+                // the computation in progress failed, so compute the value again
+            }
+        }
+    }
+
+    private static <K, V, E extends Exception> @Nullable V load(ConcurrentMap<K, V> map, K key,
+                                                                ExFunction<? super K, ? extends @Nullable V, ? extends E> mappingFunction,
+                                                                Loading loading, InProgress computation, CompletableFuture<@Nullable V> future)
+            throws E {
+        try {
+            // another call may have added the value between the lookup and the registration of this computation
+            @Nullable V value = map.get(key);
+            if (value == null) {
+                value = mappingFunction.apply(key);
+                if (value != null) {
+                    final V previous = map.putIfAbsent(key, value);
+                    if (previous != null) {
+                        value = previous;
+                    }
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            LOADING.remove(loading, computation);
+        }
+    }
+
+    /**
+     * Adds {@code value} for {@code key} to {@code map} if there is no value yet, or replaces the current value with the result of applying
+     * {@code remappingFunction} to it and {@code value}. If the result is {@code null}, {@code key} is removed.
+     * <p>
+     * {@code remappingFunction} is called outside any lock of {@code map}, and the result is only stored if the value of {@code key} is unchanged. Otherwise,
+     * {@code remappingFunction} is called again with the new value, so it may be called more than once if {@code key} is updated concurrently.
+     *
+     * @param exceptionClass    the exception class for {@code E}
+     * @param map               the map to update
+     * @param key               the key to update
+     * @param value             the value to add or merge with the current value
+     * @param remappingFunction the function merging the current value and {@code value}
+     * @param <K>               the type of keys
+     * @param <V>               the type of values
+     * @param <E>               the type of exception thrown by {@code remappingFunction}
+     * @return the new value of {@code key}, or {@code null} if it was removed
+     * @throws E if {@code remappingFunction} threw an exception
+     */
+    public static <K, V, E extends Exception> @Nullable V merge(Class<E> exceptionClass, ConcurrentMap<K, V> map, K key, V value,
+                                                                ExBiFunction<? super V, ? super V, ? extends @Nullable V, ? extends E> remappingFunction)
+            throws E {
+        while (true) {
+            final V oldValue = map.get(key);
+            if (oldValue == null) {
+                if (map.putIfAbsent(key, value) == null) {
+                    return value;
+                }
+            } else {
+                final V newValue = remappingFunction.apply(oldValue, value);
+                if (newValue == null) {
+                    if (map.remove(key, oldValue)) {
+                        return null;
+                    }
+                } else if (map.replace(key, oldValue, newValue)) {
+                    return newValue;
+                }
+            }
+        }
+    }
+
+}
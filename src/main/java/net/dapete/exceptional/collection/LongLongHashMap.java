@@ -0,0 +1,370 @@
+package net.dapete.exceptional.collection;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from {@code long} keys to {@code long} values, without boxing.
+ * <p>
+ * Entries are stored in two arrays using open addressing with linear probing, so each entry needs 16 bytes plus free slots, compared to around 80 bytes
+ * for an entry of a {@code HashMap<Long, Long>}. Keys without an entry have the value {@code 0}, which makes this map well suited for counting and
+ * summing.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LongLongHashMap {
+
+    /**
+     * Performs an operation on an entry of an {@link LongLongHashMap}.
+     *
+     * @param <E> the type of exception thrown
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<E extends Exception> {
+
+        /**
+         * Performs this operation on the given entry.
+         *
+         * @param key   the key of the entry
+         * @param value the value of the entry
+         * @throws E potentially
+         */
+        void accept(long key, long value) throws E;
+
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /* Key 0 marks free slots, so its entry is stored separately. */
+
+    private boolean hasZeroKey;
+
+    private long zeroValue;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    /**
+     * Create an empty map.
+     */
+    public LongLongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty map that can hold {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public LongLongHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative");
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        final long minimumSize = Math.max(2, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR));
+        if (minimumSize > 1 << 30) {
+            throw new IllegalArgumentException("expectedSize is too large");
+        }
+        return Integer.highestOneBit((int) minimumSize - 1) << 1;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new long[tableSize];
+        resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     *
+     * @return the number of entries in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no entries.
+     *
+     * @return {@code true} if this map contains no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this map contains an entry for {@code key}.
+     *
+     * @param key the key
+     * @return {@code true} if this map contains an entry for {@code key}
+     */
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[slot(key)] != 0;
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code 0} if this map contains no entry for it.
+     *
+     * @param key the key
+     * @return the value for {@code key}, or {@code 0} if this map contains no entry for it
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code defaultValue} if this map contains no entry for it.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if this map contains no entry for {@code key}
+     * @return the value for {@code key}, or {@code defaultValue} if this map contains no entry for it
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int slot = slot(key);
+        return keys[slot] != 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Sets the value for {@code key}.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the previous value for {@code key}, or {@code 0} if this map contained no entry for it
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            final long previousValue = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previousValue;
+        }
+        final int slot = slot(key);
+        if (keys[slot] != 0) {
+            final long previousValue = values[slot];
+            values[slot] = value;
+            return previousValue;
+        }
+        insert(slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key}. If this map contains no entry for {@code key}, one is created with the value {@code delta}.
+     *
+     * @param key   the key
+     * @param delta the value to add
+     * @return the new value for {@code key}
+     */
+    public long addTo(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        final int slot = slot(key);
+        if (keys[slot] != 0) {
+            return values[slot] += delta;
+        }
+        insert(slot, key, delta);
+        return delta;
+    }
+
+    private void insert(int slot, long key, long value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size - (hasZeroKey ? 1 : 0) > resizeThreshold) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                final int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key}.
+     *
+     * @param key the key
+     * @return the previous value for {@code key}, or {@code 0} if this map contained no entry for it
+     */
+    public long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return 0;
+            }
+            final long previousValue = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return previousValue;
+        }
+        int slot = slot(key);
+        if (keys[slot] == 0) {
+            return 0;
+        }
+        final long previousValue = values[slot];
+        // shift following entries back, so there is no free slot between an entry and its ideal slot
+        final int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != 0) {
+            final int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = 0;
+        values[slot] = 0;
+        size--;
+        return previousValue;
+    }
+
+    /**
+     * Adds the values of all entries of {@code other} to the values of this map, as if by calling {@link #addTo(long, long)} for each entry.
+     * <p>
+     * This is used to combine maps created for parts of a parallel stream.
+     *
+     * @param other the map to add
+     */
+    public void addAll(LongLongHashMap other) {
+        if (other.hasZeroKey) {
+            addTo(0, other.zeroValue);
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != 0) {
+                addTo(other.keys[i], other.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of all entries of this map, in no particular order.
+     *
+     * @return the keys of all entries of this map
+     */
+    public long[] keys() {
+        final long[] result = new long[size];
+        int index = 0;
+        if (hasZeroKey) {
+            result[index++] = 0;
+        }
+        for (final long key : keys) {
+            if (key != 0) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Performs {@code action} for each entry of this map, in no particular order.
+     *
+     * @param action the action to perform for each entry
+     * @param <E>    the type of exception thrown by {@code action}
+     * @throws E if {@code action} throws it
+     */
+    public <E extends Exception> void forEach(EntryConsumer<? extends E> action) throws E {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LongLongHashMap other) || size != other.size) {
+            return false;
+        }
+        if (hasZeroKey != other.hasZeroKey || zeroValue != other.zeroValue) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && (!other.containsKey(keys[i]) || other.get(keys[i]) != values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // sum of the hash codes of the entries, like AbstractMap
+        int hashCode = hasZeroKey ? Long.hashCode(zeroValue) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                hashCode += Long.hashCode(keys[i]) ^ Long.hashCode(values[i]);
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        final long[] sortedKeys = keys();
+        Arrays.sort(sortedKeys);
+        final var builder = new StringBuilder("{");
+        for (final long key : sortedKeys) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(get(key));
+        }
+        return builder.append('}').toString();
+    }
+
+}
@@ -0,0 +1,13 @@
+/**
+ * Contains collections and collection utilities for <em>Exceptional!</em>
+ * <p>
+ * This includes hash maps with primitive keys and values like {@link net.dapete.exceptional.collection.IntLongHashMap}, which are used by operations like
+ * {@link net.dapete.exceptional.stream.ExIntStream#groupingCount(Class, net.dapete.exceptional.function.ExIntUnaryOperator)} to avoid boxing.
+ * <p>
+ * {@link net.dapete.exceptional.collection.ExLists} and {@link net.dapete.exceptional.collection.ExArrays} provide eager bulk operations with functional
+ * interfaces that throw exceptions, and {@link net.dapete.exceptional.collection.ExMaps} provides atomic operations on concurrent maps.
+ */
+@NullMarked
+package net.dapete.exceptional.collection;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,31 @@
+package net.dapete.exceptional.concurrent;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulkhead limiting the number of concurrent calls using a {@link Semaphore}.
+ */
+final class BulkheadLimiter implements ExLimiter {
+
+    private final Semaphore semaphore;
+
+    BulkheadLimiter(int maxConcurrentCalls) {
+        this.semaphore = new Semaphore(maxConcurrentCalls);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return semaphore.tryAcquire();
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        semaphore.acquire();
+    }
+
+    @Override
+    public void release() {
+        semaphore.release();
+    }
+
+}
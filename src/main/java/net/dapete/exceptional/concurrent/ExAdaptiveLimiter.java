@@ -0,0 +1,159 @@
+package net.dapete.exceptional.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limiter which adapts the number of concurrent calls to the observed latency and failures. Instances are created using
+ * {@link ExLimiter#adaptive(int, int, int, Duration)}.
+ * <p>
+ * The state is guarded by a {@link ReentrantLock}, so threads waiting for a permit are parked rather than blocked on a monitor.
+ */
+public final class ExAdaptiveLimiter implements ExLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+
+    private int inFlight;
+
+    private boolean backedOff;
+
+    private long backoffNanos;
+
+    ExAdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the current limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of calls currently in progress.
+     *
+     * @return the number of calls currently in progress
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit without adjusting the limit.
+     *
+     * @throws IllegalStateException if no permit has been acquired
+     */
+    @Override
+    public void release() {
+        lock.lock();
+        try {
+            checkInFlight();
+            inFlight--;
+            permitAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit, adjusting the limit to the outcome of the call.
+     * <p>
+     * The limit is reduced at most once per round: a slow or failed call which was started before the last reduction does not reduce it again, as the
+     * reduction has already taken effect for it.
+     *
+     * @param elapsedNanos the time the call took in nanoseconds
+     * @param failed       {@code true} if the call threw a checked exception
+     * @throws IllegalStateException if no permit has been acquired
+     */
+    @Override
+    public void release(long elapsedNanos, boolean failed) {
+        final long now = System.nanoTime();
+        lock.lock();
+        try {
+            checkInFlight();
+            final int previousLimit = (int) limit;
+            if (failed || elapsedNanos > latencyThresholdNanos) {
+                // calls started before the last backoff were already accounted for by it
+                if (!backedOff || now - elapsedNanos - backoffNanos >= 0) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    backedOff = true;
+                    backoffNanos = now;
+                }
+            } else if (inFlight * 2 >= limit) {
+                // only increase the limit if it is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+            if ((int) limit > previousLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkInFlight() {
+        if (inFlight == 0) {
+            throw new IllegalStateException("no permit has been acquired");
+        }
+    }
+
+}
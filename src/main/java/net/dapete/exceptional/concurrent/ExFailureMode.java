@@ -0,0 +1,23 @@
+package net.dapete.exceptional.concurrent;
+
+/**
+ * How operations calling a functional interface concurrently for many elements handle failures, e.g.
+ * {@link net.dapete.exceptional.stream.ExStream#forEachConcurrent(Class, int, ExFailureMode, net.dapete.exceptional.function.ExConsumer)}.
+ * <p>
+ * In both modes, the operation only returns or throws after all calls in progress have completed. The exception thrown is the first failure, so it can be
+ * unwrapped using {@link net.dapete.exceptional.wrap.ExUnwrapper} as usual.
+ */
+public enum ExFailureMode {
+
+    /**
+     * Stop at the first failure: no further calls are started, and the threads of calls in progress are interrupted.
+     */
+    FAIL_FAST,
+
+    /**
+     * Process all elements, even after failures. All failures after the first one are added to it as {@link Throwable#getSuppressed() suppressed}
+     * exceptions.
+     */
+    COLLECT_ALL
+
+}
@@ -0,0 +1,123 @@
+package net.dapete.exceptional.concurrent;
+
+import java.time.Duration;
+
+/**
+ * Limits calls to functional interfaces, e.g. to keep a parallel {@link net.dapete.exceptional.stream.ExStream} from overloading a dependency.
+ * <p>
+ * A permit must be acquired using {@link #acquire()} or {@link #tryAcquire()} before each call, and must be released using {@link #release()} after the call
+ * has completed. Usually this is done by decorators like {@link net.dapete.exceptional.function.ExFunction#limited(ExLimiter)}, which use
+ * {@link #release(long, boolean)} to report the outcome of each call.
+ * <p>
+ * Implementations are thread-safe. They never block while holding a monitor, so they can also be used from virtual threads.
+ */
+public interface ExLimiter {
+
+    /**
+     * Acquires a permit if one is available without waiting.
+     *
+     * @return {@code true} if a permit was acquired, otherwise {@code false}
+     */
+    boolean tryAcquire();
+
+    /**
+     * Acquires a permit, waiting until one is available.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    void acquire() throws InterruptedException;
+
+    /**
+     * Releases a permit acquired using {@link #acquire()} or {@link #tryAcquire()}.
+     */
+    void release();
+
+    /**
+     * Releases a permit acquired using {@link #acquire()} or {@link #tryAcquire()}, reporting the outcome of the call made with it.
+     * <p>
+     * Adaptive limiters like {@link #adaptive(int, int, int, Duration)} use this to adjust their limit. The default implementation just calls
+     * {@link #release()}.
+     *
+     * @param elapsedNanos the time the call took in nanoseconds
+     * @param failed       {@code true} if the call threw a checked exception
+     */
+    default void release(long elapsedNanos, boolean failed) {
+        release();
+    }
+
+    /**
+     * Returns a limiter which limits the rate of calls using a token bucket.
+     * <p>
+     * The bucket holds up to {@code capacity} permits and is refilled at {@code permitsPerSecond}. This allows bursts of up to {@code capacity} calls while
+     * limiting the average rate to {@code permitsPerSecond}. {@link #release()} does nothing, as the permits of a token bucket are not returned.
+     * <p>
+     * The state of the bucket is kept in a single atomic value which is updated without locking.
+     *
+     * @param capacity         the maximum number of permits in the bucket, must be at least 1
+     * @param permitsPerSecond the rate at which the bucket is refilled, must be positive
+     * @return a limiter which limits the rate of calls
+     * @throws IllegalArgumentException if {@code capacity} is less than 1 or {@code permitsPerSecond} is not positive
+     */
+    static ExLimiter tokenBucket(int capacity, double permitsPerSecond) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        return new TokenBucketLimiter(capacity, Math.max(1, Math.round(Duration.ofSeconds(1).toNanos() / permitsPerSecond)));
+    }
+
+    /**
+     * Returns a limiter which limits the number of concurrent calls (a bulkhead).
+     * <p>
+     * This is based on a {@link java.util.concurrent.Semaphore}, so threads waiting for a permit are parked rather than blocked on a monitor.
+     *
+     * @param maxConcurrentCalls the maximum number of concurrent calls, must be at least 1
+     * @return a limiter which limits the number of concurrent calls
+     * @throws IllegalArgumentException if {@code maxConcurrentCalls} is less than 1
+     */
+    static ExLimiter bulkhead(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be at least 1");
+        }
+        return new BulkheadLimiter(maxConcurrentCalls);
+    }
+
+    /**
+     * Returns a limiter which adapts the number of concurrent calls to the observed latency and failures, using additive increase/multiplicative
+     * decrease (AIMD).
+     * <p>
+     * The limit starts at {@code initialLimit}. Each call that completes within {@code latencyThreshold} without a checked exception while the limit was
+     * being used increases the limit by {@code 1 / limit}, which adds about one permit per round of calls. Each call that takes longer or throws a checked
+     * exception reduces the limit by 10%, but only if it was started after the last reduction, so the limit is reduced at most once per round. The limit
+     * always stays between {@code minLimit} and {@code maxLimit}.
+     * <p>
+     * The current limit and number of calls in progress are available using {@link ExAdaptiveLimiter#getLimit()} and
+     * {@link ExAdaptiveLimiter#getInFlight()}.
+     *
+     * @param initialLimit     the initial limit
+     * @param minLimit         the minimum limit, must be at least 1
+     * @param maxLimit         the maximum limit
+     * @param latencyThreshold the latency above which a call is treated like a failure
+     * @return a limiter which adapts the number of concurrent calls
+     * @throws IllegalArgumentException if {@code minLimit} is less than 1, {@code maxLimit} is less than {@code minLimit}, {@code initialLimit} is not
+     *                                  between them or {@code latencyThreshold} is not positive
+     */
+    static ExAdaptiveLimiter adaptive(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit must be at least 1");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit must not be less than minLimit");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+        }
+        if (latencyThreshold.isNegative() || latencyThreshold.isZero()) {
+            throw new IllegalArgumentException("latencyThreshold must be positive");
+        }
+        return new ExAdaptiveLimiter(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos());
+    }
+
+}
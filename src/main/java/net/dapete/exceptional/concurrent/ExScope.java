@@ -0,0 +1,327 @@
+package net.dapete.exceptional.concurrent;
+
+import net.dapete.exceptional.function.ExSupplier;
+import net.dapete.exceptional.internal.ExThreads;
+import net.dapete.exceptional.internal.ExUtils;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scope to call several suppliers concurrently and wait for all of them, failing as soon as one of them fails.
+ * <p>
+ * Subtasks are started using {@link #fork(ExSupplier)}, and {@link #join()} waits until all of them have completed successfully. If a subtask fails, all
+ * other subtasks are cancelled by interrupting their threads, and {@code join} throws the exception of the failed subtask as it is, without wrapping it in
+ * an {@link net.dapete.exceptional.ExException} or {@link java.util.concurrent.ExecutionException}. Exceptions thrown by subtasks after they were cancelled
+ * are ignored.
+ * <p>
+ * A scope must be closed, preferably using try-with-resources, which cancels all subtasks still running and waits until their threads have stopped:
+ * <pre>{@code
+ * try (var scope = ExScope.open(IOException.class)) {
+ *     ExScope.Subtask<String> user = scope.fork(() -> readUser(id));
+ *     ExScope.Subtask<List<Order>> orders = scope.fork(() -> readOrders(id));
+ *     scope.join();
+ *     return new Details(user.get(), orders.get());
+ * }
+ * }</pre>
+ * <p>
+ * Scopes are thread-safe, but are meant to be used by the thread that opened them.
+ *
+ * @param <E> the type of exception thrown by the subtasks
+ */
+public final class ExScope<E extends Exception> implements AutoCloseable {
+
+    /**
+     * The result of a supplier forked in a scope.
+     *
+     * @param <T> the type of the result
+     */
+    public interface Subtask<T> {
+
+        /**
+         * Returns the result of the subtask, after {@link ExScope#join()} has returned normally.
+         *
+         * @return the result of the subtask
+         * @throws IllegalStateException if the subtask has not completed successfully
+         */
+        T get();
+
+    }
+
+    private enum State {
+        NEW, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final class ForkedSubtask<T> implements Subtask<T>, Runnable {
+
+        private final ExSupplier<? extends T, ? extends E> supplier;
+
+        /* All fields below are guarded by lock. */
+
+        private State state = State.NEW;
+
+        private @Nullable Thread runner;
+
+        private @Nullable T result;
+
+        private ForkedSubtask(ExSupplier<? extends T, ? extends E> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                if (state != State.NEW) {
+                    // cancelled before it was started
+                    return;
+                }
+                state = State.RUNNING;
+                runner = Thread.currentThread();
+            } finally {
+                lock.unlock();
+            }
+            @Nullable T value = null;
+            @Nullable Throwable exception = null;
+            try {
+                value = supplier.get();
+            } catch (Throwable e) {
+                exception = e;
+            }
+            complete(value, exception);
+        }
+
+        private void complete(@Nullable T value, @Nullable Throwable exception) {
+            final boolean wasCancelled;
+            lock.lock();
+            try {
+                runner = null;
+                wasCancelled = state == State.CANCELLED;
+                if (!wasCancelled) {
+                    if (exception == null) {
+                        state = State.SUCCEEDED;
+                        result = value;
+                    } else {
+                        state = State.FAILED;
+                        if (failure == null && !shutdown) {
+                            failure = exception;
+                        }
+                    }
+                }
+                running--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (wasCancelled) {
+                // the interrupt was meant for this subtask only, clear it in case the thread is reused by a pool
+                Thread.interrupted();
+            }
+        }
+
+        /* Called with lock held. */
+        private void cancel() {
+            if (state == State.NEW) {
+                state = State.CANCELLED;
+                running--;
+            } else if (state == State.RUNNING) {
+                state = State.CANCELLED;
+                final Thread thread = runner;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // the result of a successful subtask is null only if the supplier returned null
+        public T get() {
+            lock.lock();
+            try {
+                if (state != State.SUCCEEDED) {
+                    throw new IllegalStateException("Subtask has not completed successfully: " + state);
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    private final Class<E> exceptionClass;
+
+    private final Executor executor;
+
+    private final @Nullable ExecutorService ownedExecutor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    /* All fields below are guarded by lock. */
+
+    private final List<ForkedSubtask<?>> subtasks = new ArrayList<>();
+
+    private int running;
+
+    private @Nullable Throwable failure;
+
+    private boolean shutdown;
+
+    private boolean closed;
+
+    private ExScope(Class<E> exceptionClass, Executor executor, @Nullable ExecutorService ownedExecutor) {
+        this.exceptionClass = exceptionClass;
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * Opens a scope starting a new thread for each subtask.
+     * <p>
+     * On Java 21 and later, these are virtual threads. On older versions, daemon platform threads from a cached pool owned by the scope are used.
+     *
+     * @param exceptionClass the class of exception thrown by the subtasks
+     * @param <E>            the type of exception thrown by the subtasks
+     * @return a new scope
+     */
+    public static <E extends Exception> ExScope<E> open(Class<E> exceptionClass) {
+        final ExecutorService executorService = ExThreads.newThreadPerTaskExecutor();
+        return new ExScope<>(exceptionClass, executorService, executorService);
+    }
+
+    /**
+     * Opens a scope running subtasks on {@code executor}.
+     * <p>
+     * The executor is not shut down when the scope is closed. It should start each subtask without queueing it behind other tasks, as subtasks are usually
+     * blocking, e.g. waiting for I/O.
+     *
+     * @param exceptionClass the class of exception thrown by the subtasks
+     * @param executor       the executor to run subtasks on
+     * @param <E>            the type of exception thrown by the subtasks
+     * @return a new scope
+     */
+    public static <E extends Exception> ExScope<E> open(Class<E> exceptionClass, Executor executor) {
+        return new ExScope<>(exceptionClass, executor, null);
+    }
+
+    /**
+     * Starts a subtask calling {@code supplier}.
+     * <p>
+     * If the scope has already failed, the subtask is cancelled without calling {@code supplier}.
+     *
+     * @param supplier the supplier to call
+     * @param <T>      the type of the result
+     * @return the subtask, to get its result after {@link #join()}
+     * @throws IllegalStateException if the scope is closed
+     */
+    public <T> Subtask<T> fork(ExSupplier<? extends T, ? extends E> supplier) {
+        final var subtask = new ForkedSubtask<T>(supplier);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scope is closed");
+            }
+            subtasks.add(subtask);
+            running++;
+            if (shutdown) {
+                subtask.cancel();
+                return subtask;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            executor.execute(subtask);
+        } catch (Throwable e) {
+            lock.lock();
+            try {
+                subtask.cancel();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits until all subtasks have completed successfully, or until one of them fails.
+     * <p>
+     * If a subtask fails, all other subtasks are cancelled and its exception is rethrown. Checked exceptions are thrown as they are, as are
+     * {@link RuntimeException RuntimeExceptions} and {@link Error Errors}.
+     *
+     * @throws E                     the exception thrown by the first subtask to fail
+     * @throws InterruptedException  if the current thread is interrupted while waiting. All subtasks are cancelled.
+     * @throws IllegalStateException if the scope is closed
+     */
+    public void join() throws E, InterruptedException {
+        final Throwable firstFailure;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scope is closed");
+            }
+            try {
+                while (running > 0 && failure == null) {
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                shutdown();
+                throw e;
+            }
+            firstFailure = failure;
+            if (firstFailure == null) {
+                return;
+            }
+            shutdown();
+        } finally {
+            lock.unlock();
+        }
+        if (exceptionClass.isInstance(firstFailure)) {
+            throw exceptionClass.cast(firstFailure);
+        }
+        throw ExUtils.rethrow(firstFailure);
+    }
+
+    /* Called with lock held. */
+    private void shutdown() {
+        shutdown = true;
+        for (final ForkedSubtask<?> subtask : subtasks) {
+            subtask.cancel();
+        }
+    }
+
+    /**
+     * Cancels all subtasks still running and waits until their threads have stopped. If the scope owns its executor, it is shut down.
+     * <p>
+     * The interrupt status of the current thread is preserved while waiting.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            shutdown();
+            while (running > 0) {
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package net.dapete.exceptional.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket implemented as a generic cell rate algorithm: instead of the number of tokens, only the theoretical time at which the bucket will be full
+ * again is stored. This fits into a single {@link AtomicLong}, so permits are acquired using a compare-and-set loop without locking.
+ */
+final class TokenBucketLimiter implements ExLimiter {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    TokenBucketLimiter(int capacity, long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = intervalNanos * (capacity - 1);
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        while (true) {
+            final long now = System.nanoTime();
+            final long current = theoreticalArrivalTime.get();
+            final long start = Math.max(current, now);
+            if (start - now > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        final long now = System.nanoTime();
+        // reserve a permit, even if it is only available in the future
+        final long current = theoreticalArrivalTime.getAndAccumulate(now, (tat, n) -> Math.max(tat, n) + intervalNanos);
+        final long availableAt = Math.max(current, now) - burstNanos;
+        long remainingNanos;
+        while ((remainingNanos = availableAt - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remainingNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void release() {
+        // permits of a token bucket are not returned
+    }
+
+}
@@ -0,0 +1,12 @@
+/**
+ * Contains utilities to control how functional interfaces from {@link net.dapete.exceptional.function} are called concurrently.
+ * <p>
+ * The main component is {@link net.dapete.exceptional.concurrent.ExLimiter}, which limits the rate or the concurrency of calls. It is used by decorators
+ * like {@link net.dapete.exceptional.function.ExFunction#limited(ExLimiter)}.
+ * <p>
+ * {@link net.dapete.exceptional.concurrent.ExScope} calls several suppliers concurrently, rethrowing the checked exception of the first one to fail.
+ */
+@NullMarked
+package net.dapete.exceptional.concurrent;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,32 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.wrap.ExWrap;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Comparator;
+
+/**
+ * Equivalent of a {@link java.util.Comparator} that can throw exceptions.
+ *
+ * @param <T> the type of objects that may be compared by this comparator
+ * @param <E> the type of exception thrown
+ */
+@FunctionalInterface
+public interface ExComparator<T, E extends Exception> extends Wrappable<Comparator<T>> {
+
+    /**
+     * Compares its two arguments for order.
+     *
+     * @param o1 the first object to be compared
+     * @param o2 the second object to be compared
+     * @return a negative integer, zero, or a positive integer as the first argument is less than, equal to, or greater than the second
+     * @throws E potentially
+     */
+    int compare(T o1, T o2) throws E;
+
+    @Override
+    default @NonNull Comparator<T> wrap() {
+        return (o1, o2) -> ExWrap.wrap(() -> compare(o1, o2));
+    }
+
+}
@@ -1,9 +1,12 @@
 package net.dapete.exceptional.function;
 
+import net.dapete.exceptional.concurrent.ExLimiter;
+import net.dapete.exceptional.internal.Limiting;
 import net.dapete.exceptional.wrap.ExWrap;
 import org.jspecify.annotations.NonNull;
 
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Equivalent of a {@link java.util.function.Consumer} that can throw exceptions.
@@ -27,4 +30,57 @@ public interface ExConsumer<T, E extends Exception> extends Wrappable<Consumer<T
         return t -> ExWrap.wrap(() -> accept(t));
     }
 
+    /**
+     * Returns a consumer that performs this operation with a permit from {@code limiter}, waiting until a permit is available.
+     * <p>
+     * If the current thread is interrupted while waiting, the interrupt status is restored and an {@link net.dapete.exceptional.ExException} with the
+     * {@link InterruptedException} as its cause is thrown.
+     *
+     * @param limiter the limiter to acquire permits from
+     * @return a consumer limited by {@code limiter}
+     */
+    default @NonNull ExConsumer<T, E> limited(@NonNull ExLimiter limiter) {
+        return t -> {
+            Limiting.acquire(limiter);
+            Limiting.run(limiter, () -> accept(t));
+        };
+    }
+
+    /**
+     * Returns a consumer that performs this operation with a permit from {@code limiter}, failing fast if no permit is available.
+     * <p>
+     * If no permit is available without waiting, the exception supplied by {@code rejection} is thrown instead.
+     *
+     * @param limiter   the limiter to acquire permits from
+     * @param rejection supplies the exception to throw if no permit is available
+     * @return a consumer limited by {@code limiter}
+     */
+    default @NonNull ExConsumer<T, E> limited(@NonNull ExLimiter limiter, @NonNull Supplier<? extends E> rejection) {
+        return t -> {
+            if (!limiter.tryAcquire()) {
+                throw rejection.get();
+            }
+            Limiting.run(limiter, () -> accept(t));
+        };
+    }
+
+    /**
+     * Returns a consumer that performs this operation with a permit from {@code limiter}, falling back to {@code fallback} if no permit is available.
+     * <p>
+     * If no permit is available without waiting, {@code fallback} is called instead, without a permit.
+     *
+     * @param limiter  the limiter to acquire permits from
+     * @param fallback the operation to perform if no permit is available
+     * @return a consumer limited by {@code limiter}
+     */
+    default @NonNull ExConsumer<T, E> limitedOrElse(@NonNull ExLimiter limiter, @NonNull ExConsumer<? super T, ? extends E> fallback) {
+        return t -> {
+            if (!limiter.tryAcquire()) {
+                fallback.accept(t);
+            } else {
+                Limiting.run(limiter, () -> accept(t));
+            }
+        };
+    }
+
 }
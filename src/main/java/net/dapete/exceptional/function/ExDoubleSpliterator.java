@@ -0,0 +1,71 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.internal.ExSpliterators;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Spliterator;
+
+/**
+ * Equivalent of a {@link java.util.Spliterator.OfDouble} that can throw exceptions while advancing or splitting.
+ * <p>
+ * Like {@link ExSpliterator}, a splittable instance can be the source of a parallel {@link net.dapete.exceptional.stream.ExDoubleStream}, using
+ * {@link net.dapete.exceptional.stream.ExDoubleStream#fromSource(Class, ExDoubleSpliterator)}. The elements are never boxed.
+ *
+ * @param <E> the type of exception thrown
+ */
+public interface ExDoubleSpliterator<E extends Exception> extends Wrappable<Spliterator.OfDouble> {
+
+    /**
+     * If a remaining element exists, performs the given action on it and returns {@code true}, else returns {@code false}.
+     *
+     * @param action the action to be performed on the next element
+     * @return {@code false} if no remaining elements existed, else {@code true}
+     * @throws E potentially
+     */
+    boolean tryAdvance(@NonNull ExDoubleConsumer<? extends E> action) throws E;
+
+    /**
+     * If this spliterator can be partitioned, returns a spliterator covering a part of the elements, which will not be covered by this spliterator anymore.
+     *
+     * @return a spliterator covering some portion of the elements, or {@code null} if this spliterator cannot be split
+     * @throws E potentially
+     * @see Spliterator#trySplit()
+     */
+    @Nullable ExDoubleSpliterator<E> trySplit() throws E;
+
+    /**
+     * Returns an estimate of the number of elements that would be encountered by {@link #forEachRemaining(ExDoubleConsumer)}.
+     *
+     * @return the estimated size, or {@link Long#MAX_VALUE} if infinite, unknown, or too expensive to compute
+     * @see Spliterator#estimateSize()
+     */
+    long estimateSize();
+
+    /**
+     * Returns the characteristics of this spliterator and its elements, as defined by {@link Spliterator}.
+     *
+     * @return the characteristics
+     * @see Spliterator#characteristics()
+     */
+    int characteristics();
+
+    @Override
+    default Spliterator.@NonNull OfDouble wrap() {
+        return ExSpliterators.wrap(this);
+    }
+
+    /**
+     * Performs the given action for each remaining element until all elements have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws E potentially
+     */
+    default void forEachRemaining(@NonNull ExDoubleConsumer<? extends E> action) throws E {
+        boolean advanced;
+        do {
+            advanced = tryAdvance(action);
+        } while (advanced);
+    }
+
+}
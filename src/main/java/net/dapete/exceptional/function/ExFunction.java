@@ -1,9 +1,13 @@
 package net.dapete.exceptional.function;
 
+import net.dapete.exceptional.concurrent.ExLimiter;
+import net.dapete.exceptional.internal.Limiting;
+import net.dapete.exceptional.internal.SingleFlightFunction;
 import net.dapete.exceptional.wrap.ExWrap;
 import org.jspecify.annotations.NonNull;
 
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Equivalent of a {@link java.util.function.Function} that can throw exceptions.
@@ -29,4 +33,75 @@ public interface ExFunction<T, R, E extends Exception> extends Wrappable<Functio
         return t -> ExWrap.wrap(() -> apply(t));
     }
 
+    /**
+     * Returns a function that coalesces concurrent calls with equal arguments.
+     * <p>
+     * While this function is being applied to an argument, other threads applying the returned function to an equal argument do not apply this function
+     * again. They wait for the call in progress instead and share its result, or the exception it threw. As soon as that call has completed, the next call
+     * with an equal argument applies this function again, so results are never cached.
+     * <p>
+     * Calls are only coalesced by the same returned instance. Arguments must implement {@link Object#equals(Object)} and {@link Object#hashCode()};
+     * {@code null} arguments are never coalesced.
+     * <p>
+     * If this function applies the returned function to an equal argument on the same thread, an {@link IllegalStateException} is thrown instead of waiting
+     * for the call in progress, which would never complete.
+     *
+     * @return a function coalescing concurrent calls with equal arguments
+     */
+    default @NonNull ExFunction<T, R, E> singleFlight() {
+        return new SingleFlightFunction<>(this);
+    }
+
+    /**
+     * Returns a function that applies this function with a permit from {@code limiter}, waiting until a permit is available.
+     * <p>
+     * If the current thread is interrupted while waiting, the interrupt status is restored and an {@link net.dapete.exceptional.ExException} with the
+     * {@link InterruptedException} as its cause is thrown.
+     *
+     * @param limiter the limiter to acquire permits from
+     * @return a function limited by {@code limiter}
+     */
+    default @NonNull ExFunction<T, R, E> limited(@NonNull ExLimiter limiter) {
+        return t -> {
+            Limiting.acquire(limiter);
+            return Limiting.call(limiter, () -> apply(t));
+        };
+    }
+
+    /**
+     * Returns a function that applies this function with a permit from {@code limiter}, failing fast if no permit is available.
+     * <p>
+     * If no permit is available without waiting, the exception supplied by {@code rejection} is thrown instead.
+     *
+     * @param limiter   the limiter to acquire permits from
+     * @param rejection supplies the exception to throw if no permit is available
+     * @return a function limited by {@code limiter}
+     */
+    default @NonNull ExFunction<T, R, E> limited(@NonNull ExLimiter limiter, @NonNull Supplier<? extends E> rejection) {
+        return t -> {
+            if (!limiter.tryAcquire()) {
+                throw rejection.get();
+            }
+            return Limiting.call(limiter, () -> apply(t));
+        };
+    }
+
+    /**
+     * Returns a function that applies this function with a permit from {@code limiter}, falling back to {@code fallback} if no permit is available.
+     * <p>
+     * If no permit is available without waiting, {@code fallback} is called instead, without a permit.
+     *
+     * @param limiter  the limiter to acquire permits from
+     * @param fallback the function to apply if no permit is available
+     * @return a function limited by {@code limiter}
+     */
+    default @NonNull ExFunction<T, R, E> limitedOrElse(@NonNull ExLimiter limiter, @NonNull ExFunction<? super T, ? extends R, ? extends E> fallback) {
+        return t -> {
+            if (!limiter.tryAcquire()) {
+                return fallback.apply(t);
+            }
+            return Limiting.call(limiter, () -> apply(t));
+        };
+    }
+
 }
@@ -0,0 +1,93 @@
+package net.dapete.exceptional.function;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Equivalent of an {@link java.lang.Iterable} whose iterators can throw exceptions.
+ * <p>
+ * The adapters {@link #map(ExFunction)}, {@link #filter(ExPredicate)} and {@link #take(long)} return iterables applying the corresponding adapter of
+ * {@link ExIterator} to each new iterator.
+ *
+ * @param <T> the type of elements returned by the iterators
+ * @param <E> the type of exception thrown
+ */
+@FunctionalInterface
+public interface ExIterable<T, E extends Exception> extends Wrappable<Iterable<T>> {
+
+    /**
+     * Returns a new iterator over the elements.
+     *
+     * @return a new iterator
+     */
+    ExIterator<T, E> iterator();
+
+    @Override
+    default @NonNull Iterable<T> wrap() {
+        return () -> iterator().wrap();
+    }
+
+    /**
+     * Performs the given action for each element until all elements have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws E potentially
+     */
+    default void forEach(@NonNull ExConsumer<? super T, ? extends E> action) throws E {
+        iterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns an iterable whose iterators return the results of applying {@code mapper} to the elements.
+     *
+     * @param mapper the function to apply to each element
+     * @param <R>    the type of elements returned by the new iterable
+     * @return the new iterable
+     * @see ExIterator#map(ExFunction)
+     */
+    default <R> @NonNull ExIterable<R, E> map(@NonNull ExFunction<? super T, ? extends R, ? extends E> mapper) {
+        return () -> iterator().map(mapper);
+    }
+
+    /**
+     * Returns an iterable whose iterators return the elements that match {@code predicate}.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new iterable
+     * @see ExIterator#filter(ExPredicate)
+     */
+    default @NonNull ExIterable<T, E> filter(@NonNull ExPredicate<? super T, ? extends E> predicate) {
+        return () -> iterator().filter(predicate);
+    }
+
+    /**
+     * Returns an iterable whose iterators return at most {@code maxSize} elements.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the new iterable
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     * @see ExIterator#take(long)
+     */
+    default @NonNull ExIterable<T, E> take(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        return () -> iterator().take(maxSize);
+    }
+
+    /**
+     * Returns an iterable whose iterators return the elements of {@code iterable}.
+     * <p>
+     * If an iterator of {@code iterable} throws an {@link net.dapete.exceptional.ExException} whose cause is an instance of {@code exceptionClass}, the cause
+     * is thrown instead.
+     *
+     * @param iterable       the iterable to adapt
+     * @param exceptionClass the class of exception thrown
+     * @param <T>            the type of elements returned by the iterators
+     * @param <E>            the type of exception thrown
+     * @return an iterable returning the elements of {@code iterable}
+     */
+    static <T, E extends Exception> @NonNull ExIterable<T, E> of(@NonNull Iterable<? extends T> iterable, @NonNull Class<E> exceptionClass) {
+        return () -> ExIterator.of(iterable.iterator(), exceptionClass);
+    }
+
+}
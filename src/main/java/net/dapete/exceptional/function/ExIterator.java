@@ -0,0 +1,114 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.internal.ExIterators;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Iterator;
+
+/**
+ * Equivalent of an {@link java.util.Iterator} that can throw exceptions, e.g. for cursors, readers or paginated sources.
+ * <p>
+ * Unlike an {@link net.dapete.exceptional.stream.ExStream}, the checked exceptions are thrown by {@link #hasNext()} and {@link #next()} directly, without
+ * wrapping them in an {@link net.dapete.exceptional.ExException}. The adapters {@link #map(ExFunction)}, {@link #filter(ExPredicate)} and
+ * {@link #take(long)} are lazy and call the functional interfaces passed to them as the elements are iterated.
+ *
+ * @param <T> the type of elements returned by this iterator
+ * @param <E> the type of exception thrown
+ */
+public interface ExIterator<T, E extends Exception> extends Wrappable<Iterator<T>> {
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     * @throws E potentially
+     */
+    boolean hasNext() throws E;
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws E                                potentially
+     * @throws java.util.NoSuchElementException if the iteration has no more elements
+     */
+    T next() throws E;
+
+    @Override
+    default @NonNull Iterator<T> wrap() {
+        return ExIterators.wrap(this);
+    }
+
+    /**
+     * Performs the given action for each remaining element until all elements have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws E potentially
+     */
+    default void forEachRemaining(@NonNull ExConsumer<? super T, ? extends E> action) throws E {
+        while (hasNext()) {
+            action.accept(next());
+        }
+    }
+
+    /**
+     * Returns an iterator returning the results of applying {@code mapper} to the elements of this iterator.
+     *
+     * @param mapper the function to apply to each element
+     * @param <R>    the type of elements returned by the new iterator
+     * @return the new iterator
+     */
+    default <R> @NonNull ExIterator<R, E> map(@NonNull ExFunction<? super T, ? extends R, ? extends E> mapper) {
+        return ExIterators.map(this, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of this iterator that match {@code predicate}.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new iterator
+     */
+    default @NonNull ExIterator<T, E> filter(@NonNull ExPredicate<? super T, ? extends E> predicate) {
+        return ExIterators.filter(this, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of this iterator. No more elements are requested from this iterator once
+     * {@code maxSize} elements have been returned.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the new iterator
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    default @NonNull ExIterator<T, E> take(long maxSize) {
+        return ExIterators.take(this, maxSize);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator}.
+     * <p>
+     * If {@code iterator} throws an {@link net.dapete.exceptional.ExException} whose cause is an instance of {@code exceptionClass}, e.g. because it is
+     * the iterator of an {@link net.dapete.exceptional.stream.ExStream}, the cause is thrown instead.
+     *
+     * @param iterator       the iterator to adapt
+     * @param exceptionClass the class of exception thrown
+     * @param <T>            the type of elements returned by the iterator
+     * @param <E>            the type of exception thrown
+     * @return an iterator returning the elements of {@code iterator}
+     */
+    static <T, E extends Exception> @NonNull ExIterator<T, E> of(@NonNull Iterator<? extends T> iterator, @NonNull Class<E> exceptionClass) {
+        return ExIterators.unwrap(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator without any elements.
+     *
+     * @param <T> the type of elements returned by the iterator
+     * @param <E> the type of exception thrown
+     * @return an empty iterator
+     */
+    static <T, E extends Exception> @NonNull ExIterator<T, E> empty() {
+        return ExIterators.empty();
+    }
+
+}
@@ -0,0 +1,152 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.internal.ExPrimitiveIterators;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.LongBuffer;
+import java.util.PrimitiveIterator;
+
+/**
+ * Equivalent of a {@link java.util.PrimitiveIterator.OfLong} that can throw exceptions.
+ * <p>
+ * Like {@link ExIterator}, the checked exceptions are thrown by {@link #hasNext()} and {@link #nextLong()} directly. The elements are never boxed, unless
+ * they are mapped to objects using {@link #mapToObj(ExLongFunction)}.
+ *
+ * @param <E> the type of exception thrown
+ */
+public interface ExLongIterator<E extends Exception> extends Wrappable<PrimitiveIterator.OfLong> {
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     * @throws E potentially
+     */
+    boolean hasNext() throws E;
+
+    /**
+     * Returns the next {@code long} element in the iteration.
+     *
+     * @return the next {@code long} element in the iteration
+     * @throws E                                potentially
+     * @throws java.util.NoSuchElementException if the iteration has no more elements
+     */
+    long nextLong() throws E;
+
+    @Override
+    default PrimitiveIterator.@NonNull OfLong wrap() {
+        return ExPrimitiveIterators.wrap(this);
+    }
+
+    /**
+     * Performs the given action for each remaining element until all elements have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws E potentially
+     */
+    default void forEachRemaining(@NonNull ExLongConsumer<? extends E> action) throws E {
+        while (hasNext()) {
+            action.accept(nextLong());
+        }
+    }
+
+    /**
+     * Returns an iterator returning the results of applying {@code mapper} to the elements of this iterator.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new iterator
+     */
+    default @NonNull ExLongIterator<E> map(@NonNull ExLongUnaryOperator<? extends E> mapper) {
+        return ExPrimitiveIterators.map(this, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the results of applying {@code mapper} to the elements of this iterator.
+     *
+     * @param mapper the function to apply to each element
+     * @param <R>    the type of elements returned by the new iterator
+     * @return the new iterator
+     */
+    default <R> @NonNull ExIterator<R, E> mapToObj(@NonNull ExLongFunction<? extends R, ? extends E> mapper) {
+        return ExPrimitiveIterators.mapToObj(this, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of this iterator that match {@code predicate}.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new iterator
+     */
+    default @NonNull ExLongIterator<E> filter(@NonNull ExLongPredicate<? extends E> predicate) {
+        return ExPrimitiveIterators.filter(this, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of this iterator. No more elements are requested from this iterator once
+     * {@code maxSize} elements have been returned.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the new iterator
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    default @NonNull ExLongIterator<E> take(long maxSize) {
+        return ExPrimitiveIterators.take(this, maxSize);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator}.
+     * <p>
+     * If {@code iterator} throws an {@link net.dapete.exceptional.ExException} whose cause is an instance of {@code exceptionClass}, e.g. because it is
+     * the iterator of an {@link net.dapete.exceptional.stream.ExLongStream}, the cause is thrown instead.
+     *
+     * @param iterator       the iterator to adapt
+     * @param exceptionClass the class of exception thrown
+     * @param <E>            the type of exception thrown
+     * @return an iterator returning the elements of {@code iterator}
+     */
+    static <E extends Exception> @NonNull ExLongIterator<E> of(PrimitiveIterator.@NonNull OfLong iterator, @NonNull Class<E> exceptionClass) {
+        return ExPrimitiveIterators.unwrap(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code array}. The array is not copied, so changes to it are visible to the iterator.
+     *
+     * @param array the array
+     * @param <E>   the type of exception thrown
+     * @return an iterator returning the elements of {@code array}
+     */
+    static <E extends Exception> @NonNull ExLongIterator<E> of(long @NonNull [] array) {
+        return ExPrimitiveIterators.of(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code array} from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive. The array is not
+     * copied, so changes to it are visible to the iterator.
+     *
+     * @param array     the array
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param <E>       the type of exception thrown
+     * @return an iterator returning the elements of {@code array} in the range
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex} is negative, {@code toIndex} is greater than the length of {@code array} or
+     *                                        {@code fromIndex} is greater than {@code toIndex}
+     */
+    static <E extends Exception> @NonNull ExLongIterator<E> of(long @NonNull [] array, int fromIndex, int toIndex) {
+        return ExPrimitiveIterators.of(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns an iterator returning the remaining elements of {@code buffer}, from its position to its limit.
+     * <p>
+     * The elements are read using absolute gets, so the position of {@code buffer} is not changed. The buffer is not copied, so changes to it are visible
+     * to the iterator.
+     *
+     * @param buffer the buffer
+     * @param <E>    the type of exception thrown
+     * @return an iterator returning the remaining elements of {@code buffer}
+     */
+    static <E extends Exception> @NonNull ExLongIterator<E> of(@NonNull LongBuffer buffer) {
+        return ExPrimitiveIterators.of(buffer);
+    }
+
+}
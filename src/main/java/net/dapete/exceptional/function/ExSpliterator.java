@@ -0,0 +1,84 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.internal.ExSpliterators;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+
+/**
+ * Equivalent of a {@link java.util.Spliterator} that can throw exceptions while advancing or splitting, e.g. a source reading from files or a cursor.
+ * <p>
+ * A splittable instance can be the source of a parallel {@link net.dapete.exceptional.stream.ExStream}, using
+ * {@link net.dapete.exceptional.stream.ExStream#fromSource(Class, ExSpliterator)}.
+ *
+ * @param <T> the type of elements returned
+ * @param <E> the type of exception thrown
+ */
+public interface ExSpliterator<T, E extends Exception> extends Wrappable<Spliterator<T>> {
+
+    /**
+     * If a remaining element exists, performs the given action on it and returns {@code true}, else returns {@code false}.
+     *
+     * @param action the action to be performed on the next element
+     * @return {@code false} if no remaining elements existed, else {@code true}
+     * @throws E potentially
+     */
+    boolean tryAdvance(@NonNull ExConsumer<? super T, ? extends E> action) throws E;
+
+    /**
+     * If this spliterator can be partitioned, returns a spliterator covering a part of the elements, which will not be covered by this spliterator anymore.
+     *
+     * @return a spliterator covering some portion of the elements, or {@code null} if this spliterator cannot be split
+     * @throws E potentially
+     * @see Spliterator#trySplit()
+     */
+    @Nullable ExSpliterator<T, E> trySplit() throws E;
+
+    /**
+     * Returns an estimate of the number of elements that would be encountered by {@link #forEachRemaining(ExConsumer)}.
+     *
+     * @return the estimated size, or {@link Long#MAX_VALUE} if infinite, unknown, or too expensive to compute
+     * @see Spliterator#estimateSize()
+     */
+    long estimateSize();
+
+    /**
+     * Returns the characteristics of this spliterator and its elements, as defined by {@link Spliterator}.
+     *
+     * @return the characteristics
+     * @see Spliterator#characteristics()
+     */
+    int characteristics();
+
+    /**
+     * Returns the comparator by which the elements are sorted, if this spliterator is {@link Spliterator#SORTED}.
+     *
+     * @return the comparator, or {@code null} if the elements are sorted in their natural order
+     * @throws IllegalStateException if this spliterator is not {@link Spliterator#SORTED}
+     * @see Spliterator#getComparator()
+     */
+    default @Nullable Comparator<? super T> getComparator() {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    default @NonNull Spliterator<T> wrap() {
+        return ExSpliterators.wrap(this);
+    }
+
+    /**
+     * Performs the given action for each remaining element until all elements have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws E potentially
+     */
+    default void forEachRemaining(@NonNull ExConsumer<? super T, ? extends E> action) throws E {
+        boolean advanced;
+        do {
+            advanced = tryAdvance(action);
+        } while (advanced);
+    }
+
+}
@@ -1,8 +1,14 @@
 package net.dapete.exceptional.function;
 
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExLimiter;
+import net.dapete.exceptional.internal.HedgedSupplier;
+import net.dapete.exceptional.internal.Limiting;
 import net.dapete.exceptional.wrap.ExWrap;
 import org.jspecify.annotations.NonNull;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 /**
@@ -27,4 +33,79 @@ public interface ExSupplier<T, E extends Exception> extends Wrappable<Supplier<T
         return () -> ExWrap.wrap(this);
     }
 
+    /**
+     * Returns a supplier that hedges calls to this supplier to reduce tail latency.
+     * <p>
+     * Each call of the returned supplier runs a first attempt on {@code executor}. If no attempt has completed successfully after {@code delay}, another
+     * attempt is started, up to {@code maxAttempts} attempts in total. If an attempt fails while no other attempt is running, the next attempt is started
+     * immediately. The result of the first attempt to succeed is returned and all other attempts are cancelled.
+     * <p>
+     * An exception is only thrown once every attempt has failed. This is the exception thrown by the first attempt to fail, with the exceptions of the
+     * other attempts added as {@link Throwable#getSuppressed() suppressed} exceptions.
+     * <p>
+     * If the calling thread is interrupted while waiting, all attempts are cancelled, the interrupt status is restored and an {@link ExException} with the
+     * {@link InterruptedException} as its cause is thrown.
+     *
+     * @param delay       the delay after which another attempt is started
+     * @param maxAttempts the maximum number of attempts, must be at least 1
+     * @param executor    the executor to run attempts on
+     * @return a supplier hedging calls to this supplier
+     * @throws IllegalArgumentException if {@code delay} is negative or {@code maxAttempts} is less than 1
+     */
+    default @NonNull ExSupplier<T, E> hedged(@NonNull Duration delay, int maxAttempts, @NonNull Executor executor) {
+        return new HedgedSupplier<>(this, delay, maxAttempts, executor);
+    }
+
+    /**
+     * Returns a supplier that calls this supplier with a permit from {@code limiter}, waiting until a permit is available.
+     * <p>
+     * If the current thread is interrupted while waiting, the interrupt status is restored and an {@link ExException} with the
+     * {@link InterruptedException} as its cause is thrown.
+     *
+     * @param limiter the limiter to acquire permits from
+     * @return a supplier limited by {@code limiter}
+     */
+    default @NonNull ExSupplier<T, E> limited(@NonNull ExLimiter limiter) {
+        return () -> {
+            Limiting.acquire(limiter);
+            return Limiting.call(limiter, this);
+        };
+    }
+
+    /**
+     * Returns a supplier that calls this supplier with a permit from {@code limiter}, failing fast if no permit is available.
+     * <p>
+     * If no permit is available without waiting, the exception supplied by {@code rejection} is thrown instead.
+     *
+     * @param limiter   the limiter to acquire permits from
+     * @param rejection supplies the exception to throw if no permit is available
+     * @return a supplier limited by {@code limiter}
+     */
+    default @NonNull ExSupplier<T, E> limited(@NonNull ExLimiter limiter, @NonNull Supplier<? extends E> rejection) {
+        return () -> {
+            if (!limiter.tryAcquire()) {
+                throw rejection.get();
+            }
+            return Limiting.call(limiter, this);
+        };
+    }
+
+    /**
+     * Returns a supplier that calls this supplier with a permit from {@code limiter}, falling back to {@code fallback} if no permit is available.
+     * <p>
+     * If no permit is available without waiting, {@code fallback} is called instead, without a permit.
+     *
+     * @param limiter  the limiter to acquire permits from
+     * @param fallback the supplier to call if no permit is available
+     * @return a supplier limited by {@code limiter}
+     */
+    default @NonNull ExSupplier<T, E> limitedOrElse(@NonNull ExLimiter limiter, @NonNull ExSupplier<? extends T, ? extends E> fallback) {
+        return () -> {
+            if (!limiter.tryAcquire()) {
+                return fallback.get();
+            }
+            return Limiting.call(limiter, this);
+        };
+    }
+
 }
@@ -0,0 +1,340 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link net.dapete.exceptional.stream.ExStream#forEachOrdered(Class, int, net.dapete.exceptional.function.ExConsumer)}.
+ * <p>
+ * The source is split recursively into leaves of about {@code 1 / (4 * parallelism)} of its estimated size, in encounter order. Worker tasks claim the
+ * leaves in this order and process them in parallel, adding their elements to a queue per leaf. The calling thread passes the elements of the leaves to
+ * the action in encounter order. At most {@code window} elements are buffered in all queues together; a worker adding to a full buffer waits until the
+ * calling thread has taken elements out of it, as a {@link ForkJoinPool.ManagedBlocker}, so the pool can compensate for blocked workers. The worker of the
+ * leaf the calling thread is currently waiting for may always add an element to its empty queue, so a full buffer of later elements can never block the
+ * calling thread.
+ * <p>
+ * If no worker has claimed that leaf yet, the calling thread claims and processes it itself, passing its elements to the action directly. This guarantees
+ * progress even if no worker ever runs, e.g. because all threads of the pool are busy.
+ *
+ * @param <T> the type of the elements
+ */
+public final class BoundedReorderBuffer<T> {
+
+    /**
+     * Thrown by workers adding to the buffer after processing was cancelled, to stop processing the current leaf.
+     */
+    private static final class CancelledException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CancelledException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /* Marker for null elements, which ArrayDeque does not support. */
+    private static final Object NULL = new Object();
+
+    private static final class Leaf<T> {
+
+        private final int index;
+
+        private final Spliterator<T> spliterator;
+
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+
+        private boolean done;
+
+        private Leaf(int index, Spliterator<T> spliterator) {
+            this.index = index;
+            this.spliterator = spliterator;
+        }
+
+    }
+
+    private final int window;
+
+    private final long splitThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition headAvailable = lock.newCondition();
+
+    private final Condition spaceAvailable = lock.newCondition();
+
+    /* All fields below are guarded by lock. */
+
+    /* The parts of the source not claimed yet, in encounter order. */
+    private final ArrayDeque<Spliterator<T>> remaining = new ArrayDeque<>();
+
+    private final List<Leaf<T>> leaves = new ArrayList<>();
+
+    private int head;
+
+    private int buffered;
+
+    private boolean cancelled;
+
+    private @Nullable Throwable failure;
+
+    private BoundedReorderBuffer(Spliterator<T> source, int window, int parallelism) {
+        this.remaining.add(source);
+        this.window = window;
+        final long estimatedSize = source.estimateSize();
+        this.splitThreshold = Math.max(1, estimatedSize / (parallelism * 4L));
+    }
+
+    /**
+     * Performs {@code action} for each element of {@code source} in encounter order, processing the elements of {@code source} in parallel in the current
+     * {@link ForkJoinPool}, or the common pool if the current thread does not belong to one.
+     * <p>
+     * Exceptions thrown while processing {@code source} or by {@code action} are rethrown by this method, after all workers have stopped.
+     *
+     * @param source the source of the elements.
+     * @param window the maximum number of elements buffered.
+     * @param action the action to perform for each element, always called by the current thread.
+     * @param <T>    the type of the elements.
+     * @throws ExException with an {@link InterruptedException} as its cause if the current thread is interrupted while waiting.
+     */
+    public static <T> void forEachOrdered(Spliterator<T> source, int window, Consumer<? super T> action) {
+        final ForkJoinPool currentPool = ForkJoinTask.getPool();
+        final ForkJoinPool pool = currentPool != null ? currentPool : ForkJoinPool.commonPool();
+        final int parallelism = pool.getParallelism();
+        new BoundedReorderBuffer<>(source, window, parallelism).run(parallelism, action);
+    }
+
+    private void run(int parallelism, Consumer<? super T> action) {
+        final List<ForkJoinTask<?>> workers = new ArrayList<>(parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(ForkJoinTask.adapt(this::work).fork());
+            }
+            consume(action);
+        } finally {
+            cancel(null);
+            for (final ForkJoinTask<?> worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    /* Workers. */
+
+    private void work() {
+        try {
+            Leaf<T> leaf;
+            while ((leaf = claim()) != null) {
+                final Leaf<T> currentLeaf = leaf;
+                currentLeaf.spliterator.forEachRemaining(element -> offer(currentLeaf, element));
+                complete(currentLeaf);
+            }
+        } catch (CancelledException e) {
+            // stop working
+        } catch (Throwable e) {
+            cancel(e);
+        }
+    }
+
+    private @Nullable Leaf<T> claim() {
+        lock.lock();
+        try {
+            return cancelled ? null : nextLeaf();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private @Nullable Leaf<T> nextLeaf() {
+        // called with lock held
+        Spliterator<T> next = remaining.pollFirst();
+        if (next == null) {
+            return null;
+        }
+        // split the first part until it is small enough, keeping the suffixes for the following leaves
+        while (next.estimateSize() > splitThreshold) {
+            final Spliterator<T> prefix = next.trySplit();
+            if (prefix == null) {
+                break;
+            }
+            remaining.addFirst(next);
+            next = prefix;
+        }
+        final var leaf = new Leaf<>(leaves.size(), next);
+        leaves.add(leaf);
+        if (leaf.index == head) {
+            headAvailable.signal();
+        }
+        return leaf;
+    }
+
+    private void offer(Leaf<T> leaf, @Nullable T element) {
+        final Object maskedElement = element != null ? element : NULL;
+        lock.lock();
+        try {
+            if (tryAdd(leaf, maskedElement)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            ForkJoinPool.managedBlock(new Offer(leaf, maskedElement));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExException(e);
+        }
+    }
+
+    /* Adds element to the queue of leaf if there is space in the buffer, called with lock held. */
+    private boolean tryAdd(Leaf<T> leaf, Object element) {
+        if (cancelled) {
+            throw new CancelledException();
+        }
+        if (buffered >= window && !(leaf.index == head && leaf.queue.isEmpty())) {
+            return false;
+        }
+        leaf.queue.add(element);
+        buffered++;
+        if (leaf.index == head) {
+            headAvailable.signal();
+        }
+        return true;
+    }
+
+    /* Waits for space in the buffer to add an element, allowing the pool to start a compensating thread while blocked. */
+    private final class Offer implements ForkJoinPool.ManagedBlocker {
+
+        private final Leaf<T> leaf;
+
+        private final Object element;
+
+        private boolean added;
+
+        private Offer(Leaf<T> leaf, Object element) {
+            this.leaf = leaf;
+            this.element = element;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!added && lock.tryLock()) {
+                try {
+                    added = tryAdd(leaf, element);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return added;
+        }
+
+        @Override
+        public boolean block() {
+            lock.lock();
+            try {
+                while (!added) {
+                    added = tryAdd(leaf, element);
+                    if (!added) {
+                        spaceAvailable.awaitUninterruptibly();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        }
+
+    }
+
+    private void complete(Leaf<T> leaf) {
+        lock.lock();
+        try {
+            leaf.done = true;
+            if (leaf.index == head) {
+                headAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel(@Nullable Throwable e) {
+        lock.lock();
+        try {
+            if (e != null && failure == null && !cancelled) {
+                failure = e;
+            }
+            cancelled = true;
+            headAvailable.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* Calling thread. */
+
+    private void consume(Consumer<? super T> action) {
+        while (true) {
+            @Nullable Object element = null;
+            @Nullable Leaf<T> inlineLeaf = null;
+            lock.lock();
+            try {
+                while (true) {
+                    if (failure != null) {
+                        throw ExUtils.rethrow(failure);
+                    }
+                    if (head < leaves.size()) {
+                        final Leaf<T> leaf = leaves.get(head);
+                        if (!leaf.queue.isEmpty()) {
+                            element = leaf.queue.poll();
+                            buffered--;
+                            spaceAvailable.signalAll();
+                            break;
+                        }
+                        if (leaf.done) {
+                            head++;
+                            spaceAvailable.signalAll();
+                            continue;
+                        }
+                    } else {
+                        // no worker has claimed the next leaf yet, so process it here
+                        inlineLeaf = nextLeaf();
+                        if (inlineLeaf == null) {
+                            return;
+                        }
+                        break;
+                    }
+                    headAvailable.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExException(e);
+            } finally {
+                lock.unlock();
+            }
+            if (inlineLeaf != null) {
+                inlineLeaf.spliterator.forEachRemaining(action);
+                complete(inlineLeaf);
+            } else {
+                action.accept(unmask(element));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "NullAway", "ReferenceEquality"}) // only elements of type T are added to the queues, null elements are replaced by NULL
+    private T unmask(@Nullable Object element) {
+        return element == NULL ? null : (T) element;
+    }
+
+}
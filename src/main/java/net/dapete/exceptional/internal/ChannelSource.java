@@ -0,0 +1,185 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExSpliterator;
+import net.dapete.exceptional.function.ExToIntFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Spliterator;
+
+/**
+ * A source of elements parsed from the bytes read from a {@link ReadableByteChannel}, used by
+ * {@link net.dapete.exceptional.stream.ExStream#fromChannel(ReadableByteChannel, int, ExFunction)} and its record-framing variant.
+ * <p>
+ * The bytes are read into a single direct buffer from the {@link DirectBufferPool}, and the parser is called with this buffer or a slice of it, so the bytes
+ * are never copied. The buffer is returned to the pool when the end of the channel is reached or {@link #release()} is called, whichever happens first.
+ * <p>
+ * The channel is read sequentially, so the source cannot be split.
+ *
+ * @param <T> the type of the parsed elements
+ */
+public abstract sealed class ChannelSource<T> implements ExSpliterator<T, IOException> {
+
+    final ReadableByteChannel channel;
+
+    final ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser;
+
+    @Nullable ByteBuffer buffer;
+
+    private ChannelSource(ReadableByteChannel channel, int bufferSize, ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.channel = channel;
+        this.parser = parser;
+        this.buffer = DirectBufferPool.acquire(bufferSize);
+    }
+
+    /**
+     * Returns a source parsing each chunk of {@code chunkSize} bytes read from {@code channel}, except the last one, which may be shorter.
+     *
+     * @param channel   the channel, in blocking mode.
+     * @param chunkSize the number of bytes of each chunk.
+     * @param parser    the function parsing a chunk, from the position to the limit of the buffer, which must not keep a reference to it.
+     * @param <T>       the type of the parsed elements.
+     * @return the source.
+     */
+    public static <T> ChannelSource<T> chunks(ReadableByteChannel channel, int chunkSize,
+                                              ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser) {
+        return new Chunks<>(channel, chunkSize, parser);
+    }
+
+    /**
+     * Returns a source parsing the records read from {@code channel}, whose lengths are determined by {@code framer}.
+     *
+     * @param channel    the channel, in blocking mode.
+     * @param bufferSize the size of the buffer, which must be at least the size of the largest record.
+     * @param framer     the function returning the length of the record starting at the position of the buffer, or a negative value if the bytes up to
+     *                   the limit of the buffer are not sufficient to determine it.
+     * @param parser     the function parsing a record, from the position to the limit of the buffer, which must not keep a reference to it.
+     * @param <T>        the type of the parsed elements.
+     * @return the source.
+     */
+    public static <T> ChannelSource<T> records(ReadableByteChannel channel, int bufferSize, ExToIntFunction<? super ByteBuffer, ? extends IOException> framer,
+                                               ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser) {
+        return new Records<>(channel, bufferSize, framer, parser);
+    }
+
+    /**
+     * Returns the buffer to the pool, if it was not returned yet. No further elements are returned afterward.
+     */
+    public void release() {
+        final ByteBuffer currentBuffer = buffer;
+        if (currentBuffer != null) {
+            buffer = null;
+            DirectBufferPool.release(currentBuffer);
+        }
+    }
+
+    @Override
+    public @Nullable ExSpliterator<T, IOException> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED;
+    }
+
+    private static final class Chunks<T> extends ChannelSource<T> {
+
+        private Chunks(ReadableByteChannel channel, int chunkSize, ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser) {
+            super(channel, chunkSize, parser);
+        }
+
+        @Override
+        public boolean tryAdvance(ExConsumer<? super T, ? extends IOException> action) throws IOException {
+            final ByteBuffer currentBuffer = buffer;
+            if (currentBuffer == null) {
+                return false;
+            }
+            currentBuffer.clear();
+            boolean endOfChannel = false;
+            while (currentBuffer.hasRemaining() && !endOfChannel) {
+                endOfChannel = channel.read(currentBuffer) < 0;
+            }
+            currentBuffer.flip();
+            if (!currentBuffer.hasRemaining()) {
+                release();
+                return false;
+            }
+            final T element = parser.apply(currentBuffer);
+            if (endOfChannel) {
+                release();
+            }
+            action.accept(element);
+            return true;
+        }
+
+    }
+
+    private static final class Records<T> extends ChannelSource<T> {
+
+        private final ExToIntFunction<? super ByteBuffer, ? extends IOException> framer;
+
+        private boolean endOfChannel;
+
+        private Records(ReadableByteChannel channel, int bufferSize, ExToIntFunction<? super ByteBuffer, ? extends IOException> framer,
+                        ExFunction<? super ByteBuffer, ? extends T, ? extends IOException> parser) {
+            super(channel, bufferSize, parser);
+            this.framer = framer;
+            // the buffer is kept in read mode, between its position and limit are the bytes read but not parsed yet
+            if (buffer != null) {
+                buffer.flip();
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(ExConsumer<? super T, ? extends IOException> action) throws IOException {
+            while (true) {
+                final ByteBuffer currentBuffer = buffer;
+                if (currentBuffer == null) {
+                    return false;
+                }
+                final int start = currentBuffer.position();
+                if (currentBuffer.hasRemaining()) {
+                    final int length = framer.applyAsInt(currentBuffer);
+                    currentBuffer.position(start);
+                    if (length == 0) {
+                        throw new IllegalStateException("framer must not return 0");
+                    }
+                    if (length > 0 && length <= currentBuffer.remaining()) {
+                        final ByteBuffer record = currentBuffer.slice(start, length);
+                        currentBuffer.position(start + length);
+                        action.accept(parser.apply(record));
+                        return true;
+                    }
+                }
+                if (endOfChannel) {
+                    if (currentBuffer.hasRemaining()) {
+                        throw new IOException("Incomplete record of " + currentBuffer.remaining() + " bytes at the end of the channel");
+                    }
+                    release();
+                    return false;
+                }
+                currentBuffer.compact();
+                if (!currentBuffer.hasRemaining()) {
+                    throw new IOException("Record is larger than the buffer size of " + currentBuffer.capacity() + " bytes");
+                }
+                endOfChannel = channel.read(currentBuffer) < 0;
+                currentBuffer.flip();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,292 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Spliterator grouping the elements of a primitive source spliterator into arrays of {@code size} elements, except for the last one, which may be shorter.
+ * Used to implement {@link net.dapete.exceptional.stream.ExIntStream#chunked(int, boolean)} and its counterparts for the other primitive streams.
+ * <p>
+ * If the source is {@link Spliterator#SIZED SIZED} and {@link Spliterator#SUBSIZED SUBSIZED}, this spliterator can be split. As the prefix split off the source
+ * will not usually end at a chunk boundary, the elements needed to complete its last chunk are moved from the start of the suffix to the prefix.
+ * <p>
+ * If {@code reuseBuffer} is {@code true}, every full chunk returned by a spliterator is the same array, which is overwritten by the next chunk.
+ *
+ * @param <A> the type of the arrays, e.g. {@code int[]}
+ * @param <S> the type of the source spliterator
+ */
+public abstract sealed class ChunkSpliterator<A, S extends Spliterator.OfPrimitive<?, ?, S>> implements Spliterator<A> {
+
+    /**
+     * Spliterator for {@code int} elements.
+     */
+    public static final class OfInt extends ChunkSpliterator<int[], Spliterator.OfInt> implements IntConsumer {
+
+        private int @Nullable [] target;
+
+        /**
+         * Create a new instance.
+         *
+         * @param source      the source of the elements.
+         * @param size        the number of elements in each chunk.
+         * @param reuseBuffer if {@code true}, the same array is returned for every full chunk.
+         */
+        public OfInt(Spliterator.OfInt source, int size, boolean reuseBuffer) {
+            super(source, size, reuseBuffer, new int[0], 0);
+        }
+
+        private OfInt(Spliterator.OfInt source, int size, boolean reuseBuffer, int[] tail, int tailLength) {
+            super(source, size, reuseBuffer, tail, tailLength);
+        }
+
+        @Override
+        int[] newArray(int length) {
+            return new int[length];
+        }
+
+        @Override
+        int[] copyOf(int[] array, int length) {
+            return Arrays.copyOf(array, length);
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // target is set before the source is advanced
+        int readFromSource(int[] array, int offset, int length) {
+            target = array;
+            count = offset;
+            while (count < offset + length && source.tryAdvance(this)) {
+                // accept stores the element
+            }
+            target = null;
+            return count - offset;
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // only called by readFromSource
+        public void accept(int value) {
+            target[count++] = value;
+        }
+
+        @Override
+        ChunkSpliterator<int[], Spliterator.OfInt> create(Spliterator.OfInt prefixSource, int[] prefixTail, int prefixTailLength) {
+            return new OfInt(prefixSource, size, reuseBuffer, prefixTail, prefixTailLength);
+        }
+
+    }
+
+    /**
+     * Spliterator for {@code long} elements.
+     */
+    public static final class OfLong extends ChunkSpliterator<long[], Spliterator.OfLong> implements LongConsumer {
+
+        private long @Nullable [] target;
+
+        /**
+         * Create a new instance.
+         *
+         * @param source      the source of the elements.
+         * @param size        the number of elements in each chunk.
+         * @param reuseBuffer if {@code true}, the same array is returned for every full chunk.
+         */
+        public OfLong(Spliterator.OfLong source, int size, boolean reuseBuffer) {
+            super(source, size, reuseBuffer, new long[0], 0);
+        }
+
+        private OfLong(Spliterator.OfLong source, int size, boolean reuseBuffer, long[] tail, int tailLength) {
+            super(source, size, reuseBuffer, tail, tailLength);
+        }
+
+        @Override
+        long[] newArray(int length) {
+            return new long[length];
+        }
+
+        @Override
+        long[] copyOf(long[] array, int length) {
+            return Arrays.copyOf(array, length);
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // target is set before the source is advanced
+        int readFromSource(long[] array, int offset, int length) {
+            target = array;
+            count = offset;
+            while (count < offset + length && source.tryAdvance(this)) {
+                // accept stores the element
+            }
+            target = null;
+            return count - offset;
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // only called by readFromSource
+        public void accept(long value) {
+            target[count++] = value;
+        }
+
+        @Override
+        ChunkSpliterator<long[], Spliterator.OfLong> create(Spliterator.OfLong prefixSource, long[] prefixTail, int prefixTailLength) {
+            return new OfLong(prefixSource, size, reuseBuffer, prefixTail, prefixTailLength);
+        }
+
+    }
+
+    /**
+     * Spliterator for {@code double} elements.
+     */
+    public static final class OfDouble extends ChunkSpliterator<double[], Spliterator.OfDouble> implements DoubleConsumer {
+
+        private double @Nullable [] target;
+
+        /**
+         * Create a new instance.
+         *
+         * @param source      the source of the elements.
+         * @param size        the number of elements in each chunk.
+         * @param reuseBuffer if {@code true}, the same array is returned for every full chunk.
+         */
+        public OfDouble(Spliterator.OfDouble source, int size, boolean reuseBuffer) {
+            super(source, size, reuseBuffer, new double[0], 0);
+        }
+
+        private OfDouble(Spliterator.OfDouble source, int size, boolean reuseBuffer, double[] tail, int tailLength) {
+            super(source, size, reuseBuffer, tail, tailLength);
+        }
+
+        @Override
+        double[] newArray(int length) {
+            return new double[length];
+        }
+
+        @Override
+        double[] copyOf(double[] array, int length) {
+            return Arrays.copyOf(array, length);
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // target is set before the source is advanced
+        int readFromSource(double[] array, int offset, int length) {
+            target = array;
+            count = offset;
+            while (count < offset + length && source.tryAdvance(this)) {
+                // accept stores the element
+            }
+            target = null;
+            return count - offset;
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // only called by readFromSource
+        public void accept(double value) {
+            target[count++] = value;
+        }
+
+        @Override
+        ChunkSpliterator<double[], Spliterator.OfDouble> create(Spliterator.OfDouble prefixSource, double[] prefixTail, int prefixTailLength) {
+            return new OfDouble(prefixSource, size, reuseBuffer, prefixTail, prefixTailLength);
+        }
+
+    }
+
+    final S source;
+
+    final int size;
+
+    final boolean reuseBuffer;
+
+    /* Elements moved here from the start of the following spliterator, returned after those of the source. */
+
+    private final A tail;
+
+    private final int tailLength;
+
+    private int tailIndex;
+
+    private @Nullable A buffer;
+
+    /* Number of elements in the array being filled by readFromSource. */
+
+    int count;
+
+    private ChunkSpliterator(S source, int size, boolean reuseBuffer, A tail, int tailLength) {
+        this.source = source;
+        this.size = size;
+        this.reuseBuffer = reuseBuffer;
+        this.tail = tail;
+        this.tailLength = tailLength;
+    }
+
+    abstract A newArray(int length);
+
+    abstract A copyOf(A array, int length);
+
+    /**
+     * Reads up to {@code length} elements from the source into {@code array}, starting at {@code offset}.
+     *
+     * @return the number of elements read
+     */
+    abstract int readFromSource(A array, int offset, int length);
+
+    abstract ChunkSpliterator<A, S> create(S prefixSource, A prefixTail, int prefixTailLength);
+
+    private int read(A array, int length) {
+        final int fromSource = readFromSource(array, 0, length);
+        final int fromTail = Math.min(length - fromSource, tailLength - tailIndex);
+        System.arraycopy(tail, tailIndex, array, fromSource, fromTail);
+        tailIndex += fromTail;
+        return fromSource + fromTail;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super A> action) {
+        A chunk = buffer;
+        if (chunk == null) {
+            chunk = newArray(size);
+            if (reuseBuffer) {
+                buffer = chunk;
+            }
+        }
+        final int length = read(chunk, size);
+        if (length == 0) {
+            return false;
+        }
+        action.accept(length < size ? copyOf(chunk, length) : chunk);
+        return true;
+    }
+
+    @Override
+    public @Nullable Spliterator<A> trySplit() {
+        if (!source.hasCharacteristics(SIZED | SUBSIZED)) {
+            return null;
+        }
+        final S prefixSource = source.trySplit();
+        if (prefixSource == null) {
+            return null;
+        }
+        final int remainder = (int) (prefixSource.getExactSizeIfKnown() % size);
+        final int borrowed = remainder == 0 ? 0 : size - remainder;
+        final A prefixTail = newArray(borrowed);
+        return create(prefixSource, prefixTail, read(prefixTail, borrowed));
+    }
+
+    @Override
+    public long estimateSize() {
+        final long sourceSize = source.estimateSize();
+        if (sourceSize == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return (sourceSize + (tailLength - tailIndex) + size - 1) / size;
+    }
+
+    @Override
+    public int characteristics() {
+        return (source.characteristics() & ORDERED) | NONNULL;
+    }
+
+}
@@ -0,0 +1,181 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExFailureMode;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link net.dapete.exceptional.stream.ExStream#forEachConcurrent(Class, int, ExFailureMode, net.dapete.exceptional.function.ExConsumer)}
+ * and its counterparts for the primitive streams.
+ * <p>
+ * The calling thread takes the elements from the source one by one and starts a task for each of them on an executor from
+ * {@link ExThreads#newThreadPerTaskExecutor()}. A {@link Semaphore} limits the number of tasks in progress to {@code parallelism}, so the calling thread waits
+ * before taking the next element while all permits are in use, and no elements are queued.
+ *
+ * @param <T> the type of the elements
+ */
+public final class ConcurrentForEach<T> {
+
+    private final int parallelism;
+
+    private final ExFailureMode failureMode;
+
+    private final Consumer<? super T> action;
+
+    private final Semaphore permits;
+
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+
+    /* Guarded by this. */
+    private @Nullable Throwable failure;
+
+    private volatile boolean stopped;
+
+    private ConcurrentForEach(int parallelism, ExFailureMode failureMode, Consumer<? super T> action) {
+        this.parallelism = parallelism;
+        this.failureMode = failureMode;
+        this.action = action;
+        this.permits = new Semaphore(parallelism);
+    }
+
+    /**
+     * Performs {@code action} for each element of {@code source}, using up to {@code parallelism} threads concurrently, and waits until all calls have
+     * completed.
+     * <p>
+     * The elements are taken from {@code source} by the current thread, so intermediate operations of a stream are performed by it, too.
+     *
+     * @param source      the source of the elements.
+     * @param parallelism the maximum number of concurrent calls of {@code action}.
+     * @param failureMode how failures are handled.
+     * @param action      the action to perform for each element.
+     * @param <T>         the type of the elements.
+     * @throws ExException with an {@link InterruptedException} as its cause if the current thread is interrupted while waiting.
+     */
+    public static <T> void forEach(Spliterator<T> source, int parallelism, ExFailureMode failureMode, Consumer<? super T> action) {
+        new ConcurrentForEach<T>(parallelism, failureMode, action).run(source);
+    }
+
+    private void run(Spliterator<T> source) {
+        final ExecutorService executor = ExThreads.newThreadPerTaskExecutor();
+        try {
+            while (!stopped && source.tryAdvance(element -> dispatch(executor, element))) {
+                // dispatch starts a task for the element
+            }
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            awaitAll();
+            executor.shutdown();
+        }
+        final Throwable firstFailure;
+        synchronized (this) {
+            firstFailure = failure;
+        }
+        if (firstFailure != null) {
+            throw ExUtils.rethrow(firstFailure);
+        }
+    }
+
+    private void dispatch(ExecutorService executor, T element) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExException(e);
+        }
+        if (stopped) {
+            permits.release();
+            return;
+        }
+        try {
+            executor.execute(() -> call(element));
+        } catch (Throwable e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void call(T element) {
+        final Thread thread = Thread.currentThread();
+        runningThreads.add(thread);
+        try {
+            if (!stopped) {
+                action.accept(element);
+            }
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            runningThreads.remove(thread);
+            // clear an interrupt by fail, so it cannot affect the next task of a pooled thread
+            Thread.interrupted();
+            permits.release();
+        }
+    }
+
+    private void fail(Throwable e) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = e;
+            } else if (failureMode == ExFailureMode.COLLECT_ALL) {
+                // add the original exception, so it is found on the exception thrown after unwrapping,
+                // unless the same exception instance failed again, which cannot suppress itself
+                final Throwable original = unwrap(failure);
+                final Throwable suppressed = unwrap(e);
+                if (!original.equals(suppressed)) {
+                    original.addSuppressed(suppressed);
+                }
+            }
+        }
+        if (failureMode == ExFailureMode.FAIL_FAST || e instanceof Error || isInterrupt(e)) {
+            stop();
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        final Throwable cause = e.getCause();
+        return e instanceof ExException && cause != null ? cause : e;
+    }
+
+    private static boolean isInterrupt(Throwable e) {
+        return e instanceof ExException && e.getCause() instanceof InterruptedException;
+    }
+
+    private void stop() {
+        stopped = true;
+        for (final Thread thread : runningThreads) {
+            if (!thread.equals(Thread.currentThread())) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private void awaitAll() {
+        @Nullable InterruptedException interruption = null;
+        while (true) {
+            try {
+                permits.acquire(parallelism);
+                break;
+            } catch (InterruptedException e) {
+                // stop the calls in progress, but still wait for them to complete
+                interruption = e;
+                stop();
+            }
+        }
+        if (interruption != null) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                if (failure == null) {
+                    failure = new ExException(interruption);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class pooling direct {@link ByteBuffer}s by their capacity, since allocating direct buffers is expensive and their memory is only freed by the
+ * garbage collector.
+ * <p>
+ * At most {@value #MAX_POOLED_BUFFERS} buffers of each capacity up to {@value #MAX_POOLED_CAPACITY} bytes are kept, and at most
+ * {@value #MAX_POOLED_BYTES} bytes in all buffers of all capacities. Further buffers are left to the garbage collector.
+ */
+public final class DirectBufferPool {
+
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    private static final int MAX_POOLED_CAPACITY = 1 << 24;
+
+    private static final long MAX_POOLED_BYTES = 1L << 26;
+
+    /* The total capacity of the pooled buffers, reserved before a buffer is added to the pool. */
+    private static final AtomicLong POOLED_BYTES = new AtomicLong();
+
+    private static final ConcurrentMap<Integer, BlockingQueue<ByteBuffer>> POOL = new ConcurrentHashMap<>();
+
+    // Utility class with private constructor
+    private DirectBufferPool() {
+    }
+
+    /**
+     * Returns a cleared direct buffer of the given capacity, from the pool if possible.
+     *
+     * @param capacity the capacity of the buffer.
+     * @return the buffer.
+     */
+    public static ByteBuffer acquire(int capacity) {
+        final BlockingQueue<ByteBuffer> buffers = POOL.get(capacity);
+        final @Nullable ByteBuffer buffer = buffers != null ? buffers.poll() : null;
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        POOLED_BYTES.addAndGet(-capacity);
+        return buffer.clear();
+    }
+
+    /**
+     * Returns {@code buffer} to the pool. It must not be used by the caller anymore.
+     *
+     * @param buffer a buffer returned by {@link #acquire(int)}.
+     */
+    public static void release(ByteBuffer buffer) {
+        final int capacity = buffer.capacity();
+        if (capacity > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        if (POOLED_BYTES.addAndGet(capacity) > MAX_POOLED_BYTES) {
+            POOLED_BYTES.addAndGet(-capacity);
+        } else if (!POOL.computeIfAbsent(capacity, key -> new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS)).offer(buffer)) {
+            POOLED_BYTES.addAndGet(-capacity);
+        }
+    }
+
+    /* The total capacity of the pooled buffers, for tests. */
+    static long pooledBytes() {
+        return POOLED_BYTES.get();
+    }
+
+}
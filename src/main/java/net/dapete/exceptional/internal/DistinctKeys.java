@@ -0,0 +1,159 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The keys seen by {@link net.dapete.exceptional.stream.ExStream#distinctBy}, which can be used by multiple threads concurrently.
+ * <p>
+ * The keys are distributed to {@value #STRIPES} stripes by their hash code, each with its own lock, so equal keys are always added by one thread at a time.
+ * Each stripe keeps its keys in a {@link HashSet}. If the instance is bounded, a stripe exceeding its share of the limit moves its keys into a Bloom filter
+ * shared by all stripes, and only adds further keys to the filter. The filter is allocated when the first stripe exceeds its limit, so bounded instances
+ * which see few keys are exact and small.
+ */
+public final class DistinctKeys {
+
+    private static final int STRIPES = 64;
+
+    /* The number of bits of the filter which are assumed to take as much memory as a key kept in a HashSet. */
+    private static final int BITS_PER_EXACT_KEY = 512;
+
+    private static final Object NULL_KEY = new Object();
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final int stripeLimit;
+
+    private final long filterBits;
+
+    private final int hashFunctions;
+
+    private volatile long @Nullable [] filter;
+
+    private static final class Stripe {
+
+        private @Nullable Set<Object> keys = new HashSet<>();
+
+    }
+
+    private DistinctKeys(long filterBits, int hashFunctions, long exactLimit) {
+        final int stripeLimit = (int) Math.min(Integer.MAX_VALUE, Math.max(1, exactLimit / STRIPES));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeLimit = stripeLimit;
+        this.filterBits = filterBits;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Returns an instance keeping all keys.
+     *
+     * @return the instance.
+     */
+    public static DistinctKeys exact() {
+        return new DistinctKeys(0, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns an instance whose memory is bounded by a Bloom filter sized for {@code expectedKeys} distinct keys and the false positive rate
+     * {@code falsePositiveRate}. Keys are kept exactly as long as they take about as much memory as the filter.
+     *
+     * @param expectedKeys      the expected number of distinct keys.
+     * @param falsePositiveRate the rate of new keys reported as seen before once {@code expectedKeys} keys were added, between 0 and 1.
+     * @return the instance.
+     * @throws IllegalArgumentException if {@code expectedKeys} is not positive or {@code falsePositiveRate} is not between 0 and 1.
+     */
+    public static DistinctKeys bounded(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("expectedKeys must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        // optimal number of bits and hash functions, rounded up to whole longs
+        final double bits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        final long filterBits = Math.max(Long.SIZE, (long) Math.ceil(bits / Long.SIZE) * Long.SIZE);
+        if (filterBits / Long.SIZE > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bloom filter for " + expectedKeys + " keys is too large");
+        }
+        final int hashFunctions = (int) Math.max(1, Math.round((double) filterBits / expectedKeys * Math.log(2)));
+        return new DistinctKeys(filterBits, hashFunctions, filterBits / BITS_PER_EXACT_KEY);
+    }
+
+    /**
+     * Adds {@code key}, unless it was added before.
+     *
+     * @param key the key, which may be {@code null}.
+     * @return whether the key was added, or {@code false} if it was added before or a false positive of the Bloom filter.
+     */
+    public boolean add(@Nullable Object key) {
+        final Object nonNullKey = key != null ? key : NULL_KEY;
+        final int hash = nonNullKey.hashCode();
+        final Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            final @Nullable Set<Object> keys = stripe.keys;
+            if (keys == null) {
+                return addToFilter(hash);
+            }
+            if (!keys.add(nonNullKey)) {
+                return false;
+            }
+            if (keys.size() > stripeLimit) {
+                for (final Object exactKey : keys) {
+                    addToFilter(exactKey.hashCode());
+                }
+                stripe.keys = null;
+            }
+            return true;
+        }
+    }
+
+    /* Sets the bits of hash in the filter, and returns whether any of them was not set before. */
+    private boolean addToFilter(int hash) {
+        final long[] bits = filter();
+        // double hashing of a 64-bit mix of the hash code, see Kirsch and Mitzenmacher, "Less Hashing, Same Performance"
+        final long mixed = mix(hash);
+        final long hash1 = mixed >>> 32;
+        final long hash2 = (mixed & 0xFFFFFFFFL) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = Math.floorMod(hash1 + i * hash2, filterBits);
+            final int index = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            if (((long) BITS.getOpaque(bits, index) & mask) == 0) {
+                added |= ((long) BITS.getAndBitwiseOr(bits, index, mask) & mask) == 0;
+            }
+        }
+        return added;
+    }
+
+    private long[] filter() {
+        long @Nullable [] bits = filter;
+        if (bits == null) {
+            synchronized (this) {
+                bits = filter;
+                if (bits == null) {
+                    bits = new long[(int) (filterBits / Long.SIZE)];
+                    filter = bits;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /* The finalizer of SplitMix64, so every bit of the hash code affects all bits of the result. */
+    private static long mix(int hash) {
+        long z = hash * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,278 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExIterator;
+import net.dapete.exceptional.function.ExPredicate;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Utility class implementing the adapters of {@link ExIterator}.
+ * <p>
+ * Each adapter is a small final class calling the iterator it adapts directly, so a loop over an adapted iterator does not allocate per element.
+ */
+public final class ExIterators {
+
+    // Utility class with private constructor
+    private ExIterators() {
+    }
+
+    /**
+     * Returns an iterator throwing an {@link ExException} instead of the checked exceptions of {@code iterator}.
+     *
+     * @param iterator the iterator to wrap.
+     * @param <T>      the type of the elements.
+     * @return the wrapped iterator.
+     */
+    public static <T> Iterator<T> wrap(ExIterator<T, ?> iterator) {
+        return new Wrapped<>(iterator);
+    }
+
+    /**
+     * Returns an iterator throwing the cause of an {@link ExException} thrown by {@code iterator} if it is an instance of {@code exceptionClass}.
+     *
+     * @param iterator       the iterator to unwrap.
+     * @param exceptionClass the class of the exception to unwrap.
+     * @param <T>            the type of the elements.
+     * @param <E>            the type of the exception to unwrap.
+     * @return the unwrapped iterator.
+     */
+    public static <T, E extends Exception> ExIterator<T, E> unwrap(Iterator<? extends T> iterator, Class<E> exceptionClass) {
+        return new Unwrapped<>(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator without any elements.
+     *
+     * @param <T> the type of the elements.
+     * @param <E> the type of exception thrown.
+     * @return the empty iterator.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, E extends Exception> ExIterator<T, E> empty() {
+        return (ExIterator<T, E>) Empty.INSTANCE;
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <T>      the type of the elements of {@code iterator}.
+     * @param <R>      the type of the elements returned.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <T, R, E extends Exception> ExIterator<R, E> map(ExIterator<T, E> iterator, ExFunction<? super T, ? extends R, ? extends E> mapper) {
+        return new Mapped<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator} matching {@code predicate}.
+     *
+     * @param iterator  the source iterator.
+     * @param predicate the predicate to apply to each element.
+     * @param <T>       the type of the elements.
+     * @param <E>       the type of exception thrown.
+     * @return the filtered iterator.
+     */
+    public static <T, E extends Exception> ExIterator<T, E> filter(ExIterator<T, E> iterator, ExPredicate<? super T, ? extends E> predicate) {
+        return new Filtered<>(iterator, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param maxSize  the maximum number of elements.
+     * @param <T>      the type of the elements.
+     * @param <E>      the type of exception thrown.
+     * @return the limited iterator.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public static <T, E extends Exception> ExIterator<T, E> take(ExIterator<T, E> iterator, long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        return new Taken<>(iterator, maxSize);
+    }
+
+    private enum Empty implements ExIterator<Object, Exception> {
+
+        INSTANCE;
+
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public Object next() {
+            throw new NoSuchElementException();
+        }
+
+    }
+
+    private static final class Wrapped<T> implements Iterator<T> {
+
+        private final ExIterator<T, ?> iterator;
+
+        private Wrapped(ExIterator<T, ?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNext();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return iterator.next();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+    }
+
+    private static final class Unwrapped<T, E extends Exception> implements ExIterator<T, E> {
+
+        private final Iterator<? extends T> iterator;
+
+        private final Class<E> exceptionClass;
+
+        private Unwrapped(Iterator<? extends T> iterator, Class<E> exceptionClass) {
+            this.iterator = iterator;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            try {
+                return iterator.hasNext();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() throws E {
+            try {
+                return iterator.next();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public Iterator<T> wrap() {
+            // the elements are only read, so the source iterator can be returned as it is
+            @SuppressWarnings("unchecked") final Iterator<T> source = (Iterator<T>) iterator;
+            return source;
+        }
+
+    }
+
+    private static final class Mapped<T, R, E extends Exception> implements ExIterator<R, E> {
+
+        private final ExIterator<T, E> iterator;
+
+        private final ExFunction<? super T, ? extends R, ? extends E> mapper;
+
+        private Mapped(ExIterator<T, E> iterator, ExFunction<? super T, ? extends R, ? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() throws E {
+            return mapper.apply(iterator.next());
+        }
+
+    }
+
+    private static final class Filtered<T, E extends Exception> implements ExIterator<T, E> {
+
+        private final ExIterator<T, E> iterator;
+
+        private final ExPredicate<? super T, ? extends E> predicate;
+
+        private boolean ready;
+
+        private @Nullable T nextElement;
+
+        private Filtered(ExIterator<T, E> iterator, ExPredicate<? super T, ? extends E> predicate) {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            while (!ready && iterator.hasNext()) {
+                final T element = iterator.next();
+                if (predicate.test(element)) {
+                    nextElement = element;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        @SuppressWarnings("NullAway") // nextElement is only null if the source returned null
+        public T next() throws E {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T element = nextElement;
+            nextElement = null;
+            ready = false;
+            return element;
+        }
+
+    }
+
+    private static final class Taken<T, E extends Exception> implements ExIterator<T, E> {
+
+        private final ExIterator<T, E> iterator;
+
+        private long remaining;
+
+        private Taken(ExIterator<T, E> iterator, long maxSize) {
+            this.iterator = iterator;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return remaining > 0 && iterator.hasNext();
+        }
+
+        @Override
+        public T next() throws E {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return iterator.next();
+        }
+
+    }
+
+}
@@ -0,0 +1,1044 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.*;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Utility class implementing {@link ExIntIterator}, {@link ExLongIterator} and {@link ExDoubleIterator} and their adapters, in the same way as
+ * {@link ExIterators} does for {@link ExIterator}.
+ * <p>
+ * There is a separate class for each adapter and primitive type, so elements are never boxed.
+ */
+public final class ExPrimitiveIterators {
+
+    // Utility class with private constructor
+    private ExPrimitiveIterators() {
+    }
+
+    private static void checkRange(int length, int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") out of bounds for length " + length);
+        }
+    }
+
+    private static void checkMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+    }
+
+    /* int */
+
+    /**
+     * Returns an iterator throwing an {@link ExException} instead of the checked exceptions of {@code iterator}.
+     *
+     * @param iterator the iterator to wrap.
+     * @return the wrapped iterator.
+     */
+    public static PrimitiveIterator.OfInt wrap(ExIntIterator<?> iterator) {
+        return new WrappedInt(iterator);
+    }
+
+    /**
+     * Returns an iterator throwing the cause of an {@link ExException} thrown by {@code iterator} if it is an instance of {@code exceptionClass}.
+     *
+     * @param iterator       the iterator to unwrap.
+     * @param exceptionClass the class of the exception to unwrap.
+     * @param <E>            the type of the exception to unwrap.
+     * @return the unwrapped iterator.
+     */
+    public static <E extends Exception> ExIntIterator<E> unwrap(PrimitiveIterator.OfInt iterator, Class<E> exceptionClass) {
+        return new UnwrappedInt<>(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code array} from {@code fromIndex} to {@code toIndex}.
+     *
+     * @param array     the array.
+     * @param fromIndex the index of the first element, inclusive.
+     * @param toIndex   the index of the last element, exclusive.
+     * @param <E>       the type of exception thrown.
+     * @return the iterator.
+     * @throws ArrayIndexOutOfBoundsException if the range is not within the array.
+     */
+    public static <E extends Exception> ExIntIterator<E> of(int[] array, int fromIndex, int toIndex) {
+        checkRange(array.length, fromIndex, toIndex);
+        return new IntArrayIterator<>(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns an iterator returning the remaining elements of {@code buffer}, without changing its position.
+     *
+     * @param buffer the buffer.
+     * @param <E>    the type of exception thrown.
+     * @return the iterator.
+     */
+    public static <E extends Exception> ExIntIterator<E> of(IntBuffer buffer) {
+        return new IntBufferIterator<>(buffer);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <E extends Exception> ExIntIterator<E> map(ExIntIterator<E> iterator, ExIntUnaryOperator<? extends E> mapper) {
+        return new MappedInt<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <R>      the type of the elements returned.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <R, E extends Exception> ExIterator<R, E> mapToObj(ExIntIterator<E> iterator, ExIntFunction<? extends R, ? extends E> mapper) {
+        return new MappedIntToObj<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator} matching {@code predicate}.
+     *
+     * @param iterator  the source iterator.
+     * @param predicate the predicate to apply to each element.
+     * @param <E>       the type of exception thrown.
+     * @return the filtered iterator.
+     */
+    public static <E extends Exception> ExIntIterator<E> filter(ExIntIterator<E> iterator, ExIntPredicate<? extends E> predicate) {
+        return new FilteredInt<>(iterator, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param maxSize  the maximum number of elements.
+     * @param <E>      the type of exception thrown.
+     * @return the limited iterator.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public static <E extends Exception> ExIntIterator<E> take(ExIntIterator<E> iterator, long maxSize) {
+        checkMaxSize(maxSize);
+        return new TakenInt<>(iterator, maxSize);
+    }
+
+    /* long */
+
+    /**
+     * Returns an iterator throwing an {@link ExException} instead of the checked exceptions of {@code iterator}.
+     *
+     * @param iterator the iterator to wrap.
+     * @return the wrapped iterator.
+     */
+    public static PrimitiveIterator.OfLong wrap(ExLongIterator<?> iterator) {
+        return new WrappedLong(iterator);
+    }
+
+    /**
+     * Returns an iterator throwing the cause of an {@link ExException} thrown by {@code iterator} if it is an instance of {@code exceptionClass}.
+     *
+     * @param iterator       the iterator to unwrap.
+     * @param exceptionClass the class of the exception to unwrap.
+     * @param <E>            the type of the exception to unwrap.
+     * @return the unwrapped iterator.
+     */
+    public static <E extends Exception> ExLongIterator<E> unwrap(PrimitiveIterator.OfLong iterator, Class<E> exceptionClass) {
+        return new UnwrappedLong<>(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code array} from {@code fromIndex} to {@code toIndex}.
+     *
+     * @param array     the array.
+     * @param fromIndex the index of the first element, inclusive.
+     * @param toIndex   the index of the last element, exclusive.
+     * @param <E>       the type of exception thrown.
+     * @return the iterator.
+     * @throws ArrayIndexOutOfBoundsException if the range is not within the array.
+     */
+    public static <E extends Exception> ExLongIterator<E> of(long[] array, int fromIndex, int toIndex) {
+        checkRange(array.length, fromIndex, toIndex);
+        return new LongArrayIterator<>(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns an iterator returning the remaining elements of {@code buffer}, without changing its position.
+     *
+     * @param buffer the buffer.
+     * @param <E>    the type of exception thrown.
+     * @return the iterator.
+     */
+    public static <E extends Exception> ExLongIterator<E> of(LongBuffer buffer) {
+        return new LongBufferIterator<>(buffer);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <E extends Exception> ExLongIterator<E> map(ExLongIterator<E> iterator, ExLongUnaryOperator<? extends E> mapper) {
+        return new MappedLong<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <R>      the type of the elements returned.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <R, E extends Exception> ExIterator<R, E> mapToObj(ExLongIterator<E> iterator, ExLongFunction<? extends R, ? extends E> mapper) {
+        return new MappedLongToObj<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator} matching {@code predicate}.
+     *
+     * @param iterator  the source iterator.
+     * @param predicate the predicate to apply to each element.
+     * @param <E>       the type of exception thrown.
+     * @return the filtered iterator.
+     */
+    public static <E extends Exception> ExLongIterator<E> filter(ExLongIterator<E> iterator, ExLongPredicate<? extends E> predicate) {
+        return new FilteredLong<>(iterator, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param maxSize  the maximum number of elements.
+     * @param <E>      the type of exception thrown.
+     * @return the limited iterator.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public static <E extends Exception> ExLongIterator<E> take(ExLongIterator<E> iterator, long maxSize) {
+        checkMaxSize(maxSize);
+        return new TakenLong<>(iterator, maxSize);
+    }
+
+    /* double */
+
+    /**
+     * Returns an iterator throwing an {@link ExException} instead of the checked exceptions of {@code iterator}.
+     *
+     * @param iterator the iterator to wrap.
+     * @return the wrapped iterator.
+     */
+    public static PrimitiveIterator.OfDouble wrap(ExDoubleIterator<?> iterator) {
+        return new WrappedDouble(iterator);
+    }
+
+    /**
+     * Returns an iterator throwing the cause of an {@link ExException} thrown by {@code iterator} if it is an instance of {@code exceptionClass}.
+     *
+     * @param iterator       the iterator to unwrap.
+     * @param exceptionClass the class of the exception to unwrap.
+     * @param <E>            the type of the exception to unwrap.
+     * @return the unwrapped iterator.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> unwrap(PrimitiveIterator.OfDouble iterator, Class<E> exceptionClass) {
+        return new UnwrappedDouble<>(iterator, exceptionClass);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code array} from {@code fromIndex} to {@code toIndex}.
+     *
+     * @param array     the array.
+     * @param fromIndex the index of the first element, inclusive.
+     * @param toIndex   the index of the last element, exclusive.
+     * @param <E>       the type of exception thrown.
+     * @return the iterator.
+     * @throws ArrayIndexOutOfBoundsException if the range is not within the array.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> of(double[] array, int fromIndex, int toIndex) {
+        checkRange(array.length, fromIndex, toIndex);
+        return new DoubleArrayIterator<>(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns an iterator returning the remaining elements of {@code buffer}, without changing its position.
+     *
+     * @param buffer the buffer.
+     * @param <E>    the type of exception thrown.
+     * @return the iterator.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> of(DoubleBuffer buffer) {
+        return new DoubleBufferIterator<>(buffer);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> map(ExDoubleIterator<E> iterator, ExDoubleUnaryOperator<? extends E> mapper) {
+        return new MappedDouble<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator calling {@code mapper} for each element of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param mapper   the function to apply to each element.
+     * @param <R>      the type of the elements returned.
+     * @param <E>      the type of exception thrown.
+     * @return the mapped iterator.
+     */
+    public static <R, E extends Exception> ExIterator<R, E> mapToObj(ExDoubleIterator<E> iterator, ExDoubleFunction<? extends R, ? extends E> mapper) {
+        return new MappedDoubleToObj<>(iterator, mapper);
+    }
+
+    /**
+     * Returns an iterator returning the elements of {@code iterator} matching {@code predicate}.
+     *
+     * @param iterator  the source iterator.
+     * @param predicate the predicate to apply to each element.
+     * @param <E>       the type of exception thrown.
+     * @return the filtered iterator.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> filter(ExDoubleIterator<E> iterator, ExDoublePredicate<? extends E> predicate) {
+        return new FilteredDouble<>(iterator, predicate);
+    }
+
+    /**
+     * Returns an iterator returning at most {@code maxSize} elements of {@code iterator}.
+     *
+     * @param iterator the source iterator.
+     * @param maxSize  the maximum number of elements.
+     * @param <E>      the type of exception thrown.
+     * @return the limited iterator.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public static <E extends Exception> ExDoubleIterator<E> take(ExDoubleIterator<E> iterator, long maxSize) {
+        checkMaxSize(maxSize);
+        return new TakenDouble<>(iterator, maxSize);
+    }
+
+    private static final class WrappedInt implements PrimitiveIterator.OfInt {
+
+        private final ExIntIterator<?> iterator;
+
+        private WrappedInt(ExIntIterator<?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNext();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public int nextInt() {
+            try {
+                return iterator.nextInt();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+    }
+
+    private static final class UnwrappedInt<E extends Exception> implements ExIntIterator<E> {
+
+        private final PrimitiveIterator.OfInt iterator;
+
+        private final Class<E> exceptionClass;
+
+        private UnwrappedInt(PrimitiveIterator.OfInt iterator, Class<E> exceptionClass) {
+            this.iterator = iterator;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            try {
+                return iterator.hasNext();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public int nextInt() throws E {
+            try {
+                return iterator.nextInt();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt wrap() {
+            return iterator;
+        }
+
+    }
+
+    private static final class IntArrayIterator<E extends Exception> implements ExIntIterator<E> {
+
+        private final int[] array;
+
+        private final int toIndex;
+
+        private int index;
+
+        private IntArrayIterator(int[] array, int fromIndex, int toIndex) {
+            this.array = array;
+            this.index = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < toIndex;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= toIndex) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+    }
+
+    private static final class IntBufferIterator<E extends Exception> implements ExIntIterator<E> {
+
+        private final IntBuffer buffer;
+
+        private final int limit;
+
+        private int index;
+
+        private IntBufferIterator(IntBuffer buffer) {
+            this.buffer = buffer;
+            this.index = buffer.position();
+            this.limit = buffer.limit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < limit;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= limit) {
+                throw new NoSuchElementException();
+            }
+            return buffer.get(index++);
+        }
+
+    }
+
+    private static final class MappedInt<E extends Exception> implements ExIntIterator<E> {
+
+        private final ExIntIterator<E> iterator;
+
+        private final ExIntUnaryOperator<? extends E> mapper;
+
+        private MappedInt(ExIntIterator<E> iterator, ExIntUnaryOperator<? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public int nextInt() throws E {
+            return mapper.applyAsInt(iterator.nextInt());
+        }
+
+    }
+
+    private static final class MappedIntToObj<R, E extends Exception> implements ExIterator<R, E> {
+
+        private final ExIntIterator<E> iterator;
+
+        private final ExIntFunction<? extends R, ? extends E> mapper;
+
+        private MappedIntToObj(ExIntIterator<E> iterator, ExIntFunction<? extends R, ? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() throws E {
+            return mapper.apply(iterator.nextInt());
+        }
+
+    }
+
+    private static final class FilteredInt<E extends Exception> implements ExIntIterator<E> {
+
+        private final ExIntIterator<E> iterator;
+
+        private final ExIntPredicate<? extends E> predicate;
+
+        private boolean ready;
+
+        private int nextElement;
+
+        private FilteredInt(ExIntIterator<E> iterator, ExIntPredicate<? extends E> predicate) {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            while (!ready && iterator.hasNext()) {
+                final int element = iterator.nextInt();
+                if (predicate.test(element)) {
+                    nextElement = element;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public int nextInt() throws E {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return nextElement;
+        }
+
+    }
+
+    private static final class TakenInt<E extends Exception> implements ExIntIterator<E> {
+
+        private final ExIntIterator<E> iterator;
+
+        private long remaining;
+
+        private TakenInt(ExIntIterator<E> iterator, long maxSize) {
+            this.iterator = iterator;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return remaining > 0 && iterator.hasNext();
+        }
+
+        @Override
+        public int nextInt() throws E {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return iterator.nextInt();
+        }
+
+    }
+
+    private static final class WrappedLong implements PrimitiveIterator.OfLong {
+
+        private final ExLongIterator<?> iterator;
+
+        private WrappedLong(ExLongIterator<?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNext();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public long nextLong() {
+            try {
+                return iterator.nextLong();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+    }
+
+    private static final class UnwrappedLong<E extends Exception> implements ExLongIterator<E> {
+
+        private final PrimitiveIterator.OfLong iterator;
+
+        private final Class<E> exceptionClass;
+
+        private UnwrappedLong(PrimitiveIterator.OfLong iterator, Class<E> exceptionClass) {
+            this.iterator = iterator;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            try {
+                return iterator.hasNext();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public long nextLong() throws E {
+            try {
+                return iterator.nextLong();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public PrimitiveIterator.OfLong wrap() {
+            return iterator;
+        }
+
+    }
+
+    private static final class LongArrayIterator<E extends Exception> implements ExLongIterator<E> {
+
+        private final long[] array;
+
+        private final int toIndex;
+
+        private int index;
+
+        private LongArrayIterator(long[] array, int fromIndex, int toIndex) {
+            this.array = array;
+            this.index = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < toIndex;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= toIndex) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+    }
+
+    private static final class LongBufferIterator<E extends Exception> implements ExLongIterator<E> {
+
+        private final LongBuffer buffer;
+
+        private final int limit;
+
+        private int index;
+
+        private LongBufferIterator(LongBuffer buffer) {
+            this.buffer = buffer;
+            this.index = buffer.position();
+            this.limit = buffer.limit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < limit;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= limit) {
+                throw new NoSuchElementException();
+            }
+            return buffer.get(index++);
+        }
+
+    }
+
+    private static final class MappedLong<E extends Exception> implements ExLongIterator<E> {
+
+        private final ExLongIterator<E> iterator;
+
+        private final ExLongUnaryOperator<? extends E> mapper;
+
+        private MappedLong(ExLongIterator<E> iterator, ExLongUnaryOperator<? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public long nextLong() throws E {
+            return mapper.applyAsLong(iterator.nextLong());
+        }
+
+    }
+
+    private static final class MappedLongToObj<R, E extends Exception> implements ExIterator<R, E> {
+
+        private final ExLongIterator<E> iterator;
+
+        private final ExLongFunction<? extends R, ? extends E> mapper;
+
+        private MappedLongToObj(ExLongIterator<E> iterator, ExLongFunction<? extends R, ? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() throws E {
+            return mapper.apply(iterator.nextLong());
+        }
+
+    }
+
+    private static final class FilteredLong<E extends Exception> implements ExLongIterator<E> {
+
+        private final ExLongIterator<E> iterator;
+
+        private final ExLongPredicate<? extends E> predicate;
+
+        private boolean ready;
+
+        private long nextElement;
+
+        private FilteredLong(ExLongIterator<E> iterator, ExLongPredicate<? extends E> predicate) {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            while (!ready && iterator.hasNext()) {
+                final long element = iterator.nextLong();
+                if (predicate.test(element)) {
+                    nextElement = element;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public long nextLong() throws E {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return nextElement;
+        }
+
+    }
+
+    private static final class TakenLong<E extends Exception> implements ExLongIterator<E> {
+
+        private final ExLongIterator<E> iterator;
+
+        private long remaining;
+
+        private TakenLong(ExLongIterator<E> iterator, long maxSize) {
+            this.iterator = iterator;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return remaining > 0 && iterator.hasNext();
+        }
+
+        @Override
+        public long nextLong() throws E {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return iterator.nextLong();
+        }
+
+    }
+
+    private static final class WrappedDouble implements PrimitiveIterator.OfDouble {
+
+        private final ExDoubleIterator<?> iterator;
+
+        private WrappedDouble(ExDoubleIterator<?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNext();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public double nextDouble() {
+            try {
+                return iterator.nextDouble();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+    }
+
+    private static final class UnwrappedDouble<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final PrimitiveIterator.OfDouble iterator;
+
+        private final Class<E> exceptionClass;
+
+        private UnwrappedDouble(PrimitiveIterator.OfDouble iterator, Class<E> exceptionClass) {
+            this.iterator = iterator;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            try {
+                return iterator.hasNext();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public double nextDouble() throws E {
+            try {
+                return iterator.nextDouble();
+            } catch (ExException e) {
+                ExUtils.throwIfInstance(exceptionClass, e.getCause());
+                throw e;
+            }
+        }
+
+        @Override
+        public PrimitiveIterator.OfDouble wrap() {
+            return iterator;
+        }
+
+    }
+
+    private static final class DoubleArrayIterator<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final double[] array;
+
+        private final int toIndex;
+
+        private int index;
+
+        private DoubleArrayIterator(double[] array, int fromIndex, int toIndex) {
+            this.array = array;
+            this.index = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < toIndex;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (index >= toIndex) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+    }
+
+    private static final class DoubleBufferIterator<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final DoubleBuffer buffer;
+
+        private final int limit;
+
+        private int index;
+
+        private DoubleBufferIterator(DoubleBuffer buffer) {
+            this.buffer = buffer;
+            this.index = buffer.position();
+            this.limit = buffer.limit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < limit;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (index >= limit) {
+                throw new NoSuchElementException();
+            }
+            return buffer.get(index++);
+        }
+
+    }
+
+    private static final class MappedDouble<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final ExDoubleIterator<E> iterator;
+
+        private final ExDoubleUnaryOperator<? extends E> mapper;
+
+        private MappedDouble(ExDoubleIterator<E> iterator, ExDoubleUnaryOperator<? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public double nextDouble() throws E {
+            return mapper.applyAsDouble(iterator.nextDouble());
+        }
+
+    }
+
+    private static final class MappedDoubleToObj<R, E extends Exception> implements ExIterator<R, E> {
+
+        private final ExDoubleIterator<E> iterator;
+
+        private final ExDoubleFunction<? extends R, ? extends E> mapper;
+
+        private MappedDoubleToObj(ExDoubleIterator<E> iterator, ExDoubleFunction<? extends R, ? extends E> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() throws E {
+            return mapper.apply(iterator.nextDouble());
+        }
+
+    }
+
+    private static final class FilteredDouble<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final ExDoubleIterator<E> iterator;
+
+        private final ExDoublePredicate<? extends E> predicate;
+
+        private boolean ready;
+
+        private double nextElement;
+
+        private FilteredDouble(ExDoubleIterator<E> iterator, ExDoublePredicate<? extends E> predicate) {
+            this.iterator = iterator;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            while (!ready && iterator.hasNext()) {
+                final double element = iterator.nextDouble();
+                if (predicate.test(element)) {
+                    nextElement = element;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public double nextDouble() throws E {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return nextElement;
+        }
+
+    }
+
+    private static final class TakenDouble<E extends Exception> implements ExDoubleIterator<E> {
+
+        private final ExDoubleIterator<E> iterator;
+
+        private long remaining;
+
+        private TakenDouble(ExDoubleIterator<E> iterator, long maxSize) {
+            this.iterator = iterator;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() throws E {
+            return remaining > 0 && iterator.hasNext();
+        }
+
+        @Override
+        public double nextDouble() throws E {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return iterator.nextDouble();
+        }
+
+    }
+
+}
@@ -0,0 +1,295 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExDoubleSpliterator;
+import net.dapete.exceptional.function.ExIntSpliterator;
+import net.dapete.exceptional.function.ExLongSpliterator;
+import net.dapete.exceptional.function.ExSpliterator;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Utility class wrapping {@link ExSpliterator} and its primitive counterparts as {@link Spliterator}s.
+ * <p>
+ * The wrapped spliterators throw an {@link ExException} instead of the checked exceptions of the spliterators they wrap. Spliterators returned by
+ * {@code trySplit()} are wrapped in the same way, so all parts of a parallel stream report failures alike. {@code forEachRemaining} is delegated to the
+ * wrapped spliterator with a single {@code try} block for all elements.
+ */
+public final class ExSpliterators {
+
+    // Utility class with private constructor
+    private ExSpliterators() {
+    }
+
+    /**
+     * Returns a spliterator throwing an {@link ExException} instead of the checked exceptions of {@code spliterator}.
+     *
+     * @param spliterator the spliterator to wrap.
+     * @param <T>         the type of the elements.
+     * @return the wrapped spliterator.
+     */
+    public static <T> Spliterator<T> wrap(ExSpliterator<T, ?> spliterator) {
+        return new Wrapped<>(spliterator);
+    }
+
+    /**
+     * Returns a spliterator throwing an {@link ExException} instead of the checked exceptions of {@code spliterator}.
+     *
+     * @param spliterator the spliterator to wrap.
+     * @return the wrapped spliterator.
+     */
+    public static Spliterator.OfInt wrap(ExIntSpliterator<?> spliterator) {
+        return new WrappedInt(spliterator);
+    }
+
+    /**
+     * Returns a spliterator throwing an {@link ExException} instead of the checked exceptions of {@code spliterator}.
+     *
+     * @param spliterator the spliterator to wrap.
+     * @return the wrapped spliterator.
+     */
+    public static Spliterator.OfLong wrap(ExLongSpliterator<?> spliterator) {
+        return new WrappedLong(spliterator);
+    }
+
+    /**
+     * Returns a spliterator throwing an {@link ExException} instead of the checked exceptions of {@code spliterator}.
+     *
+     * @param spliterator the spliterator to wrap.
+     * @return the wrapped spliterator.
+     */
+    public static Spliterator.OfDouble wrap(ExDoubleSpliterator<?> spliterator) {
+        return new WrappedDouble(spliterator);
+    }
+
+    private static final class Wrapped<T> implements Spliterator<T> {
+
+        private final ExSpliterator<T, ?> spliterator;
+
+        private Wrapped(ExSpliterator<T, ?> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                return spliterator.tryAdvance(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            try {
+                spliterator.forEachRemaining(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public @Nullable Spliterator<T> trySplit() {
+            final ExSpliterator<T, ?> split;
+            try {
+                split = spliterator.trySplit();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+            return split != null ? new Wrapped<>(split) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics();
+        }
+
+        @Override
+        public @Nullable Comparator<? super T> getComparator() {
+            return spliterator.getComparator();
+        }
+
+    }
+
+    private static final class WrappedInt implements Spliterator.OfInt {
+
+        private final ExIntSpliterator<?> spliterator;
+
+        private WrappedInt(ExIntSpliterator<?> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            try {
+                return spliterator.tryAdvance(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            try {
+                spliterator.forEachRemaining(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.@Nullable OfInt trySplit() {
+            final ExIntSpliterator<?> split;
+            try {
+                split = spliterator.trySplit();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+            return split != null ? new WrappedInt(split) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics();
+        }
+
+        @Override
+        public @Nullable Comparator<? super Integer> getComparator() {
+            return naturalOrder(characteristics());
+        }
+
+    }
+
+    private static final class WrappedLong implements Spliterator.OfLong {
+
+        private final ExLongSpliterator<?> spliterator;
+
+        private WrappedLong(ExLongSpliterator<?> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            try {
+                return spliterator.tryAdvance(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            try {
+                spliterator.forEachRemaining(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.@Nullable OfLong trySplit() {
+            final ExLongSpliterator<?> split;
+            try {
+                split = spliterator.trySplit();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+            return split != null ? new WrappedLong(split) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics();
+        }
+
+        @Override
+        public @Nullable Comparator<? super Long> getComparator() {
+            return naturalOrder(characteristics());
+        }
+
+    }
+
+    private static final class WrappedDouble implements Spliterator.OfDouble {
+
+        private final ExDoubleSpliterator<?> spliterator;
+
+        private WrappedDouble(ExDoubleSpliterator<?> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            try {
+                return spliterator.tryAdvance(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            try {
+                spliterator.forEachRemaining(action::accept);
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.@Nullable OfDouble trySplit() {
+            final ExDoubleSpliterator<?> split;
+            try {
+                split = spliterator.trySplit();
+            } catch (Exception e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+            return split != null ? new WrappedDouble(split) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics();
+        }
+
+        @Override
+        public @Nullable Comparator<? super Double> getComparator() {
+            return naturalOrder(characteristics());
+        }
+
+    }
+
+    /* Primitive elements can only be sorted in their natural order, which is represented by null. */
+    private static <T> @Nullable Comparator<T> naturalOrder(int characteristics) {
+        if ((characteristics & Spliterator.SORTED) == 0) {
+            throw new IllegalStateException();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,72 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class creating executors for blocking tasks.
+ * <p>
+ * This library is compiled for Java 17, so virtual threads are looked up at runtime. On Java 21 and later, tasks run on virtual threads; otherwise, they
+ * run on a cached pool of daemon platform threads.
+ */
+public final class ExThreads {
+
+    private static final @Nullable MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findNewVirtualThreadPerTaskExecutor();
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    // Utility class with private constructor
+    private ExThreads() {
+    }
+
+    private static @Nullable MethodHandle findNewVirtualThreadPerTaskExecutor() {
+        try {
+            final MethodHandle handle = MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            // on Java 19 and 20, virtual threads are a preview feature, which throws UnsupportedOperationException if not enabled
+            ((ExecutorService) handle.invoke()).shutdown();
+            return handle;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether {@link #newThreadPerTaskExecutor()} uses virtual threads.
+     *
+     * @return {@code true} if virtual threads are used
+     */
+    public static boolean isVirtual() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task, or, if virtual threads are not available, a cached thread pool of daemon threads.
+     * <p>
+     * The executor does not limit the number of tasks running concurrently, so callers have to. It must be shut down when it is no longer needed.
+     *
+     * @return a new executor
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        final MethodHandle handle = NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+        if (handle != null) {
+            try {
+                return (ExecutorService) handle.invokeExact();
+            } catch (Throwable e) {
+                throw ExUtils.rethrow(e);
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "exceptional-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -45,6 +45,27 @@ public final class ExUtils {
         }
     }
 
+    /**
+     * Rethrow a {@code throwable} caught from code that can only throw unchecked exceptions, errors or exceptions of type {@code E}.
+     * <p>
+     * This never returns normally. The return type allows callers to use {@code throw ExUtils.rethrow(throwable)} so the compiler knows this.
+     *
+     * @param throwable the throwable to rethrow.
+     * @param <E>       the type of checked exception {@code throwable} may be.
+     * @return never returns normally.
+     * @throws E if {@code throwable} is a checked exception.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Exception> RuntimeException rethrow(Throwable throwable) throws E {
+        if (throwable instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (throwable instanceof Error error) {
+            throw error;
+        } else {
+            throw (E) throwable;
+        }
+    }
+
     /**
      * If {@code exception} is not already a runtime exception, wrap it in an {@link ExException}.
      *
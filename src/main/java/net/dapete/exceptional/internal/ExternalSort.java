@@ -0,0 +1,308 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExBiConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An external merge sort of a stream, used by {@link net.dapete.exceptional.stream.ExStream#sorted(Class, net.dapete.exceptional.function.ExComparator,
+ * net.dapete.exceptional.stream.SortOptions)}.
+ * <p>
+ * When the terminal operation starts, the elements of the source stream are read into a buffer of at most {@code maxElementsInMemory} elements. If they all
+ * fit, they are sorted in memory. Otherwise, each full buffer is sorted, in parallel if the stream is parallel, and written to a temporary file as a run.
+ * The runs are merged lazily while the sorted stream is consumed, at most {@value #MAX_MERGED_RUNS} at a time, so if there are more runs, they are merged
+ * into longer runs first. Each file is deleted as soon as it was read completely, and all remaining files are deleted when the sorted stream is closed.
+ * <p>
+ * The sort is stable, since each run is sorted stably, and equal elements of different runs are returned in the order of their runs.
+ *
+ * @param <T> the type of the stream elements
+ */
+public final class ExternalSort<T> {
+
+    private static final int MAX_MERGED_RUNS = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+    private final Stream<T> source;
+
+    private final Comparator<? super T> comparator;
+
+    private final int maxElementsInMemory;
+
+    private final ExBiConsumer<? super T, ? super DataOutput, ? extends IOException> writer;
+
+    private final ExFunction<? super DataInput, ? extends T, ? extends IOException> reader;
+
+    private final @Nullable Path tempDirectory;
+
+    /* The temporary files not deleted yet, and the streams reading them, guarded by this. */
+    private final List<Path> files = new ArrayList<>();
+
+    private final List<Closeable> openReaders = new ArrayList<>();
+
+    /* A sorted run written to a temporary file. */
+    private record Run(Path file, long size) {
+    }
+
+    private ExternalSort(Stream<T> source, Comparator<? super T> comparator, int maxElementsInMemory,
+                         ExBiConsumer<? super T, ? super DataOutput, ? extends IOException> writer,
+                         ExFunction<? super DataInput, ? extends T, ? extends IOException> reader, @Nullable Path tempDirectory) {
+        this.source = source;
+        this.comparator = comparator;
+        this.maxElementsInMemory = maxElementsInMemory;
+        this.writer = writer;
+        this.reader = reader;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Returns a stream with the elements of {@code source}, sorted according to {@code comparator} using at most {@code maxElementsInMemory} elements in
+     * memory. Closing the returned stream closes {@code source} and deletes the remaining temporary files.
+     * <p>
+     * Failures to write or read the temporary files are thrown as an {@link net.dapete.exceptional.ExException} whose cause is the {@link IOException}.
+     *
+     * @param source              the stream to sort.
+     * @param comparator          the comparator, which may throw an {@link net.dapete.exceptional.ExException}.
+     * @param maxElementsInMemory the maximum number of elements kept in memory.
+     * @param writer              the function writing an element to a temporary file.
+     * @param reader              the function reading an element written by {@code writer}.
+     * @param tempDirectory       the directory of the temporary files, or {@code null} for the default temporary-file directory.
+     * @param <T>                 the type of the stream elements.
+     * @return the sorted stream.
+     */
+    public static <T> Stream<T> sorted(Stream<T> source, Comparator<? super T> comparator, int maxElementsInMemory,
+                                       ExBiConsumer<? super T, ? super DataOutput, ? extends IOException> writer,
+                                       ExFunction<? super DataInput, ? extends T, ? extends IOException> reader, @Nullable Path tempDirectory) {
+        final var sort = new ExternalSort<>(source, comparator, maxElementsInMemory, writer, reader, tempDirectory);
+        return StreamSupport.stream(sort::spliterator, CHARACTERISTICS, source.isParallel()).onClose(sort::closeAll).onClose(source::close);
+    }
+
+    /* Sorts the source into runs, and returns a spliterator returning all elements in order. */
+    @SuppressWarnings("unchecked") // the buffer only contains elements of the source
+    private Spliterator<T> spliterator() {
+        try {
+            final Iterator<T> iterator = source.iterator();
+            List<Run> runs = new ArrayList<>();
+            Object[] buffer = new Object[Math.min(maxElementsInMemory, 1024)];
+            while (true) {
+                int size = 0;
+                while (size < maxElementsInMemory && iterator.hasNext()) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, (int) Math.min(maxElementsInMemory, 2L * size));
+                    }
+                    buffer[size++] = iterator.next();
+                }
+                sort(buffer, size);
+                if (runs.isEmpty() && !iterator.hasNext()) {
+                    // everything fits in memory
+                    return (Spliterator<T>) Spliterators.spliterator(buffer, 0, size, CHARACTERISTICS);
+                }
+                runs.add(write(Arrays.asList(buffer).subList(0, size).iterator(), size));
+                Arrays.fill(buffer, 0, size, null);
+                if (!iterator.hasNext()) {
+                    break;
+                }
+            }
+            while (runs.size() > MAX_MERGED_RUNS) {
+                // merge groups of consecutive runs, so equal elements stay in the order of their runs
+                final List<Run> mergedRuns = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += MAX_MERGED_RUNS) {
+                    final List<Run> group = runs.subList(from, Math.min(from + MAX_MERGED_RUNS, runs.size()));
+                    mergedRuns.add(group.size() == 1 ? group.get(0) : write(new Merge(group), group.stream().mapToLong(Run::size).sum()));
+                }
+                runs = mergedRuns;
+            }
+            return Spliterators.spliterator(new Merge(runs), runs.stream().mapToLong(Run::size).sum(), CHARACTERISTICS);
+        } catch (IOException e) {
+            closeAfterFailure(e);
+            throw ExUtils.toRuntimeException(e);
+        } catch (RuntimeException | Error e) {
+            closeAfterFailure(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked") // the buffer only contains elements of the source
+    private void sort(Object[] buffer, int size) {
+        if (source.isParallel()) {
+            Arrays.parallelSort((T[]) buffer, 0, size, comparator);
+        } else {
+            Arrays.sort((T[]) buffer, 0, size, comparator);
+        }
+    }
+
+    /* Writes the elements of iterator to a new temporary file. */
+    @SuppressWarnings("unchecked") // the elements are elements of the source
+    private Run write(Iterator<?> elements, long size) throws IOException {
+        final Path file = tempDirectory != null ? Files.createTempFile(tempDirectory, "exsort", ".run") : Files.createTempFile("exsort", ".run");
+        synchronized (this) {
+            files.add(file);
+        }
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+            while (elements.hasNext()) {
+                writer.accept((T) elements.next(), output);
+            }
+        }
+        return new Run(file, size);
+    }
+
+    /* Closes all open files and deletes all remaining temporary files, throwing the first failure. */
+    private synchronized void close() throws IOException {
+        @Nullable IOException exception = null;
+        for (final Closeable openReader : openReaders) {
+            try {
+                openReader.close();
+            } catch (IOException e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
+        openReaders.clear();
+        for (final Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
+        files.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void closeAll() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw ExUtils.toRuntimeException(e);
+        }
+    }
+
+    private void closeAfterFailure(Throwable failure) {
+        try {
+            close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static IOException addSuppressed(@Nullable IOException exception, IOException suppressed) {
+        if (exception == null) {
+            return suppressed;
+        }
+        exception.addSuppressed(suppressed);
+        return exception;
+    }
+
+    /* Reads the elements of a run, keeping the next element as its head. */
+    private final class RunReader {
+
+        private final Run run;
+
+        private final int order;
+
+        private final DataInputStream input;
+
+        private long remaining;
+
+        private @Nullable T head;
+
+        private RunReader(Run run, int order) throws IOException {
+            this.run = run;
+            this.order = order;
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file()), BUFFER_SIZE));
+            this.remaining = run.size();
+            synchronized (ExternalSort.this) {
+                openReaders.add(input);
+            }
+        }
+
+        /* Reads the next element into head, or closes and deletes the file and returns false if there is none. */
+        private boolean advance() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                synchronized (ExternalSort.this) {
+                    openReaders.remove(input);
+                    files.remove(run.file());
+                }
+                input.close();
+                Files.deleteIfExists(run.file());
+                return false;
+            }
+            remaining--;
+            head = reader.apply(input);
+            return true;
+        }
+
+    }
+
+    /* Merges runs, returning the elements of a run before equal elements of later runs. */
+    private final class Merge implements Iterator<T> {
+
+        private final PriorityQueue<RunReader> queue;
+
+        private Merge(List<Run> runs) throws IOException {
+            final Comparator<RunReader> headComparator = (reader1, reader2) -> comparator.compare(head(reader1), head(reader2));
+            queue = new PriorityQueue<>(Math.max(1, runs.size()), headComparator.thenComparingInt(runReader -> runReader.order));
+            for (int i = 0; i < runs.size(); i++) {
+                final var runReader = new RunReader(runs.get(i), i);
+                if (runReader.advance()) {
+                    queue.add(runReader);
+                }
+            }
+        }
+
+        @SuppressWarnings("NullAway") // the head of a reader in the queue is an element, which may be null
+        private T head(RunReader runReader) {
+            return runReader.head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            final RunReader runReader = queue.poll();
+            if (runReader == null) {
+                throw new NoSuchElementException();
+            }
+            final T element = head(runReader);
+            try {
+                if (runReader.advance()) {
+                    queue.add(runReader);
+                }
+            } catch (IOException e) {
+                throw ExUtils.toRuntimeException(e);
+            }
+            return element;
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExIterator;
+import net.dapete.exceptional.function.ExSpliterator;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+/**
+ * Utility class with the sources of the lines of a file, used by {@link net.dapete.exceptional.stream.ExStream#lines(java.nio.file.Path, Charset)}.
+ * <p>
+ * Files in a charset in which a line feed or carriage return byte always is a line terminator are read through memory mapped windows of the file, with a
+ * spliterator which splits at line boundaries, so the lines can be processed in parallel. Other files are read by a {@link BufferedReader}.
+ */
+public final class FileLines {
+
+    private static final int WINDOW_SIZE = 1 << 25;
+
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    // Utility class with private constructor
+    private FileLines() {
+    }
+
+    /**
+     * Returns whether the lines of files in {@code charset} can be read by {@link #mapped(FileChannel, Charset)}.
+     *
+     * @param charset the charset of the file.
+     * @return {@code true} if {@code charset} is UTF-8, ISO-8859-1 or US-ASCII.
+     */
+    public static boolean isMappable(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns a spliterator over the lines of the file of {@code channel}, from its start to its current size. The channel is not closed by the spliterator.
+     *
+     * @param channel the channel of the file, which must be readable.
+     * @param charset the charset of the file, for which {@link #isMappable(Charset)} must be {@code true}.
+     * @return the spliterator.
+     * @throws IOException if the size of the file could not be read.
+     */
+    public static ExSpliterator<String, IOException> mapped(FileChannel channel, Charset charset) throws IOException {
+        return mapped(channel, charset, WINDOW_SIZE, MIN_SPLIT_SIZE);
+    }
+
+    static ExSpliterator<String, IOException> mapped(FileChannel channel, Charset charset, int windowSize, int minSplitSize) throws IOException {
+        if (!isMappable(charset)) {
+            throw new IllegalArgumentException("Charset " + charset + " is not supported");
+        }
+        return new MappedSpliterator(channel, charset, 0, channel.size(), windowSize, minSplitSize);
+    }
+
+    /**
+     * Returns an iterator over the lines read by {@code reader}. The reader is not closed by the iterator.
+     *
+     * @param reader the reader.
+     * @return the iterator.
+     */
+    public static ExIterator<String, IOException> read(BufferedReader reader) {
+        return new ReaderIterator(reader);
+    }
+
+    private static final class MappedSpliterator implements ExSpliterator<String, IOException> {
+
+        private final FileChannel channel;
+
+        private final Charset charset;
+
+        private final int windowSize;
+
+        private final int minSplitSize;
+
+        /* The position of the next line. */
+        private long position;
+
+        private final long end;
+
+        private @Nullable MappedByteBuffer window;
+
+        private long windowStart;
+
+        private long windowEnd;
+
+        private MappedSpliterator(FileChannel channel, Charset charset, long position, long end, int windowSize, int minSplitSize) {
+            this.channel = channel;
+            this.charset = charset;
+            this.position = position;
+            this.end = end;
+            this.windowSize = windowSize;
+            this.minSplitSize = minSplitSize;
+        }
+
+        @Override
+        public boolean tryAdvance(ExConsumer<? super String, ? extends IOException> action) throws IOException {
+            if (position >= end) {
+                return false;
+            }
+            final long lineEnd = indexOf(position, true);
+            final String line = decode(position, lineEnd);
+            position = lineEnd;
+            if (position < end) {
+                // skip the terminator, "\r\n" is a single one
+                final boolean carriageReturn = byteAt(position) == '\r';
+                position++;
+                if (carriageReturn && position < end && byteAt(position) == '\n') {
+                    position++;
+                }
+            }
+            action.accept(line);
+            return true;
+        }
+
+        @Override
+        public @Nullable ExSpliterator<String, IOException> trySplit() throws IOException {
+            final long remaining = end - position;
+            if (remaining < minSplitSize) {
+                return null;
+            }
+            // split after a line feed, so the prefix ends with a complete line and "\r\n" is never split
+            final long lineFeed = indexOf(position + remaining / 2, false);
+            if (lineFeed >= end - 1) {
+                return null;
+            }
+            final var prefix = new MappedSpliterator(channel, charset, position, lineFeed + 1, windowSize, minSplitSize);
+            position = lineFeed + 1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // the number of bytes, which is an upper bound of the number of lines
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
+        /* Returns the index of the first line terminator at or after from, only line feeds unless anyTerminator is set, or end if there is none. */
+        private long indexOf(long from, boolean anyTerminator) throws IOException {
+            long index = from;
+            while (index < end) {
+                final MappedByteBuffer buffer = window(index);
+                for (int i = (int) (index - windowStart); i < buffer.limit(); i++) {
+                    final byte b = buffer.get(i);
+                    if (b == '\n' || (anyTerminator && b == '\r')) {
+                        return windowStart + i;
+                    }
+                }
+                index = windowEnd;
+            }
+            return end;
+        }
+
+        private byte byteAt(long index) throws IOException {
+            return window(index).get((int) (index - windowStart));
+        }
+
+        private String decode(long from, long to) throws IOException {
+            if (to - from > Integer.MAX_VALUE - 8) {
+                throw new IOException("Line at position " + from + " is too long");
+            }
+            final byte[] bytes = new byte[(int) (to - from)];
+            if (window != null && from >= windowStart && to <= windowEnd) {
+                window.get((int) (from - windowStart), bytes);
+            } else {
+                // the line spans multiple windows, which is rare, so it is read directly
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, from + buffer.position()) < 0) {
+                        throw new IOException("File was truncated while reading its lines");
+                    }
+                }
+            }
+            return new String(bytes, charset);
+        }
+
+        /* Returns a window containing index, mapping a new one starting at index if necessary. */
+        private MappedByteBuffer window(long index) throws IOException {
+            MappedByteBuffer buffer = window;
+            if (buffer == null || index < windowStart || index >= windowEnd) {
+                final long size = Math.min(windowSize, end - index);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, index, size);
+                window = buffer;
+                windowStart = index;
+                windowEnd = index + size;
+            }
+            return buffer;
+        }
+
+    }
+
+    private static final class ReaderIterator implements ExIterator<String, IOException> {
+
+        private final BufferedReader reader;
+
+        private @Nullable String nextLine;
+
+        private ReaderIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            if (nextLine == null) {
+                nextLine = reader.readLine();
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        public String next() throws IOException {
+            String line = nextLine;
+            if (line == null) {
+                line = reader.readLine();
+                if (line == null) {
+                    throw new NoSuchElementException();
+                }
+            }
+            nextLine = null;
+            return line;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExBiConsumer;
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExSpliterator;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+
+/**
+ * A source of the paths of a file tree, used by {@link net.dapete.exceptional.stream.ExStream#walk}.
+ * <p>
+ * Each instance keeps a stack of the paths found but not returned yet, and returns them depth-first. Directories are listed when they are returned, and
+ * their entries are pushed onto the stack. {@link #trySplit()} hands off the bottom half of the stack, which holds the entries closest to the start of the
+ * walk and therefore the largest subtrees, so parallel streams keep splitting the remaining work between idle threads.
+ * <p>
+ * Failures to read the attributes of a path or to list a directory are passed to the error handler together with the path. If the handler returns, a path
+ * whose attributes could not be read is skipped, and a directory which could not be listed is returned without its entries.
+ */
+public final class FileWalk implements ExSpliterator<Path, IOException> {
+
+    private static final LinkOption[] FOLLOW_LINKS = {};
+
+    private static final LinkOption[] NOFOLLOW_LINKS = {LinkOption.NOFOLLOW_LINKS};
+
+    /* A path found but not returned yet. */
+    private static final class Entry {
+
+        private final Path path;
+
+        private final int depth;
+
+        private final @Nullable Ancestor ancestors;
+
+        /* Whether the attributes were read and the entries were pushed already, by trySplit. */
+        private boolean visited;
+
+        private Entry(Path path, int depth, @Nullable Ancestor ancestors) {
+            this.path = path;
+            this.depth = depth;
+            this.ancestors = ancestors;
+        }
+
+    }
+
+    /* The file key of a directory on the path to an entry, to detect cycles when following links. */
+    private record Ancestor(Object fileKey, @Nullable Ancestor parent) {
+
+        private boolean contains(Object key) {
+            for (@Nullable Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (ancestor.fileKey.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    private final Deque<Entry> pending;
+
+    private final int maxDepth;
+
+    private final boolean followLinks;
+
+    private final ExBiConsumer<? super Path, ? super IOException, ? extends IOException> errorHandler;
+
+    private FileWalk(Deque<Entry> pending, int maxDepth, boolean followLinks,
+                     ExBiConsumer<? super Path, ? super IOException, ? extends IOException> errorHandler) {
+        this.pending = pending;
+        this.maxDepth = maxDepth;
+        this.followLinks = followLinks;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Returns a source of the paths of the file tree rooted at {@code start}.
+     *
+     * @param start        the start of the walk, which is returned first.
+     * @param maxDepth     the maximum number of directory levels to visit, 0 to only return {@code start}.
+     * @param followLinks  whether to follow symbolic links.
+     * @param errorHandler the handler of failures, which may throw an exception to abort the walk.
+     * @return the source.
+     * @throws IllegalArgumentException if {@code maxDepth} is negative.
+     */
+    public static FileWalk of(Path start, int maxDepth, boolean followLinks,
+                              ExBiConsumer<? super Path, ? super IOException, ? extends IOException> errorHandler) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+        final Deque<Entry> pending = new ArrayDeque<>();
+        pending.add(new Entry(start, 0, null));
+        return new FileWalk(pending, maxDepth, followLinks, errorHandler);
+    }
+
+    @Override
+    public boolean tryAdvance(ExConsumer<? super Path, ? extends IOException> action) throws IOException {
+        while (true) {
+            final Entry entry = pending.pollLast();
+            if (entry == null) {
+                return false;
+            }
+            if (entry.visited || visit(entry)) {
+                action.accept(entry.path);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public @Nullable ExSpliterator<Path, IOException> trySplit() throws IOException {
+        if (pending.size() == 1) {
+            // list a single directory first, so walks from a single start can be split at all
+            final Entry entry = pending.getLast();
+            if (!entry.visited) {
+                if (visit(entry)) {
+                    entry.visited = true;
+                } else {
+                    pending.removeFirst();
+                }
+            }
+        }
+        if (pending.size() < 2) {
+            return null;
+        }
+        final Deque<Entry> prefix = new ArrayDeque<>();
+        for (int i = pending.size() / 2; i > 0; i--) {
+            prefix.addLast(pending.removeFirst());
+        }
+        return new FileWalk(prefix, maxDepth, followLinks, errorHandler);
+    }
+
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+
+    /* Reads the attributes of entry and pushes its entries if it is a directory, returns false if it must be skipped. */
+    private boolean visit(Entry entry) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = readAttributes(entry.path);
+        } catch (IOException e) {
+            errorHandler.accept(entry.path, e);
+            return false;
+        }
+        if (!attributes.isDirectory() || entry.depth >= maxDepth) {
+            return true;
+        }
+        @Nullable Ancestor ancestors = entry.ancestors;
+        final Object fileKey = attributes.fileKey();
+        if (followLinks && fileKey != null) {
+            if (ancestors != null && ancestors.contains(fileKey)) {
+                errorHandler.accept(entry.path, new FileSystemLoopException(entry.path.toString()));
+                return true;
+            }
+            ancestors = new Ancestor(fileKey, ancestors);
+        }
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(entry.path)) {
+            for (final Path child : directory) {
+                pending.addLast(new Entry(child, entry.depth + 1, ancestors));
+            }
+        } catch (IOException e) {
+            errorHandler.accept(entry.path, e);
+        } catch (DirectoryIteratorException e) {
+            errorHandler.accept(entry.path, e.getCause());
+        }
+        return true;
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        if (!followLinks) {
+            return Files.readAttributes(path, BasicFileAttributes.class, NOFOLLOW_LINKS);
+        }
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, FOLLOW_LINKS);
+        } catch (IOException e) {
+            // the target of a broken link does not exist, so the link itself is returned, like by Files.walk
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, NOFOLLOW_LINKS);
+            } catch (IOException linkException) {
+                e.addSuppressed(linkException);
+                throw e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExPredicate;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * A run of consecutive stateless stages with functional interfaces that throw exceptions, which is applied to a stream as a single stage.
+ * <p>
+ * Calling {@code map}, {@code filter} and {@code peek} of a stream for each stage adds a stage to the stream pipeline for each of them, each with its own
+ * wrapped functional interface and exception handling, and each element passes through all of them. Instead, the stages are collected here, and
+ * {@link #link()} adds a single stage, which applies all of them in a loop within a single {@code try} block.
+ * <p>
+ * Instances are immutable, adding a stage returns a new instance.
+ *
+ * @param <T> the type of elements after the stages
+ */
+public final class FusedStages<T> {
+
+    /* Returned by a step for elements that are filtered out. */
+    private static final Object FILTERED = new Object();
+
+    private static final Step[] NO_STEPS = {};
+
+    /* A single stage, returning the element to pass on to the next stage, or FILTERED. */
+    @FunctionalInterface
+    private interface Step {
+
+        @Nullable Object apply(@Nullable Object value) throws Exception;
+
+    }
+
+    private final Stream<?> source;
+
+    private final Step[] steps;
+
+    private final boolean filtering;
+
+    private FusedStages(Stream<?> source, Step[] steps, boolean filtering) {
+        this.source = source;
+        this.steps = steps;
+        this.filtering = filtering;
+    }
+
+    /**
+     * Returns an instance without stages for {@code source}.
+     *
+     * @param source the stream to which the stages are applied.
+     * @param <T>    the type of elements of {@code source}.
+     * @return the new instance.
+     */
+    public static <T> FusedStages<T> of(Stream<T> source) {
+        return new FusedStages<>(source, NO_STEPS, false);
+    }
+
+    /**
+     * Returns the stream to which the stages are applied. Like for any stream of a pipeline, its {@link Stream#close()} and {@link Stream#isParallel()} may
+     * be called even after the stages were added to the pipeline.
+     *
+     * @return the source stream.
+     */
+    public Stream<?> source() {
+        return source;
+    }
+
+    /**
+     * Returns an instance with an additional stage like {@link Stream#map}.
+     *
+     * @param mapper the function to apply to each element.
+     * @param <R>    the type of elements after the new stage.
+     * @return the new instance.
+     */
+    @SuppressWarnings("unchecked") // each step is only called with the results of the previous step
+    public <R> FusedStages<R> map(ExFunction<? super T, ? extends R, ?> mapper) {
+        return add(value -> mapper.apply((T) value), false);
+    }
+
+    /**
+     * Returns an instance with an additional stage like {@link Stream#filter}.
+     *
+     * @param predicate the predicate to apply to each element.
+     * @return the new instance.
+     */
+    @SuppressWarnings("unchecked") // each step is only called with the results of the previous step
+    public FusedStages<T> filter(ExPredicate<? super T, ?> predicate) {
+        return add(value -> predicate.test((T) value) ? value : FILTERED, true);
+    }
+
+    /**
+     * Returns an instance with an additional stage like {@link Stream#peek}.
+     *
+     * @param action the action to perform on each element.
+     * @return the new instance.
+     */
+    @SuppressWarnings("unchecked") // each step is only called with the results of the previous step
+    public FusedStages<T> peek(ExConsumer<? super T, ?> action) {
+        return add(value -> {
+            action.accept((T) value);
+            return value;
+        }, false);
+    }
+
+    private <R> FusedStages<R> add(Step step, boolean filteringStep) {
+        final Step[] newSteps = Arrays.copyOf(steps, steps.length + 1);
+        newSteps[steps.length] = step;
+        return new FusedStages<>(source, newSteps, filtering || filteringStep);
+    }
+
+    /**
+     * Applies the stages to the source stream as a single stage, a {@link Stream#mapMulti} stage if any of them filters elements, otherwise a
+     * {@link Stream#map} stage, so the size of the stream stays known.
+     * <p>
+     * If a stage throws a checked exception, an {@link net.dapete.exceptional.ExException} is thrown instead, with the original exception as its cause.
+     *
+     * @return the stream with the stages applied.
+     */
+    @SuppressWarnings({"unchecked", "ReferenceEquality"}) // the last step returns elements of type T, FILTERED is compared by identity
+    public Stream<T> link() {
+        if (steps.length == 0) {
+            return (Stream<T>) source;
+        }
+        final Step[] linkedSteps = steps;
+        if (filtering) {
+            return source.mapMulti((value, downstream) -> {
+                final Object result = applyAll(linkedSteps, value);
+                if (result != FILTERED) {
+                    downstream.accept((T) result);
+                }
+            });
+        }
+        return source.map(value -> (T) applyAll(linkedSteps, value));
+    }
+
+    @SuppressWarnings("ReferenceEquality") // FILTERED is compared by identity
+    private static @Nullable Object applyAll(Step[] steps, @Nullable Object value) {
+        @Nullable Object result = value;
+        try {
+            for (final Step step : steps) {
+                result = step.apply(result);
+                if (result == FILTERED) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            throw ExUtils.toRuntimeException(e);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,105 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExSupplier;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link ExSupplier#hedged(Duration, int, Executor)}.
+ * <p>
+ * The calling thread schedules the attempts and waits for them using an {@link ExecutorCompletionService}, so no additional timer thread is needed.
+ *
+ * @param <T> the type of results supplied by this supplier
+ * @param <E> the type of exception thrown
+ */
+public final class HedgedSupplier<T, E extends Exception> implements ExSupplier<T, E> {
+
+    private final ExSupplier<T, E> supplier;
+
+    private final long delayNanos;
+
+    private final int maxAttempts;
+
+    private final Executor executor;
+
+    /**
+     * Create a new instance.
+     *
+     * @param supplier    the supplier to call.
+     * @param delay       the delay after which another attempt is started if no attempt has completed successfully.
+     * @param maxAttempts the maximum number of attempts.
+     * @param executor    the executor to run attempts on.
+     * @throws IllegalArgumentException if {@code delay} is negative or {@code maxAttempts} is less than 1.
+     */
+    public HedgedSupplier(ExSupplier<T, E> supplier, Duration delay, int maxAttempts, Executor executor) {
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("delay must not be negative");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.supplier = supplier;
+        this.delayNanos = delay.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.executor = executor;
+    }
+
+    @Override
+    public T get() throws E {
+        final var completionService = new ExecutorCompletionService<T>(executor);
+        final List<Future<T>> attempts = new ArrayList<>(maxAttempts);
+        @Nullable Throwable failure = null;
+        try {
+            attempts.add(completionService.submit(supplier::get));
+            int running = 1;
+            while (running > 0) {
+                final Future<T> completed;
+                if (attempts.size() < maxAttempts) {
+                    completed = completionService.poll(delayNanos, TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        // no attempt has completed within the delay, start a backup attempt
+                        attempts.add(completionService.submit(supplier::get));
+                        running++;
+                        continue;
+                    }
+                } else {
+                    completed = completionService.take();
+                }
+                running--;
+                try {
+                    return completed.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else if (!failure.equals(e.getCause())) {
+                        // attempts may throw the same exception instance, which cannot suppress itself
+                        failure.addSuppressed(e.getCause());
+                    }
+                    if (running == 0 && attempts.size() < maxAttempts) {
+                        // nothing left to wait for, don't wait for the delay
+                        attempts.add(completionService.submit(supplier::get));
+                        running++;
+                    }
+                }
+            }
+            // the loop only ends after all attempts have failed
+            throw ExUtils.<E>rethrow(Objects.requireNonNull(failure));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExException(e);
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+}
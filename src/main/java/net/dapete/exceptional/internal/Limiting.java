@@ -0,0 +1,82 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExLimiter;
+import net.dapete.exceptional.function.ExRunnable;
+import net.dapete.exceptional.function.ExSupplier;
+
+/**
+ * Utility class implementing the decorators using an {@link ExLimiter}, e.g. {@link net.dapete.exceptional.function.ExFunction#limited(ExLimiter)}.
+ */
+public final class Limiting {
+
+    // Utility class with private constructor
+    private Limiting() {
+    }
+
+    /**
+     * Acquires a permit from {@code limiter}, waiting until one is available.
+     * <p>
+     * If the current thread is interrupted while waiting, the interrupt status is restored and an {@link ExException} is thrown.
+     *
+     * @param limiter the limiter.
+     * @throws ExException with an {@link InterruptedException} as its cause if the current thread is interrupted while waiting.
+     */
+    public static void acquire(ExLimiter limiter) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExException(e);
+        }
+    }
+
+    /**
+     * Calls {@code supplier} with a permit that has already been acquired from {@code limiter}, releasing the permit afterward.
+     * <p>
+     * The time taken and whether a checked exception was thrown are reported to {@code limiter} using {@link ExLimiter#release(long, boolean)}.
+     *
+     * @param limiter  the limiter.
+     * @param supplier the call to make.
+     * @param <T>      the type of results supplied by {@code supplier}.
+     * @param <E>      the type of exception thrown by {@code supplier}.
+     * @return the result of {@code supplier}.
+     * @throws E if {@code supplier} throws it.
+     */
+    public static <T, E extends Exception> T call(ExLimiter limiter, ExSupplier<T, E> supplier) throws E {
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            return supplier.get();
+        } catch (Exception e) {
+            failed = !(e instanceof RuntimeException);
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Runs {@code runnable} with a permit that has already been acquired from {@code limiter}, releasing the permit afterward.
+     * <p>
+     * The time taken and whether a checked exception was thrown are reported to {@code limiter} using {@link ExLimiter#release(long, boolean)}.
+     *
+     * @param limiter  the limiter.
+     * @param runnable the call to make.
+     * @param <E>      the type of exception thrown by {@code runnable}.
+     * @throws E if {@code runnable} throws it.
+     */
+    public static <E extends Exception> void run(ExLimiter limiter, ExRunnable<E> runnable) throws E {
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            failed = !(e instanceof RuntimeException);
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExIntConsumer;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Utility class running an action for each index of a range in parallel, used by the bulk operations of
+ * {@link net.dapete.exceptional.collection.ExLists} and {@link net.dapete.exceptional.collection.ExArrays}.
+ * <p>
+ * The range is split recursively into chunks, which are processed by the current {@link ForkJoinPool}, or the common pool if the current thread does not
+ * belong to one. Once the action has thrown an exception for any index, no further indexes are processed, so all remaining chunks end early.
+ */
+public final class ParallelLoop {
+
+    /**
+     * The minimum number of indexes for which the bulk operations switch from a sequential loop to a parallel loop.
+     */
+    public static final int PARALLEL_THRESHOLD = 8192;
+
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    // Utility class with private constructor
+    private ParallelLoop() {
+    }
+
+    private static final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Loop loop;
+
+        private final int from;
+
+        private final int to;
+
+        /* The next chunk forked by the same parent, to join them in reverse order. */
+        private transient @Nullable Chunk nextForked;
+
+        private Chunk(Loop loop, int from, int to) {
+            this.loop = loop;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int end = to;
+            // fork the upper halves and process the lowest part in this task
+            @Nullable Chunk forked = null;
+            while (end - from > loop.chunkSize && !loop.failed) {
+                final int middle = (from + end) >>> 1;
+                final var upper = new Chunk(loop, middle, end);
+                upper.nextForked = forked;
+                forked = upper;
+                upper.fork();
+                end = middle;
+            }
+            loop.run(from, end);
+            while (forked != null) {
+                forked.join();
+                forked = forked.nextForked;
+            }
+        }
+
+    }
+
+    private static final class Loop {
+
+        private final ExIntConsumer<?> action;
+
+        private final int chunkSize;
+
+        private final AtomicReference<@Nullable Throwable> failure = new AtomicReference<>();
+
+        /* Set with failure, read on every index, so the remaining chunks stop quickly. */
+        private volatile boolean failed;
+
+        private Loop(ExIntConsumer<?> action, int chunkSize) {
+            this.action = action;
+            this.chunkSize = chunkSize;
+        }
+
+        private void run(int from, int to) {
+            try {
+                for (int i = from; i < to && !failed; i++) {
+                    action.accept(i);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                failed = true;
+            }
+        }
+
+    }
+
+    /**
+     * Combines two elements of an array, storing the result in the first one, e.g. {@code array[target] = op(array[source], array[target])}.
+     */
+    @FunctionalInterface
+    public interface IndexCombiner {
+
+        /**
+         * Combines the elements at {@code source} and {@code target}, storing the result at {@code target}.
+         *
+         * @param target the index of the second operand and the result.
+         * @param source the index of the first operand.
+         */
+        void combine(int target, int source);
+
+    }
+
+    /**
+     * Calls {@code action} for each index from {@code from}, inclusive, to {@code to}, exclusive, in parallel, and waits until all calls have completed.
+     * <p>
+     * If {@code action} throws an exception, no further indexes are processed, and the first exception is rethrown as it is after all running chunks have
+     * ended.
+     *
+     * @param from   the first index, inclusive.
+     * @param to     the last index, exclusive.
+     * @param action the action to call for each index.
+     * @param <E>    the type of exception thrown by {@code action}.
+     * @throws E if {@code action} threw an exception of this type.
+     */
+    public static <E extends Exception> void forEachIndex(int from, int to, ExIntConsumer<? extends E> action) throws E {
+        final int parallelism = currentPool().getParallelism();
+        ParallelLoop.<E>forEachIndex(from, to, Math.max(MIN_CHUNK_SIZE, (to - from) / (parallelism * 4)), action);
+    }
+
+    private static <E extends Exception> void forEachIndex(int from, int to, int chunkSize, ExIntConsumer<? extends E> action) throws E {
+        if (from >= to) {
+            return;
+        }
+        final var loop = new Loop(action, chunkSize);
+        // the current thread processes the first chunk, the others are forked to the pool
+        new Chunk(loop, from, to).invoke();
+        final Throwable firstFailure = loop.failure.get();
+        if (firstFailure != null) {
+            throw ExUtils.<E>rethrow(firstFailure);
+        }
+    }
+
+    private static ForkJoinPool currentPool() {
+        final ForkJoinPool currentPool = ForkJoinTask.getPool();
+        return currentPool != null ? currentPool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Computes the cumulative combination of the elements of an array of {@code length} elements in place, like
+     * {@link java.util.Arrays#parallelPrefix(int[], java.util.function.IntBinaryOperator)}. The operation of {@code combiner} must be associative.
+     * <p>
+     * The array is split into chunks. First, the prefix of each chunk is computed in parallel. Then the last element of each chunk is combined with the last
+     * element of the previous chunk, in order. Finally, the other elements of each chunk but the first are combined with the last element of the previous
+     * chunk in parallel. Arrays with less than {@link #PARALLEL_THRESHOLD} elements are processed sequentially.
+     * <p>
+     * If {@code combiner} throws an exception, no further elements are processed, and the first exception is rethrown after all running chunks have ended.
+     * The array is then left partially updated.
+     *
+     * @param length   the length of the array.
+     * @param combiner the operation combining two elements of the array.
+     */
+    public static void prefix(int length, IndexCombiner combiner) {
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (currentPool().getParallelism() * 4));
+        if (length < PARALLEL_THRESHOLD || length <= chunkSize) {
+            for (int i = 1; i < length; i++) {
+                combiner.combine(i, i - 1);
+            }
+            return;
+        }
+        final int chunks = (length + chunkSize - 1) / chunkSize;
+        ParallelLoop.<RuntimeException>forEachIndex(0, chunks, 1, chunk -> {
+            final int end = Math.min(length, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize + 1; i < end; i++) {
+                combiner.combine(i, i - 1);
+            }
+        });
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            combiner.combine(Math.min(length, (chunk + 1) * chunkSize) - 1, chunk * chunkSize - 1);
+        }
+        ParallelLoop.<RuntimeException>forEachIndex(1, chunks, 1, chunk -> {
+            final int start = chunk * chunkSize;
+            // the last element of the chunk was already combined above
+            final int end = Math.min(length, start + chunkSize) - 1;
+            for (int i = start; i < end; i++) {
+                combiner.combine(i, start - 1);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,152 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExSpliterator;
+import org.jspecify.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+
+/**
+ * A source of elements mapped from the rows of a {@link ResultSet}, used by
+ * {@link net.dapete.exceptional.stream.ExStream#fromResultSet(ResultSet, ExFunction)}.
+ * <p>
+ * The rows are read sequentially, but {@link #trySplit()} maps a block of rows, as many as the fetch size of the result set, so each block corresponds to a
+ * round trip to the database, and returns them as a separate spliterator. This way, parallel streams process the blocks concurrently while the next block is
+ * read.
+ *
+ * @param <T> the type of the mapped elements
+ */
+public final class ResultSetSource<T> implements ExSpliterator<T, SQLException> {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final ResultSet resultSet;
+
+    private final ExFunction<? super ResultSet, ? extends T, ? extends SQLException> mapper;
+
+    private boolean exhausted;
+
+    private ResultSetSource(ResultSet resultSet, ExFunction<? super ResultSet, ? extends T, ? extends SQLException> mapper) {
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns a source mapping the remaining rows of {@code resultSet} using {@code mapper}.
+     *
+     * @param resultSet the result set.
+     * @param mapper    the function mapping the current row of the result set, which must not move its cursor.
+     * @param <T>       the type of the mapped elements.
+     * @return the source.
+     */
+    public static <T> ResultSetSource<T> of(ResultSet resultSet, ExFunction<? super ResultSet, ? extends T, ? extends SQLException> mapper) {
+        return new ResultSetSource<>(resultSet, mapper);
+    }
+
+    @Override
+    public boolean tryAdvance(ExConsumer<? super T, ? extends SQLException> action) throws SQLException {
+        if (exhausted || !resultSet.next()) {
+            exhausted = true;
+            return false;
+        }
+        action.accept(mapper.apply(resultSet));
+        return true;
+    }
+
+    @Override
+    public @Nullable ExSpliterator<T, SQLException> trySplit() throws SQLException {
+        if (exhausted) {
+            return null;
+        }
+        final int fetchSize = resultSet.getFetchSize();
+        final Object[] block = new Object[fetchSize > 0 ? fetchSize : DEFAULT_BLOCK_SIZE];
+        int size = 0;
+        while (size < block.length && !exhausted) {
+            if (resultSet.next()) {
+                block[size++] = mapper.apply(resultSet);
+            } else {
+                exhausted = true;
+            }
+        }
+        return size > 0 ? new Block<>(block, 0, size) : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED;
+    }
+
+    /**
+     * Closes the result set and its statement, if any.
+     *
+     * @throws SQLException if closing failed.
+     */
+    public void close() throws SQLException {
+        final @Nullable Statement statement = resultSet.getStatement();
+        try {
+            resultSet.close();
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+
+    /* A block of mapped rows, which is split in halves. */
+    private static final class Block<T> implements ExSpliterator<T, SQLException> {
+
+        private final Object[] elements;
+
+        private int from;
+
+        private final int to;
+
+        private Block(Object[] elements, int from, int to) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // the block only contains mapped rows
+        public boolean tryAdvance(ExConsumer<? super T, ? extends SQLException> action) throws SQLException {
+            if (from >= to) {
+                return false;
+            }
+            action.accept((T) elements[from++]);
+            return true;
+        }
+
+        @Override
+        public @Nullable ExSpliterator<T, SQLException> trySplit() {
+            final int middle = (from + to) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            final var prefix = new Block<T>(elements, from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link ExFunction#singleFlight()}.
+ * <p>
+ * Calls in progress are kept in a {@link ConcurrentHashMap}, so callers with different arguments never block each other. An entry is removed as soon as its
+ * call has completed, which means results are shared, but never cached. Each entry records the thread making the call, so a recursive call with an equal
+ * argument fails instead of waiting for itself.
+ *
+ * @param <T> the type of the argument to the function
+ * @param <R> the type of the result of the function
+ * @param <E> the type of exception thrown
+ */
+public final class SingleFlightFunction<T, R, E extends Exception> implements ExFunction<T, R, E> {
+
+    private final ExFunction<T, R, E> function;
+
+    private final ConcurrentHashMap<T, Call<R>> inFlight = new ConcurrentHashMap<>();
+
+    private record Call<R>(Thread owner, CompletableFuture<@Nullable R> future) {
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param function the function to call.
+     */
+    public SingleFlightFunction(ExFunction<T, R, E> function) {
+        this.function = function;
+    }
+
+    @Override
+    @SuppressWarnings("NullAway") // null arguments are passed through unchanged
+    public R apply(@Nullable T t) throws E {
+        if (t == null) {
+            // ConcurrentHashMap does not support null keys
+            return function.apply(t);
+        }
+        final var call = new Call<R>(Thread.currentThread(), new CompletableFuture<>());
+        final var existingCall = inFlight.putIfAbsent(t, call);
+        if (existingCall != null) {
+            if (existingCall.owner().equals(Thread.currentThread())) {
+                throw new IllegalStateException("Recursive call");
+            }
+            return await(existingCall.future());
+        }
+        try {
+            final R result = function.apply(t);
+            inFlight.remove(t, call);
+            call.future().complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlight.remove(t, call);
+            call.future().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("NullAway") // the result of the shared call may be null if the function returns null
+    private R await(CompletableFuture<@Nullable R> call) throws E {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            throw ExUtils.<E>rethrow(e.getCause());
+        }
+    }
+
+}
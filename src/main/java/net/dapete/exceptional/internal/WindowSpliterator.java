@@ -0,0 +1,164 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator grouping the elements of a source spliterator into windows of {@code size} elements, each starting {@code step} elements after the previous one.
+ * Used to implement {@link net.dapete.exceptional.stream.ExStream#chunked(int)} and {@link net.dapete.exceptional.stream.ExStream#windowed(int, int)}.
+ * <p>
+ * If the source is {@link Spliterator#SIZED SIZED} and {@link Spliterator#SUBSIZED SUBSIZED}, this spliterator can be split. As the prefix split off the source
+ * will not usually end at a window boundary, the prefix borrows the elements it needs to complete its last window from the start of the suffix, and the suffix
+ * skips the elements up to its first window.
+ *
+ * @param <T> the type of the elements
+ */
+public final class WindowSpliterator<T> implements Spliterator<List<T>> {
+
+    private final Spliterator<T> source;
+
+    private final int size;
+
+    private final int step;
+
+    private final boolean partial;
+
+    /* The elements of this spliterator are head, then source, then tail, of which the first skip elements are dropped. */
+
+    private List<T> head;
+
+    private int headIndex;
+
+    private final List<T> tail;
+
+    private int tailIndex;
+
+    private long skip;
+
+    /* Elements already read for the next window. */
+
+    private final ArrayList<T> window;
+
+    private final Consumer<T> addToWindow;
+
+    /**
+     * Create a new instance.
+     *
+     * @param source  the source of the elements.
+     * @param size    the number of elements in each window.
+     * @param step    the distance between the first elements of consecutive windows.
+     * @param partial if {@code true}, a final window with fewer than {@code size} elements is returned, too.
+     */
+    public WindowSpliterator(Spliterator<T> source, int size, int step, boolean partial) {
+        this(source, size, step, partial, List.of(), 0, List.of());
+    }
+
+    private WindowSpliterator(Spliterator<T> source, int size, int step, boolean partial, List<T> head, long skip, List<T> tail) {
+        this.source = source;
+        this.size = size;
+        this.step = step;
+        this.partial = partial;
+        this.head = head;
+        this.skip = skip;
+        this.tail = tail;
+        this.window = new ArrayList<>(size);
+        this.addToWindow = window::add;
+    }
+
+    private boolean pull() {
+        if (headIndex < head.size()) {
+            window.add(head.get(headIndex++));
+            return true;
+        }
+        if (source.tryAdvance(addToWindow)) {
+            return true;
+        }
+        if (tailIndex < tail.size()) {
+            window.add(tail.get(tailIndex++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        while (skip > 0) {
+            if (!pull()) {
+                return false;
+            }
+            window.clear();
+            skip--;
+        }
+        while (window.size() < size && pull()) {
+            // read the remaining elements of the window
+        }
+        if (window.size() < size && !(partial && !window.isEmpty())) {
+            return false;
+        }
+        action.accept(Collections.unmodifiableList(new ArrayList<>(window)));
+        if (step >= window.size()) {
+            skip = step - (long) window.size();
+            window.clear();
+        } else {
+            window.subList(0, step).clear();
+        }
+        return true;
+    }
+
+    @Override
+    public @Nullable Spliterator<List<T>> trySplit() {
+        if (!source.hasCharacteristics(SIZED | SUBSIZED)) {
+            return null;
+        }
+        final Spliterator<T> prefixSource = source.trySplit();
+        if (prefixSource == null) {
+            return null;
+        }
+        // the prefix takes over the elements already read
+        final List<T> prefixHead = new ArrayList<>(window);
+        prefixHead.addAll(head.subList(headIndex, head.size()));
+        final long prefixSkip = skip;
+        window.clear();
+        head = List.of();
+        headIndex = 0;
+
+        // the prefix returns the windows starting within its elements, borrowing the elements needed to complete them
+        final long prefixSize = prefixHead.size() + prefixSource.getExactSizeIfKnown() - prefixSkip;
+        final long prefixWindows = prefixSize > 0 ? (prefixSize + step - 1) / step : 0;
+        final long borrowed = prefixWindows > 0 ? Math.max(0, (prefixWindows - 1) * step + size - prefixSize) : 0;
+        for (long i = 0; i < borrowed && pull(); i++) {
+            // read the borrowed elements
+        }
+        head = new ArrayList<>(window);
+        window.clear();
+        skip = prefixWindows * step - prefixSize;
+        return new WindowSpliterator<>(prefixSource, size, step, partial, prefixHead, prefixSkip, head);
+    }
+
+    @Override
+    public long estimateSize() {
+        final long sourceSize = source.estimateSize();
+        if (sourceSize == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        final long remaining = window.size() + (head.size() - headIndex) + sourceSize + (tail.size() - tailIndex) - skip;
+        if (remaining <= 0) {
+            return 0;
+        }
+        if (partial) {
+            return (remaining + step - 1) / step;
+        }
+        return remaining < size ? 0 : (remaining - size) / step + 1;
+    }
+
+    @Override
+    public int characteristics() {
+        return (source.characteristics() & ORDERED) | NONNULL;
+    }
+
+}
@@ -0,0 +1,274 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExBinaryOperator;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExPredicate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Equivalents of the {@link Collectors} that use functional interfaces, using their counterparts with Exceptions instead, e.g.
+ * {@link #groupingBy(Class, ExFunction)} in parallel to {@link Collectors#groupingBy(Function)}.
+ * <p>
+ * If these functional interfaces throw a checked exception, a {@link ExException} will be thrown instead.
+ * This will have the original exception as its {@link ExException#getCause() cause}.
+ * <p>
+ * The concurrent variants {@link #groupingByConcurrent(Class, ExFunction)} and {@link #toConcurrentMap(Class, ExFunction, ExFunction)} return
+ * {@link Collector.Characteristics#CONCURRENT CONCURRENT} and {@link Collector.Characteristics#UNORDERED UNORDERED} collectors backed by a
+ * {@link java.util.concurrent.ConcurrentHashMap}. When used on a parallel stream, all threads accumulate into the same map, so no maps need to be merged.
+ */
+public final class ExCollectors {
+
+    // Utility class with private constructor
+    private ExCollectors() {
+    }
+
+    /**
+     * Equivalent of {@link Collectors#groupingBy(Function)}.
+     * <p>
+     * If {@code classifier} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <E>            The exception type thrown by {@code classifier}
+     * @param exceptionClass The exception class for {@link E}
+     * @param classifier     see {@link Collectors#groupingBy(Function)}
+     * @return see {@link Collectors#groupingBy(Function)}
+     */
+    public static <T, K, E extends Exception> Collector<T, ?, Map<K, List<T>>> groupingBy(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> classifier) {
+        return Collectors.<T, K>groupingBy(classifier.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#groupingBy(Function, Collector)}.
+     * <p>
+     * If {@code classifier} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <A>            the intermediate accumulation type of the downstream collector
+     * @param <D>            the result type of the downstream reduction
+     * @param <E>            The exception type thrown by {@code classifier}
+     * @param exceptionClass The exception class for {@link E}
+     * @param classifier     see {@link Collectors#groupingBy(Function, Collector)}
+     * @param downstream     see {@link Collectors#groupingBy(Function, Collector)}
+     * @return see {@link Collectors#groupingBy(Function, Collector)}
+     */
+    public static <T, K, A, D, E extends Exception> Collector<T, ?, Map<K, D>> groupingBy(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> classifier, Collector<? super T, A, D> downstream) {
+        return Collectors.<T, K, A, D>groupingBy(classifier.wrap(exceptionClass), downstream);
+    }
+
+    /**
+     * Equivalent of {@link Collectors#groupingByConcurrent(Function)}.
+     * <p>
+     * If {@code classifier} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <E>            The exception type thrown by {@code classifier}
+     * @param exceptionClass The exception class for {@link E}
+     * @param classifier     see {@link Collectors#groupingByConcurrent(Function)}
+     * @return see {@link Collectors#groupingByConcurrent(Function)}
+     */
+    public static <T, K, E extends Exception> Collector<T, ?, ConcurrentMap<K, List<T>>> groupingByConcurrent(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> classifier) {
+        return Collectors.<T, K>groupingByConcurrent(classifier.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#groupingByConcurrent(Function, Collector)}.
+     * <p>
+     * If {@code classifier} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <A>            the intermediate accumulation type of the downstream collector
+     * @param <D>            the result type of the downstream reduction
+     * @param <E>            The exception type thrown by {@code classifier}
+     * @param exceptionClass The exception class for {@link E}
+     * @param classifier     see {@link Collectors#groupingByConcurrent(Function, Collector)}
+     * @param downstream     see {@link Collectors#groupingByConcurrent(Function, Collector)}
+     * @return see {@link Collectors#groupingByConcurrent(Function, Collector)}
+     */
+    public static <T, K, A, D, E extends Exception> Collector<T, ?, ConcurrentMap<K, D>> groupingByConcurrent(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> classifier, Collector<? super T, A, D> downstream) {
+        return Collectors.<T, K, A, D>groupingByConcurrent(classifier.wrap(exceptionClass), downstream);
+    }
+
+    /**
+     * Equivalent of {@link Collectors#toMap(Function, Function)}.
+     * <p>
+     * If {@code keyMapper} or {@code valueMapper} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <U>            the type of the mapped values
+     * @param <E>            The exception type thrown by {@code keyMapper} or {@code valueMapper}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyMapper      see {@link Collectors#toMap(Function, Function)}
+     * @param valueMapper    see {@link Collectors#toMap(Function, Function)}
+     * @return see {@link Collectors#toMap(Function, Function)}
+     */
+    public static <T, K, U, E extends Exception> Collector<T, ?, Map<K, U>> toMap(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyMapper, ExFunction<? super T, ? extends U, ? extends E> valueMapper) {
+        return Collectors.<T, K, U>toMap(keyMapper.wrap(exceptionClass), valueMapper.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#toMap(Function, Function, BinaryOperator)}.
+     * <p>
+     * If {@code keyMapper}, {@code valueMapper} or {@code mergeFunction} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <U>            the type of the mapped values
+     * @param <E>            The exception type thrown by {@code keyMapper}, {@code valueMapper} or {@code mergeFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyMapper      see {@link Collectors#toMap(Function, Function, BinaryOperator)}
+     * @param valueMapper    see {@link Collectors#toMap(Function, Function, BinaryOperator)}
+     * @param mergeFunction  see {@link Collectors#toMap(Function, Function, BinaryOperator)}
+     * @return see {@link Collectors#toMap(Function, Function, BinaryOperator)}
+     */
+    public static <T, K, U, E extends Exception> Collector<T, ?, Map<K, U>> toMap(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyMapper, ExFunction<? super T, ? extends U, ? extends E> valueMapper,
+            ExBinaryOperator<U, ? extends E> mergeFunction) {
+        return Collectors.<T, K, U>toMap(keyMapper.wrap(exceptionClass), valueMapper.wrap(exceptionClass), mergeFunction.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#toConcurrentMap(Function, Function)}.
+     * <p>
+     * If {@code keyMapper} or {@code valueMapper} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <U>            the type of the mapped values
+     * @param <E>            The exception type thrown by {@code keyMapper} or {@code valueMapper}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyMapper      see {@link Collectors#toConcurrentMap(Function, Function)}
+     * @param valueMapper    see {@link Collectors#toConcurrentMap(Function, Function)}
+     * @return see {@link Collectors#toConcurrentMap(Function, Function)}
+     */
+    public static <T, K, U, E extends Exception> Collector<T, ?, ConcurrentMap<K, U>> toConcurrentMap(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyMapper, ExFunction<? super T, ? extends U, ? extends E> valueMapper) {
+        return Collectors.<T, K, U>toConcurrentMap(keyMapper.wrap(exceptionClass), valueMapper.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#toConcurrentMap(Function, Function, BinaryOperator)}.
+     * <p>
+     * If {@code keyMapper}, {@code valueMapper} or {@code mergeFunction} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <K>            the type of the keys
+     * @param <U>            the type of the mapped values
+     * @param <E>            The exception type thrown by {@code keyMapper}, {@code valueMapper} or {@code mergeFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyMapper      see {@link Collectors#toConcurrentMap(Function, Function, BinaryOperator)}
+     * @param valueMapper    see {@link Collectors#toConcurrentMap(Function, Function, BinaryOperator)}
+     * @param mergeFunction  see {@link Collectors#toConcurrentMap(Function, Function, BinaryOperator)}
+     * @return see {@link Collectors#toConcurrentMap(Function, Function, BinaryOperator)}
+     */
+    public static <T, K, U, E extends Exception> Collector<T, ?, ConcurrentMap<K, U>> toConcurrentMap(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyMapper, ExFunction<? super T, ? extends U, ? extends E> valueMapper,
+            ExBinaryOperator<U, ? extends E> mergeFunction) {
+        return Collectors.<T, K, U>toConcurrentMap(keyMapper.wrap(exceptionClass), valueMapper.wrap(exceptionClass), mergeFunction.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#partitioningBy(Predicate)}.
+     * <p>
+     * If {@code predicate} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <E>            The exception type thrown by {@code predicate}
+     * @param exceptionClass The exception class for {@link E}
+     * @param predicate      see {@link Collectors#partitioningBy(Predicate)}
+     * @return see {@link Collectors#partitioningBy(Predicate)}
+     */
+    public static <T, E extends Exception> Collector<T, ?, Map<Boolean, List<T>>> partitioningBy(
+            Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate) {
+        return Collectors.<T>partitioningBy(predicate.wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Collectors#partitioningBy(Predicate, Collector)}.
+     * <p>
+     * If {@code predicate} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <A>            the intermediate accumulation type of the downstream collector
+     * @param <D>            the result type of the downstream reduction
+     * @param <E>            The exception type thrown by {@code predicate}
+     * @param exceptionClass The exception class for {@link E}
+     * @param predicate      see {@link Collectors#partitioningBy(Predicate, Collector)}
+     * @param downstream     see {@link Collectors#partitioningBy(Predicate, Collector)}
+     * @return see {@link Collectors#partitioningBy(Predicate, Collector)}
+     */
+    public static <T, A, D, E extends Exception> Collector<T, ?, Map<Boolean, D>> partitioningBy(
+            Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate, Collector<? super T, A, D> downstream) {
+        return Collectors.<T, D, A>partitioningBy(predicate.wrap(exceptionClass), downstream);
+    }
+
+    /**
+     * Equivalent of {@link Collectors#mapping(Function, Collector)}.
+     * <p>
+     * If {@code mapper} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <U>            the type of the mapped values
+     * @param <A>            the intermediate accumulation type of the downstream collector
+     * @param <R>            the result type of the downstream collector
+     * @param <E>            The exception type thrown by {@code mapper}
+     * @param exceptionClass The exception class for {@link E}
+     * @param mapper         see {@link Collectors#mapping(Function, Collector)}
+     * @param downstream     see {@link Collectors#mapping(Function, Collector)}
+     * @return see {@link Collectors#mapping(Function, Collector)}
+     */
+    public static <T, U, A, R, E extends Exception> Collector<T, ?, R> mapping(
+            Class<E> exceptionClass, ExFunction<? super T, ? extends U, ? extends E> mapper, Collector<? super U, A, R> downstream) {
+        return Collectors.<T, U, A, R>mapping(mapper.wrap(exceptionClass), downstream);
+    }
+
+    /**
+     * Equivalent of {@link Collectors#filtering(Predicate, Collector)}.
+     * <p>
+     * If {@code predicate} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <T>            the type of the input elements
+     * @param <A>            the intermediate accumulation type of the downstream collector
+     * @param <R>            the result type of the downstream collector
+     * @param <E>            The exception type thrown by {@code predicate}
+     * @param exceptionClass The exception class for {@link E}
+     * @param predicate      see {@link Collectors#filtering(Predicate, Collector)}
+     * @param downstream     see {@link Collectors#filtering(Predicate, Collector)}
+     * @return see {@link Collectors#filtering(Predicate, Collector)}
+     */
+    public static <T, A, R, E extends Exception> Collector<T, ?, R> filtering(
+            Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate, Collector<? super T, A, R> downstream) {
+        return Collectors.<T, A, R>filtering(predicate.wrap(exceptionClass), downstream);
+    }
+
+}
@@ -2,11 +2,18 @@ package net.dapete.exceptional.stream;
 
 import lombok.experimental.Delegate;
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExFailureMode;
 import net.dapete.exceptional.function.*;
+import net.dapete.exceptional.internal.ChunkSpliterator;
+import net.dapete.exceptional.internal.ConcurrentForEach;
+import org.jspecify.annotations.Nullable;
 
 import java.util.OptionalDouble;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.*;
 import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A DoubleStream with additional functionality for functional interfaces that throw Exceptions.
@@ -25,8 +32,11 @@ public class ExDoubleStream implements DoubleStream {
     @Delegate
     private final DoubleStream stream;
 
-    private ExDoubleStream(DoubleStream stream) {
+    private final @Nullable Instrumentation instrumentation;
+
+    private ExDoubleStream(DoubleStream stream, @Nullable Instrumentation instrumentation) {
         this.stream = stream;
+        this.instrumentation = instrumentation;
     }
 
     /**
@@ -36,7 +46,15 @@ public class ExDoubleStream implements DoubleStream {
      * @return instance from an existing {@code DoubleStream}
      */
     public static ExDoubleStream of(DoubleStream stream) {
-        return new ExDoubleStream(stream);
+        return new ExDoubleStream(stream, null);
+    }
+
+    static ExDoubleStream of(DoubleStream stream, @Nullable Instrumentation instrumentation) {
+        return new ExDoubleStream(stream, instrumentation);
+    }
+
+    private ExDoubleStream derive(DoubleStream derivedStream) {
+        return new ExDoubleStream(derivedStream, instrumentation);
     }
 
     /**
@@ -68,92 +86,123 @@ public class ExDoubleStream implements DoubleStream {
         return of(DoubleStream.of(values));
     }
 
+    /**
+     * Returns a sequential, ordered instance whose elements are returned by {@code iterator}.
+     * <p>
+     * If {@code iterator} throws a checked exception, a {@link ExException} will be thrown instead. This will have the original exception as its
+     * {@link ExException#getCause() cause}. The iterator is not copied, so elements are only requested from it as the stream is consumed.
+     *
+     * @param exceptionClass the class of exception thrown by {@code iterator}
+     * @param iterator       the iterator returning the elements
+     * @param <E>            the type of exception thrown by {@code iterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExDoubleStream fromIterator(Class<E> exceptionClass, ExDoubleIterator<? extends E> iterator) {
+        return of(StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(iterator.wrap(exceptionClass), Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Returns a sequential instance whose elements are returned by {@code spliterator}, which can be turned into a parallel stream by {@link #parallel()}.
+     * <p>
+     * If {@code spliterator} throws a checked exception while advancing or splitting, a {@link ExException} will be thrown instead. This will have the
+     * original exception as its {@link ExException#getCause() cause}. In a parallel stream, the spliterators returned by {@code trySplit()} are used by
+     * different threads.
+     *
+     * @param exceptionClass the class of exception thrown by {@code spliterator}
+     * @param spliterator    the spliterator returning the elements
+     * @param <E>            the type of exception thrown by {@code spliterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExDoubleStream fromSource(Class<E> exceptionClass, ExDoubleSpliterator<? extends E> spliterator) {
+        return of(StreamSupport.doubleStream(spliterator.wrap(exceptionClass), false));
+    }
+
     /* Override all methods that usually return Stream to return an ExStream */
 
     @Override
     public <U> ExStream<U> mapToObj(DoubleFunction<? extends U> mapper) {
-        return ExStream.of(stream.mapToObj(mapper));
+        return ExStream.of(stream.mapToObj(mapper), instrumentation);
     }
 
     @Override
     public ExStream<Double> boxed() {
-        return ExStream.of(stream.boxed());
+        return ExStream.of(stream.boxed(), instrumentation);
     }
 
     /* Override all methods that usually return DoubleStream to return an ExDoubleStream. */
 
     @Override
     public ExDoubleStream filter(DoublePredicate predicate) {
-        return of(stream.filter(predicate));
+        return derive(stream.filter(predicate));
     }
 
     @Override
     public ExDoubleStream map(DoubleUnaryOperator mapper) {
-        return of(stream.map(mapper));
+        return derive(stream.map(mapper));
     }
 
     @Override
     public ExDoubleStream flatMap(DoubleFunction<? extends DoubleStream> mapper) {
-        return of(stream.flatMap(mapper));
+        return derive(stream.flatMap(mapper));
     }
 
     @Override
     public ExDoubleStream distinct() {
-        return of(stream.distinct());
+        return derive(stream.distinct());
     }
 
     @Override
     public ExDoubleStream sorted() {
-        return of(stream.sorted());
+        return derive(stream.sorted());
     }
 
     @Override
     public ExDoubleStream peek(DoubleConsumer action) {
-        return of(stream.peek(action));
+        return derive(stream.peek(action));
     }
 
     @Override
     public ExDoubleStream limit(long maxSize) {
-        return of(stream.limit(maxSize));
+        return derive(stream.limit(maxSize));
     }
 
     @Override
     public ExDoubleStream skip(long n) {
-        return of(stream.skip(n));
+        return derive(stream.skip(n));
     }
 
     @Override
     public ExDoubleStream sequential() {
-        return of(stream.sequential());
+        return derive(stream.sequential());
     }
 
     @Override
     public ExDoubleStream parallel() {
-        return of(stream.parallel());
+        return derive(stream.parallel());
     }
 
     @Override
     public ExDoubleStream unordered() {
-        return of(stream.unordered());
+        return derive(stream.unordered());
     }
 
     @Override
     public ExDoubleStream onClose(Runnable closeHandler) {
-        return of(stream.onClose(closeHandler));
+        return derive(stream.onClose(closeHandler));
     }
 
     /* Override all methods that usually return DoubleStream to return an ExDoubleStream. */
 
     @Override
     public ExIntStream mapToInt(DoubleToIntFunction mapper) {
-        return ExIntStream.of(stream.mapToInt(mapper));
+        return ExIntStream.of(stream.mapToInt(mapper), instrumentation);
     }
 
     /* Override all methods that usually return LongStream to return an ExLongStream. */
 
     @Override
     public ExLongStream mapToLong(DoubleToLongFunction mapper) {
-        return ExLongStream.of(stream.mapToLong(mapper));
+        return ExLongStream.of(stream.mapToLong(mapper), instrumentation);
     }
 
     /* Implement versions of all methods from DoubleStream that use functional interfaces, using their counterparts with Exceptions instead. */
@@ -173,7 +222,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#filter}
      */
     public <E extends Exception> ExDoubleStream filter(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return of(filter(predicate.wrap(exceptionClass)));
+        return derive(stream.filter(Instrumentation.instrumentDoublePredicate(instrumentation, "filter", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -191,7 +240,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#map}
      */
     public <E extends Exception> ExDoubleStream map(Class<E> exceptionClass, ExDoubleUnaryOperator<? extends E> mapper) {
-        return of(map(mapper.wrap(exceptionClass)));
+        return derive(stream.map(Instrumentation.instrumentDoubleUnaryOperator(instrumentation, "map", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -210,7 +259,8 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#mapToObj}
      */
     public <U, E extends Exception> ExStream<U> mapToObj(Class<E> exceptionClass, ExDoubleFunction<? extends U, ? extends E> mapper) {
-        return ExStream.of(mapToObj(mapper.wrap(exceptionClass)));
+        return ExStream.of(stream.mapToObj(Instrumentation.instrumentDoubleFunction(instrumentation, "mapToObj", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -228,7 +278,8 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#mapToInt}
      */
     public <E extends Exception> ExIntStream mapToInt(Class<E> exceptionClass, ExDoubleToIntFunction<? extends E> mapper) {
-        return ExIntStream.of(mapToInt(mapper.wrap(exceptionClass)));
+        return ExIntStream.of(stream.mapToInt(Instrumentation.instrumentDoubleToIntFunction(instrumentation, "mapToInt", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -246,7 +297,8 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#mapToLong}
      */
     public <E extends Exception> ExLongStream mapToLong(Class<E> exceptionClass, ExDoubleToLongFunction<? extends E> mapper) {
-        return ExLongStream.of(mapToLong(mapper.wrap(exceptionClass)));
+        return ExLongStream.of(stream.mapToLong(Instrumentation.instrumentDoubleToLongFunction(instrumentation, "mapToLong", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -265,7 +317,7 @@ public class ExDoubleStream implements DoubleStream {
      */
     public <E extends Exception> ExDoubleStream flatMap(Class<E> exceptionClass,
                                                         ExDoubleFunction<? extends DoubleStream, ? extends E> mapper) {
-        return of(flatMap(mapper.wrap(exceptionClass)));
+        return derive(stream.flatMap(Instrumentation.instrumentDoubleFunction(instrumentation, "flatMap", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -283,7 +335,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#mapMulti}
      */
     public <E extends Exception> ExDoubleStream mapMulti(Class<E> exceptionClass, ExDoubleMapMultiConsumer<? extends E> mapper) {
-        return of(mapMulti(mapper.wrap(exceptionClass)));
+        return derive(stream.mapMulti(Instrumentation.instrumentDoubleMapMultiConsumer(instrumentation, "mapMulti", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -298,7 +350,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#peek}
      */
     public <E extends Exception> ExDoubleStream peek(Class<E> exceptionClass, ExDoubleConsumer<? extends E> action) {
-        return of(peek(action.wrap(exceptionClass)));
+        return derive(stream.peek(Instrumentation.instrumentDoubleConsumer(instrumentation, "peek", action).wrap(exceptionClass)));
     }
 
     /**
@@ -313,7 +365,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#takeWhile}
      */
     public <E extends Exception> ExDoubleStream takeWhile(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return of(takeWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.takeWhile(Instrumentation.instrumentDoublePredicate(instrumentation, "takeWhile", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -328,7 +380,22 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#dropWhile}
      */
     public <E extends Exception> ExDoubleStream dropWhile(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return of(dropWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.dropWhile(Instrumentation.instrumentDoublePredicate(instrumentation, "dropWhile", predicate).wrap(exceptionClass)));
+    }
+
+    /**
+     * Equivalent of {@link DoubleStream#iterator()}, returning an {@link ExDoubleIterator} which throws checked exceptions of type {@code exceptionClass}
+     * directly.
+     * <p>
+     * If a functional interface of a previous checked operation throws an exception of type {@code exceptionClass}, the iterator throws it instead of the
+     * {@link ExException} wrapping it. Other exceptions are thrown as they are.
+     *
+     * @param <E>            The exception type thrown by the functional interfaces of this stream
+     * @param exceptionClass The exception class for {@link E}
+     * @return an iterator over the elements of this stream
+     */
+    public <E extends Exception> ExDoubleIterator<E> iterator(Class<E> exceptionClass) {
+        return ExDoubleIterator.of(stream.iterator(), exceptionClass);
     }
 
     /**
@@ -342,7 +409,54 @@ public class ExDoubleStream implements DoubleStream {
      * @param action         see {@link DoubleStream#forEach}
      */
     public <E extends Exception> void forEach(Class<E> exceptionClass, ExDoubleConsumer<? extends E> action) {
-        forEach(action.wrap(exceptionClass));
+        forEach(Instrumentation.instrumentDoubleConsumer(instrumentation, "forEach", action).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link #forEachConcurrent(Class, int, ExFailureMode, ExDoubleConsumer)
+     * forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action)}.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExDoubleConsumer<? extends E> action) {
+        forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action);
+    }
+
+    /**
+     * Performs {@code action} for each element of this stream, using up to {@code parallelism} threads concurrently, and waits until all calls have completed.
+     * <p>
+     * This is a terminal operation intended for actions that block, e.g. writing to files or sockets. Each call runs on its own virtual thread, or, on Java
+     * versions without virtual threads, on a thread from a cached pool. The elements are taken from this stream by the current thread, which waits before
+     * taking the next element while {@code parallelism} calls are in progress, so no more than {@code parallelism} elements are held at any time. The
+     * elements are passed to {@code action} in no particular order.
+     * <p>
+     * Elements are boxed to pass them to the threads calling {@code action}.
+     * <p>
+     * If {@code action} throws a checked exception, a {@link ExException} will be thrown instead, once all calls in progress have completed.
+     * This will have the original exception as its {@link ExException#getCause() cause}. {@code failureMode} defines whether further elements are processed
+     * after the first failure, see {@link ExFailureMode}.
+     * <p>
+     * If the current thread is interrupted while waiting, the calls in progress are interrupted, its interrupt status is set and a {@link ExException} is
+     * thrown, which will have an {@link InterruptedException} as its cause.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param failureMode    how failures of {@code action} are handled
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExFailureMode failureMode,
+                                                        ExDoubleConsumer<? extends E> action) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        final DoubleConsumer wrappedAction = Instrumentation.instrumentDoubleConsumer(instrumentation, "forEachConcurrent", action).wrap(exceptionClass);
+        ConcurrentForEach.forEach(stream.boxed().spliterator(), parallelism, failureMode, wrappedAction::accept);
     }
 
     /**
@@ -356,7 +470,7 @@ public class ExDoubleStream implements DoubleStream {
      * @param action         see {@link DoubleStream#forEachOrdered}
      */
     public <E extends Exception> void forEachOrdered(Class<E> exceptionClass, ExDoubleConsumer<? extends E> action) {
-        forEachOrdered(action.wrap(exceptionClass));
+        forEachOrdered(Instrumentation.instrumentDoubleConsumer(instrumentation, "forEachOrdered", action).wrap(exceptionClass));
     }
 
     /**
@@ -372,7 +486,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#reduce(double, DoubleBinaryOperator)}
      */
     public <E extends Exception> double reduce(Class<E> exceptionClass, double identity, ExDoubleBinaryOperator<? extends E> op) {
-        return reduce(identity, op.wrap(exceptionClass));
+        return reduce(identity, Instrumentation.instrumentDoubleBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -387,7 +501,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#reduce(DoubleBinaryOperator)}
      */
     public <E extends Exception> OptionalDouble reduce(Class<E> exceptionClass, ExDoubleBinaryOperator<? extends E> op) {
-        return reduce(op.wrap(exceptionClass));
+        return reduce(Instrumentation.instrumentDoubleBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -406,7 +520,8 @@ public class ExDoubleStream implements DoubleStream {
      */
     public <R, E extends Exception> R collect(Class<E> exceptionClass, ExSupplier<R, ? extends E> supplier,
                                               ExObjDoubleConsumer<R, ? extends E> accumulator, ExBiConsumer<R, R, ? extends E> combiner) {
-        return collect(supplier.wrap(exceptionClass), accumulator.wrap(exceptionClass), combiner.wrap(exceptionClass));
+        return collect(supplier.wrap(exceptionClass), Instrumentation.instrumentObjDoubleConsumer(instrumentation, "collect", accumulator).wrap(exceptionClass),
+                combiner.wrap(exceptionClass));
     }
 
     /**
@@ -421,7 +536,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#anyMatch}
      */
     public <E extends Exception> boolean anyMatch(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return anyMatch(predicate.wrap(exceptionClass));
+        return anyMatch(Instrumentation.instrumentDoublePredicate(instrumentation, "anyMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -436,7 +551,7 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#allMatch}
      */
     public <E extends Exception> boolean allMatch(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return allMatch(predicate.wrap(exceptionClass));
+        return allMatch(Instrumentation.instrumentDoublePredicate(instrumentation, "allMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -451,7 +566,81 @@ public class ExDoubleStream implements DoubleStream {
      * @return see {@link DoubleStream#noneMatch}
      */
     public <E extends Exception> boolean noneMatch(Class<E> exceptionClass, ExDoublePredicate<? extends E> predicate) {
-        return noneMatch(predicate.wrap(exceptionClass));
+        return noneMatch(Instrumentation.instrumentDoublePredicate(instrumentation, "noneMatch", predicate).wrap(exceptionClass));
+    }
+
+    /* Operations grouping consecutive elements. */
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches. Equivalent to {@link #chunked(int, boolean) chunked(size, false)}.
+     *
+     * @param size the number of elements in each array
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<double[]> chunked(int size) {
+        return chunked(size, false);
+    }
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches.
+     * <p>
+     * If {@code reuseBuffer} is {@code true}, the same array is returned for all chunks with {@code size} elements, overwritten with the elements of the
+     * next chunk, which avoids allocating an array per chunk. This is only safe if each array is no longer used once the next one is requested, e.g. if it
+     * is written to a file by {@code forEach}, but not if the arrays are collected. A parallel stream uses one array per thread.
+     * <p>
+     * A parallel stream stays parallel. It can only be split for parallel processing if the size of this stream and its parts are known, e.g. for a stream of
+     * an array without {@code filter} or {@code flatMap}.
+     *
+     * @param size        the number of elements in each array
+     * @param reuseBuffer if {@code true}, the same array is returned for every chunk with {@code size} elements
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<double[]> chunked(int size, boolean reuseBuffer) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        final var spliterator = new ChunkSpliterator.OfDouble(stream.spliterator(), size, reuseBuffer);
+        return ExStream.of(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close), instrumentation);
+    }
+
+    /* Instrumentation of checked stages. */
+
+    /**
+     * Returns an equivalent stream collecting statistics about all checked stages added to it, i.e. all calls of methods taking an exception class and a
+     * functional interface, e.g. {@link #map(Class, ExDoubleUnaryOperator)}. These statistics can be retrieved by {@link #report()} on the returned
+     * stream or any stream derived from it, usually after the terminal operation.
+     * <p>
+     * For each stage, the number of elements passed in and out, the number of checked exceptions thrown and the time spent are recorded. Counters are kept
+     * per thread where threads contend for them and only added up by {@link #report()}, and only a sample of calls is timed, so the overhead is low enough
+     * for production use.
+     * <p>
+     * Calling this method again starts a new report, which only contains stages added afterward.
+     *
+     * @param name the name of the report, e.g. the name of the job using the stream
+     * @return an equivalent stream collecting statistics about its checked stages
+     */
+    public ExDoubleStream instrumented(String name) {
+        return new ExDoubleStream(stream, new Instrumentation(name));
+    }
+
+    /**
+     * Returns the statistics collected so far for the checked stages added since {@link #instrumented(String)} was called on this stream or a stream it was
+     * derived from.
+     *
+     * @return the statistics collected so far
+     * @throws IllegalStateException if neither this stream nor a stream it was derived from is instrumented
+     */
+    public ExStreamReport report() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("stream is not instrumented");
+        }
+        return instrumentation.report();
     }
 
 }
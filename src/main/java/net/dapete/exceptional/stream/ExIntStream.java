@@ -2,11 +2,19 @@ package net.dapete.exceptional.stream;
 
 import lombok.experimental.Delegate;
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.collection.IntLongHashMap;
+import net.dapete.exceptional.concurrent.ExFailureMode;
 import net.dapete.exceptional.function.*;
+import net.dapete.exceptional.internal.ChunkSpliterator;
+import net.dapete.exceptional.internal.ConcurrentForEach;
+import org.jspecify.annotations.Nullable;
 
 import java.util.OptionalInt;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.*;
 import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A IntStream with additional functionality for functional interfaces that throw Exceptions.
@@ -25,8 +33,11 @@ public class ExIntStream implements IntStream {
     @Delegate
     private final IntStream stream;
 
-    private ExIntStream(IntStream stream) {
+    private final @Nullable Instrumentation instrumentation;
+
+    private ExIntStream(IntStream stream, @Nullable Instrumentation instrumentation) {
         this.stream = stream;
+        this.instrumentation = instrumentation;
     }
 
     /**
@@ -36,7 +47,15 @@ public class ExIntStream implements IntStream {
      * @return instance from an existing {@code IntStream}
      */
     public static ExIntStream of(IntStream stream) {
-        return new ExIntStream(stream);
+        return new ExIntStream(stream, null);
+    }
+
+    static ExIntStream of(IntStream stream, @Nullable Instrumentation instrumentation) {
+        return new ExIntStream(stream, instrumentation);
+    }
+
+    private ExIntStream derive(IntStream derivedStream) {
+        return new ExIntStream(derivedStream, instrumentation);
     }
 
     /**
@@ -68,102 +87,133 @@ public class ExIntStream implements IntStream {
         return of(IntStream.of(values));
     }
 
+    /**
+     * Returns a sequential, ordered instance whose elements are returned by {@code iterator}.
+     * <p>
+     * If {@code iterator} throws a checked exception, a {@link ExException} will be thrown instead. This will have the original exception as its
+     * {@link ExException#getCause() cause}. The iterator is not copied, so elements are only requested from it as the stream is consumed.
+     *
+     * @param exceptionClass the class of exception thrown by {@code iterator}
+     * @param iterator       the iterator returning the elements
+     * @param <E>            the type of exception thrown by {@code iterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExIntStream fromIterator(Class<E> exceptionClass, ExIntIterator<? extends E> iterator) {
+        return of(StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator.wrap(exceptionClass), Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Returns a sequential instance whose elements are returned by {@code spliterator}, which can be turned into a parallel stream by {@link #parallel()}.
+     * <p>
+     * If {@code spliterator} throws a checked exception while advancing or splitting, a {@link ExException} will be thrown instead. This will have the
+     * original exception as its {@link ExException#getCause() cause}. In a parallel stream, the spliterators returned by {@code trySplit()} are used by
+     * different threads.
+     *
+     * @param exceptionClass the class of exception thrown by {@code spliterator}
+     * @param spliterator    the spliterator returning the elements
+     * @param <E>            the type of exception thrown by {@code spliterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExIntStream fromSource(Class<E> exceptionClass, ExIntSpliterator<? extends E> spliterator) {
+        return of(StreamSupport.intStream(spliterator.wrap(exceptionClass), false));
+    }
+
     /* Override all methods that usually return Stream to return an ExStream. */
 
     @Override
     public <U> ExStream<U> mapToObj(IntFunction<? extends U> mapper) {
-        return ExStream.of(stream.mapToObj(mapper));
+        return ExStream.of(stream.mapToObj(mapper), instrumentation);
     }
 
     @Override
     public ExStream<Integer> boxed() {
-        return ExStream.of(stream.boxed());
+        return ExStream.of(stream.boxed(), instrumentation);
     }
 
     /* Override all methods that usually return DoubleStream to return an ExDoubleStream. */
 
     @Override
     public ExDoubleStream mapToDouble(IntToDoubleFunction mapper) {
-        return ExDoubleStream.of(stream.mapToDouble(mapper));
+        return ExDoubleStream.of(stream.mapToDouble(mapper), instrumentation);
     }
 
     @Override
     public ExDoubleStream asDoubleStream() {
-        return ExDoubleStream.of(stream.asDoubleStream());
+        return ExDoubleStream.of(stream.asDoubleStream(), instrumentation);
     }
 
     /* Override all methods that usually return IntStream to return an ExIntStream. */
 
     @Override
     public ExIntStream filter(IntPredicate predicate) {
-        return of(stream.filter(predicate));
+        return derive(stream.filter(predicate));
     }
 
     @Override
     public ExIntStream map(IntUnaryOperator mapper) {
-        return of(stream.map(mapper));
+        return derive(stream.map(mapper));
     }
 
     @Override
     public ExIntStream flatMap(IntFunction<? extends IntStream> mapper) {
-        return of(stream.flatMap(mapper));
+        return derive(stream.flatMap(mapper));
     }
 
     @Override
     public ExIntStream distinct() {
-        return of(stream.distinct());
+        return derive(stream.distinct());
     }
 
     @Override
     public ExIntStream sorted() {
-        return of(stream.sorted());
+        return derive(stream.sorted());
     }
 
     @Override
     public ExIntStream peek(IntConsumer action) {
-        return of(stream.peek(action));
+        return derive(stream.peek(action));
     }
 
     @Override
     public ExIntStream limit(long maxSize) {
-        return of(stream.limit(maxSize));
+        return derive(stream.limit(maxSize));
     }
 
     @Override
     public ExIntStream skip(long n) {
-        return of(stream.skip(n));
+        return derive(stream.skip(n));
     }
 
     @Override
     public ExIntStream sequential() {
-        return of(stream.sequential());
+        return derive(stream.sequential());
     }
 
     @Override
     public ExIntStream parallel() {
-        return of(stream.parallel());
+        return derive(stream.parallel());
     }
 
     @Override
     public ExIntStream unordered() {
-        return of(stream.unordered());
+        return derive(stream.unordered());
     }
 
     @Override
     public ExIntStream onClose(Runnable closeHandler) {
-        return of(stream.onClose(closeHandler));
+        return derive(stream.onClose(closeHandler));
     }
 
     /* Override all methods that usually return LongStream to return an ExLongStream. */
 
     @Override
     public ExLongStream mapToLong(IntToLongFunction mapper) {
-        return ExLongStream.of(stream.mapToLong(mapper));
+        return ExLongStream.of(stream.mapToLong(mapper), instrumentation);
     }
 
     @Override
     public ExLongStream asLongStream() {
-        return ExLongStream.of(stream.asLongStream());
+        return ExLongStream.of(stream.asLongStream(), instrumentation);
     }
 
     /* Implement versions of all methods from IntStream that use functional interfaces, using their counterparts with Exceptions instead. */
@@ -183,7 +233,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#filter}
      */
     public <E extends Exception> ExIntStream filter(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return of(filter(predicate.wrap(exceptionClass)));
+        return derive(stream.filter(Instrumentation.instrumentIntPredicate(instrumentation, "filter", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -201,7 +251,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#map}
      */
     public <E extends Exception> ExIntStream map(Class<E> exceptionClass, ExIntUnaryOperator<? extends E> mapper) {
-        return of(map(mapper.wrap(exceptionClass)));
+        return derive(stream.map(Instrumentation.instrumentIntUnaryOperator(instrumentation, "map", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -220,7 +270,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#mapToObj}
      */
     public <U, E extends Exception> ExStream<U> mapToObj(Class<E> exceptionClass, ExIntFunction<? extends U, ? extends E> mapper) {
-        return ExStream.of(mapToObj(mapper.wrap(exceptionClass)));
+        return ExStream.of(stream.mapToObj(Instrumentation.instrumentIntFunction(instrumentation, "mapToObj", mapper).wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -238,7 +288,8 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#mapToDouble}
      */
     public <E extends Exception> ExDoubleStream mapToDouble(Class<E> exceptionClass, ExIntToDoubleFunction<? extends E> mapper) {
-        return ExDoubleStream.of(mapToDouble(mapper.wrap(exceptionClass)));
+        return ExDoubleStream.of(stream.mapToDouble(Instrumentation.instrumentIntToDoubleFunction(instrumentation, "mapToDouble", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -256,7 +307,8 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#mapToLong}
      */
     public <E extends Exception> ExLongStream mapToLong(Class<E> exceptionClass, ExIntToLongFunction<? extends E> mapper) {
-        return ExLongStream.of(mapToLong(mapper.wrap(exceptionClass)));
+        return ExLongStream.of(stream.mapToLong(Instrumentation.instrumentIntToLongFunction(instrumentation, "mapToLong", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -275,7 +327,7 @@ public class ExIntStream implements IntStream {
      */
     public <E extends Exception> ExIntStream flatMap(Class<E> exceptionClass,
                                                      ExIntFunction<? extends IntStream, ? extends E> mapper) {
-        return of(flatMap(mapper.wrap(exceptionClass)));
+        return derive(stream.flatMap(Instrumentation.instrumentIntFunction(instrumentation, "flatMap", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -293,7 +345,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#mapMulti}
      */
     public <E extends Exception> ExIntStream mapMulti(Class<E> exceptionClass, ExIntMapMultiConsumer<? extends E> mapper) {
-        return of(mapMulti(mapper.wrap(exceptionClass)));
+        return derive(stream.mapMulti(Instrumentation.instrumentIntMapMultiConsumer(instrumentation, "mapMulti", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -308,7 +360,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#peek}
      */
     public <E extends Exception> ExIntStream peek(Class<E> exceptionClass, ExIntConsumer<? extends E> action) {
-        return of(peek(action.wrap(exceptionClass)));
+        return derive(stream.peek(Instrumentation.instrumentIntConsumer(instrumentation, "peek", action).wrap(exceptionClass)));
     }
 
     /**
@@ -323,7 +375,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#takeWhile}
      */
     public <E extends Exception> ExIntStream takeWhile(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return of(takeWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.takeWhile(Instrumentation.instrumentIntPredicate(instrumentation, "takeWhile", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -338,7 +390,22 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#dropWhile}
      */
     public <E extends Exception> ExIntStream dropWhile(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return of(dropWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.dropWhile(Instrumentation.instrumentIntPredicate(instrumentation, "dropWhile", predicate).wrap(exceptionClass)));
+    }
+
+    /**
+     * Equivalent of {@link IntStream#iterator()}, returning an {@link ExIntIterator} which throws checked exceptions of type {@code exceptionClass}
+     * directly.
+     * <p>
+     * If a functional interface of a previous checked operation throws an exception of type {@code exceptionClass}, the iterator throws it instead of the
+     * {@link ExException} wrapping it. Other exceptions are thrown as they are.
+     *
+     * @param <E>            The exception type thrown by the functional interfaces of this stream
+     * @param exceptionClass The exception class for {@link E}
+     * @return an iterator over the elements of this stream
+     */
+    public <E extends Exception> ExIntIterator<E> iterator(Class<E> exceptionClass) {
+        return ExIntIterator.of(stream.iterator(), exceptionClass);
     }
 
     /**
@@ -352,7 +419,54 @@ public class ExIntStream implements IntStream {
      * @param action         see {@link IntStream#forEach}
      */
     public <E extends Exception> void forEach(Class<E> exceptionClass, ExIntConsumer<? extends E> action) {
-        forEach(action.wrap(exceptionClass));
+        forEach(Instrumentation.instrumentIntConsumer(instrumentation, "forEach", action).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link #forEachConcurrent(Class, int, ExFailureMode, ExIntConsumer)
+     * forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action)}.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExIntConsumer<? extends E> action) {
+        forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action);
+    }
+
+    /**
+     * Performs {@code action} for each element of this stream, using up to {@code parallelism} threads concurrently, and waits until all calls have completed.
+     * <p>
+     * This is a terminal operation intended for actions that block, e.g. writing to files or sockets. Each call runs on its own virtual thread, or, on Java
+     * versions without virtual threads, on a thread from a cached pool. The elements are taken from this stream by the current thread, which waits before
+     * taking the next element while {@code parallelism} calls are in progress, so no more than {@code parallelism} elements are held at any time. The
+     * elements are passed to {@code action} in no particular order.
+     * <p>
+     * Elements are boxed to pass them to the threads calling {@code action}.
+     * <p>
+     * If {@code action} throws a checked exception, a {@link ExException} will be thrown instead, once all calls in progress have completed.
+     * This will have the original exception as its {@link ExException#getCause() cause}. {@code failureMode} defines whether further elements are processed
+     * after the first failure, see {@link ExFailureMode}.
+     * <p>
+     * If the current thread is interrupted while waiting, the calls in progress are interrupted, its interrupt status is set and a {@link ExException} is
+     * thrown, which will have an {@link InterruptedException} as its cause.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param failureMode    how failures of {@code action} are handled
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExFailureMode failureMode,
+                                                        ExIntConsumer<? extends E> action) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        final IntConsumer wrappedAction = Instrumentation.instrumentIntConsumer(instrumentation, "forEachConcurrent", action).wrap(exceptionClass);
+        ConcurrentForEach.forEach(stream.boxed().spliterator(), parallelism, failureMode, wrappedAction::accept);
     }
 
     /**
@@ -366,7 +480,7 @@ public class ExIntStream implements IntStream {
      * @param action         see {@link IntStream#forEachOrdered}
      */
     public <E extends Exception> void forEachOrdered(Class<E> exceptionClass, ExIntConsumer<? extends E> action) {
-        forEachOrdered(action.wrap(exceptionClass));
+        forEachOrdered(Instrumentation.instrumentIntConsumer(instrumentation, "forEachOrdered", action).wrap(exceptionClass));
     }
 
     /**
@@ -382,7 +496,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#reduce(int, IntBinaryOperator)}
      */
     public <E extends Exception> Integer reduce(Class<E> exceptionClass, Integer identity, ExIntBinaryOperator<? extends E> op) {
-        return reduce(identity, op.wrap(exceptionClass));
+        return reduce(identity, Instrumentation.instrumentIntBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -397,7 +511,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#reduce(IntBinaryOperator)}
      */
     public <E extends Exception> OptionalInt reduce(Class<E> exceptionClass, ExIntBinaryOperator<? extends E> op) {
-        return reduce(op.wrap(exceptionClass));
+        return reduce(Instrumentation.instrumentIntBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -416,7 +530,8 @@ public class ExIntStream implements IntStream {
      */
     public <R, E extends Exception> R collect(Class<E> exceptionClass, ExSupplier<R, ? extends E> supplier,
                                               ExObjIntConsumer<R, ? extends E> accumulator, ExBiConsumer<R, R, ? extends E> combiner) {
-        return collect(supplier.wrap(exceptionClass), accumulator.wrap(exceptionClass), combiner.wrap(exceptionClass));
+        return collect(supplier.wrap(exceptionClass), Instrumentation.instrumentObjIntConsumer(instrumentation, "collect", accumulator).wrap(exceptionClass),
+                combiner.wrap(exceptionClass));
     }
 
     /**
@@ -431,7 +546,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#anyMatch}
      */
     public <E extends Exception> boolean anyMatch(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return anyMatch(predicate.wrap(exceptionClass));
+        return anyMatch(Instrumentation.instrumentIntPredicate(instrumentation, "anyMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -446,7 +561,7 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#allMatch}
      */
     public <E extends Exception> boolean allMatch(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return allMatch(predicate.wrap(exceptionClass));
+        return allMatch(Instrumentation.instrumentIntPredicate(instrumentation, "allMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -461,7 +576,132 @@ public class ExIntStream implements IntStream {
      * @return see {@link IntStream#noneMatch}
      */
     public <E extends Exception> boolean noneMatch(Class<E> exceptionClass, ExIntPredicate<? extends E> predicate) {
-        return noneMatch(predicate.wrap(exceptionClass));
+        return noneMatch(Instrumentation.instrumentIntPredicate(instrumentation, "noneMatch", predicate).wrap(exceptionClass));
+    }
+
+    /* Terminal operations grouping elements by primitive keys without boxing. */
+
+    /**
+     * Counts the elements of this stream by the key {@code keyFunction} returns for them, without boxing keys or counts.
+     * <p>
+     * This is a terminal operation, equivalent to {@code boxed().collect(Collectors.groupingBy(keyFunction, Collectors.counting()))}, but accumulating
+     * into an {@link IntLongHashMap}. For a parallel stream, each part of the split stream accumulates into its own map, and these maps are
+     * merged at the end.
+     * <p>
+     * If {@code keyFunction} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <E>            The exception type thrown by {@code keyFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyFunction    returns the key for an element
+     * @return a map from each key to the number of elements with this key
+     */
+    public <E extends Exception> IntLongHashMap groupingCount(Class<E> exceptionClass, ExIntUnaryOperator<? extends E> keyFunction) {
+        final IntUnaryOperator wrappedKeyFunction = Instrumentation.instrumentIntUnaryOperator(instrumentation, "groupingCount", keyFunction)
+                .wrap(exceptionClass);
+        return collect(IntLongHashMap::new, (map, value) -> map.addTo(wrappedKeyFunction.applyAsInt(value), 1), IntLongHashMap::addAll);
+    }
+
+    /**
+     * Sums the values {@code valueFunction} returns for the elements of this stream by the key {@code keyFunction} returns for them, without boxing keys or
+     * sums.
+     * <p>
+     * This is a terminal operation, equivalent to {@code boxed().collect(Collectors.groupingBy(keyFunction, Collectors.summingLong(valueFunction)))}, but
+     * accumulating into an {@link IntLongHashMap}. For a parallel stream, each part of the split stream accumulates into its own map, and these maps are
+     * merged at the end.
+     * <p>
+     * If {@code keyFunction} or {@code valueFunction} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <E>            The exception type thrown by {@code keyFunction} or {@code valueFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyFunction    returns the key for an element
+     * @param valueFunction  returns the value to sum for an element
+     * @return a map from each key to the sum of the values of the elements with this key
+     */
+    public <E extends Exception> IntLongHashMap groupingSum(Class<E> exceptionClass, ExIntUnaryOperator<? extends E> keyFunction,
+                                                           ExIntToLongFunction<? extends E> valueFunction) {
+        final IntUnaryOperator wrappedKeyFunction = Instrumentation.instrumentIntUnaryOperator(instrumentation, "groupingSum(keyFunction)", keyFunction)
+                .wrap(exceptionClass);
+        final IntToLongFunction wrappedValueFunction = Instrumentation.instrumentIntToLongFunction(instrumentation, "groupingSum(valueFunction)", valueFunction)
+                .wrap(exceptionClass);
+        return collect(IntLongHashMap::new,
+                (map, value) -> map.addTo(wrappedKeyFunction.applyAsInt(value), wrappedValueFunction.applyAsLong(value)),
+                IntLongHashMap::addAll);
+    }
+
+    /* Operations grouping consecutive elements. */
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches. Equivalent to {@link #chunked(int, boolean) chunked(size, false)}.
+     *
+     * @param size the number of elements in each array
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<int[]> chunked(int size) {
+        return chunked(size, false);
+    }
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches.
+     * <p>
+     * If {@code reuseBuffer} is {@code true}, the same array is returned for all chunks with {@code size} elements, overwritten with the elements of the
+     * next chunk, which avoids allocating an array per chunk. This is only safe if each array is no longer used once the next one is requested, e.g. if it
+     * is written to a file by {@code forEach}, but not if the arrays are collected. A parallel stream uses one array per thread.
+     * <p>
+     * A parallel stream stays parallel. It can only be split for parallel processing if the size of this stream and its parts are known, e.g. for a stream of
+     * an array or a range without {@code filter} or {@code flatMap}.
+     *
+     * @param size        the number of elements in each array
+     * @param reuseBuffer if {@code true}, the same array is returned for every chunk with {@code size} elements
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<int[]> chunked(int size, boolean reuseBuffer) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        final var spliterator = new ChunkSpliterator.OfInt(stream.spliterator(), size, reuseBuffer);
+        return ExStream.of(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close), instrumentation);
+    }
+
+    /* Instrumentation of checked stages. */
+
+    /**
+     * Returns an equivalent stream collecting statistics about all checked stages added to it, i.e. all calls of methods taking an exception class and a
+     * functional interface, e.g. {@link #map(Class, ExIntUnaryOperator)}. These statistics can be retrieved by {@link #report()} on the returned
+     * stream or any stream derived from it, usually after the terminal operation.
+     * <p>
+     * For each stage, the number of elements passed in and out, the number of checked exceptions thrown and the time spent are recorded. Counters are kept
+     * per thread where threads contend for them and only added up by {@link #report()}, and only a sample of calls is timed, so the overhead is low enough
+     * for production use.
+     * <p>
+     * Calling this method again starts a new report, which only contains stages added afterward.
+     *
+     * @param name the name of the report, e.g. the name of the job using the stream
+     * @return an equivalent stream collecting statistics about its checked stages
+     */
+    public ExIntStream instrumented(String name) {
+        return new ExIntStream(stream, new Instrumentation(name));
+    }
+
+    /**
+     * Returns the statistics collected so far for the checked stages added since {@link #instrumented(String)} was called on this stream or a stream it was
+     * derived from.
+     *
+     * @return the statistics collected so far
+     * @throws IllegalStateException if neither this stream nor a stream it was derived from is instrumented
+     */
+    public ExStreamReport report() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("stream is not instrumented");
+        }
+        return instrumentation.report();
     }
 
 }
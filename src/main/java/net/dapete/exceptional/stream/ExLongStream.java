@@ -2,11 +2,19 @@ package net.dapete.exceptional.stream;
 
 import lombok.experimental.Delegate;
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.collection.LongLongHashMap;
+import net.dapete.exceptional.concurrent.ExFailureMode;
 import net.dapete.exceptional.function.*;
+import net.dapete.exceptional.internal.ChunkSpliterator;
+import net.dapete.exceptional.internal.ConcurrentForEach;
+import org.jspecify.annotations.Nullable;
 
 import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.*;
 import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A LongStream with additional functionality for functional interfaces that throw Exceptions.
@@ -25,8 +33,11 @@ public class ExLongStream implements LongStream {
     @Delegate
     private final LongStream stream;
 
-    private ExLongStream(LongStream stream) {
+    private final @Nullable Instrumentation instrumentation;
+
+    private ExLongStream(LongStream stream, @Nullable Instrumentation instrumentation) {
         this.stream = stream;
+        this.instrumentation = instrumentation;
     }
 
     /**
@@ -36,7 +47,15 @@ public class ExLongStream implements LongStream {
      * @return instance from an existing {@code LongStream}
      */
     public static ExLongStream of(LongStream stream) {
-        return new ExLongStream(stream);
+        return new ExLongStream(stream, null);
+    }
+
+    static ExLongStream of(LongStream stream, @Nullable Instrumentation instrumentation) {
+        return new ExLongStream(stream, instrumentation);
+    }
+
+    private ExLongStream derive(LongStream derivedStream) {
+        return new ExLongStream(derivedStream, instrumentation);
     }
 
     /**
@@ -68,97 +87,128 @@ public class ExLongStream implements LongStream {
         return of(LongStream.of(values));
     }
 
+    /**
+     * Returns a sequential, ordered instance whose elements are returned by {@code iterator}.
+     * <p>
+     * If {@code iterator} throws a checked exception, a {@link ExException} will be thrown instead. This will have the original exception as its
+     * {@link ExException#getCause() cause}. The iterator is not copied, so elements are only requested from it as the stream is consumed.
+     *
+     * @param exceptionClass the class of exception thrown by {@code iterator}
+     * @param iterator       the iterator returning the elements
+     * @param <E>            the type of exception thrown by {@code iterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExLongStream fromIterator(Class<E> exceptionClass, ExLongIterator<? extends E> iterator) {
+        return of(StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator.wrap(exceptionClass), Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Returns a sequential instance whose elements are returned by {@code spliterator}, which can be turned into a parallel stream by {@link #parallel()}.
+     * <p>
+     * If {@code spliterator} throws a checked exception while advancing or splitting, a {@link ExException} will be thrown instead. This will have the
+     * original exception as its {@link ExException#getCause() cause}. In a parallel stream, the spliterators returned by {@code trySplit()} are used by
+     * different threads.
+     *
+     * @param exceptionClass the class of exception thrown by {@code spliterator}
+     * @param spliterator    the spliterator returning the elements
+     * @param <E>            the type of exception thrown by {@code spliterator}
+     * @return the new instance
+     */
+    public static <E extends Exception> ExLongStream fromSource(Class<E> exceptionClass, ExLongSpliterator<? extends E> spliterator) {
+        return of(StreamSupport.longStream(spliterator.wrap(exceptionClass), false));
+    }
+
     /* Override all methods that usually return Stream to return an ExStream. */
 
     @Override
     public <U> ExStream<U> mapToObj(LongFunction<? extends U> mapper) {
-        return ExStream.of(stream.mapToObj(mapper));
+        return ExStream.of(stream.mapToObj(mapper), instrumentation);
     }
 
     @Override
     public ExStream<Long> boxed() {
-        return ExStream.of(stream.boxed());
+        return ExStream.of(stream.boxed(), instrumentation);
     }
 
     /* Override all methods that usually return DoubleStream to return an ExDoubleStream. */
 
     @Override
     public ExDoubleStream mapToDouble(LongToDoubleFunction mapper) {
-        return ExDoubleStream.of(stream.mapToDouble(mapper));
+        return ExDoubleStream.of(stream.mapToDouble(mapper), instrumentation);
     }
 
     @Override
     public ExDoubleStream asDoubleStream() {
-        return ExDoubleStream.of(stream.asDoubleStream());
+        return ExDoubleStream.of(stream.asDoubleStream(), instrumentation);
     }
 
     /* Override all methods that usually return IntStream to return an ExIntStream. */
 
     @Override
     public ExIntStream mapToInt(LongToIntFunction mapper) {
-        return ExIntStream.of(stream.mapToInt(mapper));
+        return ExIntStream.of(stream.mapToInt(mapper), instrumentation);
     }
 
     /* Override all methods that usually return LongStream to return an ExLongStream. */
 
     @Override
     public ExLongStream filter(LongPredicate predicate) {
-        return of(stream.filter(predicate));
+        return derive(stream.filter(predicate));
     }
 
     @Override
     public ExLongStream map(LongUnaryOperator mapper) {
-        return of(stream.map(mapper));
+        return derive(stream.map(mapper));
     }
 
     @Override
     public ExLongStream flatMap(LongFunction<? extends LongStream> mapper) {
-        return of(stream.flatMap(mapper));
+        return derive(stream.flatMap(mapper));
     }
 
     @Override
     public ExLongStream distinct() {
-        return of(stream.distinct());
+        return derive(stream.distinct());
     }
 
     @Override
     public ExLongStream sorted() {
-        return of(stream.sorted());
+        return derive(stream.sorted());
     }
 
     @Override
     public ExLongStream peek(LongConsumer action) {
-        return of(stream.peek(action));
+        return derive(stream.peek(action));
     }
 
     @Override
     public ExLongStream limit(long maxSize) {
-        return of(stream.limit(maxSize));
+        return derive(stream.limit(maxSize));
     }
 
     @Override
     public ExLongStream skip(long n) {
-        return of(stream.skip(n));
+        return derive(stream.skip(n));
     }
 
     @Override
     public ExLongStream sequential() {
-        return of(stream.sequential());
+        return derive(stream.sequential());
     }
 
     @Override
     public ExLongStream parallel() {
-        return of(stream.parallel());
+        return derive(stream.parallel());
     }
 
     @Override
     public ExLongStream unordered() {
-        return of(stream.unordered());
+        return derive(stream.unordered());
     }
 
     @Override
     public ExLongStream onClose(Runnable closeHandler) {
-        return of(stream.onClose(closeHandler));
+        return derive(stream.onClose(closeHandler));
     }
 
     /* Implement versions of all methods from LongStream that use functional interfaces, using their counterparts with Exceptions instead. */
@@ -178,7 +228,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#filter}
      */
     public <E extends Exception> ExLongStream filter(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return of(filter(predicate.wrap(exceptionClass)));
+        return derive(stream.filter(Instrumentation.instrumentLongPredicate(instrumentation, "filter", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -196,7 +246,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#map}
      */
     public <E extends Exception> ExLongStream map(Class<E> exceptionClass, ExLongUnaryOperator<? extends E> mapper) {
-        return of(map(mapper.wrap(exceptionClass)));
+        return derive(stream.map(Instrumentation.instrumentLongUnaryOperator(instrumentation, "map", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -215,7 +265,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#mapToObj}
      */
     public <U, E extends Exception> ExStream<U> mapToObj(Class<E> exceptionClass, ExLongFunction<? extends U, ? extends E> mapper) {
-        return ExStream.of(mapToObj(mapper.wrap(exceptionClass)));
+        return ExStream.of(stream.mapToObj(Instrumentation.instrumentLongFunction(instrumentation, "mapToObj", mapper).wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -233,7 +283,8 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#mapToDouble}
      */
     public <E extends Exception> ExDoubleStream mapToDouble(Class<E> exceptionClass, ExLongToDoubleFunction<? extends E> mapper) {
-        return ExDoubleStream.of(mapToDouble(mapper.wrap(exceptionClass)));
+        return ExDoubleStream.of(stream.mapToDouble(Instrumentation.instrumentLongToDoubleFunction(instrumentation, "mapToDouble", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -251,7 +302,8 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#mapToInt}
      */
     public <E extends Exception> ExIntStream mapToInt(Class<E> exceptionClass, ExLongToIntFunction<? extends E> mapper) {
-        return ExIntStream.of(mapToInt(mapper.wrap(exceptionClass)));
+        return ExIntStream.of(stream.mapToInt(Instrumentation.instrumentLongToIntFunction(instrumentation, "mapToInt", mapper)
+                .wrap(exceptionClass)), instrumentation);
     }
 
     /**
@@ -269,7 +321,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#flatMap}
      */
     public <E extends Exception> ExLongStream flatMap(Class<E> exceptionClass, ExLongFunction<? extends LongStream, ? extends E> mapper) {
-        return of(flatMap(mapper.wrap(exceptionClass)));
+        return derive(stream.flatMap(Instrumentation.instrumentLongFunction(instrumentation, "flatMap", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -287,7 +339,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#mapMulti}
      */
     public <E extends Exception> ExLongStream mapMulti(Class<E> exceptionClass, ExLongMapMultiConsumer<? extends E> mapper) {
-        return of(mapMulti(mapper.wrap(exceptionClass)));
+        return derive(stream.mapMulti(Instrumentation.instrumentLongMapMultiConsumer(instrumentation, "mapMulti", mapper).wrap(exceptionClass)));
     }
 
     /**
@@ -302,7 +354,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#peek}
      */
     public <E extends Exception> ExLongStream peek(Class<E> exceptionClass, ExLongConsumer<? extends E> action) {
-        return of(peek(action.wrap(exceptionClass)));
+        return derive(stream.peek(Instrumentation.instrumentLongConsumer(instrumentation, "peek", action).wrap(exceptionClass)));
     }
 
     /**
@@ -317,7 +369,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#takeWhile}
      */
     public <E extends Exception> ExLongStream takeWhile(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return of(takeWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.takeWhile(Instrumentation.instrumentLongPredicate(instrumentation, "takeWhile", predicate).wrap(exceptionClass)));
     }
 
     /**
@@ -332,7 +384,22 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#dropWhile}
      */
     public <E extends Exception> ExLongStream dropWhile(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return of(dropWhile(predicate.wrap(exceptionClass)));
+        return derive(stream.dropWhile(Instrumentation.instrumentLongPredicate(instrumentation, "dropWhile", predicate).wrap(exceptionClass)));
+    }
+
+    /**
+     * Equivalent of {@link LongStream#iterator()}, returning an {@link ExLongIterator} which throws checked exceptions of type {@code exceptionClass}
+     * directly.
+     * <p>
+     * If a functional interface of a previous checked operation throws an exception of type {@code exceptionClass}, the iterator throws it instead of the
+     * {@link ExException} wrapping it. Other exceptions are thrown as they are.
+     *
+     * @param <E>            The exception type thrown by the functional interfaces of this stream
+     * @param exceptionClass The exception class for {@link E}
+     * @return an iterator over the elements of this stream
+     */
+    public <E extends Exception> ExLongIterator<E> iterator(Class<E> exceptionClass) {
+        return ExLongIterator.of(stream.iterator(), exceptionClass);
     }
 
     /**
@@ -346,7 +413,54 @@ public class ExLongStream implements LongStream {
      * @param action         see {@link LongStream#forEach}
      */
     public <E extends Exception> void forEach(Class<E> exceptionClass, ExLongConsumer<? extends E> action) {
-        forEach(action.wrap(exceptionClass));
+        forEach(Instrumentation.instrumentLongConsumer(instrumentation, "forEach", action).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link #forEachConcurrent(Class, int, ExFailureMode, ExLongConsumer)
+     * forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action)}.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExLongConsumer<? extends E> action) {
+        forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action);
+    }
+
+    /**
+     * Performs {@code action} for each element of this stream, using up to {@code parallelism} threads concurrently, and waits until all calls have completed.
+     * <p>
+     * This is a terminal operation intended for actions that block, e.g. writing to files or sockets. Each call runs on its own virtual thread, or, on Java
+     * versions without virtual threads, on a thread from a cached pool. The elements are taken from this stream by the current thread, which waits before
+     * taking the next element while {@code parallelism} calls are in progress, so no more than {@code parallelism} elements are held at any time. The
+     * elements are passed to {@code action} in no particular order.
+     * <p>
+     * Elements are boxed to pass them to the threads calling {@code action}.
+     * <p>
+     * If {@code action} throws a checked exception, a {@link ExException} will be thrown instead, once all calls in progress have completed.
+     * This will have the original exception as its {@link ExException#getCause() cause}. {@code failureMode} defines whether further elements are processed
+     * after the first failure, see {@link ExFailureMode}.
+     * <p>
+     * If the current thread is interrupted while waiting, the calls in progress are interrupted, its interrupt status is set and a {@link ExException} is
+     * thrown, which will have an {@link InterruptedException} as its cause.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param failureMode    how failures of {@code action} are handled
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExFailureMode failureMode,
+                                                        ExLongConsumer<? extends E> action) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        final LongConsumer wrappedAction = Instrumentation.instrumentLongConsumer(instrumentation, "forEachConcurrent", action).wrap(exceptionClass);
+        ConcurrentForEach.forEach(stream.boxed().spliterator(), parallelism, failureMode, wrappedAction::accept);
     }
 
     /**
@@ -360,7 +474,7 @@ public class ExLongStream implements LongStream {
      * @param action         see {@link LongStream#forEachOrdered}
      */
     public <E extends Exception> void forEachOrdered(Class<E> exceptionClass, ExLongConsumer<? extends E> action) {
-        forEachOrdered(action.wrap(exceptionClass));
+        forEachOrdered(Instrumentation.instrumentLongConsumer(instrumentation, "forEachOrdered", action).wrap(exceptionClass));
     }
 
     /**
@@ -376,7 +490,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#reduce(long, LongBinaryOperator)}
      */
     public <E extends Exception> Long reduce(Class<E> exceptionClass, Long identity, ExLongBinaryOperator<? extends E> op) {
-        return reduce(identity, op.wrap(exceptionClass));
+        return reduce(identity, Instrumentation.instrumentLongBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -391,7 +505,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#reduce(LongBinaryOperator)}
      */
     public <E extends Exception> OptionalLong reduce(Class<E> exceptionClass, ExLongBinaryOperator<? extends E> op) {
-        return reduce(op.wrap(exceptionClass));
+        return reduce(Instrumentation.instrumentLongBinaryOperator(instrumentation, "reduce", op).wrap(exceptionClass));
     }
 
     /**
@@ -410,7 +524,8 @@ public class ExLongStream implements LongStream {
      */
     public <R, E extends Exception> R collect(Class<E> exceptionClass, ExSupplier<R, ? extends E> supplier,
                                               ExObjLongConsumer<R, ? extends E> accumulator, ExBiConsumer<R, R, ? extends E> combiner) {
-        return collect(supplier.wrap(exceptionClass), accumulator.wrap(exceptionClass), combiner.wrap(exceptionClass));
+        return collect(supplier.wrap(exceptionClass), Instrumentation.instrumentObjLongConsumer(instrumentation, "collect", accumulator).wrap(exceptionClass),
+                combiner.wrap(exceptionClass));
     }
 
     /**
@@ -425,7 +540,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#anyMatch}
      */
     public <E extends Exception> boolean anyMatch(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return anyMatch(predicate.wrap(exceptionClass));
+        return anyMatch(Instrumentation.instrumentLongPredicate(instrumentation, "anyMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -440,7 +555,7 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#allMatch}
      */
     public <E extends Exception> boolean allMatch(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return allMatch(predicate.wrap(exceptionClass));
+        return allMatch(Instrumentation.instrumentLongPredicate(instrumentation, "allMatch", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -455,7 +570,132 @@ public class ExLongStream implements LongStream {
      * @return see {@link LongStream#noneMatch}
      */
     public <E extends Exception> boolean noneMatch(Class<E> exceptionClass, ExLongPredicate<? extends E> predicate) {
-        return noneMatch(predicate.wrap(exceptionClass));
+        return noneMatch(Instrumentation.instrumentLongPredicate(instrumentation, "noneMatch", predicate).wrap(exceptionClass));
+    }
+
+    /* Terminal operations grouping elements by primitive keys without boxing. */
+
+    /**
+     * Counts the elements of this stream by the key {@code keyFunction} returns for them, without boxing keys or counts.
+     * <p>
+     * This is a terminal operation, equivalent to {@code boxed().collect(Collectors.groupingBy(keyFunction, Collectors.counting()))}, but accumulating
+     * into an {@link LongLongHashMap}. For a parallel stream, each part of the split stream accumulates into its own map, and these maps are
+     * merged at the end.
+     * <p>
+     * If {@code keyFunction} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <E>            The exception type thrown by {@code keyFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyFunction    returns the key for an element
+     * @return a map from each key to the number of elements with this key
+     */
+    public <E extends Exception> LongLongHashMap groupingCount(Class<E> exceptionClass, ExLongUnaryOperator<? extends E> keyFunction) {
+        final LongUnaryOperator wrappedKeyFunction = Instrumentation.instrumentLongUnaryOperator(instrumentation, "groupingCount", keyFunction)
+                .wrap(exceptionClass);
+        return collect(LongLongHashMap::new, (map, value) -> map.addTo(wrappedKeyFunction.applyAsLong(value), 1), LongLongHashMap::addAll);
+    }
+
+    /**
+     * Sums the values {@code valueFunction} returns for the elements of this stream by the key {@code keyFunction} returns for them, without boxing keys or
+     * sums.
+     * <p>
+     * This is a terminal operation, equivalent to {@code boxed().collect(Collectors.groupingBy(keyFunction, Collectors.summingLong(valueFunction)))}, but
+     * accumulating into an {@link LongLongHashMap}. For a parallel stream, each part of the split stream accumulates into its own map, and these maps are
+     * merged at the end.
+     * <p>
+     * If {@code keyFunction} or {@code valueFunction} throw a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <E>            The exception type thrown by {@code keyFunction} or {@code valueFunction}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyFunction    returns the key for an element
+     * @param valueFunction  returns the value to sum for an element
+     * @return a map from each key to the sum of the values of the elements with this key
+     */
+    public <E extends Exception> LongLongHashMap groupingSum(Class<E> exceptionClass, ExLongUnaryOperator<? extends E> keyFunction,
+                                                            ExLongUnaryOperator<? extends E> valueFunction) {
+        final LongUnaryOperator wrappedKeyFunction = Instrumentation.instrumentLongUnaryOperator(instrumentation, "groupingSum(keyFunction)", keyFunction)
+                .wrap(exceptionClass);
+        final LongUnaryOperator wrappedValueFunction = Instrumentation.instrumentLongUnaryOperator(instrumentation, "groupingSum(valueFunction)", valueFunction)
+                .wrap(exceptionClass);
+        return collect(LongLongHashMap::new,
+                (map, value) -> map.addTo(wrappedKeyFunction.applyAsLong(value), wrappedValueFunction.applyAsLong(value)),
+                LongLongHashMap::addAll);
+    }
+
+    /* Operations grouping consecutive elements. */
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches. Equivalent to {@link #chunked(int, boolean) chunked(size, false)}.
+     *
+     * @param size the number of elements in each array
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<long[]> chunked(int size) {
+        return chunked(size, false);
+    }
+
+    /**
+     * Returns a stream of arrays of {@code size} consecutive elements of this stream. The last array contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches.
+     * <p>
+     * If {@code reuseBuffer} is {@code true}, the same array is returned for all chunks with {@code size} elements, overwritten with the elements of the
+     * next chunk, which avoids allocating an array per chunk. This is only safe if each array is no longer used once the next one is requested, e.g. if it
+     * is written to a file by {@code forEach}, but not if the arrays are collected. A parallel stream uses one array per thread.
+     * <p>
+     * A parallel stream stays parallel. It can only be split for parallel processing if the size of this stream and its parts are known, e.g. for a stream of
+     * an array or a range without {@code filter} or {@code flatMap}.
+     *
+     * @param size        the number of elements in each array
+     * @param reuseBuffer if {@code true}, the same array is returned for every chunk with {@code size} elements
+     * @return a stream of arrays of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<long[]> chunked(int size, boolean reuseBuffer) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        final var spliterator = new ChunkSpliterator.OfLong(stream.spliterator(), size, reuseBuffer);
+        return ExStream.of(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close), instrumentation);
+    }
+
+    /* Instrumentation of checked stages. */
+
+    /**
+     * Returns an equivalent stream collecting statistics about all checked stages added to it, i.e. all calls of methods taking an exception class and a
+     * functional interface, e.g. {@link #map(Class, ExLongUnaryOperator)}. These statistics can be retrieved by {@link #report()} on the returned
+     * stream or any stream derived from it, usually after the terminal operation.
+     * <p>
+     * For each stage, the number of elements passed in and out, the number of checked exceptions thrown and the time spent are recorded. Counters are kept
+     * per thread where threads contend for them and only added up by {@link #report()}, and only a sample of calls is timed, so the overhead is low enough
+     * for production use.
+     * <p>
+     * Calling this method again starts a new report, which only contains stages added afterward.
+     *
+     * @param name the name of the report, e.g. the name of the job using the stream
+     * @return an equivalent stream collecting statistics about its checked stages
+     */
+    public ExLongStream instrumented(String name) {
+        return new ExLongStream(stream, new Instrumentation(name));
+    }
+
+    /**
+     * Returns the statistics collected so far for the checked stages added since {@link #instrumented(String)} was called on this stream or a stream it was
+     * derived from.
+     *
+     * @return the statistics collected so far
+     * @throws IllegalStateException if neither this stream nor a stream it was derived from is instrumented
+     */
+    public ExStreamReport report() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("stream is not instrumented");
+        }
+        return instrumentation.report();
     }
 
 }
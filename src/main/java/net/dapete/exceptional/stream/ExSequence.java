@@ -0,0 +1,572 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.function.*;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * A lightweight, sequential alternative to {@link ExStream} for short pipelines.
+ * <p>
+ * A sequence pushes its elements through the functional interfaces of its operations, which are called directly, without the pipeline objects, sinks and
+ * spliterators of {@link java.util.stream.Stream}. For the few elements typical on a request path, this setup usually costs more than the work itself.
+ * <p>
+ * All operations take functional interfaces throwing {@code E}, and terminal operations throw {@code E} directly instead of wrapping it in an
+ * {@link net.dapete.exceptional.ExException}. Like a stream, a sequence is lazy: intermediate operations only create a new sequence, and the elements are
+ * processed by the terminal operation. Unlike a stream, a sequence can be traversed more than once if its source can, e.g. if it was created from a
+ * collection.
+ * <p>
+ * Sequences are not thread-safe and never process elements in parallel.
+ *
+ * @param <T> the type of the elements
+ * @param <E> the type of exception thrown
+ */
+public final class ExSequence<T, E extends Exception> {
+
+    /**
+     * Receives the elements of a sequence.
+     */
+    @FunctionalInterface
+    private interface Sink<T, E extends Exception> {
+
+        /**
+         * Receives an element.
+         *
+         * @return {@code false} to stop the traversal, otherwise {@code true}
+         */
+        boolean accept(T t) throws E;
+
+    }
+
+    /**
+     * Pushes the elements of a sequence to a sink.
+     */
+    @FunctionalInterface
+    private interface Source<T, E extends Exception> {
+
+        /**
+         * Passes the elements to {@code sink} until it returns {@code false}.
+         *
+         * @return {@code false} if {@code sink} returned {@code false}, otherwise {@code true}
+         */
+        boolean forEachWhile(Sink<? super T, E> sink) throws E;
+
+    }
+
+    private static final ExSequence<?, ?> EMPTY = new ExSequence<>(sink -> true);
+
+    private final Source<T, E> source;
+
+    private ExSequence(Source<T, E> source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns an empty sequence.
+     *
+     * @param <T> the type of the elements
+     * @param <E> the type of exception thrown
+     * @return an empty sequence
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, E extends Exception> ExSequence<T, E> empty() {
+        return (ExSequence<T, E>) EMPTY;
+    }
+
+    /**
+     * Returns a sequence of the elements of {@code iterable}. The iterable is not copied, so each traversal of the sequence iterates over it again.
+     *
+     * @param exceptionClass the class of exception thrown by the operations of the sequence
+     * @param iterable       the iterable
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown
+     * @return a sequence of the elements of {@code iterable}
+     */
+    public static <T, E extends Exception> ExSequence<T, E> of(Class<E> exceptionClass, Iterable<? extends T> iterable) {
+        return new ExSequence<>(sink -> {
+            for (final T t : iterable) {
+                if (!sink.accept(t)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Returns a sequence of {@code values}. The array is not copied.
+     *
+     * @param exceptionClass the class of exception thrown by the operations of the sequence
+     * @param values         the elements
+     * @param <T>            the type of the elements
+     * @param <E>            the type of exception thrown
+     * @return a sequence of {@code values}
+     */
+    @SafeVarargs
+    public static <T, E extends Exception> ExSequence<T, E> of(Class<E> exceptionClass, T... values) {
+        return new ExSequence<>(sink -> {
+            for (final T t : values) {
+                if (!sink.accept(t)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Returns a sequence of the elements of the iterators of {@code iterable}. Each traversal of the sequence uses a new iterator.
+     *
+     * @param iterable the iterable
+     * @param <T>      the type of the elements
+     * @param <E>      the type of exception thrown
+     * @return a sequence of the elements of {@code iterable}
+     */
+    public static <T, E extends Exception> ExSequence<T, E> of(ExIterable<? extends T, ? extends E> iterable) {
+        return new ExSequence<>(sink -> {
+            final ExIterator<? extends T, ? extends E> iterator = iterable.iterator();
+            while (iterator.hasNext()) {
+                if (!sink.accept(iterator.next())) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /* Intermediate operations. */
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#map}.
+     *
+     * @param mapper the function to apply to each element
+     * @param <R>    the type of the elements of the new sequence
+     * @return the new sequence
+     */
+    public <R> ExSequence<R, E> map(ExFunction<? super T, ? extends R, ? extends E> mapper) {
+        return new ExSequence<>(sink -> source.forEachWhile(t -> sink.accept(mapper.apply(t))));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#filter}.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new sequence
+     */
+    public ExSequence<T, E> filter(ExPredicate<? super T, ? extends E> predicate) {
+        return new ExSequence<>(sink -> source.forEachWhile(t -> !predicate.test(t) || sink.accept(t)));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#flatMap}.
+     *
+     * @param mapper the function to apply to each element, returning a sequence of new elements
+     * @param <R>    the type of the elements of the new sequence
+     * @return the new sequence
+     */
+    public <R> ExSequence<R, E> flatMap(ExFunction<? super T, ? extends ExSequence<? extends R, ? extends E>, ? extends E> mapper) {
+        return new ExSequence<>(sink -> source.forEachWhile(t -> forEachWhile(mapper.apply(t), sink)));
+    }
+
+    private static <R, E extends Exception> boolean forEachWhile(ExSequence<? extends R, ? extends E> sequence, Sink<? super R, E> sink) throws E {
+        @SuppressWarnings("unchecked") final var source = (Source<R, E>) sequence.source;
+        return source.forEachWhile(sink);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#peek}.
+     *
+     * @param action the action to perform for each element
+     * @return the new sequence
+     */
+    public ExSequence<T, E> peek(ExConsumer<? super T, ? extends E> action) {
+        return new ExSequence<>(sink -> source.forEachWhile(t -> {
+            action.accept(t);
+            return sink.accept(t);
+        }));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#limit}. No more elements are requested from the source once {@code maxSize} elements have been passed on.
+     *
+     * @param maxSize the maximum number of elements
+     * @return the new sequence
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    public ExSequence<T, E> limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        if (maxSize == 0) {
+            return empty();
+        }
+        return new ExSequence<>(sink -> {
+            final var limited = new Sink<T, E>() {
+
+                private long remaining = maxSize;
+
+                private boolean stopped;
+
+                @Override
+                public boolean accept(T t) throws E {
+                    if (!sink.accept(t)) {
+                        stopped = true;
+                        return false;
+                    }
+                    return --remaining > 0;
+                }
+
+            };
+            source.forEachWhile(limited);
+            return !limited.stopped;
+        });
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#skip}.
+     *
+     * @param n the number of leading elements to skip
+     * @return the new sequence
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public ExSequence<T, E> skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        if (n == 0) {
+            return this;
+        }
+        return new ExSequence<>(sink -> source.forEachWhile(new Sink<T, E>() {
+
+            private long remaining = n;
+
+            @Override
+            public boolean accept(T t) throws E {
+                if (remaining > 0) {
+                    remaining--;
+                    return true;
+                }
+                return sink.accept(t);
+            }
+
+        }));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#takeWhile}.
+     *
+     * @param predicate the predicate to apply to the leading elements
+     * @return the new sequence
+     */
+    public ExSequence<T, E> takeWhile(ExPredicate<? super T, ? extends E> predicate) {
+        return new ExSequence<>(sink -> {
+            final var taking = new Sink<T, E>() {
+
+                private boolean stopped;
+
+                @Override
+                public boolean accept(T t) throws E {
+                    if (!predicate.test(t)) {
+                        return false;
+                    }
+                    if (!sink.accept(t)) {
+                        stopped = true;
+                        return false;
+                    }
+                    return true;
+                }
+
+            };
+            source.forEachWhile(taking);
+            return !taking.stopped;
+        });
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#dropWhile}.
+     *
+     * @param predicate the predicate to apply to the leading elements
+     * @return the new sequence
+     */
+    public ExSequence<T, E> dropWhile(ExPredicate<? super T, ? extends E> predicate) {
+        return new ExSequence<>(sink -> source.forEachWhile(new Sink<T, E>() {
+
+            private boolean dropping = true;
+
+            @Override
+            public boolean accept(T t) throws E {
+                if (dropping) {
+                    if (predicate.test(t)) {
+                        return true;
+                    }
+                    dropping = false;
+                }
+                return sink.accept(t);
+            }
+
+        }));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#distinct}.
+     *
+     * @return the new sequence
+     */
+    public ExSequence<T, E> distinct() {
+        return new ExSequence<>(sink -> {
+            final Set<T> seen = new HashSet<>();
+            return source.forEachWhile(t -> !seen.add(t) || sink.accept(t));
+        });
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#sorted(Comparator)}.
+     *
+     * @param comparator the comparator to compare the elements
+     * @return the new sequence
+     */
+    public ExSequence<T, E> sorted(Comparator<? super T> comparator) {
+        return new ExSequence<>(sink -> {
+            final List<T> elements = new ArrayList<>();
+            source.forEachWhile(elements::add);
+            elements.sort(comparator);
+            for (final T t : elements) {
+                if (!sink.accept(t)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /* Terminal operations. */
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#forEach}.
+     *
+     * @param action the action to perform for each element
+     * @throws E potentially
+     */
+    public void forEach(ExConsumer<? super T, ? extends E> action) throws E {
+        source.forEachWhile(t -> {
+            action.accept(t);
+            return true;
+        });
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#toList}.
+     *
+     * @return an unmodifiable list of the elements
+     * @throws E potentially
+     */
+    public List<T> toList() throws E {
+        final List<T> list = new ArrayList<>();
+        source.forEachWhile(list::add);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#collect(Collector)}.
+     *
+     * @param collector the collector
+     * @param <A>       the intermediate accumulation type of the collector
+     * @param <R>       the type of the result
+     * @return the result of the collector
+     * @throws E potentially
+     */
+    @SuppressWarnings("unchecked")
+    public <R, A> R collect(Collector<? super T, A, R> collector) throws E {
+        final A container = collector.supplier().get();
+        final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        source.forEachWhile(t -> {
+            accumulator.accept(container, t);
+            return true;
+        });
+        if (collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return (R) container;
+        }
+        return collector.finisher().apply(container);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#reduce(Object, java.util.function.BinaryOperator)}.
+     *
+     * @param identity    the initial value
+     * @param accumulator the function combining two values
+     * @return the result of the reduction
+     * @throws E potentially
+     */
+    public T reduce(T identity, ExBinaryOperator<T, ? extends E> accumulator) throws E {
+        final var reduction = new Sink<T, E>() {
+
+            private T result = identity;
+
+            @Override
+            public boolean accept(T t) throws E {
+                result = accumulator.apply(result, t);
+                return true;
+            }
+
+        };
+        source.forEachWhile(reduction);
+        return reduction.result;
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#reduce(java.util.function.BinaryOperator)}.
+     *
+     * @param accumulator the function combining two values
+     * @return the result of the reduction, or an empty optional if the sequence is empty
+     * @throws E                    potentially
+     * @throws NullPointerException if the result of the reduction is {@code null}
+     */
+    public Optional<T> reduce(ExBinaryOperator<T, ? extends E> accumulator) throws E {
+        final var reduction = new Sink<T, E>() {
+
+            private boolean found;
+
+            private @Nullable T result;
+
+            @Override
+            @SuppressWarnings("NullAway") // result is only null before the first element, or if the accumulator returned null
+            public boolean accept(T t) throws E {
+                if (found) {
+                    result = accumulator.apply(result, t);
+                } else {
+                    found = true;
+                    result = t;
+                }
+                return true;
+            }
+
+        };
+        source.forEachWhile(reduction);
+        return reduction.found ? Optional.of(Objects.requireNonNull(reduction.result)) : Optional.empty();
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#count}.
+     *
+     * @return the number of elements
+     * @throws E potentially
+     */
+    public long count() throws E {
+        final var counter = new Sink<T, E>() {
+
+            private long count;
+
+            @Override
+            public boolean accept(T t) {
+                count++;
+                return true;
+            }
+
+        };
+        source.forEachWhile(counter);
+        return counter.count;
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#findFirst}. No more elements are requested from the source once the first one was found.
+     *
+     * @return the first element, or an empty optional if the sequence is empty
+     * @throws E                    potentially
+     * @throws NullPointerException if the first element is {@code null}
+     */
+    public Optional<T> findFirst() throws E {
+        final var first = new Sink<T, E>() {
+
+            private boolean found;
+
+            private @Nullable T result;
+
+            @Override
+            public boolean accept(T t) {
+                found = true;
+                result = t;
+                return false;
+            }
+
+        };
+        source.forEachWhile(first);
+        return first.found ? Optional.of(Objects.requireNonNull(first.result)) : Optional.empty();
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#anyMatch}.
+     *
+     * @param predicate the predicate to apply to the elements
+     * @return {@code true} if any element matches {@code predicate}
+     * @throws E potentially
+     */
+    public boolean anyMatch(ExPredicate<? super T, ? extends E> predicate) throws E {
+        return !source.forEachWhile(t -> !predicate.test(t));
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#allMatch}.
+     *
+     * @param predicate the predicate to apply to the elements
+     * @return {@code true} if all elements match {@code predicate} or the sequence is empty
+     * @throws E potentially
+     */
+    public boolean allMatch(ExPredicate<? super T, ? extends E> predicate) throws E {
+        return source.forEachWhile(predicate::test);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#noneMatch}.
+     *
+     * @param predicate the predicate to apply to the elements
+     * @return {@code true} if no element matches {@code predicate} or the sequence is empty
+     * @throws E potentially
+     */
+    public boolean noneMatch(ExPredicate<? super T, ? extends E> predicate) throws E {
+        return !anyMatch(predicate);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#min}.
+     *
+     * @param comparator the comparator to compare the elements
+     * @return the minimum element, or an empty optional if the sequence is empty
+     * @throws E                    potentially
+     * @throws NullPointerException if the minimum element is {@code null}
+     */
+    public Optional<T> min(Comparator<? super T> comparator) throws E {
+        return reduce((a, b) -> comparator.compare(a, b) <= 0 ? a : b);
+    }
+
+    /**
+     * Equivalent of {@link java.util.stream.Stream#max}.
+     *
+     * @param comparator the comparator to compare the elements
+     * @return the maximum element, or an empty optional if the sequence is empty
+     * @throws E                    potentially
+     * @throws NullPointerException if the maximum element is {@code null}
+     */
+    public Optional<T> max(Comparator<? super T> comparator) throws E {
+        return reduce((a, b) -> comparator.compare(a, b) >= 0 ? a : b);
+    }
+
+    /**
+     * Returns an {@link ExStream} of the elements. As a sequence pushes its elements, they are collected into a list first.
+     *
+     * @return a stream of the elements
+     * @throws E potentially
+     */
+    public ExStream<T> toStream() throws E {
+        return ExStream.of(toList());
+    }
+
+}
@@ -2,17 +2,48 @@ package net.dapete.exceptional.stream;
 
 import lombok.experimental.Delegate;
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExFailureMode;
 import net.dapete.exceptional.function.*;
+import net.dapete.exceptional.internal.BoundedReorderBuffer;
+import net.dapete.exceptional.internal.ChannelSource;
+import net.dapete.exceptional.internal.ConcurrentForEach;
+import net.dapete.exceptional.internal.DistinctKeys;
+import net.dapete.exceptional.internal.ExternalSort;
+import net.dapete.exceptional.internal.FileLines;
+import net.dapete.exceptional.internal.FileWalk;
+import net.dapete.exceptional.internal.FusedStages;
+import net.dapete.exceptional.internal.ResultSetSource;
+import net.dapete.exceptional.internal.WindowSpliterator;
+import net.dapete.exceptional.wrap.ExUnwrap;
+import net.dapete.exceptional.wrap.ExWrap;
 import org.jspecify.annotations.Nullable;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.*;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A Stream with additional functionality for functional interfaces that throw Exceptions.
@@ -25,16 +56,36 @@ import java.util.stream.Stream;
  * <p>
  * Note that this exception will likely not be thrown when a method is called, but only when a <em>terminal operation</em> or a
  * <em>stateful intermediate operation</em> is used on the stream (except if it is itself such an operation).
+ * <p>
+ * Consecutive calls of {@link #map(Class, ExFunction)}, {@link #filter(Class, ExPredicate)} and {@link #peek(Class, ExConsumer)} are fused into a single
+ * stage of the underlying stream, which applies all of their functional interfaces within a single {@code try} block. The stage is only added when another
+ * method is called, so like a {@link Stream}, a stream on which one of these methods was called must not be used anymore, except for {@link #close()} and
+ * {@link #isParallel()}.
  *
  * @param <T> the type of the stream elements
  */
 public final class ExStream<T> implements Stream<T> {
 
-    @Delegate
-    private final Stream<T> stream;
+    /* The underlying stream, or null until pending fused stages are linked by stream(). */
+    private @Nullable Stream<T> stream;
+
+    /* Consecutive checked stateless stages, which are only added to the underlying stream as a single stage when another operation needs it. */
+    private final @Nullable FusedStages<T> fusedStages;
+
+    /* Whether the pending fused stages were passed on to a derived stream, so this stream must not be used anymore. */
+    private boolean linked;
 
-    private ExStream(Stream<T> stream) {
+    private final @Nullable Instrumentation instrumentation;
+
+    private ExStream(Stream<T> stream, @Nullable Instrumentation instrumentation) {
         this.stream = stream;
+        this.fusedStages = null;
+        this.instrumentation = instrumentation;
+    }
+
+    private ExStream(FusedStages<T> fusedStages, @Nullable Instrumentation instrumentation) {
+        this.fusedStages = fusedStages;
+        this.instrumentation = instrumentation;
     }
 
     /**
@@ -45,7 +96,43 @@ public final class ExStream<T> implements Stream<T> {
      * @return instance from an existing Stream
      */
     public static <T> ExStream<T> of(Stream<T> stream) {
-        return new ExStream<>(stream);
+        return new ExStream<>(stream, null);
+    }
+
+    static <T> ExStream<T> of(Stream<T> stream, @Nullable Instrumentation instrumentation) {
+        return new ExStream<>(stream, instrumentation);
+    }
+
+    private <R> ExStream<R> derive(Stream<R> derivedStream) {
+        return new ExStream<>(derivedStream, instrumentation);
+    }
+
+    /* Returns the underlying stream, to which all methods of Stream are delegated, adding the pending fused stages first. */
+    @Delegate
+    private Stream<T> stream() {
+        if (linked) {
+            throw new IllegalStateException("stream has already been operated upon or closed");
+        }
+        Stream<T> currentStream = stream;
+        if (currentStream == null) {
+            currentStream = Objects.requireNonNull(fusedStages).link();
+            stream = currentStream;
+        }
+        return currentStream;
+    }
+
+    /* Returns the stream whose close() and isParallel() apply to this stream, which is still allowed after its pending fused stages were passed on. */
+    private Stream<?> pipeline() {
+        final Stream<T> currentStream = stream;
+        return currentStream != null ? currentStream : Objects.requireNonNull(fusedStages).source();
+    }
+
+    /* Returns a stream with the pending fused stages of this stream, or none if they were already linked, and the stage added by addStage. */
+    private <R> ExStream<R> fuse(Class<? extends Exception> exceptionClass, Function<FusedStages<T>, FusedStages<R>> addStage) {
+        ExUnwrap.verifyExceptionAllowed(exceptionClass);
+        final FusedStages<T> currentStages = stream == null && fusedStages != null && !linked ? fusedStages : FusedStages.of(stream());
+        linked = true;
+        return new ExStream<>(addStage.apply(currentStages), instrumentation);
     }
 
     /**
@@ -55,7 +142,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return instance from an existing Stream
      */
     public static ExStream<Double> of(DoubleStream stream) {
-        return new ExStream<>(stream.boxed());
+        return new ExStream<>(stream.boxed(), null);
     }
 
     /**
@@ -65,7 +152,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return instance from an existing Stream
      */
     public static ExStream<Integer> of(IntStream stream) {
-        return new ExStream<>(stream.boxed());
+        return new ExStream<>(stream.boxed(), null);
     }
 
     /**
@@ -75,7 +162,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return instance from an existing Stream
      */
     public static ExStream<Long> of(LongStream stream) {
-        return new ExStream<>(stream.boxed());
+        return new ExStream<>(stream.boxed(), null);
     }
 
     /**
@@ -135,117 +222,340 @@ public final class ExStream<T> implements Stream<T> {
         return of(Stream.of(values));
     }
 
+    /**
+     * Returns a sequential, ordered instance whose elements are returned by {@code iterator}.
+     * <p>
+     * If {@code iterator} throws a checked exception, a {@link ExException} will be thrown instead. This will have the original exception as its
+     * {@link ExException#getCause() cause}. The iterator is not copied, so elements are only requested from it as the stream is consumed.
+     *
+     * @param exceptionClass the class of exception thrown by {@code iterator}
+     * @param iterator       the iterator returning the elements
+     * @param <T>            the type of the stream elements
+     * @param <E>            the type of exception thrown by {@code iterator}
+     * @return the new instance
+     */
+    public static <T, E extends Exception> ExStream<T> fromIterator(Class<E> exceptionClass, ExIterator<T, ? extends E> iterator) {
+        return of(StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator.wrap(exceptionClass), Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are returned by an iterator of {@code iterable}, created when the terminal operation starts.
+     * <p>
+     * If the iterator throws a checked exception, a {@link ExException} will be thrown instead. This will have the original exception as its
+     * {@link ExException#getCause() cause}.
+     *
+     * @param exceptionClass the class of exception thrown by the iterators of {@code iterable}
+     * @param iterable       the iterable returning the elements
+     * @param <T>            the type of the stream elements
+     * @param <E>            the type of exception thrown by the iterators of {@code iterable}
+     * @return the new instance
+     */
+    public static <T, E extends Exception> ExStream<T> fromIterable(Class<E> exceptionClass, ExIterable<T, ? extends E> iterable) {
+        final Iterable<T> wrappedIterable = iterable.wrap(exceptionClass);
+        return of(StreamSupport.stream(() -> Spliterators.spliteratorUnknownSize(wrappedIterable.iterator(), Spliterator.ORDERED), Spliterator.ORDERED, false));
+    }
+
+    /**
+     * Returns a sequential instance whose elements are returned by {@code spliterator}, which can be turned into a parallel stream by {@link #parallel()}.
+     * <p>
+     * If {@code spliterator} throws a checked exception while advancing or splitting, a {@link ExException} will be thrown instead. This will have the
+     * original exception as its {@link ExException#getCause() cause}. In a parallel stream, the spliterators returned by {@code trySplit()} are used by
+     * different threads.
+     *
+     * @param exceptionClass the class of exception thrown by {@code spliterator}
+     * @param spliterator    the spliterator returning the elements
+     * @param <T>            the type of the stream elements
+     * @param <E>            the type of exception thrown by {@code spliterator}
+     * @return the new instance
+     */
+    public static <T, E extends Exception> ExStream<T> fromSource(Class<E> exceptionClass, ExSpliterator<T, ? extends E> spliterator) {
+        return of(StreamSupport.stream(spliterator.wrap(exceptionClass), false));
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are the lines of the file {@code path}, decoded as UTF-8.
+     *
+     * @param path the path of the file
+     * @return the new instance
+     * @throws IOException if the file could not be opened
+     * @see #lines(Path, Charset)
+     */
+    public static ExStream<String> lines(Path path) throws IOException {
+        return lines(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are the lines of the file {@code path}, decoded using {@code charset}. Lines are terminated by
+     * a line feed, a carriage return or a carriage return followed by a line feed, like {@link java.io.BufferedReader#readLine()}.
+     * <p>
+     * Unlike {@link java.nio.file.Files#lines(Path, Charset)}, files in UTF-8, ISO-8859-1 or US-ASCII are read through memory mapped windows of the file, and
+     * the stream splits at line boundaries, so it scales when processed in parallel using {@link #parallel()}. Malformed input is replaced instead of causing
+     * an exception. Files in other charsets are read sequentially by a {@link java.io.BufferedReader}.
+     * <p>
+     * If reading the file fails, an {@link ExException} will be thrown, whose {@link ExException#getCause() cause} is the {@link IOException}, which can be
+     * unwrapped by {@link net.dapete.exceptional.wrap.ExUnwrapper#of(Class) ExUnwrapper.of(IOException.class)}. The file is closed when the stream is closed,
+     * so the stream should be used in a {@code try}-with-resources statement.
+     *
+     * @param path    the path of the file
+     * @param charset the charset of the file
+     * @return the new instance
+     * @throws IOException if the file could not be opened
+     */
+    public static ExStream<String> lines(Path path, Charset charset) throws IOException {
+        if (!FileLines.isMappable(charset)) {
+            final BufferedReader reader = Files.newBufferedReader(path, charset);
+            return fromIterator(IOException.class, FileLines.read(reader)).onClose(() -> ExWrap.wrap(reader::close));
+        }
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return fromSource(IOException.class, FileLines.mapped(channel, charset)).onClose(() -> ExWrap.wrap(channel::close));
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are parsed by {@code parser} from chunks of {@code chunkSize} bytes read from {@code channel}.
+     * All chunks but the last one, which may be shorter, are complete.
+     * <p>
+     * The bytes are read into a pooled direct buffer, which is passed to {@code parser} from its position to its limit, so they are never copied. The buffer
+     * is reused for the next chunk, so {@code parser} must not keep a reference to it, nor return an element referring to it.
+     * <p>
+     * If reading from {@code channel} or {@code parser} fails, an {@link ExException} will be thrown, whose {@link ExException#getCause() cause} is the
+     * {@link IOException}, which can be unwrapped by {@link net.dapete.exceptional.wrap.ExUnwrapper#of(Class) ExUnwrapper.of(IOException.class)}. The buffer is
+     * returned to the pool when the end of {@code channel} is reached or the stream is closed. {@code channel} is not closed.
+     *
+     * @param channel   the channel to read from, in blocking mode
+     * @param chunkSize the number of bytes of each chunk
+     * @param parser    the function parsing a chunk
+     * @param <T>       the type of the stream elements
+     * @return the new instance
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    public static <T> ExStream<T> fromChannel(ReadableByteChannel channel, int chunkSize, ExFunction<ByteBuffer, T, IOException> parser) {
+        final ChannelSource<T> source = ChannelSource.chunks(channel, chunkSize, parser);
+        return fromSource(IOException.class, source).onClose(source::release);
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are parsed by {@code parser} from the records read from {@code channel}, whose lengths are
+     * determined by {@code framer}, e.g. from a length prefix or the position of a delimiter.
+     * <p>
+     * {@code framer} is called with the bytes read but not parsed yet, from the position to the limit of the buffer, and returns the length of the record
+     * starting at the position, or a negative value if the available bytes are not sufficient to determine it. Its changes of the position of the buffer are
+     * reverted. {@code parser} is called with a slice of the buffer, which contains exactly the bytes of the record.
+     * <p>
+     * Like {@link #fromChannel(ReadableByteChannel, int, ExFunction)}, the bytes are read into a pooled direct buffer, and failures can be unwrapped as
+     * {@link IOException}s. If the end of {@code channel} is reached within a record, or a record is larger than {@code bufferSize}, an
+     * {@link IOException} is thrown in the same way.
+     *
+     * @param channel    the channel to read from, in blocking mode
+     * @param bufferSize the size of the buffer, which must be at least the size of the largest record
+     * @param framer     the function determining the length of the next record
+     * @param parser     the function parsing a record
+     * @param <T>        the type of the stream elements
+     * @return the new instance
+     * @throws IllegalArgumentException if {@code bufferSize} is not positive
+     */
+    public static <T> ExStream<T> fromChannel(ReadableByteChannel channel, int bufferSize, ExToIntFunction<ByteBuffer, IOException> framer,
+                                              ExFunction<ByteBuffer, T, IOException> parser) {
+        final ChannelSource<T> source = ChannelSource.records(channel, bufferSize, framer, parser);
+        return fromSource(IOException.class, source).onClose(source::release);
+    }
+
+    /**
+     * Returns a sequential, ordered instance whose elements are mapped by {@code mapper} from the remaining rows of {@code resultSet}.
+     * <p>
+     * The rows are read as the stream is consumed. A parallel stream reads blocks of rows, as many as the {@link ResultSet#getFetchSize() fetch size} of
+     * {@code resultSet}, or 1024 if it is not set, and processes each block concurrently while the next one is read. {@code mapper} is always called by the
+     * thread reading the rows, so it can access the current row of {@code resultSet}, but must not move its cursor.
+     * <p>
+     * If reading {@code resultSet} or {@code mapper} fails, an {@link ExException} will be thrown, whose {@link ExException#getCause() cause} is the
+     * {@link SQLException}, which can be unwrapped by {@link net.dapete.exceptional.wrap.ExUnwrapper#of(Class) ExUnwrapper.of(SQLException.class)}. When the
+     * stream is closed, {@code resultSet} and its statement are closed, so the stream should be used in a {@code try}-with-resources statement.
+     *
+     * @param resultSet the result set to read
+     * @param mapper    the function mapping the current row of {@code resultSet}
+     * @param <T>       the type of the stream elements
+     * @return the new instance
+     */
+    public static <T> ExStream<T> fromResultSet(ResultSet resultSet, ExFunction<ResultSet, T, SQLException> mapper) {
+        final ResultSetSource<T> source = ResultSetSource.of(resultSet, mapper);
+        return fromSource(SQLException.class, source).onClose(() -> ExWrap.wrap(source::close));
+    }
+
+    /**
+     * Returns a sequential, unordered instance whose elements are the paths of the file tree rooted at {@code start}, up to {@code maxDepth} directory
+     * levels below it, like {@link Files#walk(Path, int, FileVisitOption...)}.
+     * <p>
+     * The tree is traversed depth-first while the stream is consumed. A parallel stream splits the directories found but not traversed yet between its
+     * threads, starting with those closest to {@code start}, so idle threads take over the largest remaining subtrees.
+     * <p>
+     * If reading the attributes of a path or listing a directory fails, {@code errorHandler} is called with the path and the {@link IOException}, possibly by
+     * multiple threads concurrently. If it returns, the path is skipped, or the directory is returned without its entries, and the traversal continues, so it
+     * can skip failures, or collect them in a concurrent collection. If it throws an {@link IOException}, e.g. the one passed to it, the traversal is aborted
+     * and an {@link ExException} will be thrown, whose {@link ExException#getCause() cause} can be unwrapped by
+     * {@link net.dapete.exceptional.wrap.ExUnwrapper#of(Class) ExUnwrapper.of(IOException.class)}. If {@link FileVisitOption#FOLLOW_LINKS} is given, a cycle
+     * is passed to {@code errorHandler} as a {@link java.nio.file.FileSystemLoopException}.
+     *
+     * @param start        the start of the walk, which is the first element
+     * @param maxDepth     the maximum number of directory levels to visit, 0 to only return {@code start}
+     * @param errorHandler the handler of failures to read a path
+     * @param options      the options of the traversal
+     * @return the new instance
+     * @throws IllegalArgumentException if {@code maxDepth} is negative
+     */
+    public static ExStream<Path> walk(Path start, int maxDepth, ExBiConsumer<Path, IOException, IOException> errorHandler, FileVisitOption... options) {
+        final boolean followLinks = List.of(options).contains(FileVisitOption.FOLLOW_LINKS);
+        return fromSource(IOException.class, FileWalk.of(start, maxDepth, followLinks, errorHandler));
+    }
+
     /* Override all methods that usually return Stream to return an ExStream. */
 
     @Override
     public ExStream<T> filter(Predicate<? super T> predicate) {
-        return of(stream.filter(predicate));
+        return derive(stream().filter(predicate));
     }
 
     @Override
     public <R> ExStream<R> map(Function<? super T, ? extends R> mapper) {
-        return of(stream.map(mapper));
+        return derive(stream().map(mapper));
     }
 
     @Override
     public <R> ExStream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper) {
-        return of(stream.flatMap(mapper));
+        return derive(stream().flatMap(mapper));
     }
 
     @Override
     public <R> ExStream<R> mapMulti(BiConsumer<? super T, ? super Consumer<R>> mapper) {
-        return of(stream.mapMulti(mapper));
+        return derive(stream().mapMulti(mapper));
     }
 
     @Override
     public ExStream<T> distinct() {
-        return of(stream.distinct());
+        return derive(stream().distinct());
     }
 
     @Override
     public ExStream<T> sorted() {
-        return of(stream.sorted());
+        return derive(stream().sorted());
     }
 
     @Override
     public ExStream<T> sorted(Comparator<? super T> comparator) {
-        return of(stream.sorted(comparator));
+        return derive(stream().sorted(comparator));
     }
 
     @Override
     public ExStream<T> peek(Consumer<? super T> action) {
-        return of(stream.peek(action));
+        return derive(stream().peek(action));
     }
 
     @Override
     public ExStream<T> limit(long maxSize) {
-        return of(stream.limit(maxSize));
+        return derive(stream().limit(maxSize));
     }
 
     @Override
     public ExStream<T> skip(long n) {
-        return of(stream.skip(n));
+        return derive(stream().skip(n));
     }
 
     @Override
     public ExStream<T> takeWhile(Predicate<? super T> predicate) {
-        return of(stream.takeWhile(predicate));
+        return derive(stream().takeWhile(predicate));
     }
 
     @Override
     public ExStream<T> dropWhile(Predicate<? super T> predicate) {
-        return of(stream.dropWhile(predicate));
+        return derive(stream().dropWhile(predicate));
+    }
+
+    @Override
+    public ExStream<T> sequential() {
+        return derive(stream().sequential());
+    }
+
+    @Override
+    public ExStream<T> parallel() {
+        return derive(stream().parallel());
+    }
+
+    @Override
+    public ExStream<T> unordered() {
+        return derive(stream().unordered());
+    }
+
+    @Override
+    public ExStream<T> onClose(Runnable closeHandler) {
+        return derive(stream().onClose(closeHandler));
+    }
+
+    @Override
+    public boolean isParallel() {
+        return pipeline().isParallel();
+    }
+
+    @Override
+    public void close() {
+        pipeline().close();
     }
 
     /* Override all methods that usually return DoubleStream to return an ExDoubleStream. */
 
     @Override
     public ExDoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
-        return ExDoubleStream.of(stream.mapToDouble(mapper));
+        return ExDoubleStream.of(stream().mapToDouble(mapper), instrumentation);
     }
 
     @Override
     public ExDoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper) {
-        return ExDoubleStream.of(stream.flatMapToDouble(mapper));
+        return ExDoubleStream.of(stream().flatMapToDouble(mapper), instrumentation);
     }
 
     @Override
     public ExDoubleStream mapMultiToDouble(BiConsumer<? super T, ? super DoubleConsumer> mapper) {
-        return ExDoubleStream.of(stream.mapMultiToDouble(mapper));
+        return ExDoubleStream.of(stream().mapMultiToDouble(mapper), instrumentation);
     }
 
     /* Override all methods that usually return IntStream to return an ExIntStream. */
 
     @Override
     public ExIntStream mapToInt(ToIntFunction<? super T> mapper) {
-        return ExIntStream.of(stream.mapToInt(mapper));
+        return ExIntStream.of(stream().mapToInt(mapper), instrumentation);
     }
 
     @Override
     public ExIntStream flatMapToInt(Function<? super T, ? extends IntStream> mapper) {
-        return ExIntStream.of(stream.flatMapToInt(mapper));
+        return ExIntStream.of(stream().flatMapToInt(mapper), instrumentation);
     }
 
     @Override
     public ExIntStream mapMultiToInt(BiConsumer<? super T, ? super IntConsumer> mapper) {
-        return ExIntStream.of(stream.mapMultiToInt(mapper));
+        return ExIntStream.of(stream().mapMultiToInt(mapper), instrumentation);
     }
 
     /* Override all methods that usually return LongStream to return an ExLongStream. */
 
     @Override
     public ExLongStream mapToLong(ToLongFunction<? super T> mapper) {
-        return ExLongStream.of(stream.mapToLong(mapper));
+        return ExLongStream.of(stream().mapToLong(mapper), instrumentation);
     }
 
     @Override
     public ExLongStream flatMapToLong(Function<? super T, ? extends LongStream> mapper) {
-        return ExLongStream.of(stream.flatMapToLong(mapper));
+        return ExLongStream.of(stream().flatMapToLong(mapper), instrumentation);
     }
 
     @Override
     public ExLongStream mapMultiToLong(BiConsumer<? super T, ? super LongConsumer> mapper) {
-        return ExLongStream.of(stream.mapMultiToLong(mapper));
+        return ExLongStream.of(stream().mapMultiToLong(mapper), instrumentation);
     }
 
     /* Implement versions of all methods from Stream that use functional interfaces, using their counterparts with Exceptions instead. */
@@ -265,7 +575,102 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#filter}
      */
     public <E extends Exception> ExStream<T> filter(Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate) {
-        return filter(predicate.wrap(exceptionClass));
+        final ExPredicate<? super T, ? extends E> instrumentedPredicate = Instrumentation.instrumentPredicate(instrumentation, "filter", predicate);
+        return fuse(exceptionClass, stages -> stages.filter(instrumentedPredicate));
+    }
+
+    /**
+     * Returns a stream with the elements of this stream whose keys, as returned by {@code keyExtractor}, are distinct according to {@link Object#equals}.
+     * <p>
+     * Unlike {@link #distinct()}, only the keys are kept, not the elements. For ordered streams, the first element of each key is kept if the stream is
+     * sequential, but any element of each key may be kept if it is parallel. Keys may be {@code null}.
+     * <p>
+     * If {@code keyExtractor} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <K>            The type of the keys
+     * @param <E>            The exception type thrown by {@code keyExtractor}
+     * @param exceptionClass The exception class for {@link E}
+     * @param keyExtractor   the function returning the key of an element
+     * @return the new stream
+     * @see #distinctBy(Class, ExFunction, long, double)
+     */
+    public <K, E extends Exception> ExStream<T> distinctBy(Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyExtractor) {
+        return distinctBy(exceptionClass, keyExtractor, DistinctKeys.exact());
+    }
+
+    /**
+     * Returns a stream with the elements of this stream whose keys, as returned by {@code keyExtractor}, are distinct according to {@link Object#equals},
+     * using a bounded amount of memory, for streams with too many distinct keys to keep all of them.
+     * <p>
+     * Like {@link #distinctBy(Class, ExFunction)}, the keys are kept exactly at first. When they take about as much memory as a Bloom filter sized for
+     * {@code expectedKeys} distinct keys with the false positive rate {@code falsePositiveRate}, they are moved into such a filter, which is used for all
+     * further keys. An element whose key is reported as seen before by the filter is dropped, so duplicates are always dropped, but once the filter is used,
+     * an element with a new key is dropped with about the probability {@code falsePositiveRate}, which increases if there are more than
+     * {@code expectedKeys} distinct keys. The filter takes about {@code -expectedKeys * ln(falsePositiveRate) / ln(2)^2} bits, e.g. 1.2 bytes per expected key
+     * for a false positive rate of 1%. The filter distinguishes keys by their {@link Object#hashCode()}, so keys with equal hash codes are false positives too.
+     *
+     * @param <K>               The type of the keys
+     * @param <E>               The exception type thrown by {@code keyExtractor}
+     * @param exceptionClass    The exception class for {@link E}
+     * @param keyExtractor      the function returning the key of an element
+     * @param expectedKeys      the expected number of distinct keys
+     * @param falsePositiveRate the probability of dropping an element with a new key once {@code expectedKeys} distinct keys were seen
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code expectedKeys} is not positive or {@code falsePositiveRate} is not between 0 and 1, exclusive
+     */
+    public <K, E extends Exception> ExStream<T> distinctBy(Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyExtractor,
+                                                          long expectedKeys, double falsePositiveRate) {
+        return distinctBy(exceptionClass, keyExtractor, DistinctKeys.bounded(expectedKeys, falsePositiveRate));
+    }
+
+    private <K, E extends Exception> ExStream<T> distinctBy(Class<E> exceptionClass, ExFunction<? super T, ? extends K, ? extends E> keyExtractor,
+                                                           DistinctKeys keys) {
+        final ExPredicate<T, E> predicate = element -> keys.add(keyExtractor.apply(element));
+        final ExPredicate<? super T, ? extends E> instrumentedPredicate = Instrumentation.instrumentPredicate(instrumentation, "distinctBy", predicate);
+        return fuse(exceptionClass, stages -> stages.filter(instrumentedPredicate));
+    }
+
+    /**
+     * Equivalent of {@link Stream#sorted(Comparator)}.
+     * <p>
+     * If {@code comparator} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     *
+     * @param <E>            The exception type thrown by {@code comparator}
+     * @param exceptionClass The exception class for {@link E}
+     * @param comparator     see {@link Stream#sorted(Comparator)}
+     * @return see {@link Stream#sorted(Comparator)}
+     */
+    public <E extends Exception> ExStream<T> sorted(Class<E> exceptionClass, ExComparator<? super T, ? extends E> comparator) {
+        return sorted(Instrumentation.instrumentComparator(instrumentation, "sorted", comparator).wrap(exceptionClass));
+    }
+
+    /**
+     * Returns a stream with the elements of this stream, sorted according to {@code comparator} by an external merge sort, which keeps at most
+     * {@link SortOptions#maxElementsInMemory()} elements in memory.
+     * <p>
+     * If all elements fit, they are sorted in memory. Otherwise, the elements are sorted in runs of {@code maxElementsInMemory} elements, in parallel if this
+     * stream is parallel, and each run is written to a temporary file using {@link SortOptions#writer()}. The runs are merged lazily while the returned
+     * stream is consumed, reading them using {@link SortOptions#reader()}. The sort is stable. Each temporary file is deleted when it was read completely,
+     * and the remaining ones when the stream is closed, so streams which may not be consumed completely should be used in a {@code try}-with-resources
+     * statement.
+     * <p>
+     * If {@code comparator} throws a checked exception, or writing or reading a temporary file fails, a {@link ExException} will be thrown instead.
+     * This will have the original exception, or the {@link IOException}, as its {@link ExException#getCause() cause}, so within an
+     * {@link net.dapete.exceptional.wrap.ExUnwrapper}, both {@code exceptionClass} and {@link IOException} must be unwrapped.
+     *
+     * @param <E>            The exception type thrown by {@code comparator}
+     * @param exceptionClass The exception class for {@link E}
+     * @param comparator     the comparator of the elements
+     * @param options        the memory budget and serialization of the sort
+     * @return the new stream
+     */
+    public <E extends Exception> ExStream<T> sorted(Class<E> exceptionClass, ExComparator<? super T, ? extends E> comparator, SortOptions<T> options) {
+        ExUnwrap.verifyExceptionAllowed(IOException.class);
+        final Comparator<? super T> wrappedComparator = Instrumentation.instrumentComparator(instrumentation, "sorted", comparator).wrap(exceptionClass);
+        return derive(ExternalSort.sorted(stream(), wrappedComparator, options.maxElementsInMemory(), options.writer(), options.reader(),
+                options.tempDirectory()));
     }
 
     /**
@@ -285,7 +690,8 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <R, E extends Exception> ExStream<R> map(
             Class<E> exceptionClass, ExFunction<? super T, ? extends R, ? extends E> mapper) {
-        return map(mapper.wrap(exceptionClass));
+        final ExFunction<? super T, ? extends R, ? extends E> instrumentedMapper = Instrumentation.instrumentFunction(instrumentation, "map", mapper);
+        return fuse(exceptionClass, stages -> stages.map(instrumentedMapper));
     }
 
     /**
@@ -304,7 +710,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExDoubleStream mapToDouble(
             Class<E> exceptionClass, ExToDoubleFunction<? super T, ? extends E> mapper) {
-        return mapToDouble(mapper.wrap(exceptionClass));
+        return mapToDouble(Instrumentation.instrumentToDoubleFunction(instrumentation, "mapToDouble", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -322,7 +728,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#mapToInt}
      */
     public <E extends Exception> ExIntStream mapToInt(Class<E> exceptionClass, ExToIntFunction<? super T, ? extends E> mapper) {
-        return mapToInt(mapper.wrap(exceptionClass));
+        return mapToInt(Instrumentation.instrumentToIntFunction(instrumentation, "mapToInt", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -340,7 +746,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#mapToLong}
      */
     public <E extends Exception> ExLongStream mapToLong(Class<E> exceptionClass, ExToLongFunction<? super T, ? extends E> mapper) {
-        return mapToLong(mapper.wrap(exceptionClass));
+        return mapToLong(Instrumentation.instrumentToLongFunction(instrumentation, "mapToLong", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -360,7 +766,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <R, E extends Exception> ExStream<R> flatMap(
             Class<E> exceptionClass, ExFunction<? super T, ? extends Stream<? extends R>, ? extends E> mapper) {
-        return flatMap(mapper.wrap(exceptionClass));
+        return flatMap(Instrumentation.instrumentFunction(instrumentation, "flatMap", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -379,7 +785,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExDoubleStream flatMapToDouble(
             Class<E> exceptionClass, ExFunction<? super T, ? extends DoubleStream, ? extends E> mapper) {
-        return flatMapToDouble(mapper.wrap(exceptionClass));
+        return flatMapToDouble(Instrumentation.instrumentFunction(instrumentation, "flatMapToDouble", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -398,7 +804,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExIntStream flatMapToInt(
             Class<E> exceptionClass, ExFunction<? super T, ? extends IntStream, ? extends E> mapper) {
-        return flatMapToInt(mapper.wrap(exceptionClass));
+        return flatMapToInt(Instrumentation.instrumentFunction(instrumentation, "flatMapToInt", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -417,7 +823,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExLongStream flatMapToLong(
             Class<E> exceptionClass, ExFunction<? super T, ? extends LongStream, ? extends E> mapper) {
-        return flatMapToLong(mapper.wrap(exceptionClass));
+        return flatMapToLong(Instrumentation.instrumentFunction(instrumentation, "flatMapToLong", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -437,7 +843,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <R, E extends Exception> ExStream<R> mapMulti(
             Class<E> exceptionClass, ExBiConsumer<? super T, ? super Consumer<R>, ? extends E> mapper) {
-        return mapMulti(mapper.wrap(exceptionClass));
+        return mapMulti(Instrumentation.instrumentBiConsumer(instrumentation, "mapMulti", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -456,7 +862,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExDoubleStream mapMultiToDouble(
             Class<E> exceptionClass, ExBiConsumer<? super T, ? super DoubleConsumer, ? extends E> mapper) {
-        return mapMultiToDouble(mapper.wrap(exceptionClass));
+        return mapMultiToDouble(Instrumentation.instrumentBiConsumer(instrumentation, "mapMultiToDouble", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -475,7 +881,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExIntStream mapMultiToInt(
             Class<E> exceptionClass, ExBiConsumer<? super T, ? super IntConsumer, ? extends E> mapper) {
-        return mapMultiToInt(mapper.wrap(exceptionClass));
+        return mapMultiToInt(Instrumentation.instrumentBiConsumer(instrumentation, "mapMultiToInt", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -494,7 +900,7 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <E extends Exception> ExLongStream mapMultiToLong(
             Class<E> exceptionClass, ExBiConsumer<? super T, ? super LongConsumer, ? extends E> mapper) {
-        return mapMultiToLong(mapper.wrap(exceptionClass));
+        return mapMultiToLong(Instrumentation.instrumentBiConsumer(instrumentation, "mapMultiToLong", mapper).wrap(exceptionClass));
     }
 
     /**
@@ -509,7 +915,8 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#peek}
      */
     public <E extends Exception> ExStream<T> peek(Class<E> exceptionClass, ExConsumer<? super T, ? extends E> action) {
-        return peek(action.wrap(exceptionClass));
+        final ExConsumer<? super T, ? extends E> instrumentedAction = Instrumentation.instrumentConsumer(instrumentation, "peek", action);
+        return fuse(exceptionClass, stages -> stages.peek(instrumentedAction));
     }
 
     /**
@@ -524,7 +931,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#takeWhile}
      */
     public <E extends Exception> ExStream<T> takeWhile(Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate) {
-        return takeWhile(predicate.wrap(exceptionClass));
+        return takeWhile(Instrumentation.instrumentPredicate(instrumentation, "takeWhile", predicate).wrap(exceptionClass));
     }
 
     /**
@@ -542,7 +949,21 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#dropWhile}
      */
     public <E extends Exception> ExStream<T> dropWhile(Class<E> exceptionClass, ExPredicate<? super T, ? extends E> predicate) {
-        return dropWhile(predicate.wrap(exceptionClass));
+        return dropWhile(Instrumentation.instrumentPredicate(instrumentation, "dropWhile", predicate).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Stream#iterator()}, returning an {@link ExIterator} which throws checked exceptions of type {@code exceptionClass} directly.
+     * <p>
+     * If a functional interface of a previous checked operation throws an exception of type {@code exceptionClass}, the iterator throws it instead of the
+     * {@link ExException} wrapping it. Other exceptions are thrown as they are.
+     *
+     * @param <E>            The exception type thrown by the functional interfaces of this stream
+     * @param exceptionClass The exception class for {@link E}
+     * @return an iterator over the elements of this stream
+     */
+    public <E extends Exception> ExIterator<T, E> iterator(Class<E> exceptionClass) {
+        return ExIterator.of(stream().iterator(), exceptionClass);
     }
 
     /**
@@ -556,7 +977,52 @@ public final class ExStream<T> implements Stream<T> {
      * @param action         see {@link Stream#forEach}
      */
     public <E extends Exception> void forEach(Class<E> exceptionClass, ExConsumer<? super T, ? extends E> action) {
-        forEach(action.wrap(exceptionClass));
+        forEach(Instrumentation.instrumentConsumer(instrumentation, "forEach", action).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link #forEachConcurrent(Class, int, ExFailureMode, ExConsumer) forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST,
+     * action)}.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExConsumer<? super T, ? extends E> action) {
+        forEachConcurrent(exceptionClass, parallelism, ExFailureMode.FAIL_FAST, action);
+    }
+
+    /**
+     * Performs {@code action} for each element of this stream, using up to {@code parallelism} threads concurrently, and waits until all calls have completed.
+     * <p>
+     * This is a terminal operation intended for actions that block, e.g. writing to files or sockets. Each call runs on its own virtual thread, or, on Java
+     * versions without virtual threads, on a thread from a cached pool. The elements are taken from this stream by the current thread, which waits before
+     * taking the next element while {@code parallelism} calls are in progress, so no more than {@code parallelism} elements are held at any time. The
+     * elements are passed to {@code action} in no particular order.
+     * <p>
+     * If {@code action} throws a checked exception, a {@link ExException} will be thrown instead, once all calls in progress have completed.
+     * This will have the original exception as its {@link ExException#getCause() cause}. {@code failureMode} defines whether further elements are processed
+     * after the first failure, see {@link ExFailureMode}.
+     * <p>
+     * If the current thread is interrupted while waiting, the calls in progress are interrupted, its interrupt status is set and a {@link ExException} is
+     * thrown, which will have an {@link InterruptedException} as its cause.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param parallelism    the maximum number of concurrent calls of {@code action}
+     * @param failureMode    how failures of {@code action} are handled
+     * @param action         the action to perform for each element
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public <E extends Exception> void forEachConcurrent(Class<E> exceptionClass, int parallelism, ExFailureMode failureMode,
+                                                        ExConsumer<? super T, ? extends E> action) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        final Consumer<? super T> wrappedAction = Instrumentation.instrumentConsumer(instrumentation, "forEachConcurrent", action).wrap(exceptionClass);
+        ConcurrentForEach.forEach(stream().spliterator(), parallelism, failureMode, wrappedAction);
     }
 
     /**
@@ -570,7 +1036,39 @@ public final class ExStream<T> implements Stream<T> {
      * @param action         see {@link Stream#forEachOrdered}
      */
     public <E extends Exception> void forEachOrdered(Class<E> exceptionClass, ExConsumer<? super T, ? extends E> action) {
-        forEachOrdered(action.wrap(exceptionClass));
+        forEachOrdered(Instrumentation.instrumentConsumer(instrumentation, "forEachOrdered", action).wrap(exceptionClass));
+    }
+
+    /**
+     * Equivalent of {@link Stream#forEachOrdered}, but buffering at most {@code window} elements if this stream is parallel.
+     * <p>
+     * The elements of a parallel stream are processed in parallel, but {@code action} is always performed by the current thread, in encounter order. If the
+     * elements following the next one in encounter order are processed faster than it, they are buffered until it is available. Once {@code window} elements
+     * are buffered, the threads processing later elements wait until {@code action} has taken elements out of the buffer, so memory use stays bounded even if
+     * early parts of the stream are slow. For a sequential stream, this is equivalent to {@link #forEachOrdered(Class, ExConsumer)}.
+     * <p>
+     * If {@code action} throws a checked exception, a {@link ExException} will be thrown instead.
+     * This will have the original exception as its {@link ExException#getCause() cause}.
+     * <p>
+     * If the current thread is interrupted while waiting for the next element, its interrupt status is set and a {@link ExException} is thrown, which will
+     * have an {@link InterruptedException} as its cause.
+     *
+     * @param <E>            The exception type thrown by {@code action}
+     * @param exceptionClass The exception class for {@link E}
+     * @param window         the maximum number of elements buffered
+     * @param action         see {@link Stream#forEachOrdered}
+     * @throws IllegalArgumentException if {@code window} is less than 1
+     */
+    public <E extends Exception> void forEachOrdered(Class<E> exceptionClass, int window, ExConsumer<? super T, ? extends E> action) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        final Consumer<? super T> wrappedAction = Instrumentation.instrumentConsumer(instrumentation, "forEachOrdered", action).wrap(exceptionClass);
+        if (!isParallel()) {
+            forEachOrdered(wrappedAction);
+            return;
+        }
+        BoundedReorderBuffer.forEachOrdered(stream().spliterator(), window, wrappedAction);
     }
 
     /**
@@ -585,7 +1083,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#reduce(BinaryOperator)}
      */
     public <E extends Exception> Optional<T> reduce(Class<E> exceptionClass, ExBinaryOperator<T, ? extends E> accumulator) {
-        return reduce(accumulator.wrap(exceptionClass));
+        return reduce(Instrumentation.instrumentBinaryOperator(instrumentation, "reduce", accumulator).wrap(exceptionClass));
     }
 
     /**
@@ -601,7 +1099,7 @@ public final class ExStream<T> implements Stream<T> {
      * @return see {@link Stream#reduce(Object, BinaryOperator)}
      */
     public <E extends Exception> T reduce(Class<E> exceptionClass, T identity, ExBinaryOperator<T, ? extends E> accumulator) {
-        return reduce(identity, accumulator.wrap(exceptionClass));
+        return reduce(identity, Instrumentation.instrumentBinaryOperator(instrumentation, "reduce", accumulator).wrap(exceptionClass));
     }
 
     /**
@@ -620,7 +1118,8 @@ public final class ExStream<T> implements Stream<T> {
      */
     public <U, E extends Exception> U reduce(
             Class<E> exceptionClass, U identity, ExBiFunction<U, ? super T, U, ? extends E> accumulator, ExBinaryOperator<U, ? extends E> combiner) {
-        return reduce(identity, accumulator.wrap(exceptionClass), combiner.wrap(exceptionClass));
+        return reduce(identity, Instrumentation.instrumentBiFunction(instrumentation, "reduce", accumulator).wrap(exceptionClass),
+                combiner.wrap(exceptionClass));
     }
 
     /**
@@ -640,7 +1139,90 @@ public final class ExStream<T> implements Stream<T> {
     public <R, E extends Exception> R collect(
             Class<E> exceptionClass, ExSupplier<R, ? extends E> supplier, ExBiConsumer<R, ? super T, ? extends E> accumulator,
             ExBiConsumer<R, R, ? extends E> combiner) {
-        return collect(supplier.wrap(exceptionClass), accumulator.wrap(exceptionClass), combiner.wrap(exceptionClass));
+        return collect(supplier.wrap(exceptionClass), Instrumentation.instrumentBiConsumer(instrumentation, "collect", accumulator).wrap(exceptionClass),
+                combiner.wrap(exceptionClass));
+    }
+
+    /* Operations grouping consecutive elements. */
+
+    /**
+     * Returns a stream of lists of {@code size} consecutive elements of this stream. The last list contains the remaining elements, so it may be shorter.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for processing elements in batches. The lists cannot be modified.
+     * <p>
+     * A parallel stream stays parallel. It can only be split for parallel processing if the size of this stream and its parts are known, e.g. for a stream of
+     * a list or a range without {@code filter} or {@code flatMap}.
+     *
+     * @param size the number of elements in each list
+     * @return a stream of lists of consecutive elements
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public ExStream<List<T>> chunked(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        return withSpliterator(new WindowSpliterator<>(stream().spliterator(), size, size, true));
+    }
+
+    /**
+     * Returns a stream of lists of {@code size} consecutive elements of this stream, the first of which starts with the first element, and each following one
+     * {@code step} elements after the previous one. Only lists with {@code size} elements are returned, so remaining elements are not part of any list.
+     * <p>
+     * This is a stateful intermediate operation, e.g. for moving averages. If {@code step} is less than {@code size}, the lists overlap. If it is greater,
+     * elements between them are skipped. The lists cannot be modified.
+     * <p>
+     * A parallel stream stays parallel. It can only be split for parallel processing if the size of this stream and its parts are known, e.g. for a stream of
+     * a list or a range without {@code filter} or {@code flatMap}.
+     *
+     * @param size the number of elements in each list
+     * @param step the distance between the first elements of consecutive lists
+     * @return a stream of lists of consecutive elements
+     * @throws IllegalArgumentException if {@code size} or {@code step} is less than 1
+     */
+    public ExStream<List<T>> windowed(int size, int step) {
+        if (size < 1 || step < 1) {
+            throw new IllegalArgumentException("size and step must be positive");
+        }
+        return withSpliterator(new WindowSpliterator<>(stream().spliterator(), size, step, false));
+    }
+
+    private <R> ExStream<R> withSpliterator(Spliterator<R> spliterator) {
+        final Stream<T> currentStream = stream();
+        return derive(StreamSupport.stream(spliterator, currentStream.isParallel()).onClose(currentStream::close));
+    }
+
+    /* Instrumentation of checked stages. */
+
+    /**
+     * Returns an equivalent stream collecting statistics about all checked stages added to it, i.e. all calls of methods taking an exception class and a
+     * functional interface, e.g. {@link #map(Class, ExFunction)}. These statistics can be retrieved by {@link #report()} on the returned
+     * stream or any stream derived from it, usually after the terminal operation.
+     * <p>
+     * For each stage, the number of elements passed in and out, the number of checked exceptions thrown and the time spent are recorded. Counters are kept
+     * per thread where threads contend for them and only added up by {@link #report()}, and only a sample of calls is timed, so the overhead is low enough
+     * for production use.
+     * <p>
+     * Calling this method again starts a new report, which only contains stages added afterward.
+     *
+     * @param name the name of the report, e.g. the name of the job using the stream
+     * @return an equivalent stream collecting statistics about its checked stages
+     */
+    public ExStream<T> instrumented(String name) {
+        return new ExStream<>(stream(), new Instrumentation(name));
+    }
+
+    /**
+     * Returns the statistics collected so far for the checked stages added since {@link #instrumented(String)} was called on this stream or a stream it was
+     * derived from.
+     *
+     * @return the statistics collected so far
+     * @throws IllegalStateException if neither this stream nor a stream it was derived from is instrumented
+     */
+    public ExStreamReport report() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("stream is not instrumented");
+        }
+        return instrumentation.report();
     }
 
 }
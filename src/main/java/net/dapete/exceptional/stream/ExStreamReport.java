@@ -0,0 +1,60 @@
+package net.dapete.exceptional.stream;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Statistics of the checked stages of an instrumented stream, as returned by {@link ExStream#report()}.
+ * <p>
+ * Stages are listed in the order they were added to the stream. A stage is created by every method taking an exception class and a functional interface,
+ * e.g. {@link ExStream#map(Class, net.dapete.exceptional.function.ExFunction)}, that is called after {@link ExStream#instrumented(String)}.
+ *
+ * @param name   the name passed to {@code instrumented}
+ * @param stages the statistics of each stage
+ */
+public record ExStreamReport(String name, List<Stage> stages) {
+
+    /**
+     * Statistics of a single stage.
+     * <p>
+     * For predicates, e.g. in {@code filter}, only calls returning {@code true} are counted as {@code out}. For other functional interfaces, e.g. in
+     * {@code map} or {@code flatMap}, all calls completing normally are counted as {@code out}, regardless of the number of elements they map to.
+     * <p>
+     * As only some calls are timed, {@code estimatedTime} is an estimate of the total time spent in the functional interface, summed over all threads. For
+     * {@code mapMulti}, this includes the time spent in downstream stages for the elements passed to the consumer.
+     *
+     * @param name          the name of the method creating the stage, e.g. {@code "map"}
+     * @param in            the number of calls to the functional interface
+     * @param out           the number of calls passing an element on
+     * @param failures      the number of calls throwing a checked exception
+     * @param estimatedTime the estimated total time of all calls
+     */
+    public record Stage(String name, long in, long out, long failures, Duration estimatedTime) {
+
+        @Override
+        public String toString() {
+            return name + ": in=" + in + ", out=" + out + ", failures=" + failures + ", time=" + estimatedTime.toMillis() + " ms";
+        }
+
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name   the name passed to {@code instrumented}
+     * @param stages the statistics of each stage
+     */
+    public ExStreamReport {
+        stages = List.copyOf(stages);
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder(name);
+        for (final Stage stage : stages) {
+            builder.append(System.lineSeparator()).append("  ").append(stage);
+        }
+        return builder.toString();
+    }
+
+}
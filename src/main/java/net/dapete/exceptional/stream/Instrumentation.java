@@ -0,0 +1,785 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.function.*;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the checked stages of a stream pipeline, created by {@link ExStream#instrumented(String)} or its counterparts for the primitive streams, and
+ * passed on to all streams derived from it.
+ * <p>
+ * Each stage counts using {@link LongAdder}s, which keep separate cells for threads under contention and only add them up when the report is created, so
+ * parallel streams do not contend on shared counters. The time of only one call in {@value #SAMPLING_INTERVAL} is measured, chosen at random.
+ */
+final class Instrumentation {
+
+    static final int SAMPLING_INTERVAL = 16;
+
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    /**
+     * Counters of a single stage.
+     */
+    static final class Stage {
+
+        private final String name;
+
+        private final LongAdder in = new LongAdder();
+
+        private final LongAdder out = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder sampledNanos = new LongAdder();
+
+        private final LongAdder samples = new LongAdder();
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private long begin() {
+            in.increment();
+            return ThreadLocalRandom.current().nextInt(SAMPLING_INTERVAL) == 0 ? System.nanoTime() : NOT_SAMPLED;
+        }
+
+        private void end(long start, boolean passed) {
+            if (passed) {
+                out.increment();
+            }
+            if (start != NOT_SAMPLED) {
+                sampledNanos.add(System.nanoTime() - start);
+                samples.increment();
+            }
+        }
+
+        private void fail(long start, Exception e) {
+            if (!(e instanceof RuntimeException)) {
+                failures.increment();
+            }
+            end(start, false);
+        }
+
+        ExStreamReport.Stage report() {
+            // read the number of samples first, so there are never more samples than measured times
+            final long sampleCount = samples.sum();
+            final long calls = in.sum();
+            final long estimatedNanos = sampleCount == 0 ? 0 : (long) ((double) sampledNanos.sum() / sampleCount * calls);
+            return new ExStreamReport.Stage(name, calls, out.sum(), failures.sum(), Duration.ofNanos(estimatedNanos));
+        }
+
+    }
+
+    private final String name;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    Instrumentation(String name) {
+        this.name = name;
+    }
+
+    Stage stage(String stageName) {
+        final var stage = new Stage(stageName);
+        stages.add(stage);
+        return stage;
+    }
+
+    ExStreamReport report() {
+        return new ExStreamReport(name, stages.stream().map(Stage::report).toList());
+    }
+
+    /* Instrument the functional interfaces of checked stages, if there is an instrumentation. The counters are updated inline, so a call allocates nothing. */
+
+    static <T, E extends Exception> ExPredicate<T, E> instrumentPredicate(@Nullable Instrumentation instrumentation, String name, ExPredicate<T, E> predicate) {
+        if (instrumentation == null) {
+            return predicate;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                final var result = predicate.test(t);
+                stage.end(start, result);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, R, E extends Exception> ExFunction<T, R, E> instrumentFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                              ExFunction<T, R, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.apply(t);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExToIntFunction<T, E> instrumentToIntFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                  ExToIntFunction<T, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsInt(t);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExToLongFunction<T, E> instrumentToLongFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExToLongFunction<T, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsLong(t);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExToDoubleFunction<T, E> instrumentToDoubleFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExToDoubleFunction<T, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsDouble(t);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExConsumer<T, E> instrumentConsumer(@Nullable Instrumentation instrumentation, String name, ExConsumer<T, E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return t -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(t);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, U, E extends Exception> ExBiConsumer<T, U, E> instrumentBiConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                  ExBiConsumer<T, U, E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t, u) -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(t, u);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, U, R, E extends Exception> ExBiFunction<T, U, R, E> instrumentBiFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExBiFunction<T, U, R, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t, u) -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.apply(t, u);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExBinaryOperator<T, E> instrumentBinaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExBinaryOperator<T, E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t1, t2) -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.apply(t1, t2);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExComparator<T, E> instrumentComparator(@Nullable Instrumentation instrumentation, String name,
+                                                                            ExComparator<T, E> comparator) {
+        if (instrumentation == null) {
+            return comparator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t1, t2) -> {
+            final long start = stage.begin();
+            try {
+                final var result = comparator.compare(t1, t2);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntPredicate<E> instrumentIntPredicate(@Nullable Instrumentation instrumentation, String name, ExIntPredicate<E> predicate) {
+        if (instrumentation == null) {
+            return predicate;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = predicate.test(value);
+                stage.end(start, result);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntUnaryOperator<E> instrumentIntUnaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                  ExIntUnaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsInt(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <R, E extends Exception> ExIntFunction<R, E> instrumentIntFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                              ExIntFunction<R, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.apply(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntToLongFunction<E> instrumentIntToLongFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExIntToLongFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsLong(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntToDoubleFunction<E> instrumentIntToDoubleFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExIntToDoubleFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsDouble(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntMapMultiConsumer<E> instrumentIntMapMultiConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExIntMapMultiConsumer<E> mapper) {
+        if (instrumentation == null) {
+            return mapper;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (value, consumer) -> {
+            final long start = stage.begin();
+            try {
+                mapper.accept(value, consumer);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntConsumer<E> instrumentIntConsumer(@Nullable Instrumentation instrumentation, String name, ExIntConsumer<E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExIntBinaryOperator<E> instrumentIntBinaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExIntBinaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (left, right) -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsInt(left, right);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExObjIntConsumer<T, E> instrumentObjIntConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExObjIntConsumer<T, E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t, value) -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(t, value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongPredicate<E> instrumentLongPredicate(@Nullable Instrumentation instrumentation, String name,
+                                                                            ExLongPredicate<E> predicate) {
+        if (instrumentation == null) {
+            return predicate;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = predicate.test(value);
+                stage.end(start, result);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongUnaryOperator<E> instrumentLongUnaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExLongUnaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsLong(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <R, E extends Exception> ExLongFunction<R, E> instrumentLongFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                ExLongFunction<R, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.apply(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongToIntFunction<E> instrumentLongToIntFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExLongToIntFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsInt(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongToDoubleFunction<E> instrumentLongToDoubleFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                          ExLongToDoubleFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsDouble(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongMapMultiConsumer<E> instrumentLongMapMultiConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                          ExLongMapMultiConsumer<E> mapper) {
+        if (instrumentation == null) {
+            return mapper;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (value, consumer) -> {
+            final long start = stage.begin();
+            try {
+                mapper.accept(value, consumer);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongConsumer<E> instrumentLongConsumer(@Nullable Instrumentation instrumentation, String name, ExLongConsumer<E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExLongBinaryOperator<E> instrumentLongBinaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                      ExLongBinaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (left, right) -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsLong(left, right);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExObjLongConsumer<T, E> instrumentObjLongConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                      ExObjLongConsumer<T, E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t, value) -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(t, value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoublePredicate<E> instrumentDoublePredicate(@Nullable Instrumentation instrumentation, String name,
+                                                                                ExDoublePredicate<E> predicate) {
+        if (instrumentation == null) {
+            return predicate;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = predicate.test(value);
+                stage.end(start, result);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleUnaryOperator<E> instrumentDoubleUnaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExDoubleUnaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsDouble(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <R, E extends Exception> ExDoubleFunction<R, E> instrumentDoubleFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                    ExDoubleFunction<R, E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.apply(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleToIntFunction<E> instrumentDoubleToIntFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                        ExDoubleToIntFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsInt(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleToLongFunction<E> instrumentDoubleToLongFunction(@Nullable Instrumentation instrumentation, String name,
+                                                                                          ExDoubleToLongFunction<E> function) {
+        if (instrumentation == null) {
+            return function;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                final var result = function.applyAsLong(value);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleMapMultiConsumer<E> instrumentDoubleMapMultiConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                              ExDoubleMapMultiConsumer<E> mapper) {
+        if (instrumentation == null) {
+            return mapper;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (value, consumer) -> {
+            final long start = stage.begin();
+            try {
+                mapper.accept(value, consumer);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleConsumer<E> instrumentDoubleConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                              ExDoubleConsumer<E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return value -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <E extends Exception> ExDoubleBinaryOperator<E> instrumentDoubleBinaryOperator(@Nullable Instrumentation instrumentation, String name,
+                                                                                          ExDoubleBinaryOperator<E> operator) {
+        if (instrumentation == null) {
+            return operator;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (left, right) -> {
+            final long start = stage.begin();
+            try {
+                final var result = operator.applyAsDouble(left, right);
+                stage.end(start, true);
+                return result;
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+    static <T, E extends Exception> ExObjDoubleConsumer<T, E> instrumentObjDoubleConsumer(@Nullable Instrumentation instrumentation, String name,
+                                                                                          ExObjDoubleConsumer<T, E> consumer) {
+        if (instrumentation == null) {
+            return consumer;
+        }
+        final Stage stage = instrumentation.stage(name);
+        return (t, value) -> {
+            final long start = stage.begin();
+            try {
+                consumer.accept(t, value);
+                stage.end(start, true);
+            } catch (Exception e) {
+                stage.fail(start, e);
+                throw e;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.function.ExBiConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Options of the external merge sort of {@link ExStream#sorted(Class, net.dapete.exceptional.function.ExComparator, SortOptions)}.
+ * <p>
+ * Elements are only kept in memory up to {@code maxElementsInMemory} at a time. Larger streams are sorted in runs of that size, which are written to
+ * temporary files by {@code writer} and read back by {@code reader} while merging. {@code reader} must read exactly the bytes written by {@code writer} for
+ * an element.
+ *
+ * @param maxElementsInMemory the maximum number of elements kept in memory, which is the size of each sorted run
+ * @param writer              the function writing an element to a temporary file
+ * @param reader              the function reading an element written by {@code writer}
+ * @param tempDirectory       the directory of the temporary files, or {@code null} for the default temporary-file directory
+ * @param <T>                 the type of the stream elements
+ */
+public record SortOptions<T>(int maxElementsInMemory, ExBiConsumer<T, DataOutput, IOException> writer, ExFunction<DataInput, T, IOException> reader,
+                             @Nullable Path tempDirectory) {
+
+    /**
+     * Validates the options.
+     *
+     * @throws IllegalArgumentException if {@code maxElementsInMemory} is not positive
+     */
+    public SortOptions {
+        if (maxElementsInMemory < 1) {
+            throw new IllegalArgumentException("maxElementsInMemory must be positive");
+        }
+    }
+
+    /**
+     * Returns options using the default temporary-file directory.
+     *
+     * @param maxElementsInMemory the maximum number of elements kept in memory, which is the size of each sorted run
+     * @param writer              the function writing an element to a temporary file
+     * @param reader              the function reading an element written by {@code writer}
+     * @param <T>                 the type of the stream elements
+     * @return the options
+     * @throws IllegalArgumentException if {@code maxElementsInMemory} is not positive
+     */
+    public static <T> SortOptions<T> of(int maxElementsInMemory, ExBiConsumer<T, DataOutput, IOException> writer,
+                                        ExFunction<DataInput, T, IOException> reader) {
+        return new SortOptions<>(maxElementsInMemory, writer, reader, null);
+    }
+
+    /**
+     * Returns a copy of these options using {@code tempDirectory} for the temporary files.
+     *
+     * @param tempDirectory the directory of the temporary files
+     * @return the new options
+     */
+    public SortOptions<T> withTempDirectory(Path tempDirectory) {
+        return new SortOptions<>(maxElementsInMemory, writer, reader, tempDirectory);
+    }
+
+}
@@ -0,0 +1,142 @@
+package net.dapete.exceptional.collection;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.wrap.ExUnwrapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExArraysTest {
+
+    @Test
+    void map() throws IOException {
+        assertArrayEquals(new String[]{"a1", "a2"}, ExArrays.map(IOException.class, new Integer[]{1, 2}, String[]::new, i -> "a" + i));
+        assertArrayEquals(new int[]{2, 4}, ExArrays.map(IOException.class, new int[]{1, 2}, i -> i * 2));
+        assertArrayEquals(new long[]{2, 4}, ExArrays.map(IOException.class, new long[]{1, 2}, i -> i * 2));
+        assertArrayEquals(new double[]{1, 2}, ExArrays.map(IOException.class, new double[]{0.5, 1}, d -> d * 2));
+    }
+
+    @Test
+    void map_parallel() throws IOException {
+        final int[] array = IntStream.range(0, 100_000).toArray();
+
+        assertArrayEquals(IntStream.range(0, 100_000).map(i -> i + 1).toArray(), ExArrays.map(IOException.class, array, i -> i + 1));
+    }
+
+    @Test
+    void map_exception() {
+        final int[] array = IntStream.range(0, 100_000).toArray();
+
+        final var thrown = assertThrows(IOException.class, () -> ExArrays.map(IOException.class, array, i -> {
+            if (i == 50_000) {
+                throw new IOException("Test");
+            }
+            return i;
+        }));
+
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void filter() throws IOException {
+        final CharSequence[] result = ExArrays.filter(IOException.class, new String[]{"a", "bb", "c"}, s -> s.length() == 1);
+
+        assertArrayEquals(new String[]{"a", "c"}, result);
+        assertEquals(String[].class, result.getClass());
+    }
+
+    @Test
+    void parallelSetAll() {
+        final String[] strings = new String[3];
+        ExArrays.parallelSetAll(IOException.class, strings, i -> "a" + i);
+        assertArrayEquals(new String[]{"a0", "a1", "a2"}, strings);
+
+        final int[] ints = new int[100_000];
+        ExArrays.parallelSetAll(IOException.class, ints, i -> i * 2);
+        assertArrayEquals(IntStream.range(0, 100_000).map(i -> i * 2).toArray(), ints);
+
+        final long[] longs = new long[3];
+        ExArrays.parallelSetAll(IOException.class, longs, i -> i + 1L);
+        assertArrayEquals(new long[]{1, 2, 3}, longs);
+
+        final double[] doubles = new double[3];
+        ExArrays.parallelSetAll(IOException.class, doubles, i -> i / 2.0);
+        assertArrayEquals(new double[]{0, 0.5, 1}, doubles);
+    }
+
+    @Test
+    void parallelSetAll_exception() {
+        final int[] ints = new int[100_000];
+        final var calls = new AtomicInteger();
+
+        final var thrown = assertThrows(ExException.class, () -> ExArrays.parallelSetAll(IOException.class, ints, i -> {
+            calls.incrementAndGet();
+            throw new IOException("Test");
+        }));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+        assertTrue(calls.get() < ints.length);
+    }
+
+    @Test
+    void parallelSetAll_unwrapped() {
+        final int[] ints = new int[100_000];
+
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> ExArrays.parallelSetAll(IOException.class, ints, i -> {
+                    if (i == 50_000) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                })));
+
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void parallelPrefix() {
+        final String[] strings = {"a", "b", "c"};
+        ExArrays.parallelPrefix(IOException.class, strings, String::concat);
+        assertArrayEquals(new String[]{"a", "ab", "abc"}, strings);
+
+        final int[] ints = {2, 1, 0, 3};
+        ExArrays.parallelPrefix(IOException.class, ints, Integer::sum);
+        assertArrayEquals(new int[]{2, 3, 3, 6}, ints);
+
+        final double[] doubles = {1, 2, 3};
+        ExArrays.parallelPrefix(IOException.class, doubles, (a, b) -> a * b);
+        assertArrayEquals(new double[]{1, 2, 6}, doubles);
+    }
+
+    @Test
+    void parallelPrefix_parallel() {
+        for (final int length : new int[]{8191, 8192, 100_000, 100_003}) {
+            final long[] longs = LongStream.range(0, length).toArray();
+            final long[] expected = longs.clone();
+            Arrays.parallelPrefix(expected, Long::sum);
+
+            ExArrays.parallelPrefix(IOException.class, longs, Long::sum);
+
+            assertArrayEquals(expected, longs);
+        }
+    }
+
+    @Test
+    void parallelPrefix_unwrapped() {
+        final int[] ints = IntStream.range(0, 100_000).toArray();
+
+        assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class).unwrap(() -> ExArrays.parallelPrefix(IOException.class, ints, (a, b) -> {
+            if (b == 70_000) {
+                throw new IOException("Test");
+            }
+            return a + b;
+        })));
+    }
+
+}
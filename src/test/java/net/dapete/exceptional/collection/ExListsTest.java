@@ -0,0 +1,74 @@
+package net.dapete.exceptional.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExListsTest {
+
+    @Test
+    @SuppressWarnings("JdkObsolete") // LinkedList is used as a list without RandomAccess
+    void map() throws IOException {
+        assertEquals(List.of("a1", "a2"), ExLists.map(IOException.class, List.of(1, 2), i -> "a" + i));
+        assertEquals(List.of("a1", "a2"), ExLists.map(IOException.class, new LinkedList<>(List.of(1, 2)), i -> "a" + i));
+        assertThrows(UnsupportedOperationException.class, () -> ExLists.map(IOException.class, List.of(1), i -> i).add(2));
+    }
+
+    @Test
+    void map_parallel() throws IOException {
+        final List<Integer> list = IntStream.range(0, 100_000).boxed().toList();
+
+        final List<Long> result = ExLists.map(IOException.class, list, i -> (long) i * i);
+
+        assertEquals(100_000, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals((long) i * i, result.get(i));
+        }
+    }
+
+    @Test
+    void map_parallelFailureStopsRemainingElements() {
+        final List<Integer> list = IntStream.range(0, 1_000_000).boxed().toList();
+        final var calls = new AtomicInteger();
+
+        final var thrown = assertThrows(IOException.class, () -> ExLists.map(IOException.class, list, i -> {
+            calls.incrementAndGet();
+            if (i == 10) {
+                throw new IOException("Test");
+            }
+            return i;
+        }));
+
+        assertEquals("Test", thrown.getMessage());
+        assertTrue(calls.get() < 1_000_000, "calls " + calls.get());
+    }
+
+    @Test
+    @SuppressWarnings("JdkObsolete") // LinkedList is used as a list without RandomAccess
+    void filter() throws IOException {
+        assertEquals(List.of(2, 4), ExLists.filter(IOException.class, List.of(1, 2, 3, 4), i -> i % 2 == 0));
+        assertEquals(List.of(2, 4), ExLists.filter(IOException.class, new LinkedList<>(List.of(1, 2, 3, 4)), i -> i % 2 == 0));
+
+        final List<Integer> list = IntStream.range(0, 100_000).boxed().toList();
+        assertEquals(IntStream.range(0, 100_000).filter(i -> i % 3 == 0).boxed().toList(), ExLists.filter(IOException.class, list, i -> i % 3 == 0));
+    }
+
+    @Test
+    void filter_exception() {
+        final var thrown = assertThrows(IOException.class, () -> ExLists.filter(IOException.class, List.of(1, 2, 3), i -> {
+            if (i == 2) {
+                throw new IOException("Test");
+            }
+            return true;
+        }));
+
+        assertEquals("Test", thrown.getMessage());
+    }
+
+}
@@ -0,0 +1,187 @@
+package net.dapete.exceptional.collection;
+
+import net.dapete.exceptional.ExException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExMapsTest {
+
+    @Test
+    void computeIfAbsent() throws IOException {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+
+        assertEquals(1, ExMaps.computeIfAbsent(IOException.class, map, "a", String::length));
+        assertEquals(1, ExMaps.computeIfAbsent(IOException.class, map, "a", key -> fail("should not be called")));
+        assertNull(ExMaps.computeIfAbsent(IOException.class, map, "b", key -> null));
+        assertEquals(Map.of("a", 1), map);
+    }
+
+    @Test
+    void computeIfAbsent_exception() {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+
+        final var thrown = assertThrows(IOException.class, () -> ExMaps.computeIfAbsent(IOException.class, map, "a", key -> {
+            throw new IOException("Test");
+        }));
+
+        assertEquals("Test", thrown.getMessage());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void computeIfAbsent_doesNotBlockOtherKeys() throws Exception {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> slow = executor.submit(() -> ExMaps.computeIfAbsent(IOException.class, map, "slow", key -> {
+                started.countDown();
+                await(release);
+                return 1;
+            }));
+            started.await();
+
+            // without a lock held during the computation, writers to other keys are not blocked
+            for (int i = 0; i < 1000; i++) {
+                map.put("key" + i, i);
+            }
+
+            release.countDown();
+            assertEquals(1, slow.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1001, map.size());
+    }
+
+    @Test
+    void computeIfAbsent_concurrentCallsComputeOnce() throws Exception {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+        final var calls = new AtomicInteger();
+        final var release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> ExMaps.computeIfAbsent(IOException.class, map, "a", key -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return 1;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (final Future<Integer> future : futures) {
+                assertEquals(1, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void computeIfAbsent_recursiveUpdate() throws IOException {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+
+        final var thrown = assertThrows(IllegalStateException.class, () -> ExMaps.computeIfAbsent(IOException.class, map, "a",
+                key -> ExMaps.computeIfAbsent(IOException.class, map, "a", String::length)));
+
+        assertEquals("Recursive update", thrown.getMessage());
+        assertTrue(map.isEmpty());
+        // the failed computation is not in progress anymore
+        assertEquals(1, ExMaps.computeIfAbsent(IOException.class, map, "a", String::length));
+    }
+
+    @Test
+    void computeIfAbsent_waitingIsInterruptible() throws Exception {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Integer> loading = executor.submit(() -> ExMaps.computeIfAbsent(IOException.class, map, "a", key -> {
+                started.countDown();
+                await(release);
+                return 1;
+            }));
+            started.await();
+            final Future<Throwable> waiting = executor.submit(() -> {
+                Thread.currentThread().interrupt();
+                final Throwable thrown = assertThrows(ExException.class, () -> ExMaps.computeIfAbsent(IOException.class, map, "a", String::length));
+                assertTrue(Thread.interrupted());
+                return thrown.getCause();
+            });
+
+            assertInstanceOf(InterruptedException.class, waiting.get());
+            release.countDown();
+            assertEquals(1, loading.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void merge() throws IOException {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+
+        assertEquals(1, ExMaps.merge(IOException.class, map, "a", 1, Integer::sum));
+        assertEquals(3, ExMaps.merge(IOException.class, map, "a", 2, Integer::sum));
+        assertNull(ExMaps.merge(IOException.class, map, "a", 3, (oldValue, value) -> null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void merge_exception() {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>(Map.of("a", 1));
+
+        assertThrows(IOException.class, () -> ExMaps.merge(IOException.class, map, "a", 2, (oldValue, value) -> {
+            throw new IOException("Test");
+        }));
+
+        assertEquals(1, map.get("a"));
+    }
+
+    @Test
+    void merge_concurrent() throws Exception {
+        final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        ExMaps.merge(IOException.class, map, "a", 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4000, map.get("a"));
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package net.dapete.exceptional.collection;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void putAndGet() {
+        final var map = new LongLongHashMap();
+
+        assertEquals(0, map.put(1, 10));
+        assertEquals(10, map.put(1, 11));
+        assertEquals(0, map.put(0, 5));
+        assertEquals(0, map.put(-1, 7));
+
+        assertEquals(3, map.size());
+        assertEquals(11, map.get(1));
+        assertEquals(5, map.get(0));
+        assertEquals(7, map.get(-1));
+        assertEquals(0, map.get(2));
+        assertEquals(42, map.getOrDefault(2, 42));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    void addTo() {
+        final var map = new LongLongHashMap();
+
+        assertEquals(1, map.addTo(3, 1));
+        assertEquals(3, map.addTo(3, 2));
+        assertEquals(-1, map.addTo(0, -1));
+
+        assertEquals("{0=-1, 3=3}", map.toString());
+    }
+
+    @Test
+    void remove() {
+        final var map = new LongLongHashMap(0);
+        for (int i = 0; i < 100; i++) {
+            map.put(i * 16L, i);
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(i, map.remove(i * 16L));
+        }
+        assertEquals(0, map.remove(1));
+
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i * 16L));
+        }
+    }
+
+    @Test
+    void randomOperations() {
+        final var random = new Random(42);
+        final var map = new LongLongHashMap();
+        final Map<Long, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            final long key = random.nextLong(1_000) - 500;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(orZero(expected.put(key, (long) i)), map.put(key, i));
+                case 1 -> assertEquals(expected.merge(key, (long) i, Long::sum), map.addTo(key, i));
+                default -> assertEquals(orZero(expected.remove(key)), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (final var entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    private static long orZero(@Nullable Long value) {
+        return value != null ? value : 0;
+    }
+
+    @Test
+    void addAll() {
+        final var map1 = new LongLongHashMap();
+        map1.put(0, 1);
+        map1.put(1, 1);
+        final var map2 = new LongLongHashMap();
+        map2.put(1, 2);
+        map2.put(2, 2);
+
+        map1.addAll(map2);
+
+        assertEquals("{0=1, 1=3, 2=2}", map1.toString());
+    }
+
+    @Test
+    void forEach() throws IOException {
+        final var map = new LongLongHashMap();
+        map.put(0, 1);
+        map.put(5, 2);
+        final Map<Long, Long> entries = new HashMap<>();
+
+        map.<IOException>forEach(entries::put);
+
+        assertEquals(Map.of(0L, 1L, 5L, 2L), entries);
+        assertArrayEquals(new long[]{0, 5}, Arrays.stream(map.keys()).sorted().toArray());
+    }
+
+    @Test
+    void equalsAndHashCode() {
+        final var map1 = new LongLongHashMap();
+        final var map2 = new LongLongHashMap(1_000);
+        for (int i = 0; i < 100; i++) {
+            map1.put(i, i);
+            map2.put(99 - i, 99 - i);
+        }
+
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+
+        map2.put(0, 1);
+        assertNotEquals(map1, map2);
+    }
+
+}
@@ -0,0 +1,272 @@
+package net.dapete.exceptional.concurrent;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExConsumer;
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExSupplier;
+import net.dapete.exceptional.stream.ExStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExLimiterTest {
+
+    @Test
+    void tokenBucket_burst() {
+        final var limiter = ExLimiter.tokenBucket(3, 0.001);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void tokenBucket_acquireWaitsForRefill() throws InterruptedException {
+        final var limiter = ExLimiter.tokenBucket(1, 20);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        final long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // the first permit is available immediately, the other four at 50 ms intervals
+        assertTrue(elapsedMillis >= 150, "elapsed " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void tokenBucket_acquireInterrupted() {
+        final var limiter = ExLimiter.tokenBucket(1, 0.001);
+        assertTrue(limiter.tryAcquire());
+
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, limiter::acquire);
+    }
+
+    @Test
+    void tokenBucket_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.tokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.tokenBucket(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.tokenBucket(1, Double.NaN));
+    }
+
+    @Test
+    void bulkhead_limitsConcurrentCalls() {
+        final var limiter = ExLimiter.bulkhead(2);
+        final var running = new AtomicInteger();
+        final var maxRunning = new AtomicInteger();
+        final ExFunction<Integer, Integer, InterruptedException> function = i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return i;
+        };
+
+        final var result = ExStream.of(IntStream.range(0, 50))
+                .parallel()
+                .map(InterruptedException.class, function.limited(limiter))
+                .toList();
+
+        assertEquals(50, result.size());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void bulkhead_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.bulkhead(0));
+    }
+
+    @Test
+    void limited_failFast() throws IOException {
+        final var limiter = ExLimiter.bulkhead(1);
+        final ExFunction<String, String, IOException> function = s -> s;
+        final var limited = function.limited(limiter, () -> new IOException("rejected"));
+
+        assertEquals("a", limited.apply("a"));
+
+        assertTrue(limiter.tryAcquire());
+        final var thrown = assertThrows(IOException.class, () -> limited.apply("b"));
+        assertEquals("rejected", thrown.getMessage());
+    }
+
+    @Test
+    void limited_fallback() throws IOException {
+        final var limiter = ExLimiter.bulkhead(1);
+        final ExSupplier<String, IOException> supplier = () -> "value";
+        final var limited = supplier.limitedOrElse(limiter, () -> "fallback");
+
+        assertEquals("value", limited.get());
+
+        assertTrue(limiter.tryAcquire());
+        assertEquals("fallback", limited.get());
+    }
+
+    @Test
+    void limited_releasesPermitOnException() {
+        final var limiter = ExLimiter.bulkhead(1);
+        final ExConsumer<String, IOException> consumer = s -> {
+            throw new IOException(s);
+        };
+        final var limited = consumer.limited(limiter);
+
+        assertThrows(IOException.class, () -> limited.accept("a"));
+        assertThrows(IOException.class, () -> limited.accept("b"));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void limited_consumerFallback() throws IOException {
+        final var limiter = ExLimiter.bulkhead(1);
+        final List<String> accepted = new ArrayList<>();
+        final ExConsumer<String, IOException> consumer = accepted::add;
+        final var limited = consumer.limitedOrElse(limiter, s -> accepted.add("fallback " + s));
+
+        limited.accept("a");
+        assertTrue(limiter.tryAcquire());
+        limited.accept("b");
+
+        assertEquals(List.of("a", "fallback b"), accepted);
+    }
+
+    @Test
+    void limited_interrupted() {
+        final var limiter = ExLimiter.bulkhead(1);
+        assertTrue(limiter.tryAcquire());
+        final ExSupplier<String, IOException> supplier = () -> "value";
+
+        Thread.currentThread().interrupt();
+        final var thrown = assertThrows(ExException.class, () -> supplier.limited(limiter).get());
+
+        assertInstanceOf(InterruptedException.class, thrown.getCause());
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void adaptive_increasesWhileUsed() {
+        final var limiter = ExLimiter.adaptive(2, 1, 4, Duration.ofSeconds(10));
+
+        assertEquals(2, limiter.getLimit());
+        for (int round = 0; round < 20; round++) {
+            // use all permits, then release them as successful calls
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            assertEquals(limiter.getLimit(), acquired);
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(0, false);
+            }
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void adaptive_doesNotIncreaseWhileUnused() throws IOException {
+        final var limiter = ExLimiter.adaptive(4, 1, 10, Duration.ofSeconds(10));
+        final ExSupplier<String, IOException> supplier = () -> "value";
+        final var limited = supplier.limited(limiter);
+
+        for (int i = 0; i < 100; i++) {
+            limited.get();
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void adaptive_decreasesOnFailure() {
+        final var limiter = ExLimiter.adaptive(10, 2, 10, Duration.ofSeconds(10));
+        final ExSupplier<String, IOException> supplier = () -> {
+            throw new IOException();
+        };
+        final var limited = supplier.limited(limiter);
+
+        assertThrows(IOException.class, limited::get);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertThrows(IOException.class, limited::get);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void adaptive_decreasesOnHighLatency() {
+        final var limiter = ExLimiter.adaptive(10, 1, 10, Duration.ofNanos(1));
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(1_000, false);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void adaptive_decreasesOncePerRound() throws InterruptedException {
+        final var limiter = ExLimiter.adaptive(100, 1, 100, Duration.ofMillis(1));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        // all calls were started before the first one was released, so only the first one reduces the limit
+        for (int i = 0; i < 100; i++) {
+            limiter.release(Duration.ofSeconds(1).toNanos(), i % 2 == 0);
+        }
+
+        assertEquals(90, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        // calls started after the reduction reduce the limit again
+        assertTrue(limiter.tryAcquire());
+        Thread.sleep(20);
+        limiter.release(Duration.ofMillis(5).toNanos(), false);
+
+        assertEquals(81, limiter.getLimit());
+    }
+
+    @Test
+    void adaptive_releaseWithoutAcquire() {
+        final var limiter = ExLimiter.adaptive(2, 1, 2, Duration.ofSeconds(10));
+
+        assertThrows(IllegalStateException.class, limiter::release);
+        assertThrows(IllegalStateException.class, () -> limiter.release(0, false));
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release();
+        assertThrows(IllegalStateException.class, limiter::release);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void adaptive_limitsConcurrentCalls() {
+        final var limiter = ExLimiter.adaptive(1, 1, 10, Duration.ofSeconds(10));
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getInFlight());
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void adaptive_invalidArguments() {
+        final var threshold = Duration.ofSeconds(1);
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.adaptive(1, 0, 1, threshold));
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.adaptive(2, 2, 1, threshold));
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.adaptive(3, 1, 2, threshold));
+        assertThrows(IllegalArgumentException.class, () -> ExLimiter.adaptive(1, 1, 2, Duration.ZERO));
+    }
+
+}
@@ -0,0 +1,158 @@
+package net.dapete.exceptional.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExScopeTest {
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Test
+    void join() throws IOException, InterruptedException {
+        try (var scope = ExScope.open(IOException.class)) {
+            final ExScope.Subtask<String> first = scope.fork(() -> "first");
+            final ExScope.Subtask<Integer> second = scope.fork(() -> {
+                sleep(20);
+                return 2;
+            });
+
+            scope.join();
+
+            assertEquals("first", first.get());
+            assertEquals(2, second.get());
+        }
+    }
+
+    @Test
+    void join_concurrently() throws InterruptedException {
+        final var allStarted = new CountDownLatch(3);
+        try (var scope = ExScope.open(InterruptedException.class)) {
+            for (int i = 0; i < 3; i++) {
+                scope.fork(() -> {
+                    allStarted.countDown();
+                    // only completes if all subtasks run at the same time
+                    return allStarted.await(5, TimeUnit.SECONDS);
+                });
+            }
+
+            scope.join();
+        }
+        assertEquals(0, allStarted.getCount());
+    }
+
+    @Test
+    void join_failureCancelsOtherSubtasks() throws InterruptedException {
+        final var interrupted = new AtomicBoolean();
+        final var exception = new IOException("Test");
+        final ExScope.Subtask<String> slow;
+
+        try (var scope = ExScope.open(IOException.class)) {
+            slow = scope.fork(() -> {
+                try {
+                    sleep(10_000);
+                } catch (InterruptedIOException e) {
+                    interrupted.set(true);
+                    throw e;
+                }
+                return "slow";
+            });
+            scope.fork(() -> {
+                throw exception;
+            });
+
+            final long start = System.nanoTime();
+            final var thrown = assertThrows(IOException.class, scope::join);
+            assertSame(exception, thrown);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+
+        assertTrue(interrupted.get());
+        assertThrows(IllegalStateException.class, slow::get);
+    }
+
+    @Test
+    void join_runtimeException() {
+        final var exception = new IllegalStateException("Test");
+        try (var scope = ExScope.open(IOException.class)) {
+            scope.fork(() -> {
+                throw exception;
+            });
+
+            assertSame(exception, assertThrows(IllegalStateException.class, scope::join));
+        }
+    }
+
+    @Test
+    void join_interrupted() {
+        try (var scope = ExScope.open(IOException.class)) {
+            scope.fork(() -> {
+                sleep(10_000);
+                return "slow";
+            });
+
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedException.class, scope::join);
+        }
+    }
+
+    @Test
+    void fork_afterFailure() throws InterruptedException {
+        try (var scope = ExScope.open(IOException.class)) {
+            scope.fork(() -> {
+                throw new IOException("Test");
+            });
+            assertThrows(IOException.class, scope::join);
+
+            final var called = new AtomicBoolean();
+            final ExScope.Subtask<String> subtask = scope.fork(() -> {
+                called.set(true);
+                return "late";
+            });
+
+            assertThrows(IOException.class, scope::join);
+            assertThrows(IllegalStateException.class, subtask::get);
+            assertFalse(called.get());
+        }
+    }
+
+    @Test
+    void fork_closed() {
+        final var scope = ExScope.open(IOException.class);
+        scope.close();
+
+        assertThrows(IllegalStateException.class, () -> scope.fork(() -> "closed"));
+        assertThrows(IllegalStateException.class, scope::join);
+    }
+
+    @Test
+    void open_executor() throws IOException, InterruptedException {
+        final var executor = Executors.newFixedThreadPool(2);
+        try {
+            try (var scope = ExScope.open(IOException.class, executor)) {
+                final ExScope.Subtask<String> subtask = scope.fork(() -> Thread.currentThread().getName());
+
+                scope.join();
+
+                assertTrue(subtask.get().startsWith("pool-"));
+            }
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -21,7 +21,7 @@ public class AllExFunctionalInterfacesTest {
 
     @Test
     void numberOfExceptionalFunctionalInterfaces() {
-        assertEquals(47, AllExFunctionalInterfaces.getFunctionalInterfacesClasses().size());
+        assertEquals(57, AllExFunctionalInterfaces.getFunctionalInterfacesClasses().size());
     }
 
     @ParameterizedTest
@@ -0,0 +1,115 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.ExException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExDoubleIteratorTest {
+
+    private static <E extends Exception> List<Double> toList(ExDoubleIterator<E> iterator) throws E {
+        final List<Double> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static <T, E extends Exception> List<T> toList(ExIterator<T, E> iterator) throws E {
+        final List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void array() throws IOException {
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.of(new double[]{1, 2, 3, 4}, 1, 3);
+
+        assertEquals(2, iterator.nextDouble());
+        assertEquals(3, iterator.nextDouble());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::nextDouble);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ExDoubleIterator.of(new double[2], 1, 3));
+    }
+
+    @Test
+    void buffer() throws IOException {
+        final DoubleBuffer buffer = DoubleBuffer.wrap(new double[]{1, 2, 3, 4, 5});
+        buffer.position(1).limit(4);
+
+        assertEquals(List.of(2.0, 3.0, 4.0), toList(ExDoubleIterator.<IOException>of(buffer)));
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void mapFilterTake() throws IOException {
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.<IOException>of(new double[]{1, 2, 3, 4, 5, 6})
+                .filter(d -> {
+                    if (d > 5) {
+                        throw new IOException("Test");
+                    }
+                    return d % 2 == 1;
+                })
+                .map(d -> d / 2)
+                .take(2);
+
+        assertEquals(List.of(0.5, 1.5), toList(iterator));
+    }
+
+    @Test
+    void mapToObj() throws IOException {
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.of(new double[]{0.5, 1.5});
+
+        assertEquals(List.of("0.5", "1.5"), toList(iterator.mapToObj(String::valueOf)));
+    }
+
+    @Test
+    void exceptionIsThrownDirectly() {
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.<IOException>of(new double[]{1, 2, 3})
+                .map(d -> {
+                    if (d == 2) {
+                        throw new IOException("Test");
+                    }
+                    return d;
+                });
+
+        assertThrows(IOException.class, () -> toList(iterator));
+    }
+
+    @Test
+    void wrap() {
+        final PrimitiveIterator.OfDouble iterator = ExDoubleIterator.<IOException>of(new double[]{1, 2})
+                .map(d -> {
+                    if (d == 2) {
+                        throw new IOException("Test");
+                    }
+                    return d;
+                })
+                .wrap();
+
+        assertEquals(1, iterator.nextDouble());
+        assertInstanceOf(IOException.class, assertThrows(ExException.class, iterator::nextDouble).getCause());
+    }
+
+    @Test
+    void unwrap() {
+        final PrimitiveIterator.OfDouble wrapped = ExDoubleIterator.<IOException>of(new double[]{1, 2})
+                .map(d -> {
+                    if (d == 2) {
+                        throw new IOException("Test");
+                    }
+                    return d;
+                })
+                .wrap();
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.of(wrapped, IOException.class);
+
+        assertDoesNotThrow(iterator::nextDouble);
+        assertThrows(IOException.class, iterator::nextDouble);
+    }
+
+}
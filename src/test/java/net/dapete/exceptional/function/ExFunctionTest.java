@@ -0,0 +1,104 @@
+package net.dapete.exceptional.function;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExFunctionTest {
+
+    @Test
+    void singleFlight_sharesResult() throws Exception {
+        final var calls = new AtomicInteger();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final ExFunction<String, String, InterruptedException> function = s -> {
+            calls.incrementAndGet();
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return s + s;
+        };
+        final var singleFlight = function.singleFlight();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<String> first = executor.submit(() -> singleFlight.apply("a"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            final Future<String> second = executor.submit(() -> singleFlight.apply("a"));
+            final Future<String> third = executor.submit(() -> singleFlight.apply("a"));
+            // give the other callers a chance to join the call in progress
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("aa", first.get());
+            assertEquals("aa", second.get());
+            assertEquals("aa", third.get());
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void singleFlight_sharesException() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final ExFunction<String, String, Exception> function = s -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            throw new IOException(s);
+        };
+        final var singleFlight = function.singleFlight();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Exception> first = executor.submit(() -> assertThrows(IOException.class, () -> singleFlight.apply("a")));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            final Future<Exception> second = executor.submit(() -> assertThrows(IOException.class, () -> singleFlight.apply("a")));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("a", first.get().getMessage());
+            assertSame(first.get(), second.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void singleFlight_doesNotCache() throws IOException {
+        final var calls = new AtomicInteger();
+        final ExFunction<String, Integer, IOException> function = s -> calls.incrementAndGet();
+        final var singleFlight = function.singleFlight();
+
+        assertEquals(1, singleFlight.apply("a"));
+        assertEquals(2, singleFlight.apply("a"));
+        assertEquals(3, singleFlight.apply(null));
+    }
+
+    @Test
+    void singleFlight_recursiveCall() throws IOException {
+        final var singleFlight = new AtomicReference<ExFunction<String, Integer, IOException>>();
+        final ExFunction<String, Integer, IOException> function = s -> switch (s) {
+            case "recursive" -> singleFlight.get().apply(s);
+            case "nested" -> singleFlight.get().apply("a") + 1;
+            default -> s.length();
+        };
+        singleFlight.set(function.singleFlight());
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.get().apply("recursive"));
+        // the failed call is no longer in progress
+        assertThrows(IllegalStateException.class, () -> singleFlight.get().apply("recursive"));
+        // calls with other arguments are not affected
+        assertEquals(2, singleFlight.get().apply("nested"));
+    }
+
+}
@@ -0,0 +1,99 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.ExException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExIntIteratorTest {
+
+    private static <E extends Exception> List<Integer> toList(ExIntIterator<E> iterator) throws E {
+        final List<Integer> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static <T, E extends Exception> List<T> toList(ExIterator<T, E> iterator) throws E {
+        final List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void array() throws IOException {
+        final ExIntIterator<IOException> iterator = ExIntIterator.of(new int[]{1, 2, 3, 4}, 1, 3);
+
+        assertEquals(2, iterator.nextInt());
+        assertEquals(3, iterator.nextInt());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::nextInt);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ExIntIterator.of(new int[2], 1, 3));
+    }
+
+    @Test
+    void buffer() throws IOException {
+        final IntBuffer buffer = IntBuffer.wrap(new int[]{1, 2, 3, 4, 5});
+        buffer.position(1).limit(4);
+
+        assertEquals(List.of(2, 3, 4), toList(ExIntIterator.<IOException>of(buffer)));
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void mapFilterTake() throws IOException {
+        final ExIntIterator<IOException> iterator = ExIntIterator.<IOException>of(new int[]{1, 2, 3, 4, 5, 6})
+                .filter(i -> {
+                    if (i > 5) {
+                        throw new IOException("Test");
+                    }
+                    return i % 2 == 1;
+                })
+                .map(i -> i * 10)
+                .take(2);
+
+        assertEquals(List.of(10, 30), toList(iterator));
+    }
+
+    @Test
+    void mapToObj() throws IOException {
+        final ExIntIterator<IOException> iterator = ExIntIterator.of(new int[]{1, 2});
+
+        assertEquals(List.of("1", "2"), toList(iterator.mapToObj(String::valueOf)));
+    }
+
+    @Test
+    void exceptionIsThrownDirectly() {
+        final ExIntIterator<IOException> iterator = ExIntIterator.<IOException>of(new int[]{1, 2, 3})
+                .map(i -> {
+                    if (i == 2) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                });
+
+        assertThrows(IOException.class, () -> toList(iterator));
+    }
+
+    @Test
+    void wrap() {
+        final PrimitiveIterator.OfInt iterator = ExIntIterator.<IOException>of(new int[]{1, 2})
+                .map(i -> {
+                    if (i == 2) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                })
+                .wrap();
+
+        assertEquals(1, iterator.nextInt());
+        assertInstanceOf(IOException.class, assertThrows(ExException.class, iterator::nextInt).getCause());
+    }
+
+}
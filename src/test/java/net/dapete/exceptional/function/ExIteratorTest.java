@@ -0,0 +1,158 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.stream.ExStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExIteratorTest {
+
+    /* Iterator over 0 to size - 1, failing when reaching failAt. */
+    private static ExIterator<Integer, IOException> counter(int size, int failAt) {
+        return new ExIterator<>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() throws IOException {
+                if (next == failAt) {
+                    throw new IOException("Test " + next);
+                }
+                return next++;
+            }
+
+        };
+    }
+
+    private static <T, E extends Exception> List<T> toList(ExIterator<T, E> iterator) throws E {
+        final List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void mapFilterTake() throws IOException {
+        final var iterator = counter(100, -1)
+                .filter(i -> i % 2 == 0)
+                .map(i -> "v" + i)
+                .take(3);
+
+        assertEquals(List.of("v0", "v2", "v4"), toList(iterator));
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void take_isLazy() throws IOException {
+        final var requested = new AtomicInteger();
+        final var iterator = counter(100, -1)
+                .map(i -> {
+                    requested.incrementAndGet();
+                    return i;
+                })
+                .take(2);
+
+        assertEquals(List.of(0, 1), toList(iterator));
+        assertEquals(2, requested.get());
+        assertThrows(IllegalArgumentException.class, () -> counter(1, -1).take(-1));
+    }
+
+    @Test
+    void filter_hasNextIsIdempotent() throws IOException {
+        final var iterator = counter(5, -1).filter(i -> i == 3);
+
+        assertTrue(iterator.hasNext());
+        assertTrue(iterator.hasNext());
+        assertEquals(3, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void exceptionIsThrownDirectly() {
+        final var iterator = counter(10, 2).map(i -> i * 10);
+
+        final var thrown = assertThrows(IOException.class, () -> toList(iterator));
+        assertEquals("Test 2", thrown.getMessage());
+    }
+
+    @Test
+    void wrap() {
+        final Iterator<Integer> iterator = counter(10, 1).wrap();
+
+        assertEquals(0, iterator.next());
+        final var thrown = assertThrows(ExException.class, iterator::next);
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void empty() throws IOException {
+        final ExIterator<String, IOException> iterator = ExIterator.empty();
+
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void iterable() throws IOException {
+        final ExIterable<Integer, IOException> iterable = () -> counter(5, -1);
+        final var mapped = iterable.filter(i -> i > 0).map(i -> i * i).take(3);
+
+        final List<Integer> first = new ArrayList<>();
+        mapped.forEach(first::add);
+        final List<Integer> second = new ArrayList<>();
+        mapped.forEach(second::add);
+
+        assertEquals(List.of(1, 4, 9), first);
+        assertEquals(first, second);
+
+        final List<Integer> wrapped = new ArrayList<>();
+        iterable.wrap().forEach(wrapped::add);
+        assertEquals(List.of(0, 1, 2, 3, 4), wrapped);
+    }
+
+    @Test
+    void iterable_of() throws IOException {
+        final ExIterable<String, IOException> iterable = ExIterable.of(List.of("a", "b"), IOException.class);
+
+        assertEquals(List.of("A", "B"), toList(iterable.map(s -> s.toUpperCase(Locale.ROOT)).iterator()));
+    }
+
+    @Test
+    void fromStream() {
+        final ExIterator<Integer, IOException> iterator = ExStream.of(1, 2, 3)
+                .map(IOException.class, i -> {
+                    if (i == 3) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                })
+                .iterator(IOException.class);
+
+        final var thrown = assertThrows(IOException.class, () -> toList(iterator));
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void toStream() {
+        final var stream = ExStream.fromIterator(IOException.class, counter(10, 5));
+
+        final var thrown = assertThrows(ExException.class, stream::toList);
+        assertInstanceOf(IOException.class, thrown.getCause());
+
+        assertEquals(List.of(0, 1, 2, 3), ExStream.fromIterable(IOException.class, () -> counter(4, -1)).toList());
+    }
+
+}
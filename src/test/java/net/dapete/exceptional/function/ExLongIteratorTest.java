@@ -0,0 +1,115 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.ExException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExLongIteratorTest {
+
+    private static <E extends Exception> List<Long> toList(ExLongIterator<E> iterator) throws E {
+        final List<Long> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static <T, E extends Exception> List<T> toList(ExIterator<T, E> iterator) throws E {
+        final List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void array() throws IOException {
+        final ExLongIterator<IOException> iterator = ExLongIterator.of(new long[]{1, 2, 3, 4}, 1, 3);
+
+        assertEquals(2, iterator.nextLong());
+        assertEquals(3, iterator.nextLong());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::nextLong);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ExLongIterator.of(new long[2], 1, 3));
+    }
+
+    @Test
+    void buffer() throws IOException {
+        final LongBuffer buffer = LongBuffer.wrap(new long[]{1, 2, 3, 4, 5});
+        buffer.position(1).limit(4);
+
+        assertEquals(List.of(2L, 3L, 4L), toList(ExLongIterator.<IOException>of(buffer)));
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void mapFilterTake() throws IOException {
+        final ExLongIterator<IOException> iterator = ExLongIterator.<IOException>of(new long[]{1, 2, 3, 4, 5, 6})
+                .filter(l -> {
+                    if (l > 5) {
+                        throw new IOException("Test");
+                    }
+                    return l % 2 == 1;
+                })
+                .map(l -> l * 10_000_000_000L)
+                .take(2);
+
+        assertEquals(List.of(10_000_000_000L, 30_000_000_000L), toList(iterator));
+    }
+
+    @Test
+    void mapToObj() throws IOException {
+        final ExLongIterator<IOException> iterator = ExLongIterator.of(new long[]{1, 2});
+
+        assertEquals(List.of("1", "2"), toList(iterator.mapToObj(String::valueOf)));
+    }
+
+    @Test
+    void exceptionIsThrownDirectly() {
+        final ExLongIterator<IOException> iterator = ExLongIterator.<IOException>of(new long[]{1, 2, 3})
+                .map(l -> {
+                    if (l == 2) {
+                        throw new IOException("Test");
+                    }
+                    return l;
+                });
+
+        assertThrows(IOException.class, () -> toList(iterator));
+    }
+
+    @Test
+    void wrap() {
+        final PrimitiveIterator.OfLong iterator = ExLongIterator.<IOException>of(new long[]{1, 2})
+                .map(l -> {
+                    if (l == 2) {
+                        throw new IOException("Test");
+                    }
+                    return l;
+                })
+                .wrap();
+
+        assertEquals(1, iterator.nextLong());
+        assertInstanceOf(IOException.class, assertThrows(ExException.class, iterator::nextLong).getCause());
+    }
+
+    @Test
+    void unwrap() {
+        final PrimitiveIterator.OfLong wrapped = ExLongIterator.<IOException>of(new long[]{1, 2})
+                .map(l -> {
+                    if (l == 2) {
+                        throw new IOException("Test");
+                    }
+                    return l;
+                })
+                .wrap();
+        final ExLongIterator<IOException> iterator = ExLongIterator.of(wrapped, IOException.class);
+
+        assertDoesNotThrow(iterator::nextLong);
+        assertThrows(IOException.class, iterator::nextLong);
+    }
+
+}
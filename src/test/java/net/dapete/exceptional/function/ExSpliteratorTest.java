@@ -0,0 +1,168 @@
+package net.dapete.exceptional.function;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.stream.ExIntStream;
+import net.dapete.exceptional.stream.ExStream;
+import net.dapete.exceptional.wrap.ExUnwrapper;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExSpliteratorTest {
+
+    /* A splittable range of ints, like a source reading segments, which throws an IOException when reaching failAt. */
+    private static final class Range implements ExIntSpliterator<IOException> {
+
+        private int from;
+
+        private final int to;
+
+        private final int failAt;
+
+        private Range(int from, int to, int failAt) {
+            this.from = from;
+            this.to = to;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean tryAdvance(ExIntConsumer<? extends IOException> action) throws IOException {
+            if (from >= to) {
+                return false;
+            }
+            if (from == failAt) {
+                throw new IOException("Test");
+            }
+            action.accept(from++);
+            return true;
+        }
+
+        @Override
+        public @Nullable Range trySplit() {
+            final int middle = (from + to) >>> 1;
+            if (middle - from < 16) {
+                return null;
+            }
+            final var prefix = new Range(from, middle, failAt);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+    }
+
+    private static ExSpliterator<Integer, IOException> boxed(Range range) {
+        return new ExSpliterator<>() {
+
+            @Override
+            public boolean tryAdvance(ExConsumer<? super Integer, ? extends IOException> action) throws IOException {
+                return range.tryAdvance(action::accept);
+            }
+
+            @Override
+            public @Nullable ExSpliterator<Integer, IOException> trySplit() {
+                final Range prefix = range.trySplit();
+                return prefix != null ? boxed(prefix) : null;
+            }
+
+            @Override
+            public long estimateSize() {
+                return range.estimateSize();
+            }
+
+            @Override
+            public int characteristics() {
+                return range.characteristics();
+            }
+
+        };
+    }
+
+    @Test
+    void fromSource() {
+        final List<Integer> result = ExStream.fromSource(IOException.class, boxed(new Range(0, 5, -1)))
+                .map(IOException.class, i -> i * 2)
+                .toList();
+
+        assertEquals(List.of(0, 2, 4, 6, 8), result);
+    }
+
+    @Test
+    void fromSource_parallel() {
+        final var stream = ExIntStream.fromSource(IOException.class, new Range(0, 100_000, -1)).parallel();
+
+        assertTrue(stream.isParallel());
+        assertEquals(IntStream.range(0, 100_000).asLongStream().sum(), stream.asLongStream().sum());
+    }
+
+    @Test
+    void fromSource_exception() {
+        final var thrown = assertThrows(ExException.class,
+                () -> ExIntStream.fromSource(IOException.class, new Range(0, 100_000, 60_000)).parallel().sum());
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void fromSource_unwrapped() {
+        assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> ExIntStream.fromSource(IOException.class, new Range(0, 10, 5)).toArray()));
+    }
+
+    @Test
+    void wrap_trySplitException() {
+        final ExSpliterator<String, IOException> spliterator = new ExSpliterator<>() {
+
+            @Override
+            public boolean tryAdvance(ExConsumer<? super String, ? extends IOException> action) {
+                return false;
+            }
+
+            @Override
+            public @Nullable ExSpliterator<String, IOException> trySplit() throws IOException {
+                throw new IOException("Test");
+            }
+
+            @Override
+            public long estimateSize() {
+                return 0;
+            }
+
+            @Override
+            public int characteristics() {
+                return 0;
+            }
+
+        };
+
+        final var thrown = assertThrows(ExException.class, () -> spliterator.wrap().trySplit());
+
+        assertEquals("Test", thrown.getCause().getMessage());
+    }
+
+    @Test
+    void forEachRemaining() throws IOException {
+        final List<Integer> elements = new ArrayList<>();
+
+        boxed(new Range(0, 3, -1)).forEachRemaining(elements::add);
+
+        assertEquals(List.of(0, 1, 2), elements);
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.dapete.exceptional.function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExSupplierTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hedged_backupAttemptWins() throws Exception {
+        final var attempts = new AtomicInteger();
+        final var firstCancelled = new CountDownLatch(1);
+        final ExSupplier<String, Exception> supplier = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    firstCancelled.countDown();
+                    throw e;
+                }
+                return "slow";
+            }
+            return "fast";
+        };
+
+        assertEquals("fast", supplier.hedged(Duration.ofMillis(50), 3, executor).get());
+        assertEquals(2, attempts.get());
+        assertTrue(firstCancelled.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hedged_firstAttemptWithinDelay() throws IOException {
+        final var attempts = new AtomicInteger();
+        final ExSupplier<Integer, IOException> supplier = attempts::incrementAndGet;
+
+        assertEquals(1, supplier.hedged(Duration.ofSeconds(10), 3, executor).get());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedged_failureOnlyAfterAllAttemptsFailed() {
+        final var attempts = new AtomicInteger();
+        final ExSupplier<String, IOException> supplier = () -> {
+            throw new IOException("attempt " + attempts.incrementAndGet());
+        };
+
+        final var thrown = assertThrows(IOException.class, () -> supplier.hedged(Duration.ofSeconds(10), 3, executor).get());
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, thrown.getSuppressed().length);
+    }
+
+    @Test
+    void hedged_sameFailureOfAllAttempts() {
+        final var exception = new IOException("Test");
+        final ExSupplier<String, IOException> supplier = () -> {
+            throw exception;
+        };
+
+        final var thrown = assertThrows(IOException.class, () -> supplier.hedged(Duration.ofSeconds(10), 3, executor).get());
+
+        assertSame(exception, thrown);
+        assertEquals(0, thrown.getSuppressed().length);
+    }
+
+    @Test
+    void hedged_failureThenSuccess() throws IOException {
+        final var attempts = new AtomicInteger();
+        final ExSupplier<String, IOException> supplier = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException();
+            }
+            return "second";
+        };
+
+        assertEquals("second", supplier.hedged(Duration.ofSeconds(10), 2, executor).get());
+    }
+
+    @Test
+    void hedged_invalidArguments() {
+        final ExSupplier<String, IOException> supplier = () -> "";
+
+        assertThrows(IllegalArgumentException.class, () -> supplier.hedged(Duration.ofMillis(-1), 1, executor));
+        assertThrows(IllegalArgumentException.class, () -> supplier.hedged(Duration.ZERO, 0, executor));
+    }
+
+}
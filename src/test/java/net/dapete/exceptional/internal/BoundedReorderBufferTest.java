@@ -0,0 +1,64 @@
+package net.dapete.exceptional.internal;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedReorderBufferTest {
+
+    /* A spliterator recording the size of each part processed with forEachRemaining. */
+    private record Recording(Spliterator<Integer> spliterator, ConcurrentLinkedQueue<Long> leafSizes) implements Spliterator<Integer> {
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Integer> action) {
+            return spliterator.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Integer> action) {
+            leafSizes.add(spliterator.estimateSize());
+            spliterator.forEachRemaining(action);
+        }
+
+        @Override
+        public @Nullable Spliterator<Integer> trySplit() {
+            final Spliterator<Integer> prefix = spliterator.trySplit();
+            return prefix != null ? new Recording(prefix, leafSizes) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return spliterator.characteristics();
+        }
+
+    }
+
+    @Test
+    void forEachOrdered_leavesOfSplitThreshold() {
+        final Integer[] elements = IntStream.range(0, 10_000).boxed().toArray(Integer[]::new);
+        final var leafSizes = new ConcurrentLinkedQueue<Long>();
+        final List<Integer> result = new ArrayList<>();
+
+        BoundedReorderBuffer.forEachOrdered(new Recording(Spliterators.spliterator(elements, Spliterator.ORDERED), leafSizes), 64, result::add);
+
+        assertEquals(List.of(elements), result);
+        final long splitThreshold = elements.length / (ForkJoinPool.commonPool().getParallelism() * 4L);
+        assertTrue(leafSizes.stream().allMatch(size -> size <= splitThreshold), "leaf sizes " + leafSizes);
+    }
+
+}
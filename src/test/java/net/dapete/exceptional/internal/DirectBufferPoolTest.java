@@ -0,0 +1,44 @@
+package net.dapete.exceptional.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectBufferPoolTest {
+
+    @Test
+    void acquire_reusesReleasedBuffer() {
+        final ByteBuffer buffer = DirectBufferPool.acquire(4099);
+        buffer.put((byte) 1);
+        DirectBufferPool.release(buffer);
+
+        final ByteBuffer reused = DirectBufferPool.acquire(4099);
+
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(4099, reused.limit());
+        DirectBufferPool.release(reused);
+    }
+
+    @Test
+    void release_boundsPooledBytesOfAllCapacities() {
+        // distinct capacities of 1 MiB each, 80 MiB in total
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            buffers.add(DirectBufferPool.acquire((1 << 20) + i));
+        }
+
+        buffers.forEach(DirectBufferPool::release);
+
+        assertTrue(DirectBufferPool.pooledBytes() <= 1L << 26, () -> DirectBufferPool.pooledBytes() + " bytes pooled");
+        for (int i = 0; i < 80; i++) {
+            DirectBufferPool.release(DirectBufferPool.acquire((1 << 20) + i));
+        }
+        assertTrue(DirectBufferPool.pooledBytes() <= 1L << 26, () -> DirectBufferPool.pooledBytes() + " bytes pooled");
+    }
+
+}
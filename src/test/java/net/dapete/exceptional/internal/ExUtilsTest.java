@@ -79,4 +79,43 @@ class ExUtilsTest {
 
     }
 
+    @Test
+    void rethrow_checked() {
+
+        final IOException exception = new IOException();
+
+        final var thrown = assertThrows(IOException.class, () -> {
+            throw ExUtils.<IOException>rethrow(exception);
+        });
+
+        assertSame(exception, thrown);
+
+    }
+
+    @Test
+    void rethrow_unchecked() {
+
+        final IllegalStateException exception = new IllegalStateException();
+
+        final var thrown = assertThrows(IllegalStateException.class, () -> {
+            throw ExUtils.rethrow(exception);
+        });
+
+        assertSame(exception, thrown);
+
+    }
+
+    @Test
+    void rethrow_error() {
+
+        final AssertionError error = new AssertionError();
+
+        final var thrown = assertThrows(AssertionError.class, () -> {
+            throw ExUtils.rethrow(error);
+        });
+
+        assertSame(error, thrown);
+
+    }
+
 }
@@ -0,0 +1,87 @@
+package net.dapete.exceptional.internal;
+
+import net.dapete.exceptional.function.ExSpliterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileLinesTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private List<String> readLines(String content, int windowSize, int minSplitSize, boolean parallel) throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, content);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ExSpliterator<String, IOException> spliterator = FileLines.mapped(channel, StandardCharsets.UTF_8, windowSize, minSplitSize);
+            return StreamSupport.stream(spliterator.wrap(), parallel).toList();
+        }
+    }
+
+    @Test
+    void mapped_terminators() throws IOException {
+        assertEquals(List.of("a", "b", "", "c", "d"), readLines("a\nb\r\n\rc\rd", 1024, 1024, false));
+        assertEquals(List.of("a", "b"), readLines("a\nb\n", 1024, 1024, false));
+        assertEquals(List.of(""), readLines("\n", 1024, 1024, false));
+        assertEquals(List.of(), readLines("", 1024, 1024, false));
+        assertEquals(List.of("äö", "ü"), readLines("äö\nü", 1024, 1024, false));
+    }
+
+    @Test
+    void mapped_linesSpanningWindows() throws IOException {
+        final List<String> lines = List.of("first line", "x".repeat(50), "", "äöü", "last");
+
+        // windows of 7 bytes, so most lines and "\r\n" pairs span windows
+        assertEquals(lines, readLines(String.join("\r\n", lines), 7, 1024, false));
+    }
+
+    @Test
+    void mapped_parallel() throws IOException {
+        final List<String> lines = IntStream.range(0, 10_000).mapToObj(i -> "line " + i).toList();
+
+        assertEquals(lines, readLines(String.join("\r\n", lines) + "\r\n", 64, 16, true));
+    }
+
+    @Test
+    void mapped_trySplitAtLineBoundaries() throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, IntStream.range(0, 1000).mapToObj(i -> "line " + i).collect(Collectors.joining("\n")));
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var suffix = FileLines.mapped(channel, StandardCharsets.UTF_8, 100, 16);
+            final var prefix = suffix.trySplit();
+            assertNotNull(prefix);
+
+            final List<String> lines = new ArrayList<>();
+            prefix.forEachRemaining(lines::add);
+            final int prefixSize = lines.size();
+            suffix.forEachRemaining(lines::add);
+
+            assertTrue(prefixSize > 0 && prefixSize < 1000);
+            assertEquals(IntStream.range(0, 1000).mapToObj(i -> "line " + i).toList(), lines);
+        }
+    }
+
+    @Test
+    void mapped_unsupportedCharset() throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, "a");
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThrows(IllegalArgumentException.class, () -> FileLines.mapped(channel, StandardCharsets.UTF_16));
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.wrap.ExUnwrapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExCollectorsTest {
+
+    @Test
+    void groupingBy() {
+        final var result = ExStream.of("a", "bb", "cc", "ddd")
+                .collect(ExCollectors.groupingBy(IOException.class, String::length));
+
+        assertEquals(Map.of(1, List.of("a"), 2, List.of("bb", "cc"), 3, List.of("ddd")), result);
+    }
+
+    @Test
+    void groupingBy_downstream() {
+        final var result = ExStream.of("a", "bb", "cc", "ddd")
+                .collect(ExCollectors.groupingBy(IOException.class, String::length, Collectors.counting()));
+
+        assertEquals(Map.of(1, 1L, 2, 2L, 3, 1L), result);
+    }
+
+    @Test
+    void groupingBy_exception() {
+        final Collector<String, ?, Map<Integer, List<String>>> collector = ExCollectors.groupingBy(IOException.class, s -> {
+            throw new IOException(s);
+        });
+
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> ExStream.of("a").collect(collector)));
+
+        assertEquals("a", thrown.getMessage());
+    }
+
+    @Test
+    void groupingByConcurrent() {
+        final var result = ExStream.of(IntStream.range(0, 10_000))
+                .parallel()
+                .collect(ExCollectors.groupingByConcurrent(IOException.class, i -> i % 3, Collectors.counting()));
+
+        assertEquals(Map.of(0, 3334L, 1, 3333L, 2, 3333L), result);
+        assertTrue(ExCollectors.groupingByConcurrent(IOException.class, i -> i).characteristics().contains(Collector.Characteristics.CONCURRENT));
+    }
+
+    @Test
+    void toMap() {
+        final var result = ExStream.of("a", "bb")
+                .collect(ExCollectors.toMap(IOException.class, s -> s, String::length));
+
+        assertEquals(Map.of("a", 1, "bb", 2), result);
+    }
+
+    @Test
+    void toMap_merge() {
+        final var result = ExStream.of("a", "b", "cc")
+                .collect(ExCollectors.toMap(IOException.class, String::length, s -> s, (s1, s2) -> s1 + s2));
+
+        assertEquals(Map.of(1, "ab", 2, "cc"), result);
+    }
+
+    @Test
+    void toConcurrentMap() {
+        final var result = ExStream.of(IntStream.range(0, 1_000))
+                .parallel()
+                .collect(ExCollectors.toConcurrentMap(IOException.class, i -> i % 10, i -> 1, Integer::sum));
+
+        assertEquals(10, result.size());
+        assertTrue(result.values().stream().allMatch(count -> count == 100));
+    }
+
+    @Test
+    void toConcurrentMap_exception() {
+        final var thrown = assertThrows(ExException.class, () -> ExStream.of(IntStream.range(0, 1_000))
+                .parallel()
+                .collect(ExCollectors.toConcurrentMap(IOException.class, i -> {
+                    if (i == 500) {
+                        throw new IOException();
+                    }
+                    return i;
+                }, i -> i)));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void partitioningBy() {
+        final var result = ExStream.of(1, 2, 3, 4)
+                .collect(ExCollectors.partitioningBy(IOException.class, i -> i % 2 == 0));
+
+        assertEquals(Map.of(true, List.of(2, 4), false, List.of(1, 3)), result);
+    }
+
+    @Test
+    void partitioningBy_downstream() {
+        final var result = ExStream.of(1, 2, 3, 4)
+                .collect(ExCollectors.partitioningBy(IOException.class, i -> i % 2 == 0, Collectors.summingInt(i -> i)));
+
+        assertEquals(Map.of(true, 6, false, 4), result);
+    }
+
+    @Test
+    void mappingAndFiltering() {
+        final var result = ExStream.of("a", "bb", "cc", "ddd")
+                .collect(ExCollectors.groupingBy(IOException.class, String::length,
+                        ExCollectors.filtering(IOException.class, s -> !s.startsWith("c"),
+                                ExCollectors.mapping(IOException.class, s -> s.charAt(0), Collectors.toList()))));
+
+        assertEquals(Map.of(1, List.of('a'), 2, List.of('b'), 3, List.of('d')), result);
+    }
+
+}
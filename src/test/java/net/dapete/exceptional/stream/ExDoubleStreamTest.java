@@ -1,9 +1,12 @@
 package net.dapete.exceptional.stream;
 
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.function.ExDoubleIterator;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,4 +34,36 @@ class ExDoubleStreamTest {
                 });
     }
 
+    @Test
+    void chunked() {
+        final var result = ExDoubleStream.of(1, 2, 3).chunked(2).toList();
+
+        assertEquals(2, result.size());
+        assertArrayEquals(new double[]{1, 2}, result.get(0));
+        assertArrayEquals(new double[]{3}, result.get(1));
+    }
+
+    @Test
+    void iterator() {
+        final ExDoubleIterator<IOException> iterator = ExDoubleStream.of(1, 2, 3)
+                .map(IOException.class, d -> {
+                    if (d == 3) {
+                        throw new IOException("Test");
+                    }
+                    return d * 2;
+                })
+                .iterator(IOException.class);
+
+        final List<Double> values = new ArrayList<>();
+        assertThrows(IOException.class, () -> iterator.forEachRemaining(values::add));
+        assertEquals(List.of(2.0, 4.0), values);
+    }
+
+    @Test
+    void fromIterator() {
+        final ExDoubleIterator<IOException> iterator = ExDoubleIterator.<IOException>of(new double[]{1, 2, 3}).filter(d -> d > 1);
+
+        assertArrayEquals(new double[]{2, 3}, ExDoubleStream.fromIterator(IOException.class, iterator).toArray());
+    }
+
 }
@@ -1,9 +1,16 @@
 package net.dapete.exceptional.stream;
 
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.collection.IntLongHashMap;
+import net.dapete.exceptional.function.ExIntIterator;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,4 +38,132 @@ class ExIntStreamTest {
                 });
     }
 
+    @Test
+    void groupingCount() {
+        final var result = ExIntStream.of(1, 2, 3, 4, 5)
+                .groupingCount(IOException.class, i -> i % 2);
+
+        final var expected = new IntLongHashMap();
+        expected.put(0, 2);
+        expected.put(1, 3);
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void groupingCount_parallel() {
+        final var result = ExIntStream.of(IntStream.range(0, 100_000))
+                .parallel()
+                .groupingCount(IOException.class, i -> i % 7);
+
+        assertEquals(7, result.size());
+        assertEquals(14_286, result.get(0));
+        assertEquals(14_285, result.get(6));
+    }
+
+    @Test
+    void groupingCount_exception() {
+        final var thrown = assertThrows(ExException.class,
+                () -> ExIntStream.of(1, 2, 3)
+                        .groupingCount(IOException.class, i -> {
+                            throw new IOException("Test");
+                        }));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void groupingSum() {
+        final var result = ExIntStream.of(IntStream.rangeClosed(1, 1_000))
+                .parallel()
+                .groupingSum(IOException.class, i -> i % 2, i -> i);
+
+        assertEquals(250_500, result.get(0));
+        assertEquals(250_000, result.get(1));
+    }
+
+    @Test
+    void chunked() {
+        final var result = ExIntStream.of(1, 2, 3, 4, 5).chunked(2).toList();
+
+        assertEquals(3, result.size());
+        assertArrayEquals(new int[]{1, 2}, result.get(0));
+        assertArrayEquals(new int[]{3, 4}, result.get(1));
+        assertArrayEquals(new int[]{5}, result.get(2));
+    }
+
+    @Test
+    void chunked_parallel() {
+        for (int size = 1; size < 20; size++) {
+            final var result = ExIntStream.of(IntStream.range(0, 1_001)).parallel().chunked(size).toList();
+
+            assertEquals((1_001 + size - 1) / size, result.size());
+            assertArrayEquals(IntStream.range(0, 1_001).toArray(), result.stream().flatMapToInt(Arrays::stream).toArray());
+            for (int i = 0; i < result.size() - 1; i++) {
+                assertEquals(size, result.get(i).length);
+            }
+        }
+    }
+
+    @Test
+    void chunked_reuseBuffer() {
+        final List<int[]> chunks = new ArrayList<>();
+        final List<Integer> sums = new ArrayList<>();
+
+        ExIntStream.of(1, 2, 3, 4, 5).chunked(2, true).forEach(chunk -> {
+            chunks.add(chunk);
+            sums.add(Arrays.stream(chunk).sum());
+        });
+
+        assertEquals(List.of(3, 7, 5), sums);
+        assertSame(chunks.get(0), chunks.get(1));
+        assertNotSame(chunks.get(1), chunks.get(2));
+    }
+
+    @Test
+    void instrumented() {
+        final var stream = ExIntStream.of(IntStream.range(0, 1_000)).instrumented("job");
+
+        final var result = stream
+                .map(IOException.class, i -> i % 10)
+                .groupingSum(IOException.class, i -> i, i -> i);
+
+        assertEquals(10, result.size());
+        final var stages = stream.report().stages();
+        assertEquals(3, stages.size());
+        assertEquals("groupingSum(valueFunction)", stages.get(2).name());
+        assertEquals(1_000, stages.get(2).in());
+    }
+
+    @Test
+    void forEachConcurrent() {
+        final var sum = new AtomicLong();
+
+        ExIntStream.of(IntStream.rangeClosed(1, 100)).forEachConcurrent(IOException.class, 4, sum::addAndGet);
+
+        assertEquals(5_050, sum.get());
+    }
+
+    @Test
+    void iterator() {
+        final ExIntIterator<IOException> iterator = ExIntStream.of(1, 2, 3)
+                .map(IOException.class, i -> {
+                    if (i == 3) {
+                        throw new IOException("Test");
+                    }
+                    return i * 2;
+                })
+                .iterator(IOException.class);
+
+        final List<Integer> values = new ArrayList<>();
+        assertThrows(IOException.class, () -> iterator.forEachRemaining(values::add));
+        assertEquals(List.of(2, 4), values);
+    }
+
+    @Test
+    void fromIterator() {
+        final ExIntIterator<IOException> iterator = ExIntIterator.<IOException>of(new int[]{1, 2, 3}).filter(i -> i > 1);
+
+        assertArrayEquals(new int[]{2, 3}, ExIntStream.fromIterator(IOException.class, iterator).toArray());
+    }
+
 }
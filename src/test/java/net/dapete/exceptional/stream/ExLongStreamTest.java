@@ -1,9 +1,15 @@
 package net.dapete.exceptional.stream;
 
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.collection.LongLongHashMap;
+import net.dapete.exceptional.function.ExLongIterator;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,4 +37,78 @@ class ExLongStreamTest {
                 });
     }
 
+    @Test
+    void groupingCount() {
+        final var result = ExLongStream.of(1, 2, 3, 4, 5)
+                .groupingCount(IOException.class, i -> i % 2);
+
+        final var expected = new LongLongHashMap();
+        expected.put(0, 2);
+        expected.put(1, 3);
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void groupingCount_parallel() {
+        final var result = ExLongStream.of(LongStream.range(0, 100_000))
+                .parallel()
+                .groupingCount(IOException.class, i -> i % 7);
+
+        assertEquals(7, result.size());
+        assertEquals(14_286, result.get(0));
+        assertEquals(14_285, result.get(6));
+    }
+
+    @Test
+    void groupingCount_exception() {
+        final var thrown = assertThrows(ExException.class,
+                () -> ExLongStream.of(1, 2, 3)
+                        .groupingCount(IOException.class, i -> {
+                            throw new IOException("Test");
+                        }));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void groupingSum() {
+        final var result = ExLongStream.of(LongStream.rangeClosed(1, 1_000))
+                .parallel()
+                .groupingSum(IOException.class, i -> i % 2, i -> i);
+
+        assertEquals(250_500, result.get(0));
+        assertEquals(250_000, result.get(1));
+    }
+
+    @Test
+    void chunked_parallel() {
+        final var result = ExLongStream.of(LongStream.range(0, 1_000)).parallel().chunked(7).toList();
+
+        assertEquals(143, result.size());
+        assertArrayEquals(LongStream.range(0, 1_000).toArray(), result.stream().flatMapToLong(Arrays::stream).toArray());
+    }
+
+    @Test
+    void iterator() {
+        final ExLongIterator<IOException> iterator = ExLongStream.of(1, 2, 3)
+                .map(IOException.class, l -> {
+                    if (l == 3) {
+                        throw new IOException("Test");
+                    }
+                    return l * 2;
+                })
+                .iterator(IOException.class);
+
+        final List<Long> values = new ArrayList<>();
+        assertThrows(IOException.class, () -> iterator.forEachRemaining(values::add));
+        assertEquals(List.of(2L, 4L), values);
+    }
+
+    @Test
+    void fromIterator() {
+        final ExLongIterator<IOException> iterator = ExLongIterator.<IOException>of(new long[]{1, 2, 3}).filter(l -> l > 1);
+
+        assertArrayEquals(new long[]{2, 3}, ExLongStream.fromIterator(IOException.class, iterator).toArray());
+    }
+
 }
@@ -0,0 +1,77 @@
+package net.dapete.exceptional.stream;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Simple benchmark comparing {@link ExSequence} with {@link ExStream} for short pipelines. Run its {@code main} method directly, it is not a test.
+ * <p>
+ * Each iteration runs a pipeline with a checked {@code filter} and {@code map} over lists of a few elements, as typical on a request path. The results are
+ * summed to keep the JIT from removing the work.
+ */
+public final class ExSequenceBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 10;
+
+    private static final int ITERATIONS = 1_000_000;
+
+    // Utility class with private constructor
+    private ExSequenceBenchmark() {
+    }
+
+    private static String format(int i) throws IOException {
+        if (i < 0) {
+            throw new IOException("negative");
+        }
+        return Integer.toString(i);
+    }
+
+    private static long exStream(List<Integer> input) {
+        return ExStream.of(input)
+                .filter(IOException.class, i -> i % 3 != 0)
+                .map(IOException.class, ExSequenceBenchmark::format)
+                .mapToInt(String::length)
+                .sum();
+    }
+
+    private static long exSequence(List<Integer> input) throws IOException {
+        return ExSequence.of(IOException.class, input)
+                .filter(i -> i % 3 != 0)
+                .map(ExSequenceBenchmark::format)
+                .map(String::length)
+                .reduce(0, Integer::sum);
+    }
+
+    public static void main(String[] args) throws IOException {
+        for (final int size : new int[]{3, 10, 50, 1_000}) {
+            final List<Integer> input = IntStream.range(0, size).boxed().toList();
+            final int iterations = Math.max(1, ITERATIONS / size * 10);
+            long blackhole = 0;
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += exStream(input) + exSequence(input);
+                }
+            }
+            long streamNanos = Long.MAX_VALUE;
+            long sequenceNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += exStream(input);
+                }
+                streamNanos = Math.min(streamNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += exSequence(input);
+                }
+                sequenceNanos = Math.min(sequenceNanos, System.nanoTime() - start);
+            }
+            System.out.printf("size %5d: ExStream %8.1f ns/op, ExSequence %8.1f ns/op (%d)%n",
+                    size, (double) streamNanos / iterations, (double) sequenceNanos / iterations, blackhole % 10);
+        }
+    }
+
+}
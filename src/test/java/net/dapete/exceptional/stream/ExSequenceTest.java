@@ -0,0 +1,115 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.function.ExIterator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExSequenceTest {
+
+    @Test
+    void mapFilter() throws IOException {
+        final List<String> result = ExSequence.of(IOException.class, 1, 2, 3, 4, 5)
+                .filter(i -> i % 2 == 1)
+                .map(i -> "v" + i)
+                .toList();
+
+        assertEquals(List.of("v1", "v3", "v5"), result);
+    }
+
+    @Test
+    void exceptionIsThrownDirectly() {
+        final var sequence = ExSequence.of(IOException.class, List.of(1, 2, 3))
+                .map(i -> {
+                    if (i == 2) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                });
+
+        final var thrown = assertThrows(IOException.class, sequence::toList);
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void limit_isLazy() throws IOException {
+        final var calls = new AtomicInteger();
+        final var sequence = ExSequence.of(IOException.class, 1, 2, 3, 4, 5)
+                .peek(i -> calls.incrementAndGet())
+                .limit(2);
+
+        assertEquals(List.of(1, 2), sequence.toList());
+        assertEquals(2, calls.get());
+        assertEquals(List.of(), sequence.limit(0).toList());
+        assertThrows(IllegalArgumentException.class, () -> sequence.limit(-1));
+    }
+
+    @Test
+    void flatMap() throws IOException {
+        final var sequence = ExSequence.of(IOException.class, 1, 2, 3)
+                .flatMap(i -> ExSequence.of(IOException.class, i, i * 10).limit(i == 2 ? 1 : 2))
+                .limit(4);
+
+        assertEquals(List.of(1, 10, 2, 3), sequence.toList());
+        // traversing a second time gives the same result
+        assertEquals(List.of(1, 10, 2, 3), sequence.toList());
+    }
+
+    @Test
+    void skipTakeWhileDropWhile() throws IOException {
+        final var sequence = ExSequence.of(IOException.class, 1, 2, 3, 4, 5, 1);
+
+        assertEquals(List.of(3, 4, 5, 1), sequence.skip(2).toList());
+        assertEquals(List.of(1, 2), sequence.takeWhile(i -> i < 3).toList());
+        assertEquals(List.of(3, 4, 5, 1), sequence.dropWhile(i -> i < 3).toList());
+        assertEquals(List.of(1, 2, 3, 4, 5), sequence.distinct().toList());
+        assertEquals(List.of(5, 4, 3), sequence.sorted(Comparator.reverseOrder()).limit(3).toList());
+    }
+
+    @Test
+    void terminalOperations() throws IOException {
+        final var sequence = ExSequence.of(IOException.class, 3, 1, 4, 1, 5);
+
+        assertEquals(5, sequence.count());
+        assertEquals(14, sequence.reduce(0, Integer::sum));
+        assertEquals(Optional.of(14), sequence.reduce(Integer::sum));
+        assertEquals(Optional.of(3), sequence.findFirst());
+        assertEquals(Optional.of(1), sequence.min(Comparator.naturalOrder()));
+        assertEquals(Optional.of(5), sequence.max(Comparator.naturalOrder()));
+        assertTrue(sequence.anyMatch(i -> i == 4));
+        assertFalse(sequence.allMatch(i -> i > 1));
+        assertTrue(sequence.noneMatch(i -> i > 5));
+        assertEquals("3,1,4,1,5", sequence.map(String::valueOf).collect(Collectors.joining(",")));
+        assertEquals(List.of(3, 1, 4, 1, 5), sequence.toStream().toList());
+
+        final List<Integer> list = new ArrayList<>();
+        sequence.forEach(list::add);
+        assertEquals(List.of(3, 1, 4, 1, 5), list);
+    }
+
+    @Test
+    void empty() throws IOException {
+        final ExSequence<String, IOException> sequence = ExSequence.empty();
+
+        assertEquals(Optional.empty(), sequence.findFirst());
+        assertEquals(Optional.empty(), sequence.reduce((a, b) -> a + b));
+        assertTrue(sequence.allMatch(s -> false));
+    }
+
+    @Test
+    void ofExIterable() throws IOException {
+        final ExSequence<Integer, IOException> sequence = ExSequence.of(() -> ExIterator.of(List.of(1, 2, 3).iterator(), IOException.class));
+
+        assertEquals(6, sequence.reduce(0, Integer::sum));
+        assertEquals(6, sequence.reduce(0, Integer::sum));
+    }
+
+}
@@ -0,0 +1,93 @@
+package net.dapete.exceptional.stream;
+
+import net.dapete.exceptional.function.ExFunction;
+import net.dapete.exceptional.function.ExPredicate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Simple benchmark comparing the fused checked stages of {@link ExStream} with a separate stream stage for each wrapped functional interface, as
+ * {@link ExStream} added them before. Run its {@code main} method directly, it is not a test.
+ * <p>
+ * Each iteration runs a pipeline of six checked {@code map} and {@code filter} stages over a list. The results are summed to keep the JIT from removing the
+ * work.
+ */
+public final class ExStreamFusionBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 10;
+
+    private static final int ELEMENTS = 10_000_000;
+
+    private static final ExFunction<Integer, Integer, IOException> INCREMENT = ExStreamFusionBenchmark::increment;
+
+    private static final ExPredicate<Integer, IOException> NOT_DIVISIBLE_BY_7 = i -> i % 7 != 0;
+
+    // Utility class with private constructor
+    private ExStreamFusionBenchmark() {
+    }
+
+    private static int increment(int i) throws IOException {
+        if (i < 0) {
+            throw new IOException("negative");
+        }
+        return i + 1;
+    }
+
+    private static long fused(List<Integer> input) {
+        return ExStream.of(input)
+                .map(IOException.class, INCREMENT)
+                .filter(IOException.class, NOT_DIVISIBLE_BY_7)
+                .map(IOException.class, INCREMENT)
+                .map(IOException.class, i -> i * 3)
+                .filter(IOException.class, i -> i % 5 != 0)
+                .map(IOException.class, INCREMENT)
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private static long separate(List<Integer> input) {
+        return input.stream()
+                .map(INCREMENT.wrap())
+                .filter(NOT_DIVISIBLE_BY_7.wrap())
+                .map(INCREMENT.wrap())
+                .map(((ExFunction<Integer, Integer, IOException>) i -> i * 3).wrap())
+                .filter(((ExPredicate<Integer, IOException>) i -> i % 5 != 0).wrap())
+                .map(INCREMENT.wrap())
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    public static void main(String[] args) {
+        for (final int size : new int[]{10, 1_000, 100_000}) {
+            final List<Integer> input = IntStream.range(0, size).boxed().toList();
+            final int iterations = Math.max(1, ELEMENTS / size);
+            long blackhole = 0;
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += fused(input) + separate(input);
+                }
+            }
+            long fusedNanos = Long.MAX_VALUE;
+            long separateNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += fused(input);
+                }
+                fusedNanos = Math.min(fusedNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    blackhole += separate(input);
+                }
+                separateNanos = Math.min(separateNanos, System.nanoTime() - start);
+            }
+            System.out.printf("size %7d: fused %8.2f ns/element, separate %8.2f ns/element (%d)%n",
+                    size, (double) fusedNanos / ELEMENTS, (double) separateNanos / ELEMENTS, blackhole % 10);
+        }
+    }
+
+}
@@ -1,12 +1,41 @@
 package net.dapete.exceptional.stream;
 
 import net.dapete.exceptional.ExException;
+import net.dapete.exceptional.concurrent.ExFailureMode;
 import net.dapete.exceptional.wrap.ExUnwrapper;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -64,4 +93,797 @@ class ExStreamTest {
                 });
     }
 
+    @Test
+    void chunked() {
+        final var result = ExStream.of(1, 2, 3, 4, 5).chunked(2).toList();
+
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), result);
+    }
+
+    @Test
+    void chunked_parallel() {
+        for (int size = 1; size < 20; size++) {
+            for (final int count : new int[]{0, 1, 999, 1_000, 1_001}) {
+                final var result = ExStream.of(IntStream.range(0, count)).parallel().chunked(size).toList();
+
+                assertEquals(windows(count, size, size, true), result, "size " + size + ", count " + count);
+            }
+        }
+    }
+
+    @Test
+    void chunked_invalidSize() {
+        final var stream = ExStream.of(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> stream.chunked(0));
+    }
+
+    @Test
+    void windowed() {
+        assertEquals(List.of(List.of(1, 2, 3), List.of(2, 3, 4), List.of(3, 4, 5)), ExStream.of(1, 2, 3, 4, 5).windowed(3, 1).toList());
+        assertEquals(List.of(List.of(1, 2), List.of(4, 5)), ExStream.of(1, 2, 3, 4, 5, 6).windowed(2, 3).toList());
+        assertEquals(List.of(), ExStream.of(1, 2).windowed(3, 1).toList());
+    }
+
+    @Test
+    void windowed_parallel() {
+        for (int size = 1; size < 8; size++) {
+            for (int step = 1; step < 8; step++) {
+                for (final int count : new int[]{0, 5, 999, 1_000}) {
+                    final var result = ExStream.of(IntStream.range(0, count)).parallel().windowed(size, step).toList();
+
+                    assertEquals(windows(count, size, step, false), result, "size " + size + ", step " + step + ", count " + count);
+                }
+            }
+        }
+    }
+
+    @Test
+    void windowed_exception() {
+        final var thrown = assertThrows(ExException.class,
+                () -> ExStream.of(1, 2, 3)
+                        .map(IOException.class, t -> {
+                            throw new IOException("Test");
+                        })
+                        .windowed(2, 1)
+                        .toList());
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void chunked_close() {
+        final var closed = new AtomicBoolean();
+
+        ExStream.of(1, 2, 3).onClose(() -> closed.set(true)).chunked(2).close();
+
+        assertTrue(closed.get());
+    }
+
+    private static List<List<Integer>> windows(int count, int size, int step, boolean partial) {
+        final List<List<Integer>> windows = new ArrayList<>();
+        for (int start = 0; start < count; start += step) {
+            if (start + size <= count || partial) {
+                windows.add(IntStream.range(start, Math.min(start + size, count)).boxed().toList());
+            }
+        }
+        return windows;
+    }
+
+    @Test
+    void instrumented() {
+        final var stream = ExStream.of(IntStream.range(0, 10_000)).instrumented("job");
+
+        final long sum = stream
+                .parallel()
+                .filter(IOException.class, i -> i % 2 == 0)
+                .map(IOException.class, i -> i * 2)
+                .mapToLong(IOException.class, i -> i)
+                .filter(IOException.class, i -> i < 10_000)
+                .sum();
+
+        final var report = stream.report();
+        assertEquals(12_495_000, sum);
+        assertEquals("job", report.name());
+        assertEquals(List.of("filter", "map", "mapToLong", "filter"), report.stages().stream().map(ExStreamReport.Stage::name).toList());
+        assertStage(report.stages().get(0), 10_000, 5_000, 0);
+        assertStage(report.stages().get(1), 5_000, 5_000, 0);
+        assertStage(report.stages().get(2), 5_000, 5_000, 0);
+        assertStage(report.stages().get(3), 5_000, 2_500, 0);
+    }
+
+    @Test
+    void instrumented_failures() {
+        final var stream = ExStream.of(1, 2, 3).instrumented("job");
+
+        assertThrows(ExException.class, () -> stream
+                .map(IOException.class, i -> {
+                    if (i == 2) {
+                        throw new IOException();
+                    }
+                    return i;
+                })
+                .toList());
+
+        assertStage(stream.report().stages().get(0), 2, 1, 1);
+    }
+
+    @Test
+    void instrumented_onlyLaterStages() {
+        final var stream = ExStream.of(1, 2, 3).map(IOException.class, i -> i + 1).instrumented("job");
+
+        stream.forEach(IOException.class, i -> {
+        });
+
+        assertEquals(List.of("forEach"), stream.report().stages().stream().map(ExStreamReport.Stage::name).toList());
+        assertTrue(stream.report().toString().startsWith("job"));
+    }
+
+    @Test
+    void report_notInstrumented() {
+        final var stream = ExStream.of(1, 2, 3);
+
+        assertThrows(IllegalStateException.class, stream::report);
+    }
+
+    private static void assertStage(ExStreamReport.Stage stage, long in, long out, long failures) {
+        assertEquals(in, stage.in(), stage.name() + " in");
+        assertEquals(out, stage.out(), stage.name() + " out");
+        assertEquals(failures, stage.failures(), stage.name() + " failures");
+    }
+
+    @Test
+    void forEachOrdered_window() {
+        final var produced = new AtomicInteger();
+        final var maxBuffered = new AtomicInteger();
+        final List<Integer> consumed = new ArrayList<>();
+
+        ExStream.of(IntStream.range(0, 10_000))
+                .parallel()
+                .map(InterruptedException.class, i -> {
+                    if (i == 0) {
+                        // make the first split slow, so later elements would pile up without a window
+                        Thread.sleep(100);
+                    }
+                    produced.incrementAndGet();
+                    return i;
+                })
+                .forEachOrdered(IOException.class, 16, i -> {
+                    maxBuffered.accumulateAndGet(produced.get() - consumed.size(), Math::max);
+                    consumed.add(i);
+                });
+
+        assertEquals(IntStream.range(0, 10_000).boxed().toList(), consumed);
+        // each worker may have produced one more element, which is waiting for space in the buffer
+        assertTrue(maxBuffered.get() <= 16 + Runtime.getRuntime().availableProcessors() + 1, "max buffered " + maxBuffered.get());
+    }
+
+    @Test
+    void forEachOrdered_windowActionException() {
+        final var stream = ExStream.of(IntStream.range(0, 10_000)).parallel();
+
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> stream.forEachOrdered(IOException.class, 8, i -> {
+                    if (i == 5_000) {
+                        throw new IOException("Test");
+                    }
+                })));
+
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void forEachOrdered_windowStageException() {
+        final List<Integer> consumed = new ArrayList<>();
+
+        final var thrown = assertThrows(ExException.class, () -> ExStream.of(IntStream.range(0, 10_000))
+                .parallel()
+                .map(IOException.class, i -> {
+                    if (i == 9_000) {
+                        throw new IOException("Test");
+                    }
+                    return i;
+                })
+                .forEachOrdered(IOException.class, 8, consumed::add));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+        // elements before the failure may have been consumed, but only in order
+        assertEquals(IntStream.range(0, consumed.size()).boxed().toList(), consumed);
+    }
+
+    @Test
+    void forEachOrdered_windowSequential() {
+        final List<Integer> consumed = new ArrayList<>();
+
+        ExStream.of(1, 2, 3).forEachOrdered(IOException.class, 1, consumed::add);
+
+        assertEquals(List.of(1, 2, 3), consumed);
+        assertThrows(IllegalArgumentException.class, () -> ExStream.of(1).forEachOrdered(IOException.class, 0, consumed::add));
+    }
+
+    @Test
+    void forEachConcurrent() {
+        final var running = new AtomicInteger();
+        final var maxRunning = new AtomicInteger();
+        final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+
+        ExStream.of(IntStream.range(0, 40)).forEachConcurrent(InterruptedException.class, 8, i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            processed.add(i);
+        });
+
+        assertEquals(40, processed.size());
+        assertTrue(maxRunning.get() > 1, "max running " + maxRunning.get());
+        assertTrue(maxRunning.get() <= 8, "max running " + maxRunning.get());
+    }
+
+    @Test
+    void forEachConcurrent_failFast() {
+        final var processed = new AtomicInteger();
+        final var stream = ExStream.of(IntStream.range(0, 1_000));
+
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> stream.forEachConcurrent(IOException.class, 4, i -> {
+                    if (i == 10) {
+                        throw new IOException("Test");
+                    }
+                    processed.incrementAndGet();
+                })));
+
+        assertEquals("Test", thrown.getMessage());
+        assertTrue(processed.get() < 999, "processed " + processed.get());
+    }
+
+    @Test
+    void forEachConcurrent_collectAll() {
+        final var processed = new AtomicInteger();
+        final var stream = ExStream.of(IntStream.range(0, 100));
+
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> stream.forEachConcurrent(IOException.class, 4, ExFailureMode.COLLECT_ALL, i -> {
+                    if (i % 10 == 0) {
+                        throw new IOException("Test " + i);
+                    }
+                    processed.incrementAndGet();
+                })));
+
+        assertEquals(90, processed.get());
+        assertEquals(9, thrown.getSuppressed().length);
+        assertInstanceOf(IOException.class, thrown.getSuppressed()[0]);
+    }
+
+    @Test
+    void forEachConcurrent_collectAllSameException() {
+        final var exception = new IOException("Test");
+        final var stream = ExStream.of(IntStream.range(0, 100));
+        // a failure to add the exception as suppressed to itself would only be seen by the task threads
+        final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        final Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> uncaught.add(e));
+        try {
+            final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                    .unwrap(() -> stream.forEachConcurrent(IOException.class, 4, ExFailureMode.COLLECT_ALL, i -> {
+                        if (i % 10 == 0) {
+                            throw exception;
+                        }
+                    })));
+
+            assertSame(exception, thrown);
+            assertEquals(0, thrown.getSuppressed().length);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        assertEquals(List.of(), uncaught);
+    }
+
+    @Test
+    void forEachConcurrent_invalidParallelism() {
+        final var stream = ExStream.of(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> stream.forEachConcurrent(IOException.class, 0, i -> {
+        }));
+    }
+
+    @Test
+    void fusedStages() {
+        final List<String> peeked = new ArrayList<>();
+
+        final List<Integer> result = ExStream.of("a", "bb", "", "ccc", "dddd")
+                .filter(IOException.class, s -> s.length() != 2)
+                .map(IOException.class, String::toUpperCase)
+                .peek(IOException.class, peeked::add)
+                .map(IOException.class, String::length)
+                .toList();
+
+        assertEquals(List.of(1, 0, 3, 4), result);
+        assertEquals(List.of("A", "", "CCC", "DDDD"), peeked);
+    }
+
+    @Test
+    void fusedStages_withOtherStages() {
+        assertEquals(List.of(4, 8), ExStream.of(1, 2, 3, 4)
+                .map(IOException.class, i -> i * 2)
+                .filter(i -> i % 4 == 0)
+                .map(IOException.class, i -> i)
+                .toList());
+        assertEquals(List.of(2, 4, 6), ExStream.of(3, 1, 2)
+                .map(IOException.class, i -> i * 2)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    void fusedStages_parallel() {
+        final List<Integer> result = ExStream.of(IntStream.range(0, 10_000))
+                .parallel()
+                .map(IOException.class, i -> i + 1)
+                .filter(IOException.class, i -> i % 2 == 0)
+                .toList();
+
+        assertEquals(IntStream.rangeClosed(1, 10_000).filter(i -> i % 2 == 0).boxed().toList(), result);
+    }
+
+    @Test
+    void fusedStages_exceptionStopsLaterStages() {
+        final var peeked = new AtomicInteger();
+
+        final var thrown = assertThrows(ExException.class, () -> ExStream.of(1, 2, 3)
+                .map(IOException.class, i -> i)
+                .filter(IOException.class, i -> {
+                    if (i == 2) {
+                        throw new IOException("Test");
+                    }
+                    return true;
+                })
+                .peek(IOException.class, i -> peeked.incrementAndGet())
+                .toList());
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+        assertEquals(1, peeked.get());
+    }
+
+    @Test
+    void fusedStages_reuse() {
+        final var stream = ExStream.of(1, 2, 3).map(IOException.class, i -> i);
+        @SuppressWarnings("unused") final var derived = stream.map(IOException.class, i -> i);
+
+        assertThrows(IllegalStateException.class, () -> stream.map(IOException.class, i -> i));
+        assertThrows(IllegalStateException.class, stream::toList);
+    }
+
+    @Test
+    void fusedStages_close() {
+        final var closed = new AtomicBoolean();
+
+        try (var stream = ExStream.of(1, 2, 3).onClose(() -> closed.set(true)).map(IOException.class, i -> i)) {
+            assertEquals(List.of(1, 2, 3), stream.toList());
+        }
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void fusedStages_closeSource() {
+        final var closed = new AtomicInteger();
+
+        try (var stream = ExStream.of(Stream.of(1, 2, 3).onClose(closed::incrementAndGet))) {
+            assertFalse(stream.isParallel());
+            assertEquals(List.of(2), stream.map(IOException.class, i -> i + 1).filter(IOException.class, i -> i == 2).toList());
+            assertFalse(stream.isParallel());
+        }
+        try (var stream = ExStream.of(Stream.of(1, 2, 3).onClose(closed::incrementAndGet)).map(IOException.class, i -> i)) {
+            assertEquals(List.of(1), stream.filter(IOException.class, i -> i == 1).toList());
+        }
+
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    void lines_closeAfterCheckedStages(@TempDir Path tempDir) throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.write(file, List.of("1", "2"));
+        final var closed = new AtomicBoolean();
+
+        try (var lines = ExStream.lines(file).onClose(() -> closed.set(true))) {
+            assertEquals(List.of(1, 2), lines.map(IOException.class, Integer::parseInt).toList());
+        }
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void lines(@TempDir Path tempDir) throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.write(file, IntStream.range(0, 100_000).mapToObj(i -> "line " + i).toList());
+
+        try (var lines = ExStream.lines(file)) {
+            assertEquals(100_000, lines.parallel().map(IOException.class, s -> Integer.parseInt(s.substring(5))).distinct().count());
+        }
+    }
+
+    @Test
+    void lines_otherCharset(@TempDir Path tempDir) throws IOException {
+        final Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, "a\nb\r\nc", StandardCharsets.UTF_16LE);
+
+        try (var lines = ExStream.lines(file, StandardCharsets.UTF_16LE)) {
+            assertEquals(List.of("a", "b", "c"), lines.toList());
+        }
+    }
+
+    @Test
+    void lines_missingFile(@TempDir Path tempDir) {
+        assertThrows(NoSuchFileException.class, () -> ExStream.lines(tempDir.resolve("missing.txt")));
+    }
+
+    @Test
+    void distinctBy() {
+        assertEquals(List.of("a", "bb", "ccc"), ExStream.of("a", "bb", "b", "ccc", "dd").distinctBy(IOException.class, String::length).toList());
+        assertEquals(List.of("a", "bb", "b"), ExStream.of("a", "bb", "ccc", "b").distinctBy(IOException.class, s -> s.length() > 1 ? null : s).toList());
+        assertEquals(10_000, ExStream.of(IntStream.range(0, 100_000)).parallel().distinctBy(IOException.class, i -> i % 10_000).count());
+    }
+
+    @Test
+    void distinctBy_exception() {
+        final var thrown = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> ExStream.of(1, 2, 3).distinctBy(IOException.class, i -> {
+                    throw new IOException("Test");
+                }).toList()));
+
+        assertEquals("Test", thrown.getMessage());
+    }
+
+    @Test
+    void distinctBy_bounded() {
+        // few keys are kept exactly
+        assertEquals(List.of(0, 1, 2), ExStream.of(0, 1, 2, 0, 1, 2).distinctBy(IOException.class, i -> i, 1_000_000, 0.01).toList());
+
+        // many keys are added to the filter, which never keeps duplicates, but drops about 1% of the new keys
+        final long count = ExStream.of(IntStream.range(0, 400_000)).parallel().distinctBy(IOException.class, i -> i % 200_000, 200_000, 0.01).count();
+        assertTrue(count <= 200_000 && count > 196_000, "count " + count);
+    }
+
+    @Test
+    void distinctBy_invalidArguments() {
+        final var stream = ExStream.of(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> stream.distinctBy(IOException.class, i -> i, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> stream.distinctBy(IOException.class, i -> i, 1_000, 1.0));
+    }
+
+    @Test
+    void sorted_comparator() {
+        assertEquals(List.of(3, 2, 1), ExStream.of(2, 3, 1).sorted(IOException.class, (i1, i2) -> Integer.compare(i2, i1)).toList());
+    }
+
+    private static SortOptions<int[]> pairOptions(int maxElementsInMemory, Path tempDir) {
+        return SortOptions.<int[]>of(maxElementsInMemory, (pair, output) -> {
+            output.writeInt(pair[0]);
+            output.writeInt(pair[1]);
+        }, input -> new int[]{input.readInt(), input.readInt()}).withTempDirectory(tempDir);
+    }
+
+    @Test
+    void sorted_external(@TempDir Path tempDir) throws IOException {
+        // pairs of a key and their index, sorted by key only, in more runs than are merged at once
+        final List<int[]> pairs = IntStream.range(0, 10_000).mapToObj(i -> new int[]{(i * 7_919) % 1_000, i}).toList();
+        final List<String> expected = pairs.stream().sorted(Comparator.comparingInt(pair -> pair[0])).map(Arrays::toString).toList();
+
+        for (final boolean parallel : new boolean[]{false, true}) {
+            final var stream = parallel ? ExStream.of(pairs).parallel() : ExStream.of(pairs);
+            try (var sorted = stream.sorted(IOException.class, (pair1, pair2) -> Integer.compare(pair1[0], pair2[0]), pairOptions(100, tempDir))) {
+                assertEquals(expected, sorted.map(Arrays::toString).toList());
+            }
+            try (var files = Files.list(tempDir)) {
+                assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test
+    void sorted_externalInMemory(@TempDir Path tempDir) throws IOException {
+        assertEquals(List.of("[1, 0]", "[2, 1]"), ExStream.of(new int[]{2, 1}, new int[]{1, 0})
+                .sorted(IOException.class, (pair1, pair2) -> Integer.compare(pair1[0], pair2[0]), pairOptions(100, tempDir))
+                .map(Arrays::toString)
+                .toList());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sorted_externalClose(@TempDir Path tempDir) throws IOException {
+        try (var sorted = ExStream.of(IntStream.range(0, 1_000)).map(i -> new int[]{-i, i})
+                .sorted(IOException.class, (pair1, pair2) -> Integer.compare(pair1[0], pair2[0]), pairOptions(100, tempDir))) {
+            assertEquals(999, sorted.iterator().next()[1]);
+            try (var files = Files.list(tempDir)) {
+                assertEquals(10, files.count());
+            }
+        }
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sorted_externalExceptions(@TempDir Path tempDir) throws IOException {
+        final var comparatorFailure = assertThrows(SQLException.class, () -> ExUnwrapper.of(SQLException.class, IOException.class)
+                .unwrap(() -> ExStream.of(IntStream.range(0, 1_000)).map(i -> new int[]{i, i})
+                        .sorted(SQLException.class, (pair1, pair2) -> {
+                            throw new SQLException("Test");
+                        }, pairOptions(100, tempDir))
+                        .toList()));
+        assertEquals("Test", comparatorFailure.getMessage());
+
+        final var options = SortOptions.<int[]>of(100, (pair, output) -> output.writeInt(pair[0]), input -> {
+            throw new IOException("Test");
+        }).withTempDirectory(tempDir);
+        final var readFailure = assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class)
+                .unwrap(() -> {
+                    try (var sorted = ExStream.of(IntStream.range(0, 1_000)).map(i -> new int[]{i, i})
+                            .sorted(IOException.class, (pair1, pair2) -> Integer.compare(pair1[0], pair2[0]), options)) {
+                        return sorted.toList();
+                    }
+                }));
+        assertEquals("Test", readFailure.getMessage());
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sorted_invalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> SortOptions.<Integer>of(0, (i, output) -> output.writeInt(i), DataInput::readInt));
+    }
+
+    /* Creates 4 directories with 3 subdirectories with 25 files each below root. */
+    private static void createTree(Path root) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                final Path directory = Files.createDirectories(root.resolve("d" + i).resolve("e" + j));
+                for (int k = 0; k < 25; k++) {
+                    Files.createFile(directory.resolve("f" + k));
+                }
+            }
+        }
+    }
+
+    @Test
+    void walk(@TempDir Path tempDir) throws IOException {
+        createTree(tempDir);
+        final Set<Path> expected;
+        try (var paths = Files.walk(tempDir)) {
+            expected = paths.collect(Collectors.toSet());
+        }
+
+        assertEquals(1 + 4 + 12 + 300, expected.size());
+        assertEquals(expected, ExStream.walk(tempDir, Integer.MAX_VALUE, (path, e) -> {
+            throw e;
+        }).collect(Collectors.toSet()));
+        assertEquals(expected, ExStream.walk(tempDir, Integer.MAX_VALUE, (path, e) -> {
+            throw e;
+        }).parallel().collect(Collectors.toSet()));
+    }
+
+    @Test
+    void walk_maxDepth(@TempDir Path tempDir) throws IOException {
+        createTree(tempDir);
+
+        assertEquals(List.of(tempDir), ExStream.walk(tempDir, 0, (path, e) -> {
+            throw e;
+        }).toList());
+        assertEquals(1 + 4 + 12, ExStream.walk(tempDir, 2, (path, e) -> {
+            throw e;
+        }).parallel().count());
+    }
+
+    @Test
+    void walk_errorHandler(@TempDir Path tempDir) throws IOException {
+        Files.createDirectory(tempDir.resolve("a"));
+        Files.createSymbolicLink(tempDir.resolve("a").resolve("loop"), tempDir);
+        final Set<Path> failed = ConcurrentHashMap.newKeySet();
+
+        // the cycle is reported, and the link is returned without its entries
+        final List<Path> paths = ExStream.walk(tempDir, Integer.MAX_VALUE, (path, e) -> {
+            assertInstanceOf(FileSystemLoopException.class, e);
+            failed.add(path);
+        }, FileVisitOption.FOLLOW_LINKS).toList();
+
+        assertEquals(Set.of(tempDir, tempDir.resolve("a"), tempDir.resolve("a").resolve("loop")), Set.copyOf(paths));
+        assertEquals(Set.of(tempDir.resolve("a").resolve("loop")), failed);
+    }
+
+    @Test
+    void walk_skip(@TempDir Path tempDir) {
+        assertEquals(List.of(), ExStream.walk(tempDir.resolve("missing"), Integer.MAX_VALUE, (path, e) -> {
+        }).toList());
+    }
+
+    @Test
+    void walk_abort(@TempDir Path tempDir) {
+        final Path missing = tempDir.resolve("missing");
+        final var stream = ExStream.walk(missing, Integer.MAX_VALUE, (path, e) -> {
+            throw e;
+        });
+
+        final var thrown = assertThrows(NoSuchFileException.class, () -> ExUnwrapper.of(IOException.class).unwrap(stream::toList));
+
+        assertEquals(missing.toString(), thrown.getFile());
+    }
+
+    /* A channel returning at most 3 bytes per read, like a pipe, and failing at the end if failAtEnd is set. */
+    private static ReadableByteChannel trickle(byte[] bytes, boolean failAtEnd) {
+        final ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(bytes));
+        return new ReadableByteChannel() {
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                final ByteBuffer limited = dst.slice(dst.position(), Math.min(3, dst.remaining()));
+                final int read = source.read(limited);
+                if (read < 0 && failAtEnd) {
+                    throw new IOException("Test");
+                }
+                dst.position(dst.position() + Math.max(0, read));
+                return read;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return source.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+
+        };
+    }
+
+    private static byte[] lengthPrefixed(String... records) {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (final String record : records) {
+            final byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static int lengthPrefix(ByteBuffer buffer) {
+        return buffer.remaining() < 4 ? -1 : 4 + buffer.getInt();
+    }
+
+    private static String lengthPrefixedString(ByteBuffer record) {
+        return StandardCharsets.UTF_8.decode(record.position(4)).toString();
+    }
+
+    @Test
+    void fromChannel_chunks() {
+        final List<Boolean> direct = new ArrayList<>();
+
+        try (var stream = ExStream.fromChannel(trickle("abcdefgh".getBytes(StandardCharsets.UTF_8), false), 3, buffer -> {
+            direct.add(buffer.isDirect());
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        })) {
+            assertEquals(List.of("abc", "def", "gh"), stream.toList());
+        }
+        assertEquals(List.of(true, true, true), direct);
+    }
+
+    @Test
+    void fromChannel_records() {
+        final byte[] bytes = lengthPrefixed("first", "", "äöü", "x".repeat(20));
+
+        try (var stream = ExStream.fromChannel(trickle(bytes, false), 32, ExStreamTest::lengthPrefix, ExStreamTest::lengthPrefixedString)) {
+            assertEquals(List.of("first", "", "äöü", "x".repeat(20)), stream.toList());
+        }
+    }
+
+    @Test
+    void fromChannel_readException() {
+        assertThrows(IOException.class, () -> ExUnwrapper.of(IOException.class).unwrap(() -> {
+            try (var stream = ExStream.fromChannel(trickle(new byte[10], true), 4, ByteBuffer::remaining)) {
+                stream.forEach(size -> {
+                });
+            }
+        }));
+    }
+
+    @Test
+    void fromChannel_incompleteRecord() {
+        final byte[] bytes = Arrays.copyOf(lengthPrefixed("first", "second"), 15);
+
+        final var thrown = assertThrows(ExException.class,
+                () -> ExStream.fromChannel(trickle(bytes, false), 32, ExStreamTest::lengthPrefix, ExStreamTest::lengthPrefixedString).toList());
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void fromChannel_recordLargerThanBuffer() {
+        final byte[] bytes = lengthPrefixed("x".repeat(20));
+
+        final var thrown = assertThrows(ExException.class,
+                () -> ExStream.fromChannel(trickle(bytes, false), 16, ExStreamTest::lengthPrefix, ExStreamTest::lengthPrefixedString).toList());
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    /* A stub of a result set with a single int column containing 0 to rows - 1, failing when reaching failAt, and of its statement. */
+    private static ResultSet resultSet(int rows, int fetchSize, int failAt, AtomicBoolean resultSetClosed, AtomicBoolean statementClosed) {
+        final Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        statementClosed.set(true);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        final var row = new AtomicInteger(-1);
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "next" -> {
+                        if (row.incrementAndGet() == failAt) {
+                            throw new SQLException("Test");
+                        }
+                        yield row.get() < rows;
+                    }
+                    case "getInt" -> row.get();
+                    case "getFetchSize" -> fetchSize;
+                    case "getStatement" -> statement;
+                    case "close" -> {
+                        resultSetClosed.set(true);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void fromResultSet() {
+        final var resultSetClosed = new AtomicBoolean();
+        final var statementClosed = new AtomicBoolean();
+
+        try (var stream = ExStream.fromResultSet(resultSet(5, 0, -1, resultSetClosed, statementClosed), rs -> rs.getInt(1))) {
+            assertEquals(List.of(0, 1, 2, 3, 4), stream.toList());
+            assertFalse(resultSetClosed.get());
+        }
+
+        assertTrue(resultSetClosed.get());
+        assertTrue(statementClosed.get());
+    }
+
+    @Test
+    void fromResultSet_parallelBlocks() {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        try (var stream = ExStream.fromResultSet(resultSet(10_000, 100, -1, new AtomicBoolean(), new AtomicBoolean()), rs -> rs.getInt(1))) {
+            final List<Integer> result = stream.parallel()
+                    .peek(i -> threads.add(Thread.currentThread().getName()))
+                    .toList();
+
+            assertEquals(IntStream.range(0, 10_000).boxed().toList(), result);
+        }
+        assertFalse(threads.isEmpty());
+    }
+
+    @Test
+    void fromResultSet_exception() {
+        final var statementClosed = new AtomicBoolean();
+
+        final var thrown = assertThrows(SQLException.class, () -> ExUnwrapper.of(SQLException.class).unwrap(() -> {
+            try (var stream = ExStream.fromResultSet(resultSet(10, 0, 5, new AtomicBoolean(), statementClosed), rs -> rs.getInt(1))) {
+                stream.forEach(i -> {
+                });
+            }
+        }));
+
+        assertEquals("Test", thrown.getMessage());
+        assertTrue(statementClosed.get());
+    }
+
 }